@@ -0,0 +1,381 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import com.lotus.lotusSPM.dao.OfficialLetterDao;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the dashboard counters in memory, maintained from write events rather than rescans.
+ *
+ * Student and official letter writes become deltas that apply once their transaction commits
+ * and are broadcast so every replica converges. A full recount runs at startup and nightly.
+ * Each scan remembers when it started, and a delta is applied to its result only when the
+ * delta committed after that instant; one whose commit straddles the instant may or may not
+ * be in the scan, so it is dropped and another recount is requested. Any drift a recount
+ * corrects is logged. The leader checkpoints each tenant's counters into analytics_snapshots, which is
+ * what the {@link AnalyticsTimeSeries} charts are drawn from. The same deltas keep a
+ * {@link StudentCube} for ad-hoc slicing, as long as it fits {@code app.analytics.cube.max-bytes}.
+ */
+@Component
+public class AnalyticsAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsAggregator.class);
+
+    private static final String CHANNEL = "analytics:deltas";
+    private static final int CHECKPOINTED_COMPANIES = 10;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Value("${app.analytics.cube.max-bytes:67108864}")
+    private long cubeMaxBytes;
+
+    @Value("${app.analytics.clock-skew-millis:500}")
+    private long clockSkewMillis;
+
+    @Autowired
+    private AnalyticsRepository analyticsRepository;
+
+    @Autowired
+    private AnalyticsSnapshotWriter snapshotWriter;
+
+    @Autowired
+    private OfficialLetterDao officialLetterDao;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AnalyticsSketches analyticsSketches;
+
+    private final Object recountLock = new Object();
+    private volatile AnalyticsCounters counters;
+    // Null when the students do not fit the cube's budget; slices then go to the database
+    private volatile StudentCube cube;
+    // Non-null while a recount is running; guarded by this
+    private List<Received> pendingDuringRecount;
+    // Where the scans behind the current counters started; guarded by this
+    private long studentsScannedAt;
+    private long lettersScannedAt;
+    private volatile boolean recountRequested;
+
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() {
+        AnalyticsWriteListener listener = new AnalyticsWriteListener(this::onLocalWrite, () -> recountRequested = true);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+
+        clusterEventBus.subscribe(CHANNEL, this::onRemoteDelta);
+
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "analytics-checkpoint", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+
+        Thread loader = new Thread(this::recountQuietly, "analytics-aggregator-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    public boolean isReady() {
+        return counters != null;
+    }
+
+    /**
+     * Breakdown for the current tenant, or across all tenants when none is set.
+     */
+    public StudentBreakdown getStudentBreakdown() {
+        return loaded().students(TenantContext.getCurrentTenant());
+    }
+
+    public List<Map<String, Object>> getTopCompanies(int limit) {
+        return loaded().topCompanies(limit);
+    }
+
+    /**
+     * Answers the slice from memory, or returns null when the cube is over its budget.
+     */
+    public CubeResult sliceStudents(CubeQuery query) {
+        loaded();
+        StudentCube current = cube;
+        return current != null ? current.query(query) : null;
+    }
+
+    /**
+     * Rebuild every counter from the tables and replace the in-memory state.
+     */
+    public void recount() {
+        synchronized (recountLock) {
+            recountRequested = false;
+            synchronized (this) {
+                pendingDuringRecount = new ArrayList<>();
+            }
+            AnalyticsCounters fresh = new AnalyticsCounters(analyticsRepository.getPlacedStatuses());
+            StudentCube freshCube = new StudentCube(cubeMaxBytes);
+            long studentsAt;
+            long lettersAt;
+            try {
+                // Each query reads a snapshot taken when it starts
+                studentsAt = System.currentTimeMillis();
+                analyticsRepository.forEachStudentCell((cell, count) -> {
+                    fresh.addStudents(cell, count);
+                    freshCube.add(cell, count);
+                });
+                lettersAt = System.currentTimeMillis();
+                for (Object[] row : officialLetterDao.countByCompanyAndUsername()) {
+                    fresh.addLetters((String) row[0], (String) row[1], ((Number) row[2]).intValue());
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingDuringRecount = null;
+                }
+                throw e;
+            }
+            AnalyticsCounters previous;
+            synchronized (this) {
+                for (Received received : pendingDuringRecount) {
+                    if (newerThanScan(received.delta, studentsAt, lettersAt, received.marginMillis)) {
+                        fresh.apply(received.delta);
+                        freshCube.apply(received.delta);
+                    }
+                }
+                pendingDuringRecount = null;
+                studentsScannedAt = studentsAt;
+                lettersScannedAt = lettersAt;
+                previous = counters;
+                counters = fresh;
+                cube = freshCube.isComplete() ? freshCube : null;
+            }
+            logDrift(previous, fresh);
+            if (freshCube.isComplete()) {
+                logger.debug("Student cube holds {} cells in about {} KB", freshCube.cellCount(),
+                    freshCube.estimatedBytes() / 1024);
+            } else {
+                logger.warn("Student cells exceed the cube budget of {} bytes; slices will query the database",
+                    cubeMaxBytes);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${app.analytics.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        recountQuietly();
+    }
+
+    /**
+     * Write today's values for every tenant. Any replica that saw an update it could not turn
+     * into a delta recounts here first.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.checkpoint-interval-millis:300000}",
+        initialDelayString = "${app.analytics.checkpoint-interval-millis:300000}")
+    public void checkpoint() {
+        if (recountRequested || counters == null) {
+            recountQuietly();
+        }
+        if (!isLeader()) {
+            return;
+        }
+        AnalyticsCounters current = counters;
+        if (current == null) {
+            return;
+        }
+        Map<String, StudentBreakdown> tenants = current.studentsByTenant();
+        try {
+            List<AnalyticsSnapshotWriter.Point> points = new ArrayList<>();
+            for (Map.Entry<String, StudentBreakdown> entry : tenants.entrySet()) {
+                String tenant = entry.getKey();
+                StudentBreakdown breakdown = entry.getValue();
+                points.add(point(tenant, "students.total", breakdown.getTotal(), null));
+                points.add(point(tenant, "students.placed", breakdown.getPlaced(), null));
+                points.add(point(tenant, "students.by_faculty", breakdown.getTotal(), breakdown.getByFaculty()));
+                points.add(point(tenant, "students.by_department", breakdown.getTotal(), breakdown.getByDepartment()));
+                points.add(point(tenant, "students.by_status", breakdown.getTotal(), breakdown.getByInternshipStatus()));
+            }
+            List<Map<String, Object>> companies = current.topCompanies(CHECKPOINTED_COMPANIES);
+            points.add(point(null, "companies.top", companies.size(), companies));
+            int written = snapshotWriter.write(LocalDate.now(), points);
+            logger.debug("Analytics checkpoint for {} tenants wrote {} rows", tenants.size(), written);
+        } catch (Exception e) {
+            logger.error("Analytics checkpoint failed", e);
+        }
+    }
+
+    private AnalyticsSnapshotWriter.Point point(String tenant, String metric, long value, Object metadata)
+        throws JsonProcessingException {
+        return new AnalyticsSnapshotWriter.Point(tenant, metric, value,
+            metadata != null ? objectMapper.writeValueAsString(metadata) : null);
+    }
+
+    private void onLocalWrite(AnalyticsDelta flushed) {
+        afterCommit(() -> {
+            AnalyticsDelta delta = flushed.committed(System.currentTimeMillis());
+            apply(delta, 0);
+            if (delta.getKind() == AnalyticsDelta.Kind.LETTER) {
+                analyticsSketches.recordLetters(delta.getCompany(), delta.getChange());
+            }
+            try {
+                clusterEventBus.publish(CHANNEL, objectMapper.writeValueAsString(delta));
+            } catch (JsonProcessingException e) {
+                logger.warn("Could not broadcast analytics delta: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void onRemoteDelta(String payload) {
+        try {
+            apply(objectMapper.readValue(payload, AnalyticsDelta.class), clockSkewMillis);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed analytics delta: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param marginMillis how far the writer's clock may be from ours
+     */
+    private synchronized void apply(AnalyticsDelta delta, long marginMillis) {
+        if (pendingDuringRecount != null) {
+            pendingDuringRecount.add(new Received(delta, marginMillis));
+        }
+        // A remote delta can arrive after a scan that already counted it
+        if (counters == null || !newerThanScan(delta, studentsScannedAt, lettersScannedAt, marginMillis)) {
+            return;
+        }
+        counters.apply(delta);
+        StudentCube current = cube;
+        if (current != null) {
+            current.apply(delta);
+            if (!current.isComplete()) {
+                logger.warn("Student cube outgrew its budget of {} bytes; slices will query the database", cubeMaxBytes);
+                cube = null;
+            }
+        }
+    }
+
+    private boolean newerThanScan(AnalyticsDelta delta, long studentsAt, long lettersAt, long marginMillis) {
+        long scannedAt = delta.getKind() == AnalyticsDelta.Kind.STUDENT ? studentsAt : lettersAt;
+        switch (delta.orderAgainst(scannedAt, marginMillis)) {
+            case AFTER:
+                return true;
+            case BEFORE:
+                return false;
+            default:
+                logger.debug("Analytics delta committed while a scan started; recounting at the next checkpoint");
+                recountRequested = true;
+                return false;
+        }
+    }
+
+    private AnalyticsCounters loaded() {
+        AnalyticsCounters current = counters;
+        if (current != null) {
+            return current;
+        }
+        // First read before the startup recount finished: wait for it, or run it here
+        synchronized (recountLock) {
+            if (counters == null) {
+                recount();
+            }
+            return counters;
+        }
+    }
+
+    private void recountQuietly() {
+        try {
+            recount();
+        } catch (Exception e) {
+            logger.error("Analytics recount failed", e);
+        }
+    }
+
+    private static void logDrift(AnalyticsCounters previous, AnalyticsCounters fresh) {
+        StudentBreakdown now = fresh.students(null);
+        if (previous == null) {
+            logger.info("Analytics counters loaded: {} students, {} placed", now.getTotal(), now.getPlaced());
+            return;
+        }
+        StudentBreakdown before = previous.students(null);
+        if (before.getTotal() != now.getTotal() || before.getPlaced() != now.getPlaced()
+            || !before.getByInternshipStatus().equals(now.getByInternshipStatus())) {
+            logger.warn("Analytics recount corrected drift: total {} -> {}, placed {} -> {}",
+                before.getTotal(), now.getTotal(), before.getPlaced(), now.getPlaced());
+        }
+    }
+
+    private boolean isLeader() {
+        return lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+    }
+
+    private static final class Received {
+
+        final AnalyticsDelta delta;
+        final long marginMillis;
+
+        Received(AnalyticsDelta delta, long marginMillis) {
+            this.delta = delta;
+            this.marginMillis = marginMillis;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.lotus.lotusSPM.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory dashboard counters: a {@link StudentBreakdown} per tenant plus one across all
+ * tenants, and distinct students per company from official letters.
+ *
+ * Every delta touches a constant number of map entries, and reads copy the marginals, so
+ * neither depends on how many students exist. Tenant {@code null} reads the all-tenant view.
+ */
+class AnalyticsCounters {
+
+    private final Set<String> placedStatuses;
+    private final StudentBreakdown all = new StudentBreakdown();
+    private final Map<String, StudentBreakdown> byTenant = new HashMap<>();
+    // company -> username -> letters; a company's student count is its inner map's size
+    private final Map<String, Map<String, Integer>> letters = new HashMap<>();
+    private List<Map<String, Object>> rankedCompanies;
+
+    AnalyticsCounters(Set<String> placedStatuses) {
+        this.placedStatuses = placedStatuses;
+    }
+
+    synchronized void addStudents(StudentCell cell, long count) {
+        all.add(cell.getFaculty(), cell.getDepartment(), cell.getStatus(), count, placedStatuses);
+        byTenant.computeIfAbsent(cell.getTenant(), t -> new StudentBreakdown())
+            .add(cell.getFaculty(), cell.getDepartment(), cell.getStatus(), count, placedStatuses);
+    }
+
+    synchronized void addLetters(String company, String username, int count) {
+        if (company == null || username == null) {
+            return;
+        }
+        Map<String, Integer> students = letters.computeIfAbsent(company, c -> new HashMap<>());
+        students.compute(username, (u, letters) -> {
+            int next = (letters == null ? 0 : letters) + count;
+            return next > 0 ? next : null;
+        });
+        if (students.isEmpty()) {
+            letters.remove(company);
+        }
+        rankedCompanies = null;
+    }
+
+    synchronized void apply(AnalyticsDelta delta) {
+        if (delta.getKind() == AnalyticsDelta.Kind.LETTER) {
+            addLetters(delta.getCompany(), delta.getUsername(), delta.getChange());
+            return;
+        }
+        if (delta.getBefore() != null) {
+            addStudents(delta.getBefore(), -1);
+        }
+        if (delta.getAfter() != null) {
+            addStudents(delta.getAfter(), 1);
+        }
+    }
+
+    synchronized StudentBreakdown students(String tenant) {
+        if (tenant == null) {
+            return all.copy();
+        }
+        StudentBreakdown breakdown = byTenant.get(tenant);
+        return breakdown != null ? breakdown.copy() : new StudentBreakdown();
+    }
+
+    /**
+     * A copy of every tenant's breakdown; students without a tenant are under the null key.
+     */
+    synchronized Map<String, StudentBreakdown> studentsByTenant() {
+        Map<String, StudentBreakdown> copy = new HashMap<>();
+        for (Map.Entry<String, StudentBreakdown> entry : byTenant.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Companies by distinct students with letters, most first; ranked lazily after changes.
+     */
+    synchronized List<Map<String, Object>> topCompanies(int limit) {
+        if (rankedCompanies == null) {
+            List<Map.Entry<String, Map<String, Integer>>> entries = new ArrayList<>(letters.entrySet());
+            entries.sort((a, b) -> a.getValue().size() == b.getValue().size()
+                ? a.getKey().compareTo(b.getKey()) : Integer.compare(b.getValue().size(), a.getValue().size()));
+            List<Map<String, Object>> ranked = new ArrayList<>(entries.size());
+            for (Map.Entry<String, Map<String, Integer>> entry : entries) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("company", entry.getKey());
+                row.put("students", (long) entry.getValue().size());
+                ranked.add(Collections.unmodifiableMap(row));
+            }
+            rankedCompanies = ranked;
+        }
+        return new ArrayList<>(rankedCompanies.subList(0, Math.min(limit, rankedCompanies.size())));
+    }
+}
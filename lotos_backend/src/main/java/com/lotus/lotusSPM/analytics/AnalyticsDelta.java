@@ -0,0 +1,115 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One committed change to the data behind the dashboards, small enough to fan out to other
+ * replicas as JSON.
+ *
+ * A student delta moves one student from {@code before} to {@code after}; either side is
+ * null for inserts and deletes. A letter delta adds or retracts one official letter for a
+ * (company, student) pair.
+ *
+ * Each delta is stamped when it is flushed and again once its transaction commits, which
+ * brackets the commit on the writer's clock. A recount uses the bracket to tell whether its
+ * scan already saw the change.
+ */
+public final class AnalyticsDelta {
+
+    public enum Kind { STUDENT, LETTER }
+
+    /**
+     * Where the commit falls relative to an instant; UNKNOWN when the bracket straddles it.
+     */
+    public enum Order { BEFORE, AFTER, UNKNOWN }
+
+    private final Kind kind;
+    private final StudentCell before;
+    private final StudentCell after;
+    private final String company;
+    private final String username;
+    private final int change;
+    private final long flushedAt;
+    private final long committedAt;
+
+    @JsonCreator
+    AnalyticsDelta(@JsonProperty("kind") Kind kind, @JsonProperty("before") StudentCell before,
+                   @JsonProperty("after") StudentCell after, @JsonProperty("company") String company,
+                   @JsonProperty("username") String username, @JsonProperty("change") int change,
+                   @JsonProperty("flushedAt") long flushedAt, @JsonProperty("committedAt") long committedAt) {
+        this.kind = kind;
+        this.before = before;
+        this.after = after;
+        this.company = company;
+        this.username = username;
+        this.change = change;
+        this.flushedAt = flushedAt;
+        this.committedAt = committedAt;
+    }
+
+    public static AnalyticsDelta student(StudentCell before, StudentCell after) {
+        return new AnalyticsDelta(Kind.STUDENT, before, after, null, null, 0, System.currentTimeMillis(), 0);
+    }
+
+    public static AnalyticsDelta letter(String company, String username, int change) {
+        return new AnalyticsDelta(Kind.LETTER, null, null, company, username, change, System.currentTimeMillis(), 0);
+    }
+
+    /**
+     * This delta with its commit time set to {@code at}, which must be after the commit.
+     */
+    public AnalyticsDelta committed(long at) {
+        return new AnalyticsDelta(kind, before, after, company, username, change, flushedAt, at);
+    }
+
+    /**
+     * Whether the commit is known to precede or follow {@code instant}, allowing
+     * {@code marginMillis} of clock skew. Deltas from replicas that do not stamp them are
+     * treated as newer, as they were before stamping existed.
+     */
+    public Order orderAgainst(long instant, long marginMillis) {
+        if (committedAt == 0) {
+            return Order.AFTER;
+        }
+        if (committedAt + marginMillis < instant) {
+            return Order.BEFORE;
+        }
+        if (flushedAt - marginMillis > instant) {
+            return Order.AFTER;
+        }
+        return Order.UNKNOWN;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public StudentCell getBefore() {
+        return before;
+    }
+
+    public StudentCell getAfter() {
+        return after;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public int getChange() {
+        return change;
+    }
+
+    public long getFlushedAt() {
+        return flushedAt;
+    }
+
+    public long getCommittedAt() {
+        return committedAt;
+    }
+}
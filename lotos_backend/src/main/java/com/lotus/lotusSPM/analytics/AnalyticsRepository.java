@@ -1,59 +1,256 @@
 package com.lotus.lotusSPM.analytics;
 
+import com.lotus.lotusSPM.dao.StudentDao;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 /**
- * Analytics Repository for data aggregation
- * In production, this would use optimized SQL queries
+ * Analytics Repository for data aggregation.
+ *
+ * Breakdowns come from a single GROUP BY over (faculty, department, status), which
+ * idx_student_faculty_dept covers, folded in memory; the number of groups is tiny compared
+ * to the number of students. Queries are JPQL so they follow the entity mappings rather
+ * than guessing physical table names. Every query is timed under the {@code analytics.query}
+ * metric.
  */
 @Repository
 public class AnalyticsRepository {
 
+    @Value("${app.analytics.placed-statuses:PLACED,COMPLETED,ACCEPTED}")
+    private String placedStatusList;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StudentDao studentDao;
+
+    private Set<String> placedStatuses;
+
+    @PostConstruct
+    public void initialize() {
+        Set<String> statuses = new HashSet<>();
+        for (String status : placedStatusList.split(",")) {
+            if (!status.trim().isEmpty()) {
+                statuses.add(status.trim().toUpperCase());
+            }
+        }
+        placedStatuses = Collections.unmodifiableSet(statuses);
+    }
+
+    /**
+     * Totals and all three breakdowns in one scan.
+     */
+    public StudentBreakdown getStudentBreakdown() {
+        return timed("student_breakdown", () -> {
+            StudentBreakdown breakdown = new StudentBreakdown();
+            List<Object[]> rows = entityManager.createQuery(
+                    "SELECT s.faculty, s.department, s.internshipStatus, COUNT(s) FROM Student s "
+                        + "GROUP BY s.faculty, s.department, s.internshipStatus", Object[].class)
+                .getResultList();
+            for (Object[] row : rows) {
+                breakdown.add((String) row[0], (String) row[1], (String) row[2], ((Number) row[3]).longValue(),
+                    placedStatuses);
+            }
+            return breakdown;
+        });
+    }
+
+    /**
+     * Every (tenant, faculty, department, status, enrollment month) cell with its student
+     * count, from one scan of idx_student_tenant_cells.
+     */
+    public void forEachStudentCell(BiConsumer<StudentCell, Long> sink) {
+        List<Object[]> rows = timed("student_cells", studentDao::countByCell);
+        for (Object[] row : rows) {
+            String period = row[4] != null && row[5] != null
+                ? StudentCell.period(((Number) row[4]).intValue(), ((Number) row[5]).intValue()) : null;
+            sink.accept(new StudentCell((String) row[0], (String) row[1], (String) row[2], (String) row[3], period),
+                ((Number) row[6]).longValue());
+        }
+    }
+
+    public Set<String> getPlacedStatuses() {
+        return placedStatuses;
+    }
+
     public long countTotalStudents() {
-        // Implement actual query
-        return 0L;
+        return timed("count_students", () -> studentDao.count());
     }
 
     public Map<String, Long> countStudentsByFaculty() {
-        // Implement actual query
-        return new HashMap<>();
+        return getStudentBreakdown().getByFaculty();
     }
 
     public Map<String, Long> countStudentsByDepartment() {
-        // Implement actual query
-        return new HashMap<>();
+        return getStudentBreakdown().getByDepartment();
     }
 
     public Map<String, Long> countByInternshipStatus() {
-        // Implement actual query
-        return new HashMap<>();
+        return getStudentBreakdown().getByInternshipStatus();
     }
 
     public long countPlacedStudents() {
-        // Implement actual query
-        return 0L;
+        return getStudentBreakdown().getPlaced();
     }
 
-    public List<Map<String, Object>> getTopRecruitingCompanies(int limit) {
-        // Implement actual query
-        return new ArrayList<>();
+    /**
+     * Students registered per month since {@code startDate}; rows created before CREATED_AT
+     * was recorded are not counted.
+     */
+    public List<Map<String, Object>> getEnrollmentTrend(LocalDateTime startDate) {
+        return timed("enrollment_trend", () -> {
+            List<Object[]> rows = entityManager.createQuery(
+                    "SELECT YEAR(s.createdAt), MONTH(s.createdAt), COUNT(s) FROM Student s WHERE s.createdAt >= :start "
+                        + "GROUP BY YEAR(s.createdAt), MONTH(s.createdAt) "
+                        + "ORDER BY YEAR(s.createdAt), MONTH(s.createdAt)", Object[].class)
+                .setParameter("start", startDate)
+                .getResultList();
+            List<Map<String, Object>> trend = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("period", String.format("%04d-%02d", ((Number) row[0]).intValue(), ((Number) row[1]).intValue()));
+                point.put("count", ((Number) row[2]).longValue());
+                trend.add(point);
+            }
+            return trend;
+        });
     }
 
-    public List<Map<String, Object>> getEnrollmentTrend(LocalDateTime startDate) {
-        // Implement actual query
-        return new ArrayList<>();
+    /**
+     * The same slice as {@link StudentCube#query}, as one GROUP BY; used when the cube is
+     * unavailable.
+     */
+    public CubeResult sliceStudents(CubeQuery query) {
+        long started = System.nanoTime();
+        List<String> select = new ArrayList<>();
+        for (CubeDimension dimension : query.getGroupBy()) {
+            if (dimension == CubeDimension.PERIOD) {
+                select.add("YEAR(s.createdAt)");
+                select.add("MONTH(s.createdAt)");
+            } else {
+                select.add(column(dimension));
+            }
+        }
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        for (String expression : select) {
+            jpql.append(expression).append(", ");
+        }
+        jpql.append("COUNT(s) FROM Student s WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        for (Map.Entry<CubeDimension, Set<String>> filter : query.getFilters().entrySet()) {
+            jpql.append(" AND ").append(condition(filter.getKey(), filter.getValue(), params));
+        }
+        if (query.getPeriodFrom() != null) {
+            jpql.append(" AND s.createdAt >= :periodFrom");
+            params.put("periodFrom", YearMonth.parse(query.getPeriodFrom()).atDay(1).atStartOfDay());
+        }
+        if (query.getPeriodTo() != null) {
+            jpql.append(" AND s.createdAt < :periodTo");
+            params.put("periodTo", YearMonth.parse(query.getPeriodTo()).plusMonths(1).atDay(1).atStartOfDay());
+        }
+        if (!select.isEmpty()) {
+            jpql.append(" GROUP BY ").append(String.join(", ", select));
+        }
+        List<?> rows = timed("student_slice", () -> {
+            Query slice = entityManager.createQuery(jpql.toString());
+            params.forEach(slice::setParameter);
+            return slice.getResultList();
+        });
+
+        Map<List<String>, Long> groups = new HashMap<>();
+        for (Object result : rows) {
+            // Without a group-by the count is the whole row
+            Object[] row = result instanceof Object[] ? (Object[]) result : new Object[] {result};
+            List<String> labels = new ArrayList<>(query.getGroupBy().size());
+            int column = 0;
+            for (CubeDimension dimension : query.getGroupBy()) {
+                if (dimension == CubeDimension.PERIOD) {
+                    Object year = row[column++];
+                    Object month = row[column++];
+                    labels.add(CubeDimension.label(year != null && month != null
+                        ? StudentCell.period(((Number) year).intValue(), ((Number) month).intValue()) : null));
+                } else {
+                    labels.add(CubeDimension.label((String) row[column++]));
+                }
+            }
+            groups.merge(labels, ((Number) row[column]).longValue(), Long::sum);
+        }
+        return CubeResult.of(groups, query.getGroupBy(), "database", started);
+    }
+
+    private static String column(CubeDimension dimension) {
+        switch (dimension) {
+            case TENANT:
+                return "s.tenantId";
+            case FACULTY:
+                return "s.faculty";
+            case DEPARTMENT:
+                return "s.department";
+            case STATUS:
+                return "s.internshipStatus";
+            default:
+                throw new IllegalArgumentException(dimension.name());
+        }
     }
 
-    public List<Map<String, Object>> getFilteredData(String faculty, String department, String dateFrom, String dateTo) {
-        // Implement actual query
-        return new ArrayList<>();
+    // Labels were trimmed and blanks reported as Unspecified, so match them the same way
+    private static String condition(CubeDimension dimension, Set<String> labels, Map<String, Object> params) {
+        String name = "p" + params.size();
+        List<String> alternatives = new ArrayList<>();
+        if (dimension == CubeDimension.PERIOD) {
+            int i = 0;
+            for (String label : labels) {
+                if (label.equals(StudentBreakdown.UNSPECIFIED)) {
+                    alternatives.add("s.createdAt IS NULL");
+                    continue;
+                }
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(label);
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                String from = name + "_" + i++;
+                String to = name + "_" + i++;
+                alternatives.add("(s.createdAt >= :" + from + " AND s.createdAt < :" + to + ")");
+                params.put(from, month.atDay(1).atStartOfDay());
+                params.put(to, month.plusMonths(1).atDay(1).atStartOfDay());
+            }
+        } else {
+            String column = column(dimension);
+            if (labels.contains(StudentBreakdown.UNSPECIFIED)) {
+                alternatives.add(column + " IS NULL OR TRIM(" + column + ") = ''");
+            }
+            alternatives.add("TRIM(" + column + ") IN :" + name);
+            params.put(name, labels);
+        }
+        return alternatives.isEmpty() ? "1 = 0" : "(" + String.join(" OR ", alternatives) + ")";
     }
 
-    public Map<String, Object> getStudentData(Long studentId) {
-        // Implement actual query
-        return new HashMap<>();
+    private <T> T timed(String query, Supplier<T> body) {
+        Timer timer = Timer.builder("analytics.query")
+            .description("Analytics repository query latency")
+            .tag("query", query)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        return timer.record(body);
     }
 }
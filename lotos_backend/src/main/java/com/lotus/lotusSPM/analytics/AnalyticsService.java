@@ -1,8 +1,13 @@
 package com.lotus.lotusSPM.analytics;
 
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import com.lotus.lotusSPM.prediction.PredictionService;
+import com.lotus.lotusSPM.report.ReportEngine;
+import com.lotus.lotusSPM.report.ReportQuery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -14,30 +19,41 @@ import java.util.stream.Collectors;
 @Service
 public class AnalyticsService {
 
+    private static final int MAX_REPORT_ROWS = 10000;
+
     @Autowired
     private AnalyticsRepository analyticsRepository;
 
+    @Autowired
+    private AnalyticsAggregator analyticsAggregator;
+
+    @Autowired
+    private AnalyticsTimeSeries analyticsTimeSeries;
+
+    @Autowired
+    private MetricFanOut metricFanOut;
+
+    @Autowired
+    private AnalyticsSketches analyticsSketches;
+
+    @Autowired
+    private ReportEngine reportEngine;
+
+    @Autowired
+    private PredictionService predictionService;
+
     /**
      * Get student enrollment statistics
      */
     public Map<String, Object> getEnrollmentStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        // Total students
-        long totalStudents = analyticsRepository.countTotalStudents();
-        stats.put("totalStudents", totalStudents);
-
-        // Students by faculty
-        Map<String, Long> byFaculty = analyticsRepository.countStudentsByFaculty();
-        stats.put("byFaculty", byFaculty);
-
-        // Students by department
-        Map<String, Long> byDepartment = analyticsRepository.countStudentsByDepartment();
-        stats.put("byDepartment", byDepartment);
-
-        // Internship status distribution
-        Map<String, Long> byInternshipStatus = analyticsRepository.countByInternshipStatus();
-        stats.put("byInternshipStatus", byInternshipStatus);
+        // Maintained in memory from write events; no query per page view
+        StudentBreakdown breakdown = analyticsAggregator.getStudentBreakdown();
+        stats.put("totalStudents", breakdown.getTotal());
+        stats.put("byFaculty", breakdown.getByFaculty());
+        stats.put("byDepartment", breakdown.getByDepartment());
+        stats.put("byInternshipStatus", breakdown.getByInternshipStatus());
 
         return stats;
     }
@@ -48,8 +64,9 @@ public class AnalyticsService {
     public Map<String, Object> getPlacementStatistics() {
         Map<String, Object> stats = new HashMap<>();
 
-        long totalStudents = analyticsRepository.countTotalStudents();
-        long placedStudents = analyticsRepository.countPlacedStudents();
+        StudentBreakdown breakdown = analyticsAggregator.getStudentBreakdown();
+        long totalStudents = breakdown.getTotal();
+        long placedStudents = breakdown.getPlaced();
 
         double placementRate = totalStudents > 0
             ? (double) placedStudents / totalStudents * 100
@@ -58,86 +75,115 @@ public class AnalyticsService {
         stats.put("totalStudents", totalStudents);
         stats.put("placedStudents", placedStudents);
         stats.put("placementRate", placementRate);
-        stats.put("topCompanies", analyticsRepository.getTopRecruitingCompanies(10));
+        stats.put("topCompanies", analyticsAggregator.getTopCompanies(10));
 
         return stats;
     }
 
     /**
-     * Get time-series data for dashboard charts
+     * Get time-series data for dashboard charts: registrations per month, plus the student
+     * and placed totals checkpointed in each month
      */
     public List<Map<String, Object>> getEnrollmentTrend(int months) {
-        LocalDateTime startDate = LocalDateTime.now().minusMonths(months);
-        return analyticsRepository.getEnrollmentTrend(startDate);
+        LocalDate to = LocalDate.now();
+        LocalDate from = SnapshotGranularity.MONTH.bucketStart(to.minusMonths(months));
+        String tenant = TenantContext.getCurrentTenant();
+
+        // Three independent queries; a series that fails or times out is left out of the chart
+        MetricFanOut.MetricResults results = metricFanOut.compose()
+            .metric("registrations", () -> analyticsRepository.getEnrollmentTrend(from.atStartOfDay()))
+            .metric("totalStudents", () -> analyticsTimeSeries.series("students.total", tenant, SnapshotGranularity.MONTH, from, to))
+            .metric("placedStudents", () -> analyticsTimeSeries.series("students.placed", tenant, SnapshotGranularity.MONTH, from, to))
+            .run();
+
+        Map<String, Map<String, Object>> byPeriod = new TreeMap<>();
+        for (Map<String, Object> row : results.get("registrations", Collections.<Map<String, Object>>emptyList())) {
+            byPeriod.computeIfAbsent((String) row.get("period"), this::trendRow).put("count", row.get("count"));
+        }
+        for (String series : Arrays.asList("totalStudents", "placedStudents")) {
+            for (TimeSeriesPoint point : results.get(series, Collections.<TimeSeriesPoint>emptyList())) {
+                byPeriod.computeIfAbsent(period(point), this::trendRow).put(series, point.getValue().longValue());
+            }
+        }
+        return new ArrayList<>(byPeriod.values());
     }
 
     /**
-     * Generate custom report based on filters
+     * Enrollment, placement and the yearly trend in one response, computed concurrently;
+     * sections that could not be computed are listed under "errors"
      */
-    public Map<String, Object> generateCustomReport(Map<String, String> filters) {
-        Map<String, Object> report = new HashMap<>();
-
-        // Apply filters and aggregate data
-        String faculty = filters.get("faculty");
-        String department = filters.get("department");
-        String dateFrom = filters.get("dateFrom");
-        String dateTo = filters.get("dateTo");
+    public Map<String, Object> getDashboard() {
+        return metricFanOut.compose()
+            .metric("enrollment", this::getEnrollmentStatistics)
+            .metric("placement", this::getPlacementStatistics)
+            .metric("trend", () -> getEnrollmentTrend(12))
+            .run()
+            .toMap();
+    }
 
-        // Execute filtered query
-        List<Map<String, Object>> data = analyticsRepository.getFilteredData(
-            faculty, department, dateFrom, dateTo
-        );
+    /**
+     * Any checkpointed metric, downsampled to {@code granularity}, or to a granularity that
+     * keeps the span at a few hundred points when none is given
+     */
+    public List<TimeSeriesPoint> getMetricSeries(String metric, SnapshotGranularity granularity,
+                                                 LocalDate from, LocalDate to) {
+        SnapshotGranularity resolved = granularity != null ? granularity : SnapshotGranularity.forSpan(from, to);
+        return analyticsTimeSeries.series(metric, TenantContext.getCurrentTenant(), resolved, from, to);
+    }
 
-        report.put("data", data);
-        report.put("summary", calculateSummary(data));
-        report.put("generatedAt", LocalDateTime.now());
+    private Map<String, Object> trendRow(String period) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("period", period);
+        row.put("count", 0L);
+        return row;
+    }
 
-        return report;
+    private static String period(TimeSeriesPoint point) {
+        return String.format("%04d-%02d", point.getBucket().getYear(), point.getBucket().getMonthValue());
     }
 
     /**
-     * Predict student success using ML model placeholder
+     * Approximate distinct active users and top companies and opportunities over recent days
      */
-    public Map<String, Object> predictStudentSuccess(Long studentId) {
-        // Placeholder for ML model integration (Phase 3)
-        Map<String, Object> prediction = new HashMap<>();
-
-        // Get student historical data
-        Map<String, Object> studentData = analyticsRepository.getStudentData(studentId);
+    public Map<String, Object> getActivity(int days, int limit) {
+        return analyticsSketches.activity(days, limit);
+    }
 
-        // Mock prediction (to be replaced with actual ML model)
-        double successProbability = Math.random(); // Replace with model prediction
+    /**
+     * Student counts for an ad-hoc slice, answered from the in-memory cube and from the
+     * database while the cube is unavailable. Tenant-scoped callers only see their tenant.
+     */
+    public CubeResult sliceStudents(CubeQuery query) {
+        String tenant = TenantContext.getCurrentTenant();
+        CubeQuery scoped = tenant != null ? query.forTenant(tenant) : query;
+        CubeResult result = analyticsAggregator.sliceStudents(scoped);
+        return result != null ? result : analyticsRepository.sliceStudents(scoped);
+    }
 
-        prediction.put("studentId", studentId);
-        prediction.put("successProbability", successProbability);
-        prediction.put("riskLevel", successProbability < 0.5 ? "HIGH" : successProbability < 0.75 ? "MEDIUM" : "LOW");
-        prediction.put("recommendations", generateRecommendations(successProbability));
+    /**
+     * Generate custom report based on filters. The summary covers every matching student
+     * while the data is capped; full reports go through the export endpoints.
+     */
+    public Map<String, Object> generateCustomReport(Map<String, String> filters) {
+        Map<String, Object> report = new HashMap<>();
 
-        return prediction;
-    }
+        ReportQuery query = ReportQuery.compile(filters, TenantContext.getCurrentTenant());
+        ReportEngine.Preview preview = reportEngine.preview(query, MAX_REPORT_ROWS);
 
-    private Map<String, Object> calculateSummary(List<Map<String, Object>> data) {
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("totalRecords", data.size());
+        Map<String, Object> summary = preview.getSummary().toMap();
         summary.put("calculatedAt", LocalDateTime.now());
-        return summary;
-    }
+        report.put("data", preview.getRows());
+        report.put("truncated", preview.isTruncated());
+        report.put("summary", summary);
+        report.put("generatedAt", LocalDateTime.now());
 
-    private List<String> generateRecommendations(double successProbability) {
-        List<String> recommendations = new ArrayList<>();
-
-        if (successProbability < 0.5) {
-            recommendations.add("Schedule academic counseling session");
-            recommendations.add("Enroll in tutoring program");
-            recommendations.add("Monitor attendance closely");
-        } else if (successProbability < 0.75) {
-            recommendations.add("Provide career guidance");
-            recommendations.add("Encourage internship applications");
-        } else {
-            recommendations.add("Recommend for leadership programs");
-            recommendations.add("Consider for merit scholarships");
-        }
+        return report;
+    }
 
-        return recommendations;
+    /**
+     * Student success prediction, as last computed by the batch scoring run
+     */
+    public Map<String, Object> predictStudentSuccess(Long studentId) {
+        return predictionService.toMap(predictionService.getPrediction(studentId));
     }
 }
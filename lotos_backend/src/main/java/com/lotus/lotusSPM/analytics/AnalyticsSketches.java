@@ -0,0 +1,450 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.analytics.sketch.HeavyHitters;
+import com.lotus.lotusSPM.analytics.sketch.HyperLogLog;
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate activity metrics in constant memory: distinct active users (HyperLogLog) and
+ * the companies sent the most official letters and the most viewed opportunities (Count-Min
+ * plus Space-Saving), sketched per day.
+ *
+ * Each replica sketches only the requests it served and publishes its day to a Redis hash;
+ * readers merge every other replica's entry into their own live sketches. The leader
+ * persists the merged day into analytics_snapshots, where week and month rows hold the
+ * merge of their days, so a window of past days reads a handful of rows. Like the exact
+ * company counters, the sketches span all tenants.
+ */
+@Component
+public class AnalyticsSketches {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsSketches.class);
+
+    static final String ACTIVE_USERS = "users.active";
+    static final String COMPANY_LETTERS = "companies.letters";
+    static final String OPPORTUNITY_VIEWS = "opportunities.views";
+    private static final List<String> METRICS = Arrays.asList(ACTIVE_USERS, COMPANY_LETTERS, OPPORTUNITY_VIEWS);
+
+    private static final String KEY_PREFIX = "analytics:sketches:";
+    private static final long REDIS_RETENTION_DAYS = 3;
+    private static final int PERSISTED_TOP = 10;
+
+    @Value("${app.analytics.sketches.hll-precision:14}")
+    private int hllPrecision;
+
+    @Value("${app.analytics.sketches.count-min-epsilon:0.005}")
+    private double countMinEpsilon;
+
+    @Value("${app.analytics.sketches.count-min-confidence:0.99}")
+    private double countMinConfidence;
+
+    @Value("${app.analytics.sketches.top-k-capacity:100}")
+    private int topKCapacity;
+
+    @Value("${app.analytics.sketches.publish-interval-millis:60000}")
+    private long publishIntervalMillis;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private AnalyticsSnapshotWriter snapshotWriter;
+
+    @Autowired
+    private AnalyticsSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Day today;
+    // The previous day, kept until its last changes have been published and persisted
+    private volatile Day closed;
+
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() {
+        today = new Day(LocalDate.now());
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "analytics-sketches", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    /**
+     * @param user any string identifying one user across roles
+     */
+    public void recordActiveUser(String user) {
+        current().users.add(user);
+    }
+
+    public void recordLetters(String company, int letters) {
+        if (company != null && letters > 0) {
+            current().companies.add(company, letters);
+        }
+    }
+
+    public void recordOpportunityView(Long opportunityId) {
+        current().opportunities.add(String.valueOf(opportunityId), 1);
+    }
+
+    /**
+     * Distinct active users, and the top companies and opportunities, over the last
+     * {@code days} days including today, each with its error bound.
+     */
+    public Map<String, Object> activity(int days, int limit) {
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(days - 1L);
+        Day window = new Day(to);
+        mergePersisted(window, from, to.minusDays(1));
+        window.merge(merged(current()));
+
+        Map<String, Object> users = new LinkedHashMap<>();
+        users.put("estimate", window.users.estimate());
+        users.put("relativeStandardError", window.users.relativeStandardError());
+
+        Map<String, Object> activity = new LinkedHashMap<>();
+        activity.put("from", from);
+        activity.put("to", to);
+        activity.put("activeUsers", users);
+        activity.put("topCompanies", top(window.companies, limit, "company", "letters"));
+        activity.put("topOpportunities", top(window.opportunities, limit, "opportunityId", "views"));
+        return activity;
+    }
+
+    /**
+     * Every replica shares its sketches for the day, and for the previous day once more after
+     * midnight.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.sketches.publish-interval-millis:60000}",
+        initialDelayString = "${app.analytics.sketches.publish-interval-millis:60000}")
+    public void publish() {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            return;
+        }
+        Day current = current();
+        Day last = closed;
+        try {
+            if (last != null && !last.published) {
+                publish(redis, last);
+                last.published = true;
+            }
+            publish(redis, current);
+        } catch (Exception e) {
+            logger.warn("Could not publish analytics sketches: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.checkpoint-interval-millis:300000}",
+        initialDelayString = "${app.analytics.checkpoint-interval-millis:300000}")
+    public void checkpoint() {
+        if (!isLeader()) {
+            return;
+        }
+        try {
+            Day last = closed;
+            if (last != null && !last.persisted) {
+                persist(merged(last));
+                // Settled once every replica has had time to publish the day one last time
+                last.persisted = System.currentTimeMillis() - last.closedAtMillis > 2 * publishIntervalMillis;
+            }
+            persist(merged(current()));
+        } catch (Exception e) {
+            logger.error("Analytics sketch checkpoint failed", e);
+        }
+    }
+
+    private Day current() {
+        Day day = today;
+        LocalDate now = LocalDate.now();
+        if (day.date.equals(now)) {
+            return day;
+        }
+        synchronized (this) {
+            if (!today.date.equals(now)) {
+                today.closedAtMillis = System.currentTimeMillis();
+                closed = today;
+                today = new Day(now);
+            }
+            return today;
+        }
+    }
+
+    private void publish(StringRedisTemplate redis, Day day) {
+        String key = KEY_PREFIX + day.date;
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, byte[]> sketch : day.toBytes().entrySet()) {
+            fields.put(sketch.getKey() + "|" + clusterEventBus.getNodeId(), encode(sketch.getValue()));
+        }
+        redis.opsForHash().putAll(key, fields);
+        redis.expire(key, REDIS_RETENTION_DAYS, TimeUnit.DAYS);
+    }
+
+    /**
+     * A copy of a local day with every other replica's published sketches merged in.
+     */
+    private Day merged(Day local) {
+        Day merged = new Day(local.date);
+        merged.merge(local);
+        mergePublished(merged, clusterEventBus.getNodeId());
+        return merged;
+    }
+
+    private void mergePublished(Day day, String skipNode) {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            return;
+        }
+        Map<Object, Object> fields;
+        try {
+            fields = redis.opsForHash().entries(KEY_PREFIX + day.date);
+        } catch (Exception e) {
+            logger.warn("Could not read published analytics sketches: {}", e.getMessage());
+            return;
+        }
+        for (Map.Entry<Object, Object> field : fields.entrySet()) {
+            String[] metricAndNode = ((String) field.getKey()).split("\\|", 2);
+            if (metricAndNode.length == 2 && !metricAndNode[1].equals(skipNode)) {
+                day.merge(metricAndNode[0], (String) field.getValue());
+            }
+        }
+    }
+
+    private void persist(Day day) throws JsonProcessingException {
+        snapshotWriter.write(day.date, points(day), SnapshotGranularity.DAY);
+        for (SnapshotGranularity granularity : Arrays.asList(SnapshotGranularity.WEEK, SnapshotGranularity.MONTH)) {
+            Day rollup = new Day(day.date);
+            mergeRows(rollup, SnapshotGranularity.DAY, granularity.bucketStart(day.date), day.date);
+            snapshotWriter.write(day.date, points(rollup), granularity);
+        }
+    }
+
+    /**
+     * Merges the persisted sketches covering [from, to], preferring whole months and weeks
+     * over their days. Days missing from the table, such as yesterday before the leader has
+     * settled it, are taken from Redis while it still has them.
+     */
+    private void mergePersisted(Day window, LocalDate from, LocalDate to) {
+        // Coarse buckets must end before the most recent day, whose rollups may still change
+        LocalDate settled = to.minusDays(1);
+        LocalDate oldestPublished = LocalDate.now().minusDays(REDIS_RETENTION_DAYS - 1);
+        LocalDate day = from;
+        while (!day.isAfter(to)) {
+            // A run of consecutive buckets of one granularity is read with one query per metric
+            SnapshotGranularity granularity = bucketAt(day, settled);
+            LocalDate runStart = day;
+            LocalDate lastBucket = day;
+            while (!day.isAfter(to) && bucketAt(day, settled) == granularity) {
+                lastBucket = day;
+                day = bucketEnd(granularity, day).plusDays(1);
+            }
+            Set<LocalDate> found = mergeRows(window, granularity, runStart, lastBucket);
+            if (granularity != SnapshotGranularity.DAY) {
+                continue;
+            }
+            for (LocalDate missing = runStart; !missing.isAfter(lastBucket); missing = missing.plusDays(1)) {
+                if (!found.contains(missing) && !missing.isBefore(oldestPublished)) {
+                    Day local = closed;
+                    Day published = new Day(missing);
+                    if (local != null && local.date.equals(missing)) {
+                        published = merged(local);
+                    } else {
+                        mergePublished(published, null);
+                    }
+                    window.merge(published);
+                }
+            }
+        }
+    }
+
+    private static SnapshotGranularity bucketAt(LocalDate day, LocalDate settled) {
+        for (SnapshotGranularity granularity : Arrays.asList(SnapshotGranularity.MONTH, SnapshotGranularity.WEEK)) {
+            if (granularity.bucketStart(day).equals(day) && !bucketEnd(granularity, day).isAfter(settled)) {
+                return granularity;
+            }
+        }
+        return SnapshotGranularity.DAY;
+    }
+
+    private static LocalDate bucketEnd(SnapshotGranularity granularity, LocalDate start) {
+        switch (granularity) {
+            case WEEK:
+                return start.plusWeeks(1).minusDays(1);
+            case MONTH:
+                return start.plusMonths(1).minusDays(1);
+            default:
+                return start;
+        }
+    }
+
+    /**
+     * @return the bucket dates that had rows
+     */
+    private Set<LocalDate> mergeRows(Day into, SnapshotGranularity granularity, LocalDate from, LocalDate to) {
+        Set<LocalDate> found = new HashSet<>();
+        for (String metric : METRICS) {
+            for (AnalyticsSnapshot row : snapshotRepository
+                .findByMetricNameAndTenantIdAndGranularityAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+                    metric, null, granularity, from, to)) {
+                try {
+                    into.merge(metric, objectMapper.readTree(row.getMetadata()).path("sketch").asText());
+                    found.add(row.getSnapshotDate());
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Skipping unreadable {} sketch of {}: {}", metric, row.getSnapshotDate(), e.getMessage());
+                }
+            }
+        }
+        return found;
+    }
+
+    private List<AnalyticsSnapshotWriter.Point> points(Day day) throws JsonProcessingException {
+        Map<String, Object> users = new LinkedHashMap<>();
+        users.put("relativeStandardError", day.users.relativeStandardError());
+        users.put("sketch", encode(day.users.toBytes()));
+        List<AnalyticsSnapshotWriter.Point> points = new ArrayList<>();
+        points.add(new AnalyticsSnapshotWriter.Point(null, ACTIVE_USERS, day.users.estimate(),
+            objectMapper.writeValueAsString(users)));
+        points.add(heavyHittersPoint(COMPANY_LETTERS, day.companies));
+        points.add(heavyHittersPoint(OPPORTUNITY_VIEWS, day.opportunities));
+        return points;
+    }
+
+    private AnalyticsSnapshotWriter.Point heavyHittersPoint(String metric, HeavyHitters sketch)
+        throws JsonProcessingException {
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (HeavyHitters.Hitter hitter : sketch.top(PERSISTED_TOP)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("key", hitter.getKey());
+            item.put("estimate", hitter.getEstimate());
+            top.add(item);
+        }
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("top", top);
+        metadata.put("sketch", encode(sketch.toBytes()));
+        return new AnalyticsSnapshotWriter.Point(null, metric, sketch.getTotal(), objectMapper.writeValueAsString(metadata));
+    }
+
+    private static Map<String, Object> top(HeavyHitters sketch, int limit, String keyName, String countName) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (HeavyHitters.Hitter hitter : sketch.top(limit)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put(keyName, hitter.getKey());
+            item.put(countName, hitter.getEstimate());
+            item.put("lowerBound", hitter.getLowerBound());
+            items.add(item);
+        }
+        Map<String, Object> top = new LinkedHashMap<>();
+        top.put(countName, sketch.getTotal());
+        // No estimate exceeds the true count by more than this
+        top.put("maxOvercount", sketch.maxOvercount());
+        top.put("items", items);
+        return top;
+    }
+
+    private boolean isLeader() {
+        return lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * One day's sketches. The sketches synchronise themselves; the flags are only touched by
+     * the scheduled jobs.
+     */
+    private final class Day {
+        final LocalDate date;
+        final HyperLogLog users = new HyperLogLog(hllPrecision);
+        final HeavyHitters companies = new HeavyHitters(countMinEpsilon, countMinConfidence, topKCapacity);
+        final HeavyHitters opportunities = new HeavyHitters(countMinEpsilon, countMinConfidence, topKCapacity);
+        volatile long closedAtMillis;
+        volatile boolean published;
+        volatile boolean persisted;
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+
+        Map<String, byte[]> toBytes() {
+            Map<String, byte[]> bytes = new HashMap<>();
+            bytes.put(ACTIVE_USERS, users.toBytes());
+            bytes.put(COMPANY_LETTERS, companies.toBytes());
+            bytes.put(OPPORTUNITY_VIEWS, opportunities.toBytes());
+            return bytes;
+        }
+
+        void merge(Day other) {
+            users.merge(other.users);
+            companies.merge(other.companies);
+            opportunities.merge(other.opportunities);
+        }
+
+        // Sketches written with other settings cannot be merged and are skipped
+        void merge(String metric, String encoded) {
+            try {
+                byte[] bytes = Base64.getDecoder().decode(encoded);
+                switch (metric) {
+                    case ACTIVE_USERS:
+                        users.merge(HyperLogLog.fromBytes(bytes));
+                        break;
+                    case COMPANY_LETTERS:
+                        companies.merge(HeavyHitters.fromBytes(bytes));
+                        break;
+                    case OPPORTUNITY_VIEWS:
+                        opportunities.merge(HeavyHitters.fromBytes(bytes));
+                        break;
+                    default:
+                        break;
+                }
+            } catch (IllegalArgumentException e) {
+                logger.warn("Skipping incompatible {} sketch for {}: {}", metric, date, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One metric value for one tenant in one day, week or month bucket, keyed by the bucket's
+ * first day. Checkpoints overwrite the rows of every bucket containing today, so each keeps
+ * the latest value seen in it.
+ */
+@Entity
+@Table(name = "analytics_snapshots", indexes = {
+    @Index(name = "idx_snapshot_series", columnList = "metric_name, tenant_id, granularity, snapshot_date")
+})
+public class AnalyticsSnapshot {
+
+    // Assigned before insert, which lets Hibernate batch the inserts
+    @Id
+    @GeneratedValue(generator = KSortableIdGenerator.NAME)
+    @GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
+    private Long id;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'DAY'")
+    @Column(name = "granularity", length = 10, nullable = false)
+    private SnapshotGranularity granularity = SnapshotGranularity.DAY;
+
+    @Column(name = "tenant_id", length = 100)
+    private String tenantId;
+
+    @Column(name = "metric_name", length = 100, nullable = false)
+    private String metricName;
+
+    @Column(name = "metric_value", precision = 15, scale = 2)
+    private BigDecimal metricValue;
+
+    @Lob
+    @Column(name = "metadata")
+    private String metadata;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public AnalyticsSnapshot() {
+    }
+
+    public AnalyticsSnapshot(SnapshotGranularity granularity, LocalDate snapshotDate, String tenantId,
+                             String metricName) {
+        this.granularity = granularity;
+        this.snapshotDate = snapshotDate;
+        this.tenantId = tenantId;
+        this.metricName = metricName;
+    }
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public SnapshotGranularity getGranularity() {
+        return granularity;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public BigDecimal getMetricValue() {
+        return metricValue;
+    }
+
+    public void setMetricValue(BigDecimal metricValue) {
+        this.metricValue = metricValue;
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.lotus.lotusSPM.analytics;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AnalyticsSnapshotRepository extends JpaRepository<AnalyticsSnapshot, Long> {
+
+    /**
+     * The day, week and month rows a checkpoint of {@code day} overwrites, for the given metrics.
+     */
+    @Query("SELECT s FROM AnalyticsSnapshot s WHERE s.metricName IN :metrics AND ("
+        + "(s.granularity = com.lotus.lotusSPM.analytics.SnapshotGranularity.DAY AND s.snapshotDate = :day) OR "
+        + "(s.granularity = com.lotus.lotusSPM.analytics.SnapshotGranularity.WEEK AND s.snapshotDate = :week) OR "
+        + "(s.granularity = com.lotus.lotusSPM.analytics.SnapshotGranularity.MONTH AND s.snapshotDate = :month))")
+    List<AnalyticsSnapshot> findBuckets(@Param("metrics") Collection<String> metrics, @Param("day") LocalDate day,
+                                        @Param("week") LocalDate week, @Param("month") LocalDate month);
+
+    // A null tenant matches IS NULL, which is how untenanted students are checkpointed
+    List<AnalyticsSnapshot> findByMetricNameAndTenantIdAndGranularityAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+        String metricName, String tenantId, SnapshotGranularity granularity, LocalDate from, LocalDate to);
+}
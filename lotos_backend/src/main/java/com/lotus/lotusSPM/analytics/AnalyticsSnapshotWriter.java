@@ -0,0 +1,129 @@
+package com.lotus.lotusSPM.analytics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Writes metric values into analytics_snapshots, rolled up into the day, week and month
+ * buckets containing the given day.
+ *
+ * Points are written in batches, each in its own transaction: one query loads the batch's
+ * existing bucket rows, then updates and inserts go out as JDBC batches.
+ */
+@Component
+public class AnalyticsSnapshotWriter {
+
+    @Value("${app.analytics.snapshots.batch-size:200}")
+    private int batchSize;
+
+    @Autowired
+    private AnalyticsSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void initialize() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public int write(LocalDate day, List<Point> points) {
+        return write(day, points, SnapshotGranularity.values());
+    }
+
+    /**
+     * Writes only the given granularities' buckets, for values that do not roll up by
+     * overwriting, such as sketches whose week and month rows are merges of the days.
+     *
+     * @return the number of rows written
+     */
+    public int write(LocalDate day, List<Point> points, SnapshotGranularity... granularities) {
+        int written = 0;
+        for (int from = 0; from < points.size(); from += batchSize) {
+            List<Point> batch = points.subList(from, Math.min(points.size(), from + batchSize));
+            Integer rows = transaction.execute(status -> writeBatch(day, batch, granularities));
+            written += rows != null ? rows : 0;
+        }
+        return written;
+    }
+
+    private int writeBatch(LocalDate day, List<Point> batch, SnapshotGranularity[] granularities) {
+        Set<String> metrics = new HashSet<>();
+        for (Point point : batch) {
+            metrics.add(point.metric);
+        }
+        Map<String, AnalyticsSnapshot> existing = new HashMap<>();
+        for (AnalyticsSnapshot row : snapshotRepository.findBuckets(metrics, day,
+            SnapshotGranularity.WEEK.bucketStart(day), SnapshotGranularity.MONTH.bucketStart(day))) {
+            existing.put(key(row.getGranularity(), row.getTenantId(), row.getMetricName()), row);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<AnalyticsSnapshot> rows = new ArrayList<>(batch.size() * granularities.length);
+        for (Point point : batch) {
+            for (SnapshotGranularity granularity : granularities) {
+                AnalyticsSnapshot row = existing.get(key(granularity, point.tenant, point.metric));
+                if (row == null) {
+                    row = new AnalyticsSnapshot(granularity, granularity.bucketStart(day), point.tenant, point.metric);
+                } else if (Objects.equals(row.getMetricValue(), point.value)
+                    && Objects.equals(row.getMetadata(), point.metadata)) {
+                    continue;
+                }
+                row.setMetricValue(point.value);
+                row.setMetadata(point.metadata);
+                row.setCreatedAt(now);
+                rows.add(row);
+            }
+        }
+        snapshotRepository.saveAll(rows);
+        entityManager.flush();
+        entityManager.clear();
+        return rows.size();
+    }
+
+    private static String key(SnapshotGranularity granularity, String tenant, String metric) {
+        return granularity + "|" + tenant + "|" + metric;
+    }
+
+    /**
+     * One metric value for one tenant; {@code metadata} is serialised JSON or null.
+     */
+    public static final class Point {
+        private final String tenant;
+        private final String metric;
+        private final BigDecimal value;
+        private final String metadata;
+
+        public Point(String tenant, String metric, long value, String metadata) {
+            this.tenant = tenant;
+            this.metric = metric;
+            this.value = BigDecimal.valueOf(value).setScale(2);
+            this.metadata = metadata;
+        }
+    }
+}
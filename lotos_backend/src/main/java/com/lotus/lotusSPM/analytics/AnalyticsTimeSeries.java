@@ -0,0 +1,137 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Reads metric history from the rolled-up rows in analytics_snapshots.
+ *
+ * Buckets that have settled never change again, so they are cached per series and only the
+ * open ones are re-read on each call. The checkpoints keep rewriting the previous day's
+ * DAY, WEEK and MONTH rows until that day settles, so a bucket stays open until the day
+ * after it ended is over, plus {@code app.analytics.timeseries.settle-margin-millis}. A
+ * five-year monthly chart is sixty rows on the first call and one or two afterwards.
+ */
+@Service
+public class AnalyticsTimeSeries {
+
+    @Value("${app.analytics.timeseries.cached-series:256}")
+    private int cachedSeries;
+
+    @Value("${app.analytics.timeseries.settle-margin-millis:3600000}")
+    private long settleMarginMillis;
+
+    @Autowired
+    private AnalyticsSnapshotRepository snapshotRepository;
+
+    private Map<SeriesKey, ClosedBuckets> cache;
+
+    @PostConstruct
+    public void initialize() {
+        cache = Collections.synchronizedMap(new LinkedHashMap<SeriesKey, ClosedBuckets>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SeriesKey, ClosedBuckets> eldest) {
+                return size() > cachedSeries;
+            }
+        });
+    }
+
+    /**
+     * Points for every bucket between {@code from} and {@code to} that has a snapshot,
+     * oldest first.
+     */
+    public List<TimeSeriesPoint> series(String metric, String tenant, SnapshotGranularity granularity,
+                                        LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        LocalDate first = granularity.bucketStart(from);
+        // The oldest bucket that may still be rewritten: the one holding the previous day
+        LocalDate open = granularity.bucketStart(
+            LocalDateTime.now().minus(settleMarginMillis, ChronoUnit.MILLIS).toLocalDate().minusDays(1));
+        ClosedBuckets closed = cache.computeIfAbsent(new SeriesKey(metric, tenant, granularity),
+            k -> new ClosedBuckets());
+
+        List<TimeSeriesPoint> points = new ArrayList<>();
+        synchronized (closed) {
+            if (closed.coveredFrom == null || first.isBefore(closed.coveredFrom)) {
+                closed.points.clear();
+                closed.coveredFrom = first;
+                closed.coveredUntil = first;
+            }
+            if (closed.coveredUntil.isBefore(open)) {
+                // Fill everything that has settled since the last call
+                for (AnalyticsSnapshot row : load(metric, tenant, granularity, closed.coveredUntil, open.minusDays(1))) {
+                    closed.points.put(row.getSnapshotDate(), toPoint(row));
+                }
+                closed.coveredUntil = open;
+            }
+            points.addAll(closed.points.subMap(first, true, to, true).values());
+        }
+        LocalDate live = open.isBefore(first) ? first : open;
+        if (!live.isAfter(to)) {
+            for (AnalyticsSnapshot row : load(metric, tenant, granularity, live, to)) {
+                points.add(toPoint(row));
+            }
+        }
+        return points;
+    }
+
+    private List<AnalyticsSnapshot> load(String metric, String tenant, SnapshotGranularity granularity,
+                                         LocalDate from, LocalDate to) {
+        return snapshotRepository.findByMetricNameAndTenantIdAndGranularityAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+            metric, tenant, granularity, from, to);
+    }
+
+    private static TimeSeriesPoint toPoint(AnalyticsSnapshot row) {
+        return new TimeSeriesPoint(row.getSnapshotDate(), row.getMetricValue(), row.getMetadata());
+    }
+
+    private static final class ClosedBuckets {
+        // Bucket start -> point, for settled buckets in [coveredFrom, coveredUntil)
+        final TreeMap<LocalDate, TimeSeriesPoint> points = new TreeMap<>();
+        LocalDate coveredFrom;
+        LocalDate coveredUntil;
+    }
+
+    private static final class SeriesKey {
+        final String metric;
+        final String tenant;
+        final SnapshotGranularity granularity;
+
+        SeriesKey(String metric, String tenant, SnapshotGranularity granularity) {
+            this.metric = metric;
+            this.tenant = tenant;
+            this.granularity = granularity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            SeriesKey other = (SeriesKey) o;
+            return metric.equals(other.metric) && Objects.equals(tenant, other.tenant)
+                && granularity == other.granularity;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(metric, tenant, granularity);
+        }
+    }
+}
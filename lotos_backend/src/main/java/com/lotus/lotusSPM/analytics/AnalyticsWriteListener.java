@@ -0,0 +1,107 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.lotus.lotusSPM.model.OfficialLetter;
+import com.lotus.lotusSPM.model.Student;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Turns Hibernate writes of students and official letters into {@link AnalyticsDelta}s.
+ *
+ * Hibernate hands over the row's state before and after the write, so every path that goes
+ * through the session is seen, not just the service methods. JPQL bulk updates bypass it;
+ * the nightly recount covers those. Deltas are emitted at flush time; the sink decides when
+ * they take effect.
+ */
+class AnalyticsWriteListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final Consumer<AnalyticsDelta> sink;
+    private final Runnable unknownChange;
+
+    /**
+     * @param unknownChange called for an update whose previous state Hibernate did not keep
+     */
+    AnalyticsWriteListener(Consumer<AnalyticsDelta> sink, Runnable unknownChange) {
+        this.sink = sink;
+        this.unknownChange = unknownChange;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity(), event.getPersister(), null, event.getState());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!tracked(event.getEntity())) {
+            return;
+        }
+        if (event.getOldState() == null) {
+            unknownChange.run();
+            return;
+        }
+        changed(event.getEntity(), event.getPersister(), event.getOldState(), event.getState());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity(), event.getPersister(), event.getDeletedState(), null);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void changed(Object entity, EntityPersister persister, Object[] before, Object[] after) {
+        if (entity instanceof Student) {
+            StudentCell from = before != null ? studentCell(persister, before) : null;
+            StudentCell to = after != null ? studentCell(persister, after) : null;
+            if (!Objects.equals(from, to)) {
+                sink.accept(AnalyticsDelta.student(from, to));
+            }
+        } else if (entity instanceof OfficialLetter) {
+            String[] from = before != null ? letterKey(persister, before) : null;
+            String[] to = after != null ? letterKey(persister, after) : null;
+            if (Arrays.equals(from, to)) {
+                return;
+            }
+            if (from != null) {
+                sink.accept(AnalyticsDelta.letter(from[0], from[1], -1));
+            }
+            if (to != null) {
+                sink.accept(AnalyticsDelta.letter(to[0], to[1], 1));
+            }
+        }
+    }
+
+    private static boolean tracked(Object entity) {
+        return entity instanceof Student || entity instanceof OfficialLetter;
+    }
+
+    private static StudentCell studentCell(EntityPersister persister, Object[] state) {
+        LocalDateTime createdAt = (LocalDateTime) state[persister.getEntityMetamodel().getPropertyIndex("createdAt")];
+        return new StudentCell(value(persister, state, "tenantId"), value(persister, state, "faculty"),
+            value(persister, state, "department"), value(persister, state, "internshipStatus"),
+            createdAt != null ? StudentCell.period(createdAt.getYear(), createdAt.getMonthValue()) : null);
+    }
+
+    private static String[] letterKey(EntityPersister persister, Object[] state) {
+        return new String[] { value(persister, state, "comName"), value(persister, state, "username") };
+    }
+
+    private static String value(EntityPersister persister, Object[] state, String property) {
+        Object value = state[persister.getEntityMetamodel().getPropertyIndex(property)];
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+
+import java.util.function.Function;
+
+/**
+ * A dimension students can be sliced by. Values are labelled as the breakdowns label them,
+ * so a missing or blank value is reported as {@value StudentBreakdown#UNSPECIFIED}.
+ */
+public enum CubeDimension {
+
+    TENANT("tenant", StudentCell::getTenant),
+    FACULTY("faculty", StudentCell::getFaculty),
+    DEPARTMENT("department", StudentCell::getDepartment),
+    STATUS("status", StudentCell::getStatus),
+    // Enrollment month as yyyy-MM, which also sorts chronologically
+    PERIOD("period", StudentCell::getPeriod);
+
+    private final String key;
+    private final Function<StudentCell, String> value;
+
+    CubeDimension(String key, Function<StudentCell, String> value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    String label(StudentCell cell) {
+        return label(value.apply(cell));
+    }
+
+    static String label(String value) {
+        return value == null || value.trim().isEmpty() ? StudentBreakdown.UNSPECIFIED : value.trim();
+    }
+
+    public static CubeDimension parse(String key) {
+        for (CubeDimension dimension : values()) {
+            if (dimension.key.equalsIgnoreCase(key.trim())) {
+                return dimension;
+            }
+        }
+        throw new BadRequestException("Unknown dimension '" + key + "'; expected tenant, faculty, department, "
+            + "status or period");
+    }
+}
@@ -0,0 +1,128 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A slice of students: which dimensions to group by, the values each dimension is limited
+ * to, and an optional enrollment month range.
+ *
+ * Built from request parameters: {@code groupBy=faculty,status}, one comma-separated value
+ * list per filtered dimension ({@code status=PLACED,ACCEPTED}), and {@code periodFrom} /
+ * {@code periodTo} as yyyy-MM, both inclusive.
+ */
+public final class CubeQuery {
+
+    private static final Pattern MONTH = Pattern.compile("\\d{4}-(0[1-9]|1[0-2])");
+
+    private final List<CubeDimension> groupBy;
+    private final Map<CubeDimension, Set<String>> filters;
+    private final String periodFrom;
+    private final String periodTo;
+
+    private CubeQuery(List<CubeDimension> groupBy, Map<CubeDimension, Set<String>> filters,
+                      String periodFrom, String periodTo) {
+        this.groupBy = Collections.unmodifiableList(groupBy);
+        this.filters = Collections.unmodifiableMap(filters);
+        this.periodFrom = periodFrom;
+        this.periodTo = periodTo;
+    }
+
+    public static CubeQuery from(Map<String, String> parameters) {
+        List<CubeDimension> groupBy = new ArrayList<>();
+        for (String key : split(parameters.get("groupBy"))) {
+            CubeDimension dimension = CubeDimension.parse(key);
+            if (!groupBy.contains(dimension)) {
+                groupBy.add(dimension);
+            }
+        }
+        Map<CubeDimension, Set<String>> filters = new EnumMap<>(CubeDimension.class);
+        for (CubeDimension dimension : CubeDimension.values()) {
+            List<String> values = split(parameters.get(dimension.getKey()));
+            if (!values.isEmpty()) {
+                Set<String> labels = new LinkedHashSet<>();
+                for (String value : values) {
+                    labels.add(CubeDimension.label(value));
+                }
+                filters.put(dimension, labels);
+            }
+        }
+        String periodFrom = month(parameters.get("periodFrom"), "periodFrom");
+        String periodTo = month(parameters.get("periodTo"), "periodTo");
+        if (periodFrom != null && periodTo != null && periodFrom.compareTo(periodTo) > 0) {
+            throw new BadRequestException("periodFrom must not be after periodTo");
+        }
+        return new CubeQuery(groupBy, filters, periodFrom, periodTo);
+    }
+
+    /**
+     * The same slice restricted to one tenant; used to confine tenant-scoped callers.
+     */
+    CubeQuery forTenant(String tenant) {
+        Map<CubeDimension, Set<String>> scoped = new EnumMap<>(CubeDimension.class);
+        scoped.putAll(filters);
+        scoped.put(CubeDimension.TENANT, Collections.singleton(CubeDimension.label(tenant)));
+        return new CubeQuery(groupBy, scoped, periodFrom, periodTo);
+    }
+
+    public List<CubeDimension> getGroupBy() {
+        return groupBy;
+    }
+
+    public Map<CubeDimension, Set<String>> getFilters() {
+        return filters;
+    }
+
+    public String getPeriodFrom() {
+        return periodFrom;
+    }
+
+    public String getPeriodTo() {
+        return periodTo;
+    }
+
+    boolean hasPeriodRange() {
+        return periodFrom != null || periodTo != null;
+    }
+
+    /**
+     * Whether an enrollment month label falls inside the period range.
+     */
+    boolean inPeriodRange(String period) {
+        if (!MONTH.matcher(period).matches()) {
+            return false;
+        }
+        return (periodFrom == null || period.compareTo(periodFrom) >= 0)
+            && (periodTo == null || period.compareTo(periodTo) <= 0);
+    }
+
+    private static List<String> split(String value) {
+        List<String> parts = new ArrayList<>();
+        if (value != null) {
+            for (String part : value.split(",")) {
+                if (!part.trim().isEmpty()) {
+                    parts.add(part.trim());
+                }
+            }
+        }
+        return parts;
+    }
+
+    private static String month(String value, String field) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        if (!MONTH.matcher(value.trim()).matches()) {
+            throw new BadRequestException(field + " must be a month (yyyy-MM)");
+        }
+        return value.trim();
+    }
+}
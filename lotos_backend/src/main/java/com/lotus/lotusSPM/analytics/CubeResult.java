@@ -0,0 +1,66 @@
+package com.lotus.lotusSPM.analytics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Student counts per group of a {@link CubeQuery}, largest first. Each group maps the
+ * grouped dimensions' keys to their values, plus {@code count}.
+ */
+public class CubeResult {
+
+    private final List<Map<String, Object>> groups;
+    private final long total;
+    private final String source;
+    private final long tookMicros;
+
+    CubeResult(List<Map<String, Object>> groups, long total, String source, long tookMicros) {
+        this.groups = groups;
+        this.total = total;
+        this.source = source;
+        this.tookMicros = tookMicros;
+    }
+
+    /**
+     * @param counts students per group, keyed by the group's labels in {@code groupBy} order
+     */
+    static CubeResult of(Map<List<String>, Long> counts, List<CubeDimension> groupBy, String source,
+                         long startedNanos) {
+        List<Map.Entry<List<String>, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> {
+            int byCount = Long.compare(b.getValue(), a.getValue());
+            return byCount != 0 ? byCount : a.getKey().toString().compareTo(b.getKey().toString());
+        });
+        List<Map<String, Object>> groups = new ArrayList<>(entries.size());
+        long total = 0;
+        for (Map.Entry<List<String>, Long> entry : entries) {
+            Map<String, Object> group = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                group.put(groupBy.get(i).getKey(), entry.getKey().get(i));
+            }
+            group.put("count", entry.getValue());
+            groups.add(group);
+            total += entry.getValue();
+        }
+        return new CubeResult(groups, total, source, (System.nanoTime() - startedNanos) / 1000);
+    }
+
+    public List<Map<String, Object>> getGroups() {
+        return groups;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // "cube" when answered from memory, "database" when the cube was unavailable
+    public String getSource() {
+        return source;
+    }
+
+    public long getTookMicros() {
+        return tookMicros;
+    }
+}
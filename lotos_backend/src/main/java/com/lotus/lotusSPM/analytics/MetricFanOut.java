@@ -0,0 +1,193 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent analytics metrics concurrently so a dashboard takes as long as its
+ * slowest metric rather than the sum of all of them.
+ *
+ * Metrics run on a dedicated bounded pool with the caller's tenant. Each has its own
+ * deadline; a metric that fails, times out or finds the pool full is reported under
+ * {@code errors} while the others are still returned.
+ */
+@Component
+public class MetricFanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricFanOut.class);
+
+    @Value("${app.analytics.fan-out.threads:8}")
+    private int threads;
+
+    @Value("${app.analytics.fan-out.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.analytics.fan-out.timeout-millis:2000}")
+    private long defaultTimeoutMillis;
+
+    // Set on pool threads, so a metric that composes further metrics runs them inline
+    // instead of waiting on the pool it occupies
+    private static final ThreadLocal<Boolean> onPool = new ThreadLocal<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "analytics-metric-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public Composition compose() {
+        return new Composition();
+    }
+
+    /**
+     * Metrics to run together; {@link #run()} starts them all, then waits for each up to its
+     * own deadline.
+     */
+    public final class Composition {
+
+        private final Map<String, Supplier<?>> metrics = new LinkedHashMap<>();
+        private final Map<String, Long> timeouts = new LinkedHashMap<>();
+
+        public Composition metric(String name, Supplier<?> metric) {
+            return metric(name, defaultTimeoutMillis, metric);
+        }
+
+        public Composition metric(String name, long timeoutMillis, Supplier<?> metric) {
+            metrics.put(name, metric);
+            timeouts.put(name, timeoutMillis);
+            return this;
+        }
+
+        public MetricResults run() {
+            if (onPool.get() != null) {
+                return runInline();
+            }
+            String tenant = TenantContext.getCurrentTenant();
+            long started = System.nanoTime();
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            MetricResults results = new MetricResults();
+            for (Map.Entry<String, Supplier<?>> entry : metrics.entrySet()) {
+                try {
+                    futures.put(entry.getKey(), executor.submit(() -> withTenant(tenant, entry.getValue())));
+                } catch (RejectedExecutionException e) {
+                    results.fail(entry.getKey(), "rejected: analytics executor is saturated");
+                }
+            }
+            for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+                String name = entry.getKey();
+                long remainingNanos = started + TimeUnit.MILLISECONDS.toNanos(timeouts.get(name)) - System.nanoTime();
+                try {
+                    results.succeed(name, entry.getValue().get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS));
+                } catch (TimeoutException e) {
+                    entry.getValue().cancel(true);
+                    results.fail(name, "timed out after " + timeouts.get(name) + " ms");
+                } catch (ExecutionException e) {
+                    logger.warn("Analytics metric {} failed", name, e.getCause());
+                    results.fail(name, "failed: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    entry.getValue().cancel(true);
+                    results.fail(name, "interrupted");
+                }
+            }
+            return results;
+        }
+
+        private MetricResults runInline() {
+            MetricResults results = new MetricResults();
+            for (Map.Entry<String, Supplier<?>> entry : metrics.entrySet()) {
+                try {
+                    results.succeed(entry.getKey(), entry.getValue().get());
+                } catch (RuntimeException e) {
+                    logger.warn("Analytics metric {} failed", entry.getKey(), e);
+                    results.fail(entry.getKey(), "failed: " + e.getMessage());
+                }
+            }
+            return results;
+        }
+    }
+
+    private static Object withTenant(String tenant, Supplier<?> metric) {
+        String previous = TenantContext.getCurrentTenant();
+        TenantContext.setCurrentTenant(tenant);
+        onPool.set(Boolean.TRUE);
+        try {
+            return metric.get();
+        } finally {
+            onPool.remove();
+            if (previous != null) {
+                TenantContext.setCurrentTenant(previous);
+            } else {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    /**
+     * Values of the metrics that completed, and an error marker for each that did not.
+     */
+    public static final class MetricResults {
+
+        private final Map<String, Object> values = new LinkedHashMap<>();
+        private final Map<String, String> errors = new LinkedHashMap<>();
+
+        void succeed(String name, Object value) {
+            values.put(name, value);
+        }
+
+        void fail(String name, String reason) {
+            errors.put(name, reason);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name, T fallback) {
+            return values.containsKey(name) ? (T) values.get(name) : fallback;
+        }
+
+        public Map<String, String> getErrors() {
+            return Collections.unmodifiableMap(errors);
+        }
+
+        /**
+         * Every completed metric by name, plus {@code errors} when any did not complete.
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>(values);
+            if (!errors.isEmpty()) {
+                map.put("errors", new LinkedHashMap<>(errors));
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.lotus.lotusSPM.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket sizes of the snapshot time series. Every checkpoint lands in one bucket of each
+ * size, so a chart spanning years reads one row per week or month instead of one per day.
+ */
+public enum SnapshotGranularity {
+
+    DAY,
+    // ISO weeks, starting on Monday
+    WEEK,
+    MONTH;
+
+    public LocalDate bucketStart(LocalDate date) {
+        switch (this) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    public LocalDate nextBucket(LocalDate bucketStart) {
+        switch (this) {
+            case WEEK:
+                return bucketStart.plusWeeks(1);
+            case MONTH:
+                return bucketStart.plusMonths(1);
+            default:
+                return bucketStart.plusDays(1);
+        }
+    }
+
+    /**
+     * The finest granularity that keeps a span at a few hundred points at most.
+     */
+    public static SnapshotGranularity forSpan(LocalDate from, LocalDate to) {
+        long days = ChronoUnit.DAYS.between(from, to);
+        if (days <= 190) {
+            return DAY;
+        }
+        return days <= 2 * 366 ? WEEK : MONTH;
+    }
+}
@@ -0,0 +1,88 @@
+package com.lotus.lotusSPM.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Student counts by faculty, department and internship status, folded from one grouped scan
+ * of (faculty, department, status) cells. Negative counts retract a cell, which is how
+ * {@link AnalyticsCounters} moves a student between cells.
+ */
+public class StudentBreakdown {
+
+    static final String UNSPECIFIED = "Unspecified";
+
+    private long total;
+    private long placed;
+    private final Map<String, Long> byFaculty = new HashMap<>();
+    private final Map<String, Long> byDepartment = new HashMap<>();
+    private final Map<String, Long> byInternshipStatus = new HashMap<>();
+
+    /**
+     * Add one grouped cell.
+     */
+    void add(String faculty, String department, String status, long count, Set<String> placedStatuses) {
+        total += count;
+        adjust(byFaculty, label(faculty), count);
+        adjust(byDepartment, label(department), count);
+        adjust(byInternshipStatus, label(status), count);
+        if (status != null && placedStatuses.contains(status.trim().toUpperCase())) {
+            placed += count;
+        }
+    }
+
+    StudentBreakdown copy() {
+        StudentBreakdown copy = new StudentBreakdown();
+        copy.total = total;
+        copy.placed = placed;
+        copy.byFaculty.putAll(byFaculty);
+        copy.byDepartment.putAll(byDepartment);
+        copy.byInternshipStatus.putAll(byInternshipStatus);
+        return copy;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getPlaced() {
+        return placed;
+    }
+
+    public Map<String, Long> getByFaculty() {
+        return sortedByCount(byFaculty);
+    }
+
+    public Map<String, Long> getByDepartment() {
+        return sortedByCount(byDepartment);
+    }
+
+    public Map<String, Long> getByInternshipStatus() {
+        return sortedByCount(byInternshipStatus);
+    }
+
+    private static void adjust(Map<String, Long> counts, String key, long count) {
+        // Drop emptied labels so a department nobody is left in stops being reported
+        counts.merge(key, count, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static String label(String value) {
+        return value == null || value.trim().isEmpty() ? UNSPECIFIED : value.trim();
+    }
+
+    private static Map<String, Long> sortedByCount(Map<String, Long> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> a.getValue().equals(b.getValue())
+            ? a.getKey().compareTo(b.getKey()) : Long.compare(b.getValue(), a.getValue()));
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(sorted);
+    }
+}
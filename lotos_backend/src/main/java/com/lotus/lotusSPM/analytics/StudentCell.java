@@ -0,0 +1,80 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * The analytics dimensions of one student: which (tenant, faculty, department, status,
+ * enrollment month) cell it is counted in.
+ */
+public final class StudentCell {
+
+    private final String tenant;
+    private final String faculty;
+    private final String department;
+    private final String status;
+    private final String period;
+
+    public StudentCell(String tenant, String faculty, String department, String status) {
+        this(tenant, faculty, department, status, null);
+    }
+
+    /**
+     * @param period enrollment month as yyyy-MM, or null when unknown
+     */
+    @JsonCreator
+    public StudentCell(@JsonProperty("tenant") String tenant, @JsonProperty("faculty") String faculty,
+                       @JsonProperty("department") String department, @JsonProperty("status") String status,
+                       @JsonProperty("period") String period) {
+        this.tenant = tenant;
+        this.faculty = faculty;
+        this.department = department;
+        this.status = status;
+        this.period = period;
+    }
+
+    public static String period(int year, int month) {
+        return String.format("%04d-%02d", year, month);
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public String getFaculty() {
+        return faculty;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StudentCell)) {
+            return false;
+        }
+        StudentCell other = (StudentCell) o;
+        return Objects.equals(tenant, other.tenant) && Objects.equals(faculty, other.faculty)
+            && Objects.equals(department, other.department) && Objects.equals(status, other.status)
+            && Objects.equals(period, other.period);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tenant, faculty, department, status, period);
+    }
+}
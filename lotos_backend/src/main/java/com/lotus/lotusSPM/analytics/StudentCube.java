@@ -0,0 +1,252 @@
+package com.lotus.lotusSPM.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Student counts per (tenant, faculty, department, status, enrollment month) cell, stored
+ * column-wise for slicing in memory.
+ *
+ * Each dimension's labels are dictionary-encoded into an int column, counts sit in a
+ * parallel long column, and every label has a bitmap of the cells carrying it. A filter is
+ * an OR of bitmaps within a dimension and an AND across dimensions; grouping then walks
+ * only the selected cells. Cells are the finest grain anyone slices by, so there are far
+ * fewer of them than students. A cell whose count drops to zero stays until the next
+ * rebuild, and a cell that would take the cube past its byte budget is refused instead.
+ */
+final class StudentCube {
+
+    private static final CubeDimension[] DIMENSIONS = CubeDimension.values();
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Rough heap cost of a cell's lookup entry (map node, key object and its strings) and
+    // of a dictionary label
+    private static final int CELL_ENTRY_BYTES = 200;
+    private static final int LABEL_BYTES = 120;
+
+    private final long maxBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Dictionary[] dictionaries = new Dictionary[DIMENSIONS.length];
+    private final Map<StudentCell, Integer> cells = new HashMap<>();
+    private int[][] columns = new int[DIMENSIONS.length][INITIAL_CAPACITY];
+    private long[] counts = new long[INITIAL_CAPACITY];
+    private int size;
+    private long bitmapBytes;
+    private long labelBytes;
+    private volatile boolean complete = true;
+
+    StudentCube(long maxBytes) {
+        this.maxBytes = maxBytes;
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            dictionaries[d] = new Dictionary();
+        }
+    }
+
+    void add(StudentCell cell, long count) {
+        lock.writeLock().lock();
+        try {
+            Integer row = cells.get(cell);
+            if (row == null) {
+                if (estimatedBytes() + newCellBytes() > maxBytes) {
+                    complete = false;
+                    return;
+                }
+                row = append(cell);
+            }
+            counts[row] += count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void apply(AnalyticsDelta delta) {
+        if (delta.getKind() != AnalyticsDelta.Kind.STUDENT) {
+            return;
+        }
+        if (delta.getBefore() != null) {
+            add(delta.getBefore(), -1);
+        }
+        if (delta.getAfter() != null) {
+            add(delta.getAfter(), 1);
+        }
+    }
+
+    /**
+     * False once a change needed a cell that did not fit the budget; an incomplete cube
+     * must not be queried.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    CubeResult query(CubeQuery query) {
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            BitSet selected = null;
+            for (Map.Entry<CubeDimension, Set<String>> filter : query.getFilters().entrySet()) {
+                Dictionary dictionary = dictionaries[filter.getKey().ordinal()];
+                BitSet matching = new BitSet(size);
+                for (String label : filter.getValue()) {
+                    Integer code = dictionary.codes.get(label);
+                    if (code != null) {
+                        matching.or(dictionary.bitmaps.get(code));
+                    }
+                }
+                selected = intersect(selected, matching);
+            }
+            if (query.hasPeriodRange()) {
+                Dictionary periods = dictionaries[CubeDimension.PERIOD.ordinal()];
+                BitSet matching = new BitSet(size);
+                for (int code = 0; code < periods.labels.size(); code++) {
+                    if (query.inPeriodRange(periods.labels.get(code))) {
+                        matching.or(periods.bitmaps.get(code));
+                    }
+                }
+                selected = intersect(selected, matching);
+            }
+            return CubeResult.of(group(query.getGroupBy(), selected), query.getGroupBy(), "cube", started);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int cellCount() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate heap held by the cube.
+     */
+    long estimatedBytes() {
+        return (long) counts.length * (Long.BYTES + DIMENSIONS.length * Integer.BYTES)
+            + (long) size * CELL_ENTRY_BYTES + bitmapBytes + labelBytes;
+    }
+
+    private Map<List<String>, Long> group(List<CubeDimension> groupBy, BitSet selected) {
+        int[] dims = new int[groupBy.size()];
+        long[] radix = new long[dims.length];
+        long span = 1;
+        for (int i = 0; i < dims.length; i++) {
+            dims[i] = groupBy.get(i).ordinal();
+            radix[i] = span;
+            try {
+                span = Math.multiplyExact(span, Math.max(1, dictionaries[dims[i]].labels.size()));
+            } catch (ArithmeticException e) {
+                return groupByLabels(dims, selected);
+            }
+        }
+        // Group codes packed into one long per group; labels are looked up once per group
+        Map<Long, long[]> sums = new HashMap<>();
+        for (int row = first(selected); row >= 0 && row < size; row = next(selected, row)) {
+            if (counts[row] == 0) {
+                continue;
+            }
+            long key = 0;
+            for (int i = 0; i < dims.length; i++) {
+                key += columns[dims[i]][row] * radix[i];
+            }
+            sums.computeIfAbsent(key, k -> new long[1])[0] += counts[row];
+        }
+        Map<List<String>, Long> groups = new HashMap<>(sums.size() * 2);
+        for (Map.Entry<Long, long[]> entry : sums.entrySet()) {
+            if (entry.getValue()[0] == 0) {
+                continue;
+            }
+            String[] labels = new String[dims.length];
+            for (int i = 0; i < dims.length; i++) {
+                List<String> dictionary = dictionaries[dims[i]].labels;
+                labels[i] = dictionary.get((int) (entry.getKey() / radix[i] % Math.max(1, dictionary.size())));
+            }
+            groups.put(Arrays.asList(labels), entry.getValue()[0]);
+        }
+        return groups;
+    }
+
+    // For label combinations too numerous to pack into a long
+    private Map<List<String>, Long> groupByLabels(int[] dims, BitSet selected) {
+        Map<List<String>, Long> groups = new HashMap<>();
+        for (int row = first(selected); row >= 0 && row < size; row = next(selected, row)) {
+            String[] labels = new String[dims.length];
+            for (int i = 0; i < dims.length; i++) {
+                labels[i] = dictionaries[dims[i]].labels.get(columns[dims[i]][row]);
+            }
+            groups.merge(Arrays.asList(labels), counts[row], Long::sum);
+        }
+        groups.values().removeIf(count -> count == 0);
+        return groups;
+    }
+
+    private int append(StudentCell cell) {
+        if (size == counts.length) {
+            int capacity = counts.length * 2;
+            counts = Arrays.copyOf(counts, capacity);
+            for (int d = 0; d < DIMENSIONS.length; d++) {
+                columns[d] = Arrays.copyOf(columns[d], capacity);
+            }
+        }
+        int row = size++;
+        for (int d = 0; d < DIMENSIONS.length; d++) {
+            Dictionary dictionary = dictionaries[d];
+            int code = dictionary.encode(DIMENSIONS[d].label(cell));
+            columns[d][row] = code;
+            BitSet bitmap = dictionary.bitmaps.get(code);
+            long before = bitmap.size();
+            bitmap.set(row);
+            bitmapBytes += (bitmap.size() - before) / Byte.SIZE;
+        }
+        cells.put(cell, row);
+        return row;
+    }
+
+    // Worst case for one more cell: a new label and bitmap in every dimension, plus a doubling
+    private long newCellBytes() {
+        long growth = size == counts.length ? (long) counts.length * (Long.BYTES + DIMENSIONS.length * Integer.BYTES) : 0;
+        return growth + CELL_ENTRY_BYTES + DIMENSIONS.length * (LABEL_BYTES + (size / Byte.SIZE) + Long.BYTES);
+    }
+
+    private static BitSet intersect(BitSet selected, BitSet matching) {
+        if (selected == null) {
+            return matching;
+        }
+        selected.and(matching);
+        return selected;
+    }
+
+    private static int first(BitSet selected) {
+        return selected == null ? 0 : selected.nextSetBit(0);
+    }
+
+    private static int next(BitSet selected, int row) {
+        return selected == null ? row + 1 : selected.nextSetBit(row + 1);
+    }
+
+    private final class Dictionary {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> labels = new ArrayList<>();
+        final List<BitSet> bitmaps = new ArrayList<>();
+
+        int encode(String label) {
+            Integer code = codes.get(label);
+            if (code == null) {
+                code = labels.size();
+                codes.put(label, code);
+                labels.add(label);
+                bitmaps.add(new BitSet());
+                labelBytes += LABEL_BYTES;
+            }
+            return code;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The latest value recorded in one bucket of a metric's time series.
+ */
+public class TimeSeriesPoint {
+
+    private final LocalDate bucket;
+    private final BigDecimal value;
+    private final String metadata;
+
+    public TimeSeriesPoint(LocalDate bucket, BigDecimal value, String metadata) {
+        this.bucket = bucket;
+        this.value = value;
+        this.metadata = metadata;
+    }
+
+    public LocalDate getBucket() {
+        return bucket;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    // Already JSON as checkpointed, e.g. the per-faculty counts behind students.by_faculty
+    @JsonRawValue
+    public String getMetadata() {
+        return metadata;
+    }
+}
@@ -0,0 +1,132 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Frequency estimates for any key in width x depth counters.
+ *
+ * Each key increments one counter per row and its estimate is the smallest of them, so an
+ * estimate never undercounts. With width = ceil(e / epsilon) and depth = ceil(ln(1 / (1 -
+ * confidence))), it overcounts by at most epsilon times the total added, with the given
+ * confidence. Sketches of the same shape merge by adding their counters.
+ */
+public final class CountMinSketch {
+
+    private static final byte FORMAT = 1;
+    private static final long SECOND_SEED = 0x2545f4914f6cdd1dL;
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long total;
+
+    public CountMinSketch(double epsilon, double confidence) {
+        this(width(epsilon), depth(confidence));
+    }
+
+    private CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Count-Min width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    public synchronized void add(String key, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count-Min counts cannot decrease");
+        }
+        long h1 = SketchHash.hash64(key, 0);
+        long h2 = SketchHash.hash64(key, SECOND_SEED);
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + column(h1, h2, row)] += count;
+        }
+        total += count;
+    }
+
+    public synchronized long estimate(String key) {
+        long h1 = SketchHash.hash64(key, 0);
+        long h2 = SketchHash.hash64(key, SECOND_SEED);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + column(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Largest amount any estimate exceeds the true count by, at the sketch's confidence.
+     */
+    public synchronized long errorBound() {
+        return (long) Math.ceil(Math.E / width * total);
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge a " + other.width + "x" + other.depth
+                + " Count-Min sketch into " + width + "x" + depth);
+        }
+        long[] theirs;
+        long theirTotal;
+        synchronized (other) {
+            theirs = other.counters.clone();
+            theirTotal = other.total;
+        }
+        synchronized (this) {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] += theirs[i];
+            }
+            total += theirTotal;
+        }
+    }
+
+    public synchronized byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 * Integer.BYTES + Long.BYTES * (1 + counters.length))
+            .put(FORMAT)
+            .putInt(width)
+            .putInt(depth)
+            .putLong(total);
+        for (long counter : counters) {
+            buffer.putLong(counter);
+        }
+        return buffer.array();
+    }
+
+    public static CountMinSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 1 + 2 * Integer.BYTES + Long.BYTES || buffer.get() != FORMAT) {
+            throw new IllegalArgumentException("Not a serialized Count-Min sketch");
+        }
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        if (buffer.remaining() != Long.BYTES * (1 + sketch.counters.length)) {
+            throw new IllegalArgumentException("Truncated Count-Min sketch");
+        }
+        sketch.total = buffer.getLong();
+        buffer.asLongBuffer().get(sketch.counters);
+        return sketch;
+    }
+
+    // Row hashes derived from two base hashes (Kirsch-Mitzenmacher)
+    private int column(long h1, long h2, int row) {
+        return (int) Math.floorMod(h1 + row * h2, (long) width);
+    }
+
+    private static int width(double epsilon) {
+        if (epsilon <= 0 || epsilon >= 1) {
+            throw new IllegalArgumentException("Count-Min epsilon must be between 0 and 1");
+        }
+        return (int) Math.ceil(Math.E / epsilon);
+    }
+
+    private static int depth(double confidence) {
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Count-Min confidence must be between 0 and 1");
+        }
+        return (int) Math.ceil(Math.log(1 / (1 - confidence)));
+    }
+}
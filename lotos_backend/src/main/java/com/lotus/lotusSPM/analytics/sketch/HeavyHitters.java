@@ -0,0 +1,100 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Most frequent keys of a stream: {@link SpaceSaving} picks the candidates and
+ * {@link CountMinSketch} tightens their counts, since both only ever overcount.
+ */
+public final class HeavyHitters {
+
+    private final CountMinSketch frequencies;
+    private final SpaceSaving candidates;
+
+    public HeavyHitters(double epsilon, double confidence, int capacity) {
+        this(new CountMinSketch(epsilon, confidence), new SpaceSaving(capacity));
+    }
+
+    private HeavyHitters(CountMinSketch frequencies, SpaceSaving candidates) {
+        this.frequencies = frequencies;
+        this.candidates = candidates;
+    }
+
+    public void add(String key, long count) {
+        frequencies.add(key, count);
+        candidates.add(key, count);
+    }
+
+    public List<Hitter> top(int limit) {
+        List<Hitter> top = new ArrayList<>();
+        for (SpaceSaving.Item item : candidates.top(limit)) {
+            long estimate = Math.min(item.getCount(), frequencies.estimate(item.getKey()));
+            top.add(new Hitter(item.getKey(), estimate, Math.max(0, item.getCount() - item.getError())));
+        }
+        return top;
+    }
+
+    /**
+     * Largest amount a reported estimate exceeds the true count by.
+     */
+    public long maxOvercount() {
+        return Math.min(frequencies.errorBound(), candidates.getTotal() / candidates.getCapacity());
+    }
+
+    public long getTotal() {
+        return candidates.getTotal();
+    }
+
+    public void merge(HeavyHitters other) {
+        frequencies.merge(other.frequencies);
+        candidates.merge(other.candidates);
+    }
+
+    public byte[] toBytes() {
+        byte[] counts = frequencies.toBytes();
+        byte[] top = candidates.toBytes();
+        return ByteBuffer.allocate(Integer.BYTES + counts.length + top.length)
+            .putInt(counts.length)
+            .put(counts)
+            .put(top)
+            .array();
+    }
+
+    public static HeavyHitters fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int length = bytes.length >= Integer.BYTES ? buffer.getInt() : -1;
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Not a serialized heavy hitters summary");
+        }
+        byte[] counts = new byte[length];
+        byte[] top = new byte[buffer.remaining() - length];
+        buffer.get(counts).get(top);
+        return new HeavyHitters(CountMinSketch.fromBytes(counts), SpaceSaving.fromBytes(top));
+    }
+
+    public static final class Hitter {
+        private final String key;
+        private final long estimate;
+        private final long lowerBound;
+
+        Hitter(String key, long estimate, long lowerBound) {
+            this.key = key;
+            this.estimate = estimate;
+            this.lowerBound = lowerBound;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getEstimate() {
+            return estimate;
+        }
+
+        public long getLowerBound() {
+            return lowerBound;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Distinct count estimate in 2^precision bytes, whatever the number of values added.
+ *
+ * The top {@code precision} bits of a value's hash pick a register, which keeps the longest
+ * run of leading zeros seen in the remaining bits. The relative standard error is
+ * 1.04 / sqrt(2^precision), about 0.8% at the default precision of 14; small cardinalities
+ * fall back to linear counting over the empty registers. Merging takes the register-wise
+ * maximum, so the merge of two sketches is exactly the sketch of the union and merging
+ * the same sketch twice changes nothing.
+ */
+public final class HyperLogLog {
+
+    private static final byte FORMAT = 1;
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between " + MIN_PRECISION
+                + " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public synchronized void add(String value) {
+        long hash = SketchHash.hash64(value, 0);
+        int register = (int) (hash >>> (Long.SIZE - precision));
+        // The marker bit caps the rank at 64 - precision + 1 when the remaining bits are all zero
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    public synchronized long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int empty = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                empty++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && empty > 0) {
+            estimate = m * Math.log((double) m / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Folds {@code other} into this sketch; both must have the same precision.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog of precision " + other.precision
+                + " into " + precision);
+        }
+        byte[] theirs = other.toBytes();
+        synchronized (this) {
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = (byte) Math.max(registers[i], theirs[i + 2]);
+            }
+        }
+    }
+
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public synchronized byte[] toBytes() {
+        return ByteBuffer.allocate(2 + registers.length)
+            .put(FORMAT)
+            .put((byte) precision)
+            .put(registers)
+            .array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != FORMAT) {
+            throw new IllegalArgumentException("Not a serialized HyperLogLog");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[1]);
+        if (bytes.length != 2 + sketch.registers.length) {
+            throw new IllegalArgumentException("Truncated HyperLogLog");
+        }
+        System.arraycopy(bytes, 2, sketch.registers, 0, sketch.registers.length);
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
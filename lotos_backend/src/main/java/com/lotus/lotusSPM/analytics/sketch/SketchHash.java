@@ -0,0 +1,35 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+/**
+ * Seeded 64-bit string hash shared by the sketches: FNV-1a over the UTF-16 code units,
+ * finished with the MurmurHash3 mixer so every output bit depends on every input bit.
+ *
+ * The sketches are merged across replicas and persisted, so the hash must never change.
+ */
+final class SketchHash {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SketchHash() {
+    }
+
+    static long hash64(String value, long seed) {
+        long hash = FNV_OFFSET ^ (seed * 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
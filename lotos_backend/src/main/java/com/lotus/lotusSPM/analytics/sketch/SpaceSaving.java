@@ -0,0 +1,203 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Top-K candidates in {@code capacity} counters (Metwally et al.).
+ *
+ * A new key takes over the smallest counter once all are in use, inheriting its count as
+ * error. Counts never undercount, and count - error never overcounts; any key more frequent
+ * than total / capacity is guaranteed to hold a counter. Merging adds counts, charging a key
+ * missing from a full summary with that summary's smallest count, then keeps the largest
+ * {@code capacity} counters; the bounds still hold for the union.
+ */
+public final class SpaceSaving {
+
+    private static final byte FORMAT = 1;
+    private static final Comparator<Item> LARGEST_FIRST = Comparator.comparingLong(Item::getCount).reversed()
+        .thenComparing(Item::getKey);
+
+    private final int capacity;
+    private final Map<String, long[]> counters;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Space-Saving capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(String key, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Space-Saving counts cannot decrease");
+        }
+        total += count;
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += count;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[] {count, 0});
+            return;
+        }
+        // Linear in capacity, which stays in the hundreds
+        String smallest = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < min) {
+                min = entry.getValue()[0];
+                smallest = entry.getKey();
+            }
+        }
+        counters.remove(smallest);
+        counters.put(key, new long[] {min + count, min});
+    }
+
+    /**
+     * The {@code limit} largest counters, most frequent first.
+     */
+    public synchronized List<Item> top(int limit) {
+        List<Item> items = new ArrayList<>(counters.size());
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            items.add(new Item(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        items.sort(LARGEST_FIRST);
+        return new ArrayList<>(items.subList(0, Math.min(limit, items.size())));
+    }
+
+    /**
+     * Upper bound on the count of any key without a counter.
+     */
+    public synchronized long minCount() {
+        if (counters.size() < capacity) {
+            return 0;
+        }
+        long min = Long.MAX_VALUE;
+        for (long[] counter : counters.values()) {
+            min = Math.min(min, counter[0]);
+        }
+        return min;
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void merge(SpaceSaving other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Cannot merge Space-Saving of capacity " + other.capacity
+                + " into " + capacity);
+        }
+        List<Item> theirs = other.top(other.capacity);
+        long theirMin = other.minCount();
+        long theirTotal = other.getTotal();
+        synchronized (this) {
+            long ourMin = minCount();
+            Map<String, long[]> merged = new HashMap<>(capacity * 4);
+            for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                merged.put(entry.getKey(), new long[] {entry.getValue()[0] + theirMin, entry.getValue()[1] + theirMin});
+            }
+            Set<String> ours = new HashSet<>(counters.keySet());
+            for (Item item : theirs) {
+                if (ours.contains(item.key)) {
+                    long[] counter = merged.get(item.key);
+                    counter[0] += item.count - theirMin;
+                    counter[1] += item.error - theirMin;
+                } else {
+                    merged.put(item.key, new long[] {item.count + ourMin, item.error + ourMin});
+                }
+            }
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(merged.entrySet());
+            entries.sort((a, b) -> a.getValue()[0] == b.getValue()[0]
+                ? a.getKey().compareTo(b.getKey()) : Long.compare(b.getValue()[0], a.getValue()[0]));
+            counters.clear();
+            for (Map.Entry<String, long[]> entry : entries.subList(0, Math.min(capacity, entries.size()))) {
+                counters.put(entry.getKey(), entry.getValue());
+            }
+            total += theirTotal;
+        }
+    }
+
+    public synchronized byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeInt(capacity);
+            out.writeLong(total);
+            out.writeInt(counters.size());
+            for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SpaceSaving fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != FORMAT) {
+                throw new IllegalArgumentException("Not a serialized Space-Saving summary");
+            }
+            SpaceSaving summary = new SpaceSaving(in.readInt());
+            summary.total = in.readLong();
+            int size = in.readInt();
+            if (size > summary.capacity) {
+                throw new IllegalArgumentException("Space-Saving summary holds more counters than its capacity");
+            }
+            for (int i = 0; i < size; i++) {
+                summary.counters.put(in.readUTF(), new long[] {in.readLong(), in.readLong()});
+            }
+            return summary;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated Space-Saving summary", e);
+        }
+    }
+
+    public static final class Item {
+        private final String key;
+        private final long count;
+        private final long error;
+
+        Item(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        // Never below the true count
+        public long getCount() {
+            return count;
+        }
+
+        // count - error is never above the true count
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.lotus.lotusSPM.archive;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Locates an archived message inside a user's segment files.
+ * A message has one row per mailbox it appears in (sender's outbox, recipient's inbox).
+ */
+@Entity
+@Table(name = "message_archive_index", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_message_archive_entry", columnNames = {"message_id", "username", "mailbox"})
+}, indexes = {
+    @Index(name = "idx_message_archive_mailbox", columnList = "username, mailbox, sent_at"),
+    @Index(name = "idx_message_archive_message", columnList = "message_id"),
+    @Index(name = "idx_message_archive_thread", columnList = "thread_id, sent_at")
+})
+public class ArchivedMessageRef {
+
+    public enum Mailbox { INBOX, OUTBOX }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "username", length = 100, nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "mailbox", length = 10, nullable = false)
+    private Mailbox mailbox;
+
+    @Column(name = "segment", nullable = false)
+    private int segment;
+
+    @Column(name = "block_offset", nullable = false)
+    private long blockOffset;
+
+    @Column(name = "block_length", nullable = false)
+    private int blockLength;
+
+    @Column(name = "thread_id")
+    private Long threadId;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public ArchivedMessageRef() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Mailbox getMailbox() {
+        return mailbox;
+    }
+
+    public int getSegment() {
+        return segment;
+    }
+
+    public long getBlockOffset() {
+        return blockOffset;
+    }
+
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    public Long getThreadId() {
+        return threadId;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
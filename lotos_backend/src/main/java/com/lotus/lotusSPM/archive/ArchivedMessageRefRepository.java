@@ -0,0 +1,22 @@
+package com.lotus.lotusSPM.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedMessageRefRepository extends JpaRepository<ArchivedMessageRef, Long> {
+
+    List<ArchivedMessageRef> findByUsernameAndMailboxOrderBySentAtAsc(String username, ArchivedMessageRef.Mailbox mailbox);
+
+    Optional<ArchivedMessageRef> findFirstByMessageId(Long messageId);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedMessageRef r WHERE r.messageId = :messageId")
+    int deleteByMessageId(@Param("messageId") Long messageId);
+}
@@ -0,0 +1,319 @@
+package com.lotus.lotusSPM.archive;
+
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.model.Messages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Moves old messages out of the {@code messages} table into per-user compressed segment
+ * files, and serves archived messages back to the read paths.
+ *
+ * Each batch writes its blocks first and then, in one short transaction, records their
+ * locations and deletes the hot rows. A failure between the two leaves unreferenced
+ * blocks behind, never a message that exists in neither tier.
+ *
+ * Off unless {@code app.archive.dir} points at storage every replica reads and that
+ * outlives them; archived rows exist nowhere else.
+ */
+@Service
+public class MessageArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchiveService.class);
+
+    private static final String INSERT_REF =
+        "INSERT INTO message_archive_index (message_id, username, mailbox, segment, block_offset, block_length, " +
+        "thread_id, sent_at, archived_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // One ref per message: the sender's, or the recipient's when there is no sender
+    private static final String THREAD_REFS = "SELECT r FROM ArchivedMessageRef r WHERE r.threadId = :threadId"
+        + " AND (r.mailbox = :outbox OR NOT EXISTS ("
+        + "SELECT o.id FROM ArchivedMessageRef o WHERE o.messageId = r.messageId"
+        + " AND o.mailbox = :outbox))"
+        + " ORDER BY r.sentAt DESC, r.messageId DESC";
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.dir:}")
+    private String archiveDir;
+
+    @Value("${app.archive.max-age-days:365}")
+    private int maxAgeDays;
+
+    @Value("${app.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.archive.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private MessagesDao messagesDao;
+
+    @Autowired
+    private ArchivedMessageRefRepository refRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private MessageSegmentStore store;
+    private TransactionTemplate batchTransaction;
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (archiveDir.trim().isEmpty()) {
+            // Archived rows are deleted from MySQL, so their blocks must outlive this pod
+            if (enabled) {
+                throw new IllegalStateException("app.archive.enabled requires app.archive.dir (MESSAGE_ARCHIVE_DIR)"
+                    + " on storage shared by all replicas");
+            }
+        } else {
+            store = new MessageSegmentStore(Paths.get(archiveDir), segmentMaxBytes);
+        }
+        batchTransaction = new TransactionTemplate(transactionManager);
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "message-archive", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    /**
+     * Runs on the leader only: replicas archiving the same messages would write the same
+     * blocks twice into the shared directory.
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        boolean leader = lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+        if (leader && running.compareAndSet(false, true)) {
+            try {
+                archiveOldMessages();
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    public void archiveOldMessages() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(maxAgeDays);
+        long lastId = 0;
+        int archived = 0;
+
+        for (int batchNo = 0; batchNo < maxBatchesPerRun; batchNo++) {
+            List<Messages> batch = messagesDao.findBySentAtBeforeAndIdGreaterThanOrderByIdAsc(
+                cutoff, lastId, PageRequest.of(0, batchSize)).getContent();
+            if (batch.isEmpty()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+            try {
+                archived += archiveBatch(batch);
+            } catch (Exception e) {
+                // Skip past the batch; its rows stay hot and are retried on the next run
+                logger.error("Failed to archive messages up to id {}", lastId, e);
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            logger.info("Archived {} messages sent before {}", archived, cutoff);
+        }
+    }
+
+    int archiveBatch(List<Messages> batch) throws IOException {
+        Map<String, List<Messages>> byUser = new LinkedHashMap<>();
+        for (Messages message : batch) {
+            for (String user : participants(message)) {
+                byUser.computeIfAbsent(user, u -> new ArrayList<>()).add(message);
+            }
+        }
+
+        List<Object[]> refs = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Map.Entry<String, List<Messages>> entry : byUser.entrySet()) {
+            String user = entry.getKey();
+            MessageSegmentStore.BlockLocation location = store.append(user, entry.getValue());
+            for (Messages message : entry.getValue()) {
+                Timestamp sentAt = Timestamp.valueOf(message.getSentAt());
+                if (user.equals(message.getTo())) {
+                    refs.add(ref(message, user, ArchivedMessageRef.Mailbox.INBOX, location, sentAt, now));
+                }
+                if (user.equals(message.getFrom())) {
+                    refs.add(ref(message, user, ArchivedMessageRef.Mailbox.OUTBOX, location, sentAt, now));
+                }
+            }
+        }
+
+        List<Long> ids = batch.stream().map(Messages::getId).collect(Collectors.toList());
+        Integer moved = batchTransaction.execute(status -> {
+            // Rows deleted by users since the batch was read must not reappear from the archive
+            Set<Long> existing = new HashSet<>(messagesDao.findExistingIds(ids));
+            List<Object[]> live = refs.stream()
+                .filter(ref -> existing.contains((Long) ref[0]))
+                .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate(INSERT_REF, live);
+            messagesDao.deleteAllByIdInBatch(existing);
+            return existing.size();
+        });
+        return moved != null ? moved : 0;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Messages> findById(Long id) {
+        return refRepository.findFirstByMessageId(id).flatMap(ref ->
+            readBlock(ref).stream().filter(m -> id.equals(m.getId())).findFirst());
+    }
+
+    @Transactional(readOnly = true)
+    public List<Messages> findByRecipient(String username) {
+        return findByMailbox(username, ArchivedMessageRef.Mailbox.INBOX);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Messages> findBySender(String username) {
+        return findByMailbox(username, ArchivedMessageRef.Mailbox.OUTBOX);
+    }
+
+    /**
+     * Archived messages of one conversation, newest first, skipping the {@code offset} newest.
+     */
+    @Transactional(readOnly = true)
+    public List<Messages> findByThread(Long threadId, long offset, int limit) {
+        List<ArchivedMessageRef> refs = entityManager.createQuery(THREAD_REFS, ArchivedMessageRef.class)
+            .setParameter("threadId", threadId)
+            .setParameter("outbox", ArchivedMessageRef.Mailbox.OUTBOX)
+            .setFirstResult(Math.toIntExact(offset))
+            .setMaxResults(limit)
+            .getResultList();
+        return read(refs);
+    }
+
+    /**
+     * Drops the archived copy from every mailbox. The bytes stay in the segment file
+     * but are no longer reachable.
+     */
+    @Transactional
+    public boolean delete(Long id) {
+        return refRepository.deleteByMessageId(id) > 0;
+    }
+
+    private List<Messages> findByMailbox(String username, ArchivedMessageRef.Mailbox mailbox) {
+        return read(refRepository.findByUsernameAndMailboxOrderBySentAtAsc(username, mailbox));
+    }
+
+    private List<Messages> read(List<ArchivedMessageRef> refs) {
+        if (refs.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Many refs share a block; decompress each block once
+        Map<String, Map<Long, Messages>> blocks = new HashMap<>();
+        List<Messages> result = new ArrayList<>(refs.size());
+        for (ArchivedMessageRef ref : refs) {
+            String blockKey = ref.getSegment() + ":" + ref.getBlockOffset();
+            Map<Long, Messages> block = blocks.computeIfAbsent(blockKey, k -> readBlock(ref).stream()
+                .collect(Collectors.toMap(Messages::getId, m -> m, (a, b) -> a)));
+            Messages message = block.get(ref.getMessageId());
+            if (message != null) {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    private List<Messages> readBlock(ArchivedMessageRef ref) {
+        if (store == null) {
+            throw new IllegalStateException("Message " + ref.getMessageId()
+                + " is archived but app.archive.dir (MESSAGE_ARCHIVE_DIR) is not set");
+        }
+        try {
+            return store.readBlock(ref.getUsername(), ref.getSegment(), ref.getBlockOffset(), ref.getBlockLength());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read archived message " + ref.getMessageId(), e);
+        }
+    }
+
+    private static Set<String> participants(Messages message) {
+        Set<String> users = new HashSet<>();
+        if (message.getFrom() != null) {
+            users.add(message.getFrom());
+        }
+        if (message.getTo() != null) {
+            users.add(message.getTo());
+        }
+        return users;
+    }
+
+    private static Object[] ref(Messages message, String user, ArchivedMessageRef.Mailbox mailbox,
+                                MessageSegmentStore.BlockLocation location, Timestamp sentAt, Timestamp now) {
+        return new Object[] {
+            message.getId(), user, mailbox.name(), location.getSegment(), location.getOffset(),
+            location.getLength(), message.getThreadId(), sentAt, now
+        };
+    }
+}
@@ -0,0 +1,239 @@
+package com.lotus.lotusSPM.archive;
+
+import com.lotus.lotusSPM.model.Messages;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only, per-user archive files.
+ *
+ * Each user has a directory of numbered {@code segment-NNNNNN.arc} files. Every archival
+ * batch appends one gzip-compressed block per user; the block's offset and length are
+ * recorded in {@link ArchivedMessageRef} so a read decompresses only the blocks it needs.
+ * Blocks are never rewritten: deleting an archived message only drops its index rows.
+ */
+public class MessageSegmentStore {
+
+    private static final int BLOCK_MAGIC = 0x4C534D41;
+    private static final String SUFFIX = ".arc";
+
+    private final Path root;
+    private final long maxSegmentBytes;
+
+    public MessageSegmentStore(Path root, long maxSegmentBytes) throws IOException {
+        this.root = root;
+        this.maxSegmentBytes = maxSegmentBytes;
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Where a block was written.
+     */
+    public static final class BlockLocation {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        BlockLocation(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int getSegment() {
+            return segment;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Compress the messages into one block and append it to the user's current segment.
+     * The block is forced to disk before returning, so index rows written afterwards
+     * never point at data that could be lost.
+     */
+    public synchronized BlockLocation append(String username, List<Messages> messages) throws IOException {
+        byte[] block = encode(messages);
+        Path dir = userDirectory(username);
+        Files.createDirectories(dir);
+
+        int segment = currentSegment(dir);
+        while (true) {
+            Path file = segmentPath(dir, segment);
+            // The directory is shared by replicas; the lock keeps size-then-write atomic across processes
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                long offset = channel.size();
+                if (offset > 0 && offset + block.length > maxSegmentBytes) {
+                    segment++;
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                long position = offset;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                channel.force(false);
+                return new BlockLocation(segment, offset, block.length);
+            }
+        }
+    }
+
+    public List<Messages> readBlock(String username, int segment, long offset, int length) throws IOException {
+        Path file = segmentPath(userDirectory(username), segment);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Archive block truncated in " + file + " at offset " + offset);
+                }
+                position += read;
+            }
+        }
+        return decode(buffer.array());
+    }
+
+    static byte[] encode(List<Messages> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(BLOCK_MAGIC);
+            out.writeInt(messages.size());
+            for (Messages message : messages) {
+                out.writeLong(message.getId());
+                writeString(out, message.getFrom());
+                writeString(out, message.getTo());
+                writeString(out, message.getDate());
+                writeString(out, message.getTime());
+                writeString(out, message.getSubject());
+                writeString(out, message.getTitle());
+                writeString(out, message.getText());
+                writeString(out, message.getFile());
+                out.writeLong(message.getThreadId() != null ? message.getThreadId() : -1L);
+                out.writeLong(message.getSentAt() != null
+                    ? message.getSentAt().toInstant(ZoneOffset.UTC).toEpochMilli() : Long.MIN_VALUE);
+                writeString(out, message.getTenantId());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<Messages> decode(byte[] block) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(block)))) {
+            if (in.readInt() != BLOCK_MAGIC) {
+                throw new IOException("Not a message archive block");
+            }
+            int count = in.readInt();
+            List<Messages> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Messages message = new Messages();
+                message.setId(in.readLong());
+                message.setFrom(readString(in));
+                message.setTo(readString(in));
+                message.setDate(readString(in));
+                message.setTime(readString(in));
+                message.setSubject(readString(in));
+                message.setTitle(readString(in));
+                message.setText(readString(in));
+                message.setFile(readString(in));
+                long threadId = in.readLong();
+                message.setThreadId(threadId >= 0 ? threadId : null);
+                long sentAt = in.readLong();
+                message.setSentAt(sentAt != Long.MIN_VALUE
+                    ? LocalDateTime.ofEpochSecond(Math.floorDiv(sentAt, 1000L),
+                        (int) Math.floorMod(sentAt, 1000L) * 1_000_000, ZoneOffset.UTC)
+                    : null);
+                message.setTenantId(readString(in));
+                messages.add(message);
+            }
+            return messages;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int currentSegment(Path dir) throws IOException {
+        int max = 1;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*" + SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                max = Math.max(max, Integer.parseInt(name.substring("segment-".length(), name.length() - SUFFIX.length())));
+            }
+        }
+        return max;
+    }
+
+    private static Path segmentPath(Path dir, int segment) {
+        return dir.resolve(String.format("segment-%06d%s", segment, SUFFIX));
+    }
+
+    /**
+     * Usernames are free text, so directory names are a readable prefix plus a hash
+     * to keep distinct users from colliding after sanitising.
+     */
+    Path userDirectory(String username) {
+        String safe = username.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (safe.length() > 40) {
+            safe = safe.substring(0, 40);
+        }
+        return root.resolve(safe + "-" + shortHash(username));
+    }
+
+    private static String shortHash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(12);
+            for (int i = 0; i < 6; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
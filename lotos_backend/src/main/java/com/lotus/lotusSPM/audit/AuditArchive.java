@@ -0,0 +1,99 @@
+package com.lotus.lotusSPM.audit;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A month of audit records exported from audit_log to a compressed file.
+ *
+ * The timestamps bound the records actually in the file, which may reach before the month
+ * itself: the oldest partition also holds anything older that arrived late.
+ */
+@Entity
+@Table(name = "audit_archive", indexes = {
+    @Index(name = "idx_audit_archive_period", columnList = "period"),
+    @Index(name = "idx_audit_archive_range", columnList = "min_timestamp, max_timestamp")
+})
+public class AuditArchive {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // yyyy-MM
+    @Column(name = "period", length = 7, nullable = false)
+    private String period;
+
+    @Column(name = "file_name", length = 100, nullable = false)
+    private String fileName;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "min_timestamp", nullable = false)
+    private LocalDateTime minTimestamp;
+
+    @Column(name = "max_timestamp", nullable = false)
+    private LocalDateTime maxTimestamp;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    // Hex SHA-256 of the compressed file
+    @Column(name = "sha256", length = 64, nullable = false)
+    private String sha256;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    public AuditArchive() {
+    }
+
+    public AuditArchive(String period, String fileName, long rowCount, LocalDateTime minTimestamp,
+                        LocalDateTime maxTimestamp, long sizeBytes, String sha256) {
+        this.period = period;
+        this.fileName = fileName;
+        this.rowCount = rowCount;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.sizeBytes = sizeBytes;
+        this.sha256 = sha256;
+        this.archivedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.lotus.lotusSPM.audit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AuditArchiveRepository extends JpaRepository<AuditArchive, Long> {
+
+    List<AuditArchive> findByPeriod(String period);
+
+    @Query("SELECT a FROM AuditArchive a WHERE a.minTimestamp <= :end AND a.maxTimestamp >= :start"
+        + " ORDER BY a.minTimestamp")
+    List<AuditArchive> findOverlapping(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    List<AuditArchive> findByMinTimestampLessThanEqualOrderByMinTimestampAsc(LocalDateTime end);
+
+    // One row per archived month, so small enough to read whole
+    List<AuditArchive> findAllByOrderByMaxTimestampDesc();
+
+    // Every record up to this time may be archived; null before the first archive
+    @Query("SELECT MAX(a.maxTimestamp) FROM AuditArchive a")
+    LocalDateTime findLatestArchivedTimestamp();
+}
@@ -0,0 +1,327 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keeps audit_log to its last few months: closed months are exported to compressed,
+ * checksummed files (see {@link AuditArchiveStore}) and then removed from the table, and
+ * archived records are read back for queries by time.
+ *
+ * On MySQL the table is partitioned by month (see {@link AuditPartitions}); a month
+ * leaves by dropping its partition, and partitions for the coming months are made in
+ * advance. Elsewhere its rows are deleted instead. Months are archived oldest first, once
+ * {@code app.audit.archive.hot-months} have passed, which is long after the last spilled
+ * record for them could have been written. One node, the leader, does the archiving.
+ *
+ * Off unless {@code app.audit.archive.dir} points at storage every replica reads and that
+ * outlives them; archived months exist nowhere else.
+ */
+@Service
+public class AuditArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditArchiveService.class);
+
+    private static final Comparator<AuditLog> IN_ORDER =
+        Comparator.comparing(AuditLog::getTimestamp).thenComparing(AuditLog::getId);
+
+    @Value("${app.audit.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.audit.archive.dir:}")
+    private String archiveDir;
+
+    @Value("${app.audit.archive.hot-months:3}")
+    private int hotMonths;
+
+    @Value("${app.audit.archive.premade-months:2}")
+    private int premadeMonths;
+
+    @Value("${app.audit.archive.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private AuditArchiveRepository archiveRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private AuditArchiveStore store;
+    private AuditPartitions partitions;
+    private TransactionTemplate transaction;
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (archiveDir.trim().isEmpty()) {
+            // Archived months are dropped from audit_log, so their files must outlive this pod
+            if (enabled) {
+                throw new IllegalStateException("app.audit.archive.enabled requires app.audit.archive.dir"
+                    + " (AUDIT_ARCHIVE_DIR) on storage shared by all replicas");
+            }
+        } else {
+            store = new AuditArchiveStore(Paths.get(archiveDir), objectMapper);
+        }
+        partitions = new AuditPartitions(jdbcTemplate);
+        transaction = new TransactionTemplate(transactionManager);
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "audit-archive", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    @Scheduled(cron = "${app.audit.archive.cron:0 15 2 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        boolean leader = lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+        if (leader && running.compareAndSet(false, true)) {
+            try {
+                archiveClosedMonths();
+            } catch (Exception e) {
+                logger.error("Audit archiving failed", e);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * Makes the coming months' partitions, then archives every month before the hot ones.
+     */
+    public void archiveClosedMonths() throws IOException {
+        YearMonth current = YearMonth.now();
+        boolean partitioned = partitions.isPartitioned();
+        if (partitioned) {
+            YearMonth oldest = oldestRecordMonth();
+            partitions.extendThrough(oldest != null ? oldest : current, current.plusMonths(premadeMonths));
+        }
+        YearMonth firstHot = current.minusMonths(hotMonths);
+        while (true) {
+            YearMonth oldest = partitioned ? first(partitions.months()) : oldestRecordMonth();
+            if (oldest == null || !oldest.isBefore(firstHot)) {
+                return;
+            }
+            archiveMonth(oldest, partitioned);
+        }
+    }
+
+    /**
+     * Archived records with timestamps in [start, end] that match {@code filter}, in the
+     * order they were made; a null start reads every archive up to end.
+     */
+    public List<AuditLog> findArchived(LocalDateTime start, LocalDateTime end, Predicate<AuditLog> filter) {
+        List<AuditArchive> archives = start != null
+            ? archiveRepository.findOverlapping(start, end)
+            : archiveRepository.findByMinTimestampLessThanEqualOrderByMinTimestampAsc(end);
+        List<AuditLog> found = new ArrayList<>();
+        for (AuditArchive archive : archives) {
+            try {
+                read(archive, record -> {
+                    LocalDateTime timestamp = record.getTimestamp();
+                    if ((start == null || !timestamp.isBefore(start)) && !timestamp.isAfter(end) && filter.test(record)) {
+                        found.add(record);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read audit archive " + archive.getFileName(), e);
+            }
+        }
+        found.sort(IN_ORDER);
+        return found;
+    }
+
+    /**
+     * The next {@code limit} archived records of a search that has reached {@code after},
+     * newest first; a null cursor starts at the newest.
+     *
+     * Archives are streamed newest first and each record is kept only while it is among the
+     * best {@code limit} so far, so memory holds one page whatever the size of the files.
+     * Reading stops at the first archive whose records are all older than a full page.
+     */
+    public List<AuditLog> findArchivedPage(AuditQuery query, AuditCursor after, int limit) {
+        PriorityQueue<AuditLog> page = new PriorityQueue<>(limit + 1, IN_ORDER);
+        LocalDateTime from = query.getFrom();
+        LocalDateTime to = query.getTo();
+        for (AuditArchive archive : archiveRepository.findAllByOrderByMaxTimestampDesc()) {
+            if ((from != null && archive.getMaxTimestamp().isBefore(from))
+                    || (to != null && !archive.getMinTimestamp().isBefore(to))
+                    || (after != null && archive.getMinTimestamp().isAfter(after.getTimestamp()))) {
+                continue;
+            }
+            if (page.size() == limit && archive.getMaxTimestamp().isBefore(page.peek().getTimestamp())) {
+                break;
+            }
+            try {
+                read(archive, record -> {
+                    if ((after == null || isBefore(record, after)) && query.matches(record)) {
+                        page.add(record);
+                        if (page.size() > limit) {
+                            page.poll();
+                        }
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read audit archive " + archive.getFileName(), e);
+            }
+        }
+        List<AuditLog> found = new ArrayList<>(page);
+        found.sort(IN_ORDER.reversed());
+        return found;
+    }
+
+    /**
+     * Passes each record of the archive to {@code sink}, then checks the file's checksum.
+     */
+    public void read(AuditArchive archive, Consumer<AuditLog> sink) throws IOException {
+        if (store == null) {
+            throw new IllegalStateException("Audit archive " + archive.getFileName()
+                + " is recorded but app.audit.archive.dir (AUDIT_ARCHIVE_DIR) is not set");
+        }
+        store.read(archive.getFileName(), archive.getSha256(), sink);
+    }
+
+    /**
+     * Exports every record before the end of {@code month}, which is all that is left of
+     * it and anything older, then removes them from the table.
+     */
+    private void archiveMonth(YearMonth month, boolean partitioned) throws IOException {
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        // Left by a run that stopped before the month was removed; the new export supersedes it
+        List<AuditArchive> previous = archiveRepository.findByPeriod(month.toString());
+
+        AuditArchive archive;
+        try (AuditArchiveStore.Writer writer = store.create(
+                String.format("audit-%s-%d.jsonl.gz", month, System.currentTimeMillis()))) {
+            export(end, writer);
+            archive = writer.finish(month.toString());
+        }
+
+        transaction.executeWithoutResult(status -> {
+            archiveRepository.deleteAll(previous);
+            if (archive != null) {
+                archiveRepository.save(archive);
+            }
+            if (!partitioned) {
+                entityManager.createQuery("DELETE FROM AuditLog a WHERE a.timestamp < :end")
+                    .setParameter("end", end)
+                    .executeUpdate();
+            }
+        });
+        if (partitioned) {
+            partitions.drop(month);
+        }
+        for (AuditArchive superseded : previous) {
+            store.delete(superseded.getFileName());
+        }
+        logger.info("Archived {} audit records of {}{}", archive != null ? archive.getRowCount() : 0, month,
+            archive != null ? " to " + archive.getFileName() : "");
+    }
+
+    // Pages through the records by (timestamp, id) so each page is a short index range scan
+    private void export(LocalDateTime end, AuditArchiveStore.Writer writer) throws IOException {
+        LocalDateTime lastTimestamp = null;
+        Long lastId = null;
+        while (true) {
+            LocalDateTime afterTimestamp = lastTimestamp;
+            Long afterId = lastId;
+            List<AuditLog> page = transaction.execute(status -> {
+                TypedQuery<AuditLog> query = entityManager.createQuery(afterTimestamp == null
+                        ? "SELECT a FROM AuditLog a WHERE a.timestamp < :end ORDER BY a.timestamp, a.id"
+                        : "SELECT a FROM AuditLog a WHERE a.timestamp < :end AND (a.timestamp > :timestamp"
+                            + " OR (a.timestamp = :timestamp AND a.id > :id)) ORDER BY a.timestamp, a.id",
+                        AuditLog.class)
+                    .setParameter("end", end)
+                    .setMaxResults(pageSize);
+                if (afterTimestamp != null) {
+                    query.setParameter("timestamp", afterTimestamp).setParameter("id", afterId);
+                }
+                List<AuditLog> rows = query.getResultList();
+                entityManager.clear();
+                return rows;
+            });
+            for (AuditLog record : page) {
+                writer.append(record);
+            }
+            if (page.size() < pageSize) {
+                return;
+            }
+            lastTimestamp = page.get(page.size() - 1).getTimestamp();
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private YearMonth oldestRecordMonth() {
+        LocalDateTime oldest = transaction.execute(status -> entityManager
+            .createQuery("SELECT MIN(a.timestamp) FROM AuditLog a", LocalDateTime.class)
+            .getSingleResult());
+        return oldest != null ? YearMonth.from(oldest) : null;
+    }
+
+    private static boolean isBefore(AuditLog record, AuditCursor cursor) {
+        int byTime = record.getTimestamp().compareTo(cursor.getTimestamp());
+        return byTime < 0 || (byTime == 0 && record.getId() < cursor.getId());
+    }
+
+    private static YearMonth first(List<YearMonth> months) {
+        return months.isEmpty() ? null : months.get(0);
+    }
+}
@@ -0,0 +1,165 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compressed files of archived audit records, one JSON record per line.
+ *
+ * A file is written under a {@code .partial} name, forced to disk and renamed, so a
+ * finished name always means a complete file. Its SHA-256, over the compressed bytes, is
+ * returned for the manifest and also written beside it in {@code sha256sum} format, so
+ * the files can be checked without the database.
+ */
+class AuditArchiveStore {
+
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+
+    AuditArchiveStore(Path dir, ObjectMapper objectMapper) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.objectMapper = objectMapper;
+    }
+
+    Writer create(String fileName) throws IOException {
+        return new Writer(fileName);
+    }
+
+    /**
+     * Passes each record of the file to {@code sink}, then checks the file's checksum.
+     *
+     * @throws IOException           if the file is unreadable or does not match {@code sha256};
+     *                               records already passed on are then suspect
+     * @throws IllegalStateException if the directory or the file is not there, as when the
+     *                               shared storage is not mounted; nothing is passed on
+     */
+    void read(String fileName, String sha256, Consumer<AuditLog> sink) throws IOException {
+        Path path = dir.resolve(fileName);
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalStateException("Audit archive directory " + dir + " is not available");
+        }
+        if (!Files.exists(path)) {
+            throw new IllegalStateException("Audit archive " + fileName + " is recorded but not in " + dir);
+        }
+        MessageDigest digest = AuditHashes.sha256();
+        try (InputStream file = Files.newInputStream(path);
+             DigestInputStream digested = new DigestInputStream(file, digest);
+             BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(new GZIPInputStream(digested), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sink.accept(objectMapper.readValue(line, AuditLog.class));
+            }
+            // Anything after the gzip trailer still counts towards the checksum
+            byte[] rest = new byte[8192];
+            while (digested.read(rest) >= 0) {
+                // Digesting
+            }
+        }
+        String actual = AuditHashes.hex(digest.digest());
+        if (!actual.equals(sha256)) {
+            throw new IOException("Audit archive " + fileName + " does not match its checksum");
+        }
+    }
+
+    void delete(String fileName) throws IOException {
+        Files.deleteIfExists(dir.resolve(fileName));
+        Files.deleteIfExists(dir.resolve(fileName + ".sha256"));
+    }
+
+    /**
+     * Appends records to a new archive file; {@link #finish(String)} publishes it.
+     */
+    final class Writer implements AutoCloseable {
+        private final String fileName;
+        private final Path partial;
+        private final FileOutputStream file;
+        private final MessageDigest digest = AuditHashes.sha256();
+        private final GZIPOutputStream gzip;
+        private final BufferedWriter out;
+        private long rows;
+        private LocalDateTime minTimestamp;
+        private LocalDateTime maxTimestamp;
+        private boolean finished;
+
+        private Writer(String fileName) throws IOException {
+            this.fileName = fileName;
+            this.partial = dir.resolve(fileName + PARTIAL_SUFFIX);
+            this.file = new FileOutputStream(partial.toFile());
+            this.gzip = new GZIPOutputStream(new DigestOutputStream(file, digest), 65536);
+            this.out = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+        }
+
+        void append(AuditLog record) throws IOException {
+            out.write(objectMapper.writeValueAsString(record));
+            out.newLine();
+            rows++;
+            LocalDateTime timestamp = record.getTimestamp();
+            if (minTimestamp == null || timestamp.isBefore(minTimestamp)) {
+                minTimestamp = timestamp;
+            }
+            if (maxTimestamp == null || timestamp.isAfter(maxTimestamp)) {
+                maxTimestamp = timestamp;
+            }
+        }
+
+        long getRows() {
+            return rows;
+        }
+
+        /**
+         * Completes the file; null, with nothing left on disk, when no record was appended.
+         */
+        AuditArchive finish(String period) throws IOException {
+            out.flush();
+            gzip.finish();
+            file.getChannel().force(true);
+            out.close();
+            finished = true;
+            if (rows == 0) {
+                Files.deleteIfExists(partial);
+                return null;
+            }
+            Path target = dir.resolve(fileName);
+            String sha256 = AuditHashes.hex(digest.digest());
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.write(dir.resolve(fileName + ".sha256"),
+                (sha256 + "  " + fileName + "\n").getBytes(StandardCharsets.US_ASCII));
+            return new AuditArchive(period, fileName, rows, minTimestamp, maxTimestamp, Files.size(target), sha256);
+        }
+
+        /**
+         * Discards the file unless it was finished.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                try {
+                    out.close();
+                } finally {
+                    Files.deleteIfExists(partial);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.lotus.lotusSPM.audit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes each batch of audit records as one segment of a hash chain, for tamper evidence.
+ *
+ * A segment stores the Merkle root of its records and a hash linking that root to the
+ * previous segment's hash (see {@link AuditHashes}), so changing, adding or removing a
+ * record changes its segment's root, and removing or rewriting a segment breaks every
+ * later link. {@link AuditVerificationService} checks both.
+ */
+@Component
+public class AuditChain {
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Inserts the records as the next segment of the chain; must run in a transaction,
+     * which holds the chain head until it ends.
+     */
+    public AuditSegment append(List<AuditLog> batch) {
+        AuditChainHead head = entityManager.find(AuditChainHead.class, AuditChainHead.ID, LockModeType.PESSIMISTIC_WRITE);
+        if (head == null) {
+            head = AuditChainHead.genesis();
+            entityManager.persist(head);
+        }
+        long sequence = head.getSequence() + 1;
+        for (AuditLog record : batch) {
+            record.setSegmentId(sequence);
+            // Hashed as it will be read back
+            record.setTimestamp(record.getTimestamp().truncatedTo(ChronoUnit.MILLIS));
+        }
+        List<AuditLog> records = new ArrayList<>(auditLogRepository.saveAll(batch));
+        records.sort(Comparator.comparing(AuditLog::getId));
+
+        List<byte[]> leaves = new ArrayList<>(records.size());
+        LocalDateTime min = records.get(0).getTimestamp();
+        LocalDateTime max = min;
+        for (AuditLog record : records) {
+            leaves.add(AuditHashes.leaf(record));
+            min = record.getTimestamp().isBefore(min) ? record.getTimestamp() : min;
+            max = record.getTimestamp().isAfter(max) ? record.getTimestamp() : max;
+        }
+        AuditSegment segment = new AuditSegment(sequence, records.size(), min, max,
+            AuditHashes.merkleRoot(leaves), head.getHash());
+        entityManager.persist(segment);
+        head.advance(segment);
+        return segment;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lotus.lotusSPM.audit;
+
+import javax.persistence.*;
+
+/**
+ * The last segment of the audit hash chain. Its single row is locked while a segment is
+ * appended, which puts the writers of all replicas in turn.
+ */
+@Entity
+@Table(name = "audit_chain_head")
+public class AuditChainHead {
+
+    static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "sequence", nullable = false)
+    private long sequence;
+
+    @Column(name = "hash", length = 64, nullable = false)
+    private String hash;
+
+    public AuditChainHead() {
+    }
+
+    static AuditChainHead genesis() {
+        AuditChainHead head = new AuditChainHead();
+        head.id = ID;
+        head.sequence = 0;
+        head.hash = AuditHashes.GENESIS;
+        return head;
+    }
+
+    void advance(AuditSegment segment) {
+        this.sequence = segment.getSequence();
+        this.hash = segment.getHash();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+}
@@ -0,0 +1,109 @@
+package com.lotus.lotusSPM.audit;
+
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import com.lotus.lotusSPM.security.UserPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Who caused an audit event and from where, read from the calling thread's request,
+ * security context and tenant.
+ *
+ * Everything here comes from thread-locals and request headers, so capturing is cheap; it
+ * must happen on the request thread, as none of them are available once the request is
+ * handed to another thread or has completed.
+ */
+public final class AuditContext {
+
+    static final String SYSTEM = "SYSTEM";
+
+    private final String ipAddress;
+    private final String userAgent;
+    private final String tenantId;
+    private final Long userId;
+    private final String userType;
+    private final String username;
+
+    AuditContext(String ipAddress, String userAgent, String tenantId, Long userId, String userType, String username) {
+        this.ipAddress = ipAddress;
+        this.userAgent = userAgent;
+        this.tenantId = tenantId;
+        this.userId = userId;
+        this.userType = userType;
+        this.username = username;
+    }
+
+    /**
+     * The current thread's context; outside a request the address and agent are
+     * {@value #SYSTEM}, and without an authenticated principal so is the user.
+     */
+    public static AuditContext capture() {
+        String ipAddress = SYSTEM;
+        String userAgent = SYSTEM;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            ipAddress = clientIp(request);
+            String agent = request.getHeader("User-Agent");
+            userAgent = agent != null ? agent : "Unknown";
+        }
+
+        Long userId = null;
+        String userType = SYSTEM;
+        String username = SYSTEM;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+            userId = principal.getId();
+            userType = principal.getRole();
+            username = principal.getUsername();
+        }
+        return new AuditContext(ipAddress, userAgent, TenantContext.getCurrentTenant(), userId, userType, username);
+    }
+
+    public String getIpAddress() {
+        return ipAddress;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUserType() {
+        return userType;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    private static String clientIp(HttpServletRequest request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("X-Real-IP");
+        }
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getRemoteAddr();
+        }
+
+        // Handle multiple IPs (take first one)
+        if (ip != null && ip.contains(",")) {
+            ip = ip.split(",")[0].trim();
+        }
+
+        return ip;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lotus.lotusSPM.audit;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Where a page of audit search results ended: the (timestamp, id) of its last record.
+ * Travels to clients as an opaque URL-safe token.
+ */
+final class AuditCursor {
+
+    private final LocalDateTime timestamp;
+    private final long id;
+
+    AuditCursor(LocalDateTime timestamp, long id) {
+        this.timestamp = timestamp;
+        this.id = id;
+    }
+
+    static AuditCursor after(AuditLog record) {
+        return new AuditCursor(record.getTimestamp(), record.getId());
+    }
+
+    static AuditCursor parse(String token) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = text.lastIndexOf('|');
+            return new AuditCursor(LocalDateTime.parse(text.substring(0, separator)),
+                Long.parseLong(text.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new BadRequestException("cursor is not one returned by the audit search");
+        }
+    }
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((timestamp + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    long getId() {
+        return id;
+    }
+}
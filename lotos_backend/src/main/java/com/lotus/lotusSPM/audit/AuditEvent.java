@@ -0,0 +1,148 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.LocalDateTime;
+
+/**
+ * One audited change as the caller saw it: the {@link AuditContext} and time captured when
+ * the event was built, plus the old and new values as plain objects.
+ *
+ * Building is cheap; serializing the values is left to the audit writer's thread. The
+ * values are therefore read after the caller moves on, so callers must pass objects they
+ * will not modify afterwards, for example a copy of an entity's state before an update
+ * rather than the managed entity itself.
+ */
+public final class AuditEvent {
+
+    private final AuditContext context;
+    private final LocalDateTime timestamp;
+    private final Long userId;
+    private final String userType;
+    private final String username;
+    private final String action;
+    private final String entityType;
+    private final String entityId;
+    private final Object oldValue;
+    private final Object newValue;
+
+    private AuditEvent(Builder builder) {
+        this.context = builder.context;
+        this.timestamp = builder.timestamp;
+        this.userId = builder.userType != null ? builder.userId : context.getUserId();
+        this.userType = builder.userType != null ? builder.userType : context.getUserType();
+        this.username = builder.username != null ? builder.username : context.getUsername();
+        this.action = builder.action;
+        this.entityType = builder.entityType;
+        this.entityId = builder.entityId;
+        this.oldValue = builder.oldValue;
+        this.newValue = builder.newValue;
+    }
+
+    /**
+     * Starts an event, capturing the current thread's context and the time now.
+     */
+    public static Builder builder(String action, String entityType) {
+        return new Builder(action, entityType);
+    }
+
+    public AuditContext getContext() {
+        return context;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    Object getOldValue() {
+        return oldValue;
+    }
+
+    Object getNewValue() {
+        return newValue;
+    }
+
+    /**
+     * The record to store with both values in full; runs on the audit writer's thread.
+     */
+    AuditLog toAuditLog(ObjectMapper objectMapper) throws JsonProcessingException {
+        return toAuditLog(oldValue != null ? objectMapper.writeValueAsString(oldValue) : null,
+            newValue != null ? objectMapper.writeValueAsString(newValue) : null, AuditValueFormat.FULL);
+    }
+
+    /**
+     * The record to store with values already encoded as {@code format}.
+     */
+    AuditLog toAuditLog(String oldJson, String newJson, AuditValueFormat format) {
+        AuditLog record = new AuditLog(userId, userType, username, action, entityType, entityId, oldJson, newJson,
+            context.getIpAddress(), context.getUserAgent());
+        record.setValueFormat(format);
+        record.setTenantId(context.getTenantId());
+        record.setTimestamp(timestamp);
+        return record;
+    }
+
+    public static final class Builder {
+        private final AuditContext context = AuditContext.capture();
+        private final LocalDateTime timestamp = LocalDateTime.now();
+        private final String action;
+        private final String entityType;
+        private String entityId;
+        private Long userId;
+        private String userType;
+        private String username;
+        private Object oldValue;
+        private Object newValue;
+
+        private Builder(String action, String entityType) {
+            this.action = action;
+            this.entityType = entityType;
+        }
+
+        public Builder entityId(Object entityId) {
+            this.entityId = entityId != null ? String.valueOf(entityId) : null;
+            return this;
+        }
+
+        /**
+         * Overrides the authenticated principal, for actions taken on behalf of someone
+         * else or before login.
+         */
+        public Builder user(Long userId, String userType, String username) {
+            this.userId = userId;
+            this.userType = userType;
+            this.username = username;
+            return this;
+        }
+
+        public Builder oldValue(Object oldValue) {
+            this.oldValue = oldValue;
+            return this;
+        }
+
+        public Builder newValue(Object newValue) {
+            this.newValue = newValue;
+            return this;
+        }
+
+        public AuditEvent build() {
+            if (action == null || entityType == null) {
+                throw new IllegalArgumentException("An audit event needs an action and an entity type");
+            }
+            return new AuditEvent(this);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 hashes of the audit hash chain.
+ *
+ * A record's leaf hash covers every stored field, each length-prefixed so no two records
+ * encode alike. A segment's Merkle root is built over its records' leaves in id order,
+ * pairing neighbours level by level and carrying an odd one up unchanged; leaves and inner
+ * nodes are hashed with different prefixes so neither can pass for the other. A segment's
+ * hash links its root, sequence and size to the previous segment's hash.
+ *
+ * Also hashes entity states, so a patch can name the state it applies to.
+ */
+final class AuditHashes {
+
+    /** The previous hash of the first segment. */
+    static final String GENESIS = repeat('0', 64);
+
+    private static final byte LEAF = 0;
+    private static final byte NODE = 1;
+    private static final byte LINK = 2;
+
+    // The timestamp as stored: to the millisecond
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    private AuditHashes() {
+    }
+
+    static byte[] leaf(AuditLog record) {
+        MessageDigest digest = sha256();
+        digest.update(LEAF);
+        digest.update(ByteBuffer.allocate(8).putLong(record.getId()).array());
+        update(digest, record.getSegmentId() != null ? record.getSegmentId().toString() : null);
+        update(digest, record.getTimestamp() != null ? TIMESTAMP.format(record.getTimestamp()) : null);
+        update(digest, record.getUserId() != null ? record.getUserId().toString() : null);
+        update(digest, record.getUserType());
+        update(digest, record.getUsername());
+        update(digest, record.getAction());
+        update(digest, record.getEntityType());
+        update(digest, record.getEntityId());
+        update(digest, record.getOldValue());
+        update(digest, record.getNewValue());
+        update(digest, record.getValueFormat() != null ? record.getValueFormat().name() : null);
+        update(digest, record.getIpAddress());
+        update(digest, record.getUserAgent());
+        update(digest, record.getTenantId());
+        // Added after records were first chained; left out when absent so those leaves still match
+        if (record.getBaseHash() != null) {
+            update(digest, record.getBaseHash());
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Hex SHA-256 of a JSON state with object fields in name order and numbers in plain
+     * form, so equal states hash alike however they were serialised.
+     */
+    static String state(JsonNode state) {
+        StringBuilder canonical = new StringBuilder();
+        canonicalize(state, canonical);
+        return hex(sha256().digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param leaves the leaf hashes in record id order; at least one
+     */
+    static String merkleRoot(List<byte[]> leaves) {
+        List<byte[]> level = leaves;
+        while (level.size() > 1) {
+            List<byte[]> parents = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i + 1 < level.size(); i += 2) {
+                MessageDigest digest = sha256();
+                digest.update(NODE);
+                digest.update(level.get(i));
+                digest.update(level.get(i + 1));
+                parents.add(digest.digest());
+            }
+            if (level.size() % 2 == 1) {
+                parents.add(level.get(level.size() - 1));
+            }
+            level = parents;
+        }
+        return hex(level.get(0));
+    }
+
+    static String link(String previousHash, long sequence, int recordCount, String merkleRoot) {
+        MessageDigest digest = sha256();
+        digest.update(LINK);
+        digest.update(previousHash.getBytes(StandardCharsets.US_ASCII));
+        digest.update(ByteBuffer.allocate(12).putLong(sequence).putInt(recordCount).array());
+        digest.update(merkleRoot.getBytes(StandardCharsets.US_ASCII));
+        return hex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void canonicalize(JsonNode node, StringBuilder out) {
+        if (node.isObject()) {
+            TreeMap<String, JsonNode> fields = new TreeMap<>();
+            for (Iterator<String> names = node.fieldNames(); names.hasNext(); ) {
+                String name = names.next();
+                fields.put(name, node.get(name));
+            }
+            out.append('{');
+            String separator = "";
+            for (Map.Entry<String, JsonNode> field : fields.entrySet()) {
+                out.append(separator);
+                canonicalize(TextNode.valueOf(field.getKey()), out);
+                out.append(':');
+                canonicalize(field.getValue(), out);
+                separator = ",";
+            }
+            out.append('}');
+        } else if (node.isArray()) {
+            out.append('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                canonicalize(node.get(i), out);
+            }
+            out.append(']');
+        } else if (node.isNumber()) {
+            // 3.50 written from a BigDecimal reads back as the double 3.5
+            out.append(node.decimalValue().stripTrailingZeros().toPlainString());
+        } else {
+            out.append(node.toString());
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder repeated = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            repeated.append(c);
+        }
+        return repeated.toString();
+    }
+}
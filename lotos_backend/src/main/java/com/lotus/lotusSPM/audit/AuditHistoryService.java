@@ -0,0 +1,126 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.lotus.lotusSPM.audit.patch.JsonPatch;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebuilds the state of an audited entity at any of its audit records.
+ *
+ * A state comes from the latest record at or before the wanted one that holds it in full
+ * (a snapshot, or a record written before diffs), with the JSON Patches recorded since
+ * applied in order. When that record's month has been archived, the archives are read
+ * for it. A patch that names the state it was diffed from is only applied to that state.
+ */
+@Service
+public class AuditHistoryService {
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private AuditArchiveService auditArchiveService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * The entity's state right after the audited change; JSON null after a delete.
+     */
+    @Transactional(readOnly = true)
+    public JsonNode stateAfter(Long auditId) {
+        return stateAfter(find(auditId));
+    }
+
+    /**
+     * The entity's state right before the audited change; JSON null when it had none.
+     */
+    @Transactional(readOnly = true)
+    public JsonNode stateBefore(Long auditId) {
+        AuditLog record = find(auditId);
+        if (record.getValueFormat() == null || record.getValueFormat() == AuditValueFormat.FULL) {
+            return read(record, record.getOldValue());
+        }
+        List<AuditLog> previous = auditLogRepository.findChangesBefore(record.getEntityType(), record.getEntityId(),
+            record.getTimestamp(), record.getId(), PageRequest.of(0, 1));
+        if (previous.isEmpty()) {
+            previous = archivedChangesBefore(record);
+            return previous.isEmpty() ? NullNode.getInstance() : stateAfter(previous.get(previous.size() - 1));
+        }
+        return stateAfter(previous.get(0));
+    }
+
+    private JsonNode stateAfter(AuditLog record) {
+        if (record.getValueFormat() != AuditValueFormat.PATCH) {
+            return read(record, record.getNewValue());
+        }
+        List<AuditLog> bases = auditLogRepository.findStatesUpTo(record.getEntityType(), record.getEntityId(),
+            record.getTimestamp(), record.getId(), PageRequest.of(0, 1));
+        AuditLog base;
+        List<AuditLog> changes = new ArrayList<>();
+        if (!bases.isEmpty()) {
+            base = bases.get(0);
+        } else {
+            List<AuditLog> archived = archivedChangesBefore(record);
+            int at = archived.size() - 1;
+            while (at >= 0 && archived.get(at).getValueFormat() == AuditValueFormat.PATCH) {
+                at--;
+            }
+            if (at < 0) {
+                throw new IllegalStateException("No snapshot precedes audit record " + record.getId());
+            }
+            base = archived.get(at);
+            changes.addAll(archived.subList(at + 1, archived.size()));
+        }
+        changes.addAll(auditLogRepository.findChangesBetween(record.getEntityType(), record.getEntityId(),
+            base.getTimestamp(), base.getId(), record.getTimestamp(), record.getId()));
+
+        JsonNode state = read(base, base.getNewValue());
+        for (AuditLog change : changes) {
+            if (change.getBaseHash() != null && !change.getBaseHash().equals(AuditHashes.state(state))) {
+                throw new IllegalStateException("Audit record " + change.getId() + " was diffed from a state other "
+                    + "than the one recorded before it");
+            }
+            try {
+                state = JsonPatch.apply(state, read(change, change.getNewValue()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Audit record " + change.getId() + " does not apply to the state "
+                    + "before it: " + e.getMessage(), e);
+            }
+        }
+        return state;
+    }
+
+    // Reads every archive up to the record; only needed once its entity's older history is archived
+    private List<AuditLog> archivedChangesBefore(AuditLog record) {
+        return auditArchiveService.findArchived(null, record.getTimestamp(),
+            r -> record.getEntityType().equals(r.getEntityType()) && record.getEntityId().equals(r.getEntityId())
+                && (r.getTimestamp().isBefore(record.getTimestamp()) || r.getId() < record.getId()));
+    }
+
+    private AuditLog find(Long auditId) {
+        return auditLogRepository.findById(auditId)
+            .orElseThrow(() -> new ResourceNotFoundException("AuditLog", "id", auditId));
+    }
+
+    private JsonNode read(AuditLog record, String json) {
+        if (json == null) {
+            return NullNode.getInstance();
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Audit record " + record.getId() + " holds unreadable JSON", e);
+        }
+    }
+}
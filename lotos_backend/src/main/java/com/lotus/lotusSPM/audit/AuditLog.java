@@ -1,18 +1,27 @@
 package com.lotus.lotusSPM.audit;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "audit_log", indexes = {
-    @Index(name = "idx_audit_username", columnList = "username"),
-    @Index(name = "idx_audit_action", columnList = "action"),
-    @Index(name = "idx_audit_timestamp", columnList = "timestamp")
+    @Index(name = "idx_audit_user_time", columnList = "username, timestamp"),
+    @Index(name = "idx_audit_action_time", columnList = "action, timestamp"),
+    @Index(name = "idx_audit_entity_time", columnList = "entity_type, entity_id, timestamp"),
+    @Index(name = "idx_audit_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_audit_segment", columnList = "segment_id")
 })
 public class AuditLog {
 
+    // Assigned before insert so the audit writer's inserts go out as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = KSortableIdGenerator.NAME)
+    @GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
     private Long id;
 
     @Column(name = "user_id")
@@ -39,15 +48,30 @@ public class AuditLog {
     @Column(name = "new_value", columnDefinition = "TEXT")
     private String newValue;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "value_format", length = 10)
+    private AuditValueFormat valueFormat;
+
     @Column(name = "ip_address", length = 45)
     private String ipAddress;
 
     @Column(name = "user_agent", length = 500)
     private String userAgent;
 
+    @Column(name = "tenant_id", length = 100)
+    private String tenantId;
+
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
+    // Sequence of the hash chain segment the record was written in; null before the chain
+    @Column(name = "segment_id")
+    private Long segmentId;
+
+    // For a patch, the state hash (see AuditHashes.state) of what it was diffed from
+    @Column(name = "base_hash", length = 64)
+    private String baseHash;
+
     public AuditLog() {
         this.timestamp = LocalDateTime.now();
     }
@@ -69,6 +93,7 @@ public class AuditLog {
     }
 
     // Getters and Setters
+    @JsonSerialize(using = ToStringSerializer.class)
     public Long getId() {
         return id;
     }
@@ -77,6 +102,7 @@ public class AuditLog {
         this.id = id;
     }
 
+    @JsonSerialize(using = ToStringSerializer.class)
     public Long getUserId() {
         return userId;
     }
@@ -141,6 +167,14 @@ public class AuditLog {
         this.newValue = newValue;
     }
 
+    public AuditValueFormat getValueFormat() {
+        return valueFormat;
+    }
+
+    public void setValueFormat(AuditValueFormat valueFormat) {
+        this.valueFormat = valueFormat;
+    }
+
     public String getIpAddress() {
         return ipAddress;
     }
@@ -157,6 +191,14 @@ public class AuditLog {
         this.userAgent = userAgent;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
     public LocalDateTime getTimestamp() {
         return timestamp;
     }
@@ -164,4 +206,20 @@ public class AuditLog {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Long getSegmentId() {
+        return segmentId;
+    }
+
+    public void setSegmentId(Long segmentId) {
+        this.segmentId = segmentId;
+    }
+
+    public String getBaseHash() {
+        return baseHash;
+    }
+
+    public void setBaseHash(String baseHash) {
+        this.baseHash = baseHash;
+    }
 }
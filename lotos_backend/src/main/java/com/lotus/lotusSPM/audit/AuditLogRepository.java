@@ -1,6 +1,9 @@
 package com.lotus.lotusSPM.audit;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -9,13 +12,45 @@ import java.util.List;
 @Repository
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
 
-    List<AuditLog> findByUsername(String username);
-
-    List<AuditLog> findByUsernameAndAction(String username, String action);
-
-    List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId);
-
-    List<AuditLog> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
-
-    List<AuditLog> findByUserTypeAndTimestampBetween(String userType, LocalDateTime start, LocalDateTime end);
+    // Bounded by the page; AuditSearchService pages through any number of records
+
+    List<AuditLog> findByUsername(String username, Pageable pageable);
+
+    List<AuditLog> findByUsernameAndAction(String username, String action, Pageable pageable);
+
+    List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId, Pageable pageable);
+
+    /**
+     * The entity's records that hold a full state, at or before the given record, latest
+     * first.
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.entityType = :entityType AND a.entityId = :entityId"
+        + " AND (a.valueFormat IS NULL OR a.valueFormat <> com.lotus.lotusSPM.audit.AuditValueFormat.PATCH)"
+        + " AND (a.timestamp < :timestamp OR (a.timestamp = :timestamp AND a.id <= :id))"
+        + " ORDER BY a.timestamp DESC, a.id DESC")
+    List<AuditLog> findStatesUpTo(@Param("entityType") String entityType, @Param("entityId") String entityId,
+                                  @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id,
+                                  Pageable pageable);
+
+    /**
+     * The entity's records after the first given record, up to and including the second,
+     * in the order they were made.
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.entityType = :entityType AND a.entityId = :entityId"
+        + " AND (a.timestamp > :fromTimestamp OR (a.timestamp = :fromTimestamp AND a.id > :fromId))"
+        + " AND (a.timestamp < :toTimestamp OR (a.timestamp = :toTimestamp AND a.id <= :toId))"
+        + " ORDER BY a.timestamp, a.id")
+    List<AuditLog> findChangesBetween(@Param("entityType") String entityType, @Param("entityId") String entityId,
+                                      @Param("fromTimestamp") LocalDateTime fromTimestamp, @Param("fromId") Long fromId,
+                                      @Param("toTimestamp") LocalDateTime toTimestamp, @Param("toId") Long toId);
+
+    /**
+     * The entity's records before the given one, latest first.
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.entityType = :entityType AND a.entityId = :entityId"
+        + " AND (a.timestamp < :timestamp OR (a.timestamp = :timestamp AND a.id < :id))"
+        + " ORDER BY a.timestamp DESC, a.id DESC")
+    List<AuditLog> findChangesBefore(@Param("entityType") String entityType, @Param("entityId") String entityId,
+                                     @Param("timestamp") LocalDateTime timestamp, @Param("id") Long id,
+                                     Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package com.lotus.lotusSPM.audit;
+
+/**
+ * What {@link AuditWriter} does with a record when its queue is full.
+ */
+public enum AuditOverflowPolicy {
+
+    /** Wait for room, up to app.audit.block-timeout-millis, then drop. */
+    BLOCK,
+
+    /** Drop the record and count it under audit.dropped. */
+    DROP,
+
+    /** Append the record to a local spill file, written to the database once the queue drains. */
+    SPILL
+}
@@ -0,0 +1,28 @@
+package com.lotus.lotusSPM.audit;
+
+import java.util.List;
+
+/**
+ * One page of audit search results, newest first.
+ */
+public final class AuditPage {
+
+    private final List<AuditLog> items;
+    private final String nextCursor;
+
+    AuditPage(List<AuditLog> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AuditLog> getItems() {
+        return items;
+    }
+
+    /**
+     * Pass as {@code cursor} for the next page; null on the last one.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,83 @@
+package com.lotus.lotusSPM.audit;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The monthly partitions of audit_log on MySQL.
+ *
+ * The table is partitioned by RANGE COLUMNS on its DATETIME(3) timestamp (V22). Partition
+ * {@code pYYYYMM} holds the records of that month, the oldest one also everything
+ * before it, and {@code p_future} everything after the last month made. New months are
+ * split off {@code p_future} ahead of time, while it is still empty.
+ */
+class AuditPartitions {
+
+    static final String FUTURE = "p_future";
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final DateTimeFormatter BOUNDARY = DateTimeFormatter.ofPattern("yyyy-MM-'01 00:00:00'");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    AuditPartitions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Whether the table is partitioned; false on other databases, such as H2 in tests, and
+     * before V22 has run.
+     */
+    boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        return product != null && (product.contains("MySQL") || product.contains("MariaDB")) && !names().isEmpty();
+    }
+
+    /**
+     * The months that have a partition, oldest first.
+     */
+    List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names()) {
+            if (!FUTURE.equals(name)) {
+                months.add(YearMonth.parse(name, NAME));
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Splits partitions up to and including {@code last} off {@code p_future}, starting
+     * after the newest existing month, or at {@code first} when there is none.
+     */
+    void extendThrough(YearMonth first, YearMonth last) {
+        List<YearMonth> existing = months();
+        YearMonth next = existing.isEmpty() ? first : existing.get(existing.size() - 1).plusMonths(1);
+        if (next.isAfter(last)) {
+            return;
+        }
+        StringBuilder ddl = new StringBuilder("ALTER TABLE audit_log REORGANIZE PARTITION ").append(FUTURE).append(" INTO (");
+        for (YearMonth month = next; !month.isAfter(last); month = month.plusMonths(1)) {
+            ddl.append("PARTITION ").append(month.format(NAME))
+                .append(" VALUES LESS THAN ('").append(month.plusMonths(1).format(BOUNDARY)).append("'), ");
+        }
+        ddl.append("PARTITION ").append(FUTURE).append(" VALUES LESS THAN MAXVALUE)");
+        jdbcTemplate.execute(ddl.toString());
+    }
+
+    void drop(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE audit_log DROP PARTITION " + month.format(NAME));
+    }
+
+    private List<String> names() {
+        return jdbcTemplate.queryForList(
+            "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND TABLE_NAME = 'audit_log' AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+            String.class);
+    }
+}
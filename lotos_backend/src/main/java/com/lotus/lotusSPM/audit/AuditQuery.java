@@ -0,0 +1,134 @@
+package com.lotus.lotusSPM.audit;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An audit search compiled into the conditions of one parameterised JPQL query.
+ *
+ * Offers the filters the audit_log indexes serve, each led by one equality and ending in
+ * the timestamp: {@code username}, {@code action}, or {@code entityType} with optional
+ * {@code entityId}, plus {@code from} / {@code to} as ISO dates or date-times (from
+ * inclusive, to exclusive; a date alone means its whole day for {@code to}). Absent or
+ * empty filters add no condition. {@link #matches(AuditLog)} applies the same filters to
+ * records read back from the archive files.
+ */
+public final class AuditQuery {
+
+    private final String conditions;
+    private final Map<String, Object> parameters;
+
+    private AuditQuery(String conditions, Map<String, Object> parameters) {
+        this.conditions = conditions;
+        this.parameters = Collections.unmodifiableMap(parameters);
+    }
+
+    /**
+     * @param tenant restricts the search to one tenant's records, or null for all
+     */
+    public static AuditQuery compile(Map<String, String> filters, String tenant) {
+        StringBuilder conditions = new StringBuilder();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (tenant != null) {
+            conditions.append(" AND a.tenantId = :tenant");
+            parameters.put("tenant", tenant);
+        }
+        String username = value(filters, "username");
+        if (username != null) {
+            conditions.append(" AND a.username = :username");
+            parameters.put("username", username);
+        }
+        String action = value(filters, "action");
+        if (action != null) {
+            conditions.append(" AND a.action = :action");
+            parameters.put("action", action);
+        }
+        String entityType = value(filters, "entityType");
+        String entityId = value(filters, "entityId");
+        if (entityId != null && entityType == null) {
+            throw new BadRequestException("entityId needs entityType");
+        }
+        if (entityType != null) {
+            conditions.append(" AND a.entityType = :entityType");
+            parameters.put("entityType", entityType);
+        }
+        if (entityId != null) {
+            conditions.append(" AND a.entityId = :entityId");
+            parameters.put("entityId", entityId);
+        }
+        String from = value(filters, "from");
+        if (from != null) {
+            conditions.append(" AND a.timestamp >= :from");
+            parameters.put("from", parseTime(from, "from", false));
+        }
+        String to = value(filters, "to");
+        if (to != null) {
+            conditions.append(" AND a.timestamp < :to");
+            parameters.put("to", parseTime(to, "to", true));
+        }
+        return new AuditQuery(conditions.toString(), parameters);
+    }
+
+    /**
+     * Conditions to append to a WHERE clause over {@code AuditLog a}, each starting with AND.
+     */
+    String getConditions() {
+        return conditions;
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    LocalDateTime getFrom() {
+        return (LocalDateTime) parameters.get("from");
+    }
+
+    LocalDateTime getTo() {
+        return (LocalDateTime) parameters.get("to");
+    }
+
+    /**
+     * Whether the record satisfies every filter, as the conditions would in the database.
+     */
+    boolean matches(AuditLog record) {
+        LocalDateTime timestamp = record.getTimestamp();
+        LocalDateTime from = getFrom();
+        LocalDateTime to = getTo();
+        return equal("tenant", record.getTenantId())
+            && equal("username", record.getUsername())
+            && equal("action", record.getAction())
+            && equal("entityType", record.getEntityType())
+            && equal("entityId", record.getEntityId())
+            && (from == null || !timestamp.isBefore(from))
+            && (to == null || timestamp.isBefore(to));
+    }
+
+    private boolean equal(String parameter, String value) {
+        Object expected = parameters.get(parameter);
+        return expected == null || expected.equals(value);
+    }
+
+    private static String value(Map<String, String> filters, String key) {
+        String value = filters != null ? filters.get(key) : null;
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static LocalDateTime parseTime(String value, String field, boolean endOfDay) {
+        try {
+            if (value.length() == 10) {
+                LocalDate date = LocalDate.parse(value);
+                return endOfDay ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(field + " must be an ISO date (yyyy-MM-dd) or date-time (yyyy-MM-ddTHH:mm:ss)");
+        }
+    }
+}
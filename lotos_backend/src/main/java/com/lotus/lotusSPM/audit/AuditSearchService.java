@@ -0,0 +1,175 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Searches audit_log newest first, a bounded page at a time, continuing into the archived
+ * months once the search reaches them.
+ *
+ * Pages continue from a cursor on (timestamp, id) instead of an offset, so every page is a
+ * range scan of one of the (filter, timestamp) indexes that starts where the last one
+ * stopped, however deep the client has paged. A page that reaches back to the latest
+ * archived record is merged with the next records of the archive files listed in
+ * audit_archive (see {@link AuditArchiveService#findArchivedPage}), which are streamed
+ * rather than loaded. The export walks the same pages and writes each before reading the
+ * next; past the archived boundary its pages are larger, as each costs a pass over a file.
+ */
+@Service
+public class AuditSearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Newest first, as pages are returned
+    private static final Comparator<AuditLog> NEWEST_FIRST =
+        Comparator.comparing(AuditLog::getTimestamp).thenComparing(AuditLog::getId).reversed();
+
+    @Value("${app.audit.search.export-page-size:1000}")
+    private int exportPageSize;
+
+    @Value("${app.audit.search.archive-page-size:10000}")
+    private int archivePageSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuditArchiveRepository archiveRepository;
+
+    @Autowired
+    private AuditArchiveService archiveService;
+
+    private TransactionTemplate readTransaction;
+
+    @PostConstruct
+    public void initialize() {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * @param cursor the previous page's next cursor, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public AuditPage search(AuditQuery query, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        AuditCursor after = cursor != null ? AuditCursor.parse(cursor) : null;
+        List<AuditLog> items = page(query, after, limit + 1, archiveRepository.findLatestArchivedTimestamp());
+        if (items.size() <= limit) {
+            return new AuditPage(items, null);
+        }
+        items = new ArrayList<>(items.subList(0, limit));
+        return new AuditPage(items, AuditCursor.after(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * Writes every matching record to {@code out} as one JSON object per line, newest first.
+     *
+     * @return the number of records written
+     */
+    public long export(AuditQuery query, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long written = 0;
+        LocalDateTime archivedThrough =
+            readTransaction.execute(status -> archiveRepository.findLatestArchivedTimestamp());
+        AuditCursor after = null;
+        while (true) {
+            AuditCursor from = after;
+            int pageSize = archivedThrough != null && from != null && !from.getTimestamp().isAfter(archivedThrough)
+                ? archivePageSize : exportPageSize;
+            List<AuditLog> page = readTransaction.execute(status -> {
+                List<AuditLog> rows = page(query, from, pageSize, archivedThrough);
+                entityManager.clear();
+                return rows;
+            });
+            for (AuditLog record : page) {
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.write('\n');
+            }
+            written += page.size();
+            if (page.size() < pageSize) {
+                writer.flush();
+                return written;
+            }
+            after = AuditCursor.after(page.get(page.size() - 1));
+        }
+    }
+
+    /**
+     * The next {@code limit} records after the cursor from the table and, once they reach
+     * back to {@code archivedThrough}, the archive files too.
+     */
+    private List<AuditLog> page(AuditQuery query, AuditCursor after, int limit, LocalDateTime archivedThrough) {
+        List<AuditLog> hot = hotPage(query, after, limit);
+        if (archivedThrough == null
+                || (hot.size() == limit && hot.get(limit - 1).getTimestamp().isAfter(archivedThrough))) {
+            return hot;
+        }
+        return merge(hot, archiveService.findArchivedPage(query, after, limit), limit);
+    }
+
+    // A month is in both while its archive is published and before its rows are removed
+    private static List<AuditLog> merge(List<AuditLog> hot, List<AuditLog> archived, int limit) {
+        List<AuditLog> merged = new ArrayList<>(limit);
+        Set<Long> ids = new HashSet<>();
+        int h = 0;
+        int a = 0;
+        while (merged.size() < limit && (h < hot.size() || a < archived.size())) {
+            boolean fromHot = a == archived.size()
+                || (h < hot.size() && NEWEST_FIRST.compare(hot.get(h), archived.get(a)) <= 0);
+            AuditLog next = fromHot ? hot.get(h++) : archived.get(a++);
+            if (ids.add(next.getId())) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+
+    private List<AuditLog> hotPage(AuditQuery query, AuditCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT a FROM AuditLog a WHERE 1 = 1").append(query.getConditions());
+        if (after != null) {
+            // The first condition bounds the index range; the second skips what the last page returned
+            jpql.append(" AND a.timestamp <= :afterTimestamp AND (a.timestamp < :afterTimestamp OR a.id < :afterId)");
+        }
+        jpql.append(" ORDER BY a.timestamp DESC, a.id DESC");
+
+        TypedQuery<AuditLog> page = entityManager.createQuery(jpql.toString(), AuditLog.class).setMaxResults(limit);
+        for (Map.Entry<String, Object> parameter : query.getParameters().entrySet()) {
+            page.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        if (after != null) {
+            page.setParameter("afterTimestamp", after.getTimestamp());
+            page.setParameter("afterId", after.getId());
+        }
+        return page.getResultList();
+    }
+}
@@ -0,0 +1,88 @@
+package com.lotus.lotusSPM.audit;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One batch of audit records as a link of the audit hash chain (see {@link AuditChain}).
+ *
+ * The timestamps bound the records' own, which tells where they may be now: in audit_log,
+ * or in an archive file once their month has been archived.
+ */
+@Entity
+@Table(name = "audit_segment")
+public class AuditSegment {
+
+    // 1, 2, 3... in the order the segments were written, without gaps
+    @Id
+    @Column(name = "sequence")
+    private Long sequence;
+
+    @Column(name = "record_count", nullable = false)
+    private int recordCount;
+
+    @Column(name = "min_timestamp", nullable = false)
+    private LocalDateTime minTimestamp;
+
+    @Column(name = "max_timestamp", nullable = false)
+    private LocalDateTime maxTimestamp;
+
+    @Column(name = "merkle_root", length = 64, nullable = false)
+    private String merkleRoot;
+
+    @Column(name = "previous_hash", length = 64, nullable = false)
+    private String previousHash;
+
+    @Column(name = "hash", length = 64, nullable = false)
+    private String hash;
+
+    @Column(name = "written_at", nullable = false)
+    private LocalDateTime writtenAt;
+
+    public AuditSegment() {
+    }
+
+    AuditSegment(long sequence, int recordCount, LocalDateTime minTimestamp, LocalDateTime maxTimestamp,
+                 String merkleRoot, String previousHash) {
+        this.sequence = sequence;
+        this.recordCount = recordCount;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.merkleRoot = merkleRoot;
+        this.previousHash = previousHash;
+        this.hash = AuditHashes.link(previousHash, sequence, recordCount, merkleRoot);
+        this.writtenAt = LocalDateTime.now();
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public String getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public LocalDateTime getWrittenAt() {
+        return writtenAt;
+    }
+}
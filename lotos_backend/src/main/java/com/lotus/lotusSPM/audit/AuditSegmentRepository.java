@@ -0,0 +1,16 @@
+package com.lotus.lotusSPM.audit;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuditSegmentRepository extends JpaRepository<AuditSegment, Long> {
+
+    @Query("SELECT s FROM AuditSegment s WHERE s.sequence > :after AND s.sequence <= :through ORDER BY s.sequence")
+    List<AuditSegment> findRange(@Param("after") long after, @Param("through") long through, Pageable pageable);
+}
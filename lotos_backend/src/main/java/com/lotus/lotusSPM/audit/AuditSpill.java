@@ -0,0 +1,150 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local files holding audit records that could not go to the database yet, one JSON record
+ * per line.
+ *
+ * Records are appended to an open {@code .spilling} file; sealing renames it to
+ * {@code .jsonl}, and only sealed files are replayed, so a replay never reads a file that
+ * is still being written. Files are sealed at {@link #MAX_FILE_BYTES} so each can be
+ * replayed in memory. Names sort in the order the files were opened.
+ */
+class AuditSpill {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpill.class);
+
+    static final long MAX_FILE_BYTES = 8L * 1024 * 1024;
+    private static final String OPEN_SUFFIX = ".spilling";
+    private static final String SEALED_SUFFIX = ".jsonl";
+
+    private final Path dir;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong sequence = new AtomicLong();
+    private Path openFile;
+    private BufferedWriter writer;
+    private long openBytes;
+
+    AuditSpill(Path dir, ObjectMapper objectMapper) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.objectMapper = objectMapper;
+        // Files left open by a previous process are complete up to their last full line
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "*" + OPEN_SUFFIX)) {
+            for (Path leftover : leftovers) {
+                seal(leftover);
+            }
+        }
+    }
+
+    synchronized void append(List<AuditLog> records) throws IOException {
+        if (writer == null) {
+            openFile = dir.resolve(String.format("audit-%013d-%06d%s", System.currentTimeMillis(),
+                sequence.incrementAndGet() % 1000000, OPEN_SUFFIX));
+            writer = Files.newBufferedWriter(openFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            openBytes = 0;
+        }
+        for (AuditLog record : records) {
+            String line = objectMapper.writeValueAsString(record);
+            writer.write(line);
+            writer.newLine();
+            openBytes += line.length() + 1;
+        }
+        writer.flush();
+        if (openBytes >= MAX_FILE_BYTES) {
+            sealOpenFile();
+        }
+    }
+
+    /**
+     * Seals the open file and lists every sealed file, oldest first.
+     */
+    synchronized List<Path> sealAll() throws IOException {
+        sealOpenFile();
+        List<Path> sealed = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEALED_SUFFIX)) {
+            for (Path file : files) {
+                sealed.add(file);
+            }
+        }
+        Collections.sort(sealed);
+        return sealed;
+    }
+
+    /**
+     * The records of a sealed file, with their ids cleared so they insert afresh.
+     */
+    List<AuditLog> read(Path file) throws IOException {
+        List<AuditLog> records = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    AuditLog record = objectMapper.readValue(line, AuditLog.class);
+                    record.setId(null);
+                    records.add(record);
+                } catch (JsonProcessingException e) {
+                    // Only the last line of a file cut short by a crash can be incomplete
+                    logger.warn("Skipping unreadable audit record in {}: {}", file, e.getOriginalMessage());
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Replaces a sealed file by the records of it that are still unwritten.
+     */
+    void replace(Path file, List<AuditLog> remaining) throws IOException {
+        if (!remaining.isEmpty()) {
+            Path next = dir.resolve(file.getFileName() + ".rest");
+            try (BufferedWriter out = Files.newBufferedWriter(next, StandardCharsets.UTF_8)) {
+                for (AuditLog record : remaining) {
+                    out.write(objectMapper.writeValueAsString(record));
+                    out.newLine();
+                }
+            }
+            // Keeps its place in the replay order
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return;
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private void sealOpenFile() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.close();
+        writer = null;
+        seal(openFile);
+        openFile = null;
+    }
+
+    private static void seal(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Files.move(file, file.resolveSibling(name.substring(0, name.length() - OPEN_SUFFIX.length()) + SEALED_SUFFIX),
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+}
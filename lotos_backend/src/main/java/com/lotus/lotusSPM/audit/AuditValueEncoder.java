@@ -0,0 +1,98 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.audit.patch.JsonPatch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Encodes an audit event's values for storage: an update becomes a JSON Patch from the old
+ * state to the new one, and every {@code snapshotInterval}-th change of an entity stores
+ * its new state in full instead, so rebuilding a version replays a bounded number of
+ * patches.
+ *
+ * An entity this encoder has not seen since it started, or has since forgotten, gets a
+ * snapshot first; the chain therefore never depends on counts held by another node or a
+ * previous process. Nor is an update diffed from an old state other than the new state
+ * this encoder last recorded for the entity, as when the caller's copy was stale or
+ * another node recorded a change in between: it gets a snapshot, since history is rebuilt
+ * by applying each patch to the state recorded before it. A patch also keeps the hash of
+ * the state it was diffed from, which {@link AuditHistoryService} checks. Creates and
+ * deletes keep their values in full. Not thread-safe: it is used by the audit writer's
+ * thread only.
+ */
+class AuditValueEncoder {
+
+    // Entities whose last recorded state and changes since their last snapshot are kept;
+    // the least recently changed are forgotten beyond this
+    static final int MAX_TRACKED_ENTITIES = 50000;
+
+    private final ObjectMapper objectMapper;
+    private final int snapshotInterval;
+    private final Map<String, Tracked> recorded =
+        new LinkedHashMap<String, Tracked>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Tracked> eldest) {
+                return size() > MAX_TRACKED_ENTITIES;
+            }
+        };
+
+    /**
+     * @param snapshotInterval changes per entity between full snapshots; below 2 every
+     *                         update is stored in full
+     */
+    AuditValueEncoder(ObjectMapper objectMapper, int snapshotInterval) {
+        this.objectMapper = objectMapper;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    AuditLog encode(AuditEvent event) throws JsonProcessingException {
+        Object oldValue = event.getOldValue();
+        Object newValue = event.getNewValue();
+        String key = event.getEntityId() != null ? event.getEntityType() + '/' + event.getEntityId() : null;
+        if (key == null || oldValue == null || newValue == null || snapshotInterval < 2) {
+            AuditLog record = event.toAuditLog(objectMapper);
+            if (key != null) {
+                // A full record is a starting point for rebuilding versions too
+                recorded.put(key, new Tracked(0, newValue != null && snapshotInterval >= 2
+                    ? AuditHashes.state(objectMapper.valueToTree(newValue)) : null));
+            }
+            return record;
+        }
+
+        JsonNode newState = objectMapper.valueToTree(newValue);
+        String newJson = objectMapper.writeValueAsString(newState);
+        String newHash = AuditHashes.state(newState);
+        Tracked last = recorded.get(key);
+        if (last != null && last.changes + 1 < snapshotInterval && last.stateHash != null) {
+            JsonNode oldState = objectMapper.valueToTree(oldValue);
+            String oldHash = AuditHashes.state(oldState);
+            if (oldHash.equals(last.stateHash)) {
+                String patch = objectMapper.writeValueAsString(JsonPatch.diff(oldState, newState));
+                // A patch rewriting most of the state saves nothing over a snapshot
+                if (patch.length() < newJson.length()) {
+                    recorded.put(key, new Tracked(last.changes + 1, newHash));
+                    AuditLog record = event.toAuditLog(null, patch, AuditValueFormat.PATCH);
+                    record.setBaseHash(oldHash);
+                    return record;
+                }
+            }
+        }
+        recorded.put(key, new Tracked(0, newHash));
+        return event.toAuditLog(null, newJson, AuditValueFormat.SNAPSHOT);
+    }
+
+    private static final class Tracked {
+        private final int changes;
+        // Of the state last recorded in full or rebuilt by a patch; null after a delete
+        private final String stateHash;
+
+        private Tracked(int changes, String stateHash) {
+            this.changes = changes;
+            this.stateHash = stateHash;
+        }
+    }
+}
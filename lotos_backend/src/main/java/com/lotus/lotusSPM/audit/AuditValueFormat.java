@@ -0,0 +1,16 @@
+package com.lotus.lotusSPM.audit;
+
+/**
+ * How an {@link AuditLog}'s old and new values are stored.
+ */
+public enum AuditValueFormat {
+
+    /** Both states as full JSON; records written before diffs have no format and read as this. */
+    FULL,
+
+    /** The new state as full JSON, without the old one; versions are rebuilt from here. */
+    SNAPSHOT,
+
+    /** An RFC 6902 JSON Patch from the previous state to the new one, in new_value; base_hash names that state. */
+    PATCH
+}
@@ -0,0 +1,136 @@
+package com.lotus.lotusSPM.audit;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of one check of the audit hash chain. The latest that passed is the
+ * checkpoint the next incremental check continues from.
+ */
+@Entity
+@Table(name = "audit_verification", indexes = {
+    @Index(name = "idx_audit_verification_passed", columnList = "passed, id")
+})
+public class AuditVerification {
+
+    private static final int MAX_DETAIL = 2000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Whether the chain was checked from its first segment rather than the checkpoint
+    @Column(name = "full_scan", nullable = false)
+    private boolean fullScan;
+
+    @Column(name = "after_sequence", nullable = false)
+    private long afterSequence;
+
+    @Column(name = "through_sequence", nullable = false)
+    private long throughSequence;
+
+    @Column(name = "through_hash", length = 64, nullable = false)
+    private String throughHash;
+
+    @Column(name = "segments", nullable = false)
+    private long segments;
+
+    @Column(name = "records", nullable = false)
+    private long records;
+
+    @Column(name = "failures", nullable = false)
+    private int failures;
+
+    // The first failures, one "segment or archive: problem" per line
+    @Column(name = "detail", length = MAX_DETAIL)
+    private String detail;
+
+    @Column(name = "passed", nullable = false)
+    private boolean passed;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public AuditVerification() {
+    }
+
+    AuditVerification(boolean fullScan, long afterSequence, String afterHash) {
+        this.fullScan = fullScan;
+        this.afterSequence = afterSequence;
+        this.throughSequence = afterSequence;
+        this.throughHash = afterHash;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    void checked(AuditSegment segment) {
+        segments++;
+        records += segment.getRecordCount();
+        throughSequence = segment.getSequence();
+        throughHash = segment.getHash();
+    }
+
+    void fail(String subject, String problem) {
+        failures++;
+        String line = subject + ": " + problem + "\n";
+        String current = detail != null ? detail : "";
+        if (current.length() + line.length() <= MAX_DETAIL) {
+            detail = current + line;
+        }
+    }
+
+    void finish() {
+        passed = failures == 0;
+        finishedAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isFullScan() {
+        return fullScan;
+    }
+
+    public long getAfterSequence() {
+        return afterSequence;
+    }
+
+    public long getThroughSequence() {
+        return throughSequence;
+    }
+
+    public String getThroughHash() {
+        return throughHash;
+    }
+
+    public long getSegments() {
+        return segments;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public boolean isPassed() {
+        return passed;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+}
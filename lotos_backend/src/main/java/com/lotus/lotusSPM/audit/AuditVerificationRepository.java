@@ -0,0 +1,10 @@
+package com.lotus.lotusSPM.audit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AuditVerificationRepository extends JpaRepository<AuditVerification, Long> {
+
+    AuditVerification findTopByPassedTrueOrderByIdDesc();
+}
@@ -0,0 +1,424 @@
+package com.lotus.lotusSPM.audit;
+
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import com.lotus.lotusSPM.exception.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the audit hash chain (see {@link AuditChain}) for tampering.
+ *
+ * An incremental check continues from the last check that passed: it confirms the
+ * checkpointed segment is unchanged and follows the chain through the segments written
+ * since, so its cost follows what was added rather than the size of the log. A full
+ * check follows it from the first segment. Following the links is cheap; rebuilding each
+ * segment's Merkle root from its records is not, so that is spread over
+ * {@code app.audit.verify.parallelism} threads (one per core by default), a window of
+ * segments at a time. Segments still in audit_log are read a few per query; archive
+ * files are read once each, by one thread, for all the segments they hold. A file that
+ * fails its checksum is reported as tampering; a missing file or archive directory stops
+ * the check with an error instead, since the archiver may run on another replica and the
+ * storage they share may simply not be mounted here.
+ *
+ * A check is only as good as the checkpoint it starts from. The hash each passing check
+ * reached is logged, so it can be kept outside the database as well.
+ */
+@Service
+public class AuditVerificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditVerificationService.class);
+
+    @Value("${app.audit.verify.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.verify.parallelism:0}")
+    private int parallelism;
+
+    @Value("${app.audit.verify.window-segments:5000}")
+    private int windowSegments;
+
+    @Value("${app.audit.verify.query-segments:50}")
+    private int querySegments;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private AuditSegmentRepository segmentRepository;
+
+    @Autowired
+    private AuditVerificationRepository verificationRepository;
+
+    @Autowired
+    private AuditArchiveRepository archiveRepository;
+
+    @Autowired
+    private AuditArchiveService archiveService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService workers;
+    private TransactionTemplate transaction;
+    private TransactionTemplate readTransaction;
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger started = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "audit-verify-" + started.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        transaction = new TransactionTemplate(transactionManager);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "audit-verify", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+        workers.shutdownNow();
+    }
+
+    @Scheduled(cron = "${app.audit.verify.cron:0 45 * * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        boolean leader = lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+        if (leader && running.compareAndSet(false, true)) {
+            try {
+                check(false);
+            } catch (Exception e) {
+                logger.error("Audit chain verification could not run", e);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * @param full check the whole chain rather than what was written since the checkpoint
+     */
+    public AuditVerification verify(boolean full) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BadRequestException("An audit chain verification is already running");
+        }
+        try {
+            return check(full);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private AuditVerification check(boolean full) {
+        AuditVerification checkpoint = full ? null : verificationRepository.findTopByPassedTrueOrderByIdDesc();
+        AuditVerification verification = checkpoint != null
+            ? new AuditVerification(false, checkpoint.getThroughSequence(), checkpoint.getThroughHash())
+            : new AuditVerification(true, 0, AuditHashes.GENESIS);
+        if (checkpoint != null && checkpoint.getThroughSequence() > 0) {
+            AuditSegment anchor = segmentRepository.findById(checkpoint.getThroughSequence()).orElse(null);
+            if (anchor == null || !anchor.getHash().equals(checkpoint.getThroughHash())) {
+                verification.fail(segment(checkpoint.getThroughSequence()),
+                    "differs from the checkpoint of verification " + checkpoint.getId());
+            }
+        }
+
+        // Segments written from here on are left to the next check
+        AuditChainHead head = readTransaction.execute(status -> entityManager.find(AuditChainHead.class, AuditChainHead.ID));
+        long through = head != null ? head.getSequence() : 0;
+        long sequence = verification.getThroughSequence();
+        String expected = verification.getThroughHash();
+        Set<String> unreadable = ConcurrentHashMap.newKeySet();
+        while (sequence < through) {
+            long after = sequence;
+            List<AuditSegment> window = readTransaction.execute(status ->
+                segmentRepository.findRange(after, through, PageRequest.of(0, windowSegments)));
+            if (window.isEmpty()) {
+                break;
+            }
+            for (AuditSegment segment : window) {
+                if (segment.getSequence() != sequence + 1) {
+                    verification.fail(segment(sequence + 1), (segment.getSequence() - sequence - 1) + " segments missing");
+                }
+                if (!segment.getPreviousHash().equals(expected)) {
+                    verification.fail(segment(segment.getSequence()), "does not link to the segment before it");
+                }
+                if (!AuditHashes.link(segment.getPreviousHash(), segment.getSequence(), segment.getRecordCount(),
+                        segment.getMerkleRoot()).equals(segment.getHash())) {
+                    verification.fail(segment(segment.getSequence()), "hash does not match the segment");
+                }
+                sequence = segment.getSequence();
+                expected = segment.getHash();
+                verification.checked(segment);
+            }
+            for (Long failed : checkRecords(window, unreadable)) {
+                verification.fail(segment(failed), "records do not match the Merkle root");
+            }
+        }
+        if (sequence < through) {
+            verification.fail(segment(sequence + 1), (through - sequence) + " segments missing at the end of the chain");
+        }
+        for (String archive : unreadable) {
+            verification.fail("archive " + archive, "unreadable or does not match its checksum");
+        }
+
+        verification.finish();
+        transaction.executeWithoutResult(status -> verificationRepository.save(verification));
+        if (verification.isPassed()) {
+            logger.info("Audit chain verified through segment {} with hash {} ({} segments, {} records checked)",
+                verification.getThroughSequence(), verification.getThroughHash(), verification.getSegments(),
+                verification.getRecords());
+        } else {
+            logger.error("Audit chain verification found {} failures:\n{}", verification.getFailures(),
+                verification.getDetail());
+        }
+        return verification;
+    }
+
+    /**
+     * @return the sequences of the segments whose records do not rebuild their Merkle root
+     */
+    private Set<Long> checkRecords(List<AuditSegment> segments, Set<String> unreadable) {
+        Set<Long> failed = checkRecordsOnce(segments, unreadable);
+        if (failed.isEmpty()) {
+            return failed;
+        }
+        // Once more, in case the archiver moved their records while they were read
+        return checkRecordsOnce(segments.stream()
+            .filter(segment -> failed.contains(segment.getSequence()))
+            .collect(Collectors.toList()), unreadable);
+    }
+
+    private Set<Long> checkRecordsOnce(List<AuditSegment> segments, Set<String> unreadable) {
+        // Records up to the newest archived timestamp may have left audit_log; later ones have not
+        LocalDateTime archivedThrough = readTransaction.execute(status -> archiveRepository.findLatestArchivedTimestamp());
+        List<AuditSegment> live = new ArrayList<>();
+        Map<Long, AuditSegment> archived = new HashMap<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (AuditSegment segment : segments) {
+            if (archivedThrough == null || segment.getMinTimestamp().isAfter(archivedThrough)) {
+                live.add(segment);
+                continue;
+            }
+            archived.put(segment.getSequence(), segment);
+            from = from == null || segment.getMinTimestamp().isBefore(from) ? segment.getMinTimestamp() : from;
+            to = to == null || segment.getMaxTimestamp().isAfter(to) ? segment.getMaxTimestamp() : to;
+        }
+
+        Set<Long> verified = ConcurrentHashMap.newKeySet();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (List<AuditSegment> chunk : chunks(live)) {
+            tasks.add(workers.submit(() -> verifyAll(chunk, tableLeaves(chunk), verified)));
+        }
+        List<Future<Map<Long, List<Leaf>>>> scans = new ArrayList<>();
+        if (!archived.isEmpty()) {
+            LocalDateTime start = from;
+            LocalDateTime end = to;
+            for (AuditArchive archive : readTransaction.execute(status -> archiveRepository.findOverlapping(start, end))) {
+                scans.add(workers.submit(() -> scan(archive, archived, verified, unreadable)));
+            }
+        }
+        for (Future<?> task : tasks) {
+            await(task);
+        }
+
+        // What the files left incomplete: segments split between files, or still partly in audit_log
+        Map<Long, List<Leaf>> partial = new HashMap<>();
+        for (Future<Map<Long, List<Leaf>>> scan : scans) {
+            await(scan).forEach((sequence, leaves) ->
+                partial.computeIfAbsent(sequence, k -> new ArrayList<>()).addAll(leaves));
+        }
+        // A segment completed in one file yet found in another has records it should not
+        verified.removeAll(partial.keySet());
+        List<AuditSegment> rest = archived.values().stream()
+            .filter(segment -> !verified.contains(segment.getSequence()))
+            .sorted(Comparator.comparing(AuditSegment::getSequence))
+            .collect(Collectors.toList());
+        tasks.clear();
+        for (List<AuditSegment> chunk : chunks(rest)) {
+            tasks.add(workers.submit(() -> {
+                Map<Long, List<Leaf>> leaves = tableLeaves(chunk);
+                for (AuditSegment segment : chunk) {
+                    List<Leaf> found = partial.get(segment.getSequence());
+                    if (found != null) {
+                        leaves.computeIfAbsent(segment.getSequence(), k -> new ArrayList<>()).addAll(found);
+                    }
+                }
+                verifyAll(chunk, leaves, verified);
+            }));
+        }
+        for (Future<?> task : tasks) {
+            await(task);
+        }
+
+        Set<Long> failed = new LinkedHashSet<>();
+        for (AuditSegment segment : segments) {
+            if (!verified.contains(segment.getSequence())) {
+                failed.add(segment.getSequence());
+            }
+        }
+        return failed;
+    }
+
+    private Map<Long, List<Leaf>> tableLeaves(List<AuditSegment> segments) {
+        List<Long> sequences = segments.stream().map(AuditSegment::getSequence).collect(Collectors.toList());
+        return readTransaction.execute(status -> {
+            Map<Long, List<Leaf>> leaves = new HashMap<>();
+            for (AuditLog record : entityManager
+                    .createQuery("SELECT a FROM AuditLog a WHERE a.segmentId IN :segments", AuditLog.class)
+                    .setParameter("segments", sequences)
+                    .getResultList()) {
+                leaves.computeIfAbsent(record.getSegmentId(), k -> new ArrayList<>()).add(new Leaf(record));
+            }
+            entityManager.clear();
+            return leaves;
+        });
+    }
+
+    /**
+     * Verifies each wanted segment whose records are all in the file as soon as the last
+     * is read, so only segments in progress are held.
+     *
+     * @return the records of segments the file holds only some of
+     */
+    private Map<Long, List<Leaf>> scan(AuditArchive archive, Map<Long, AuditSegment> wanted, Set<Long> verified,
+                                       Set<String> unreadable) {
+        Map<Long, List<Leaf>> collecting = new HashMap<>();
+        try {
+            archiveService.read(archive, record -> {
+                AuditSegment segment = record.getSegmentId() != null ? wanted.get(record.getSegmentId()) : null;
+                if (segment == null) {
+                    return;
+                }
+                List<Leaf> leaves = collecting.computeIfAbsent(segment.getSequence(), k -> new ArrayList<>());
+                leaves.add(new Leaf(record));
+                if (leaves.size() == segment.getRecordCount()) {
+                    collecting.remove(segment.getSequence());
+                    verifyAll(Collections.singletonList(segment),
+                        Collections.singletonMap(segment.getSequence(), leaves), verified);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Could not check audit archive {}: {}", archive.getFileName(), e.getMessage());
+            unreadable.add(archive.getFileName());
+        } catch (IllegalStateException e) {
+            // Unless a newer export of its month replaced it since it was listed; the second pass reads that
+            if (Boolean.TRUE.equals(readTransaction.execute(status -> archiveRepository.existsById(archive.getId())))) {
+                throw e;
+            }
+        }
+        return collecting;
+    }
+
+    private static void verifyAll(List<AuditSegment> segments, Map<Long, List<Leaf>> leaves, Set<Long> verified) {
+        for (AuditSegment segment : segments) {
+            List<Leaf> found = leaves.get(segment.getSequence());
+            if (found != null && segment.getMerkleRoot().equals(root(found, segment.getRecordCount()))) {
+                verified.add(segment.getSequence());
+            }
+        }
+    }
+
+    // Null when the records cannot be the segment's; a record may be both in a file and still in audit_log
+    private static String root(List<Leaf> leaves, int recordCount) {
+        leaves.sort(Comparator.comparingLong((Leaf leaf) -> leaf.id));
+        List<byte[]> hashes = new ArrayList<>(leaves.size());
+        Leaf previous = null;
+        for (Leaf leaf : leaves) {
+            if (previous == null || previous.id != leaf.id || !Arrays.equals(previous.hash, leaf.hash)) {
+                hashes.add(leaf.hash);
+            }
+            previous = leaf;
+        }
+        return hashes.size() == recordCount ? AuditHashes.merkleRoot(hashes) : null;
+    }
+
+    private List<List<AuditSegment>> chunks(List<AuditSegment> segments) {
+        List<List<AuditSegment>> chunks = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i += querySegments) {
+            chunks.add(segments.subList(i, Math.min(segments.size(), i + querySegments)));
+        }
+        return chunks;
+    }
+
+    private static <T> T await(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while verifying the audit chain", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Audit chain verification failed", e.getCause());
+        }
+    }
+
+    private static String segment(long sequence) {
+        return "segment " + sequence;
+    }
+
+    private static final class Leaf {
+        private final long id;
+        private final byte[] hash;
+
+        private Leaf(AuditLog record) {
+            this.id = record.getId();
+            this.hash = AuditHashes.leaf(record);
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit events to audit_log from one dedicated thread, in batches.
+ *
+ * Callers put events on a bounded lock-free queue and return at once. The writer thread
+ * turns them into records, so their values are serialized, and updates reduced to JSON
+ * Patches (see {@link AuditValueEncoder}), off the request thread. It flushes when a
+ * batch fills or the oldest record in it has waited the flush interval; each flush is
+ * one transaction of batched inserts, sealed as a segment of the audit hash chain (see
+ * {@link AuditChain}). A full queue is handled by {@code app.audit.overflow} (see
+ * {@link AuditOverflowPolicy}). Batches the database rejects are spilled to local files
+ * and written again once the queue is idle, so an outage loses nothing while the disk
+ * lasts.
+ *
+ * Metrics: audit.queue.depth, audit.flush (latency), audit.written, audit.spilled and
+ * audit.dropped by reason.
+ */
+@Component
+public class AuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditWriter.class);
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-millis:500}")
+    private long flushIntervalMillis;
+
+    @Value("${app.audit.overflow:SPILL}")
+    private AuditOverflowPolicy overflow;
+
+    @Value("${app.audit.block-timeout-millis:1000}")
+    private long blockTimeoutMillis;
+
+    @Value("${app.audit.spill-dir:${java.io.tmpdir}/lotus-audit-spill}")
+    private String spillDir;
+
+    @Value("${app.audit.retry-interval-millis:30000}")
+    private long retryIntervalMillis;
+
+    @Value("${app.audit.shutdown-timeout-millis:10000}")
+    private long shutdownTimeoutMillis;
+
+    @Value("${app.audit.snapshot-interval:50}")
+    private int snapshotInterval;
+
+    @Autowired
+    private AuditChain auditChain;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // The queue's size is kept in depth, which bounds it without locking
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private volatile boolean running;
+    private volatile boolean spillPending = true;
+    private long retryAfterNanos;
+
+    private Thread writerThread;
+    private TransactionTemplate transaction;
+    private AuditSpill spill;
+    private AuditValueEncoder encoder;
+    private Timer flushTimer;
+    private Counter written;
+    private Counter spilled;
+
+    @PostConstruct
+    public void start() throws IOException {
+        transaction = new TransactionTemplate(transactionManager);
+        spill = new AuditSpill(Paths.get(spillDir), objectMapper);
+        encoder = new AuditValueEncoder(objectMapper, snapshotInterval);
+
+        Gauge.builder("audit.queue.depth", depth, AtomicInteger::get)
+            .description("Audit records waiting to be written")
+            .register(meterRegistry);
+        flushTimer = Timer.builder("audit.flush")
+            .description("Audit batch write latency")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        written = meterRegistry.counter("audit.written");
+        spilled = meterRegistry.counter("audit.spilled");
+
+        running = true;
+        writerThread = new Thread(this::run, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Drains the queue before the context closes; whatever is left after the timeout is
+     * spilled.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(shutdownTimeoutMillis);
+        List<AuditLog> left = new ArrayList<>();
+        for (AuditEvent event; (event = queue.poll()) != null; ) {
+            depth.decrementAndGet();
+            AuditLog record = toRecord(event, false);
+            if (record != null) {
+                left.add(record);
+            }
+        }
+        if (!left.isEmpty()) {
+            spill(left);
+        }
+    }
+
+    public void submit(AuditEvent event) {
+        if (tryEnqueue(event)) {
+            return;
+        }
+        switch (overflow) {
+            case BLOCK:
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+                while (!tryEnqueue(event)) {
+                    if (System.nanoTime() - deadline > 0) {
+                        drop("timeout");
+                        return;
+                    }
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                return;
+            case SPILL:
+                AuditLog record = toRecord(event, false);
+                if (record != null) {
+                    spill(Collections.singletonList(record));
+                }
+                return;
+            default:
+                drop("overflow");
+        }
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    private boolean tryEnqueue(AuditEvent event) {
+        int current;
+        do {
+            current = depth.get();
+            if (current >= queueCapacity || !running) {
+                return false;
+            }
+        } while (!depth.compareAndSet(current, current + 1));
+        queue.offer(event);
+        if (current + 1 >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    private void run() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        long flushDeadline = 0;
+        while (running || depth.get() > 0 || !batch.isEmpty()) {
+            AuditEvent event = queue.poll();
+            if (event != null) {
+                depth.decrementAndGet();
+                AuditLog record = toRecord(event, true);
+                if (record == null) {
+                    continue;
+                }
+                if (batch.isEmpty()) {
+                    flushDeadline = System.nanoTime() + flushIntervalNanos;
+                }
+                batch.add(record);
+                if (batch.size() < batchSize) {
+                    continue;
+                }
+            } else if (batch.isEmpty()) {
+                replaySpilled();
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            } else if (running && System.nanoTime() - flushDeadline < 0) {
+                LockSupport.parkNanos(flushDeadline - System.nanoTime());
+                continue;
+            }
+            if (!write(batch)) {
+                spill(batch);
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * @return false when the database rejected the batch
+     */
+    private boolean write(List<AuditLog> batch) {
+        long started = System.nanoTime();
+        try {
+            transaction.executeWithoutResult(status -> {
+                auditChain.append(batch);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            written.increment(batch.size());
+            return true;
+        } catch (Exception e) {
+            logger.error("Could not write {} audit records: {}", batch.size(), e.getMessage());
+            retryAfterNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMillis);
+            return false;
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Runs on the writer thread while the queue is empty
+    private void replaySpilled() {
+        if (!spillPending || System.nanoTime() - retryAfterNanos < 0) {
+            return;
+        }
+        spillPending = false;
+        try {
+            for (Path file : spill.sealAll()) {
+                List<AuditLog> records = spill.read(file);
+                int done = 0;
+                while (done < records.size() && depth.get() < batchSize) {
+                    List<AuditLog> batch = records.subList(done, Math.min(records.size(), done + batchSize));
+                    if (!write(new ArrayList<>(batch))) {
+                        break;
+                    }
+                    done += batch.size();
+                }
+                spill.replace(file, records.subList(done, records.size()));
+                if (done < records.size()) {
+                    // Failed, or new records arrived; the rest waits for the next idle moment
+                    spillPending = true;
+                    return;
+                }
+                logger.info("Wrote {} spilled audit records from {}", records.size(), file.getFileName());
+            }
+        } catch (IOException e) {
+            spillPending = true;
+            retryAfterNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryIntervalMillis);
+            logger.error("Could not replay spilled audit records: {}", e.getMessage());
+        }
+    }
+
+    private void spill(List<AuditLog> records) {
+        try {
+            spill.append(records);
+            spilled.increment(records.size());
+            spillPending = true;
+        } catch (IOException e) {
+            logger.error("Could not spill {} audit records; they are lost", records.size(), e);
+            drop("spill_failed", records.size());
+        }
+    }
+
+    /**
+     * @param writerThread whether this runs on the writer thread, which alone may diff;
+     *                     elsewhere values are kept in full
+     */
+    private AuditLog toRecord(AuditEvent event, boolean writerThread) {
+        try {
+            return writerThread ? encoder.encode(event) : event.toAuditLog(objectMapper);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            logger.error("Could not serialize audit event {} on {}/{}: {}", event.getAction(), event.getEntityType(),
+                event.getEntityId(), e.getMessage());
+            drop("serialization");
+            return null;
+        }
+    }
+
+    private void drop(String reason) {
+        drop(reason, 1);
+    }
+
+    private void drop(String reason, int count) {
+        meterRegistry.counter("audit.dropped", "reason", reason).increment(count);
+    }
+}
@@ -0,0 +1,228 @@
+package com.lotus.lotusSPM.audit.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 6902 JSON Patch: the diff between two documents, and applying one.
+ *
+ * Diffs use only add, remove and replace. Objects are compared member by member; arrays
+ * keep their common prefix and suffix, compare the elements in between by position and
+ * add or remove the rest, which keeps appends and single-element edits small. A patch
+ * describes a change from one state to the next, so it only applies to the document it was
+ * taken from.
+ */
+public final class JsonPatch {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private JsonPatch() {
+    }
+
+    /**
+     * The operations turning {@code source} into {@code target}; empty when they are equal.
+     */
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = NODES.arrayNode();
+        diff(source, target, "", patch);
+        return patch;
+    }
+
+    /**
+     * Applies {@code patch} to a copy of {@code document}.
+     *
+     * @throws IllegalArgumentException if an operation does not fit the document
+     */
+    public static JsonNode apply(JsonNode document, JsonNode patch) {
+        if (!patch.isArray()) {
+            throw new IllegalArgumentException("A JSON patch must be an array of operations");
+        }
+        JsonNode result = document.deepCopy();
+        for (JsonNode operation : patch) {
+            result = applyOperation(result, operation);
+        }
+        return result;
+    }
+
+    private static void diff(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            diffObjects(source, target, path, patch);
+        } else if (source.isArray() && target.isArray()) {
+            diffArrays(source, target, path, patch);
+        } else {
+            patch.add(operation("replace", path).set("value", target));
+        }
+    }
+
+    private static void diffObjects(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+        Iterator<Map.Entry<String, JsonNode>> fields = source.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String child = path + "/" + escape(field.getKey());
+            JsonNode next = target.get(field.getKey());
+            if (next == null) {
+                patch.add(operation("remove", child));
+            } else {
+                diff(field.getValue(), next, child, patch);
+            }
+        }
+        fields = target.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!source.has(field.getKey())) {
+                patch.add(operation("add", path + "/" + escape(field.getKey())).set("value", field.getValue()));
+            }
+        }
+    }
+
+    private static void diffArrays(JsonNode source, JsonNode target, String path, ArrayNode patch) {
+        int sourceSize = source.size();
+        int targetSize = target.size();
+        int prefix = 0;
+        while (prefix < sourceSize && prefix < targetSize && source.get(prefix).equals(target.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < sourceSize - prefix && suffix < targetSize - prefix
+                && source.get(sourceSize - 1 - suffix).equals(target.get(targetSize - 1 - suffix))) {
+            suffix++;
+        }
+        int sourceMiddle = sourceSize - prefix - suffix;
+        int targetMiddle = targetSize - prefix - suffix;
+        int common = Math.min(sourceMiddle, targetMiddle);
+        for (int i = 0; i < common; i++) {
+            diff(source.get(prefix + i), target.get(prefix + i), path + "/" + (prefix + i), patch);
+        }
+        // Each removal shifts the rest down, so the same index is removed repeatedly
+        for (int i = common; i < sourceMiddle; i++) {
+            patch.add(operation("remove", path + "/" + (prefix + common)));
+        }
+        for (int i = common; i < targetMiddle; i++) {
+            patch.add(operation("add", path + "/" + (prefix + i)).set("value", target.get(prefix + i)));
+        }
+    }
+
+    private static JsonNode applyOperation(JsonNode document, JsonNode operation) {
+        String op = operation.path("op").asText();
+        String path = operation.path("path").asText(null);
+        if (path == null) {
+            throw new IllegalArgumentException("JSON patch operation without a path: " + operation);
+        }
+        JsonNode value = operation.get("value");
+        switch (op) {
+            case "add":
+            case "replace":
+                if (value == null) {
+                    throw new IllegalArgumentException("JSON patch " + op + " without a value at " + path);
+                }
+                if (path.isEmpty()) {
+                    return value.deepCopy();
+                }
+                set(document, path, value.deepCopy(), "add".equals(op));
+                return document;
+            case "remove":
+                if (path.isEmpty()) {
+                    return NODES.nullNode();
+                }
+                remove(document, path);
+                return document;
+            default:
+                throw new IllegalArgumentException("Unsupported JSON patch operation '" + op + "'");
+        }
+    }
+
+    private static void set(JsonNode document, String path, JsonNode value, boolean insert) {
+        List<String> tokens = tokens(path);
+        JsonNode parent = resolve(document, tokens.subList(0, tokens.size() - 1), path);
+        String last = tokens.get(tokens.size() - 1);
+        if (parent.isObject()) {
+            if (!insert && !parent.has(last)) {
+                throw new IllegalArgumentException("JSON patch replaces missing member " + path);
+            }
+            ((ObjectNode) parent).set(last, value);
+        } else if (parent.isArray()) {
+            ArrayNode array = (ArrayNode) parent;
+            if (insert && "-".equals(last)) {
+                array.add(value);
+                return;
+            }
+            int index = index(last, insert ? array.size() : array.size() - 1, path);
+            if (insert) {
+                array.insert(index, value);
+            } else {
+                array.set(index, value);
+            }
+        } else {
+            throw new IllegalArgumentException("JSON patch path " + path + " does not lead into a container");
+        }
+    }
+
+    private static void remove(JsonNode document, String path) {
+        List<String> tokens = tokens(path);
+        JsonNode parent = resolve(document, tokens.subList(0, tokens.size() - 1), path);
+        String last = tokens.get(tokens.size() - 1);
+        if (parent.isObject() && parent.has(last)) {
+            ((ObjectNode) parent).remove(last);
+        } else if (parent.isArray()) {
+            ((ArrayNode) parent).remove(index(last, parent.size() - 1, path));
+        } else {
+            throw new IllegalArgumentException("JSON patch removes missing member " + path);
+        }
+    }
+
+    private static JsonNode resolve(JsonNode document, List<String> tokens, String path) {
+        JsonNode node = document;
+        for (String token : tokens) {
+            JsonNode next = node.isArray() ? node.get(index(token, node.size() - 1, path)) : node.get(token);
+            if (next == null) {
+                throw new IllegalArgumentException("JSON patch path " + path + " does not exist");
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    private static int index(String token, int max, String path) {
+        try {
+            int index = Integer.parseInt(token);
+            if (index >= 0 && index <= max) {
+                return index;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("JSON patch path " + path + " has a bad array index");
+    }
+
+    private static List<String> tokens(String path) {
+        if (!path.startsWith("/")) {
+            throw new IllegalArgumentException("JSON pointer must start with '/': " + path);
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : path.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static ObjectNode operation(String op, String path) {
+        ObjectNode operation = NODES.objectNode();
+        operation.put("op", op);
+        operation.put("path", path);
+        return operation;
+    }
+}
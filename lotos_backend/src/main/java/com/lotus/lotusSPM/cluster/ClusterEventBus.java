@@ -0,0 +1,157 @@
+package com.lotus.lotusSPM.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Best-effort broadcast between replicas over Redis pub/sub.
+ *
+ * Messages published by this node are not delivered back to it. If Redis is unreachable,
+ * publishing is a no-op and subscription is retried in the background, so callers must
+ * tolerate missed events (e.g. by bounding staleness with a TTL).
+ */
+@Component
+public class ClusterEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterEventBus.class);
+
+    private static final long RETRY_SECONDS = 30;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private ObjectProvider<RedisConnectionFactory> connectionFactory;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<MessageListener>> listeners = new ConcurrentHashMap<>();
+    private volatile RedisMessageListenerContainer container;
+    private ScheduledExecutorService starter;
+
+    @PostConstruct
+    public void initialize() {
+        if (connectionFactory.getIfAvailable() == null) {
+            return;
+        }
+        starter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-event-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        starter.scheduleWithFixedDelay(this::ensureStarted, 0, RETRY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        if (starter != null) {
+            starter.shutdownNow();
+        }
+        RedisMessageListenerContainer running = container;
+        if (running != null) {
+            running.destroy();
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void subscribe(String channel, Consumer<String> listener) {
+        String prefix = nodeId + "|";
+        MessageListener adapter = (message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            if (body.startsWith(prefix)) {
+                return;
+            }
+            int separator = body.indexOf('|');
+            try {
+                listener.accept(separator >= 0 ? body.substring(separator + 1) : body);
+            } catch (Exception e) {
+                logger.error("Cluster event handler for {} failed", channel, e);
+            }
+        };
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(adapter);
+
+        RedisMessageListenerContainer running = container;
+        if (running != null) {
+            try {
+                running.addMessageListener(adapter, new ChannelTopic(channel));
+            } catch (Exception e) {
+                logger.warn("Could not subscribe to {}: {}", channel, e.getMessage());
+            }
+        }
+    }
+
+    public void publish(String channel, String payload) {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.convertAndSend(channel, nodeId + "|" + payload);
+        } catch (Exception e) {
+            logger.warn("Could not publish to {}, other replicas will miss '{}': {}", channel, payload, e.getMessage());
+        }
+    }
+
+    private void registerAll(RedisMessageListenerContainer target, Set<MessageListener> registered) {
+        for (Map.Entry<String, List<MessageListener>> entry : listeners.entrySet()) {
+            for (MessageListener listener : entry.getValue()) {
+                if (registered.add(listener)) {
+                    target.addMessageListener(listener, new ChannelTopic(entry.getKey()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Owned here rather than as a shared bean so an unreachable Redis doesn't fail startup.
+     * A container whose start failed is discarded and a fresh one tried later.
+     */
+    private void ensureStarted() {
+        RedisMessageListenerContainer candidate = new RedisMessageListenerContainer();
+        candidate.setConnectionFactory(connectionFactory.getObject());
+        try {
+            candidate.afterPropertiesSet();
+            Set<MessageListener> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+            registerAll(candidate, registered);
+            candidate.start();
+            container = candidate;
+            // Subscriptions made while the container was starting
+            registerAll(candidate, registered);
+            logger.info("Cluster event bus connected");
+            starter.shutdown();
+        } catch (Exception e) {
+            logger.warn("Redis unavailable, cluster events disabled for now: {}", e.getMessage());
+            try {
+                candidate.destroy();
+            } catch (Exception ignored) {
+                // Nothing was started
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.lotus.lotusSPM.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis-backed lease electing one replica to run a singleton job.
+ *
+ * The lease key holds the owner's node id with a TTL and is renewed at a third of it.
+ * Leadership is considered lost locally before the key can expire in Redis, so two
+ * replicas never both believe they hold it (assuming bounded clock drift).
+ */
+public class LeaderLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderLease.class);
+
+    private static final DefaultRedisScript<Long> RENEW = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "else return 0 end", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final StringRedisTemplate redis;
+    private final String key;
+    private final String nodeId;
+    private final long ttlMillis;
+    private final ScheduledExecutorService renewer;
+
+    private volatile long validUntil;
+
+    public LeaderLease(StringRedisTemplate redis, String name, String nodeId, long ttlMillis) {
+        this.redis = redis;
+        this.key = "leader:" + name;
+        this.nodeId = nodeId;
+        this.ttlMillis = ttlMillis;
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "leader-lease-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        renewer.scheduleWithFixedDelay(this::tryAcquireOrRenew, 0, ttlMillis / 3, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        renewer.shutdownNow();
+        if (isLeader()) {
+            try {
+                redis.execute(RELEASE, Collections.singletonList(key), nodeId);
+            } catch (Exception e) {
+                logger.debug("Could not release lease {}: {}", key, e.getMessage());
+            }
+        }
+        validUntil = 0;
+    }
+
+    public boolean isLeader() {
+        return System.currentTimeMillis() < validUntil;
+    }
+
+    private void tryAcquireOrRenew() {
+        long attemptedAt = System.currentTimeMillis();
+        boolean held;
+        try {
+            Long renewed = redis.execute(RENEW, Collections.singletonList(key), nodeId, String.valueOf(ttlMillis));
+            held = renewed != null && renewed == 1L;
+            if (!held) {
+                Boolean acquired = redis.opsForValue().setIfAbsent(key, nodeId, ttlMillis, TimeUnit.MILLISECONDS);
+                held = Boolean.TRUE.equals(acquired);
+                if (held) {
+                    logger.info("Node {} acquired lease {}", nodeId, key);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Lease {} check failed: {}", key, e.getMessage());
+            held = false;
+        }
+
+        boolean wasLeader = isLeader();
+        // Measured from before the round trip, minus a margin, so local expiry precedes Redis expiry
+        validUntil = held ? attemptedAt + ttlMillis - ttlMillis / 5 : 0;
+        if (wasLeader && !held) {
+            logger.info("Node {} lost lease {}", nodeId, key);
+        }
+    }
+}
@@ -6,5 +6,5 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    // Enables async processing for audit logging
+    // Enables @Async processing; audit records have their own writer thread (AuditWriter)
 }
@@ -0,0 +1,10 @@
+package com.lotus.lotusSPM.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Enables background jobs such as message archival; spring.task.scheduling sizes their pool
+}
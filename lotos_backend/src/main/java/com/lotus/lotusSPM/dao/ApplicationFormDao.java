@@ -1,6 +1,9 @@
 package com.lotus.lotusSPM.dao;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,4 +12,9 @@ import com.lotus.lotusSPM.model.ApplicationForm;
 @Repository
 public interface ApplicationFormDao extends JpaRepository< ApplicationForm, String>, CrudRepository< ApplicationForm, String> {
 
+	/**
+	 * Rows are [student username, files].
+	 */
+	@Query("SELECT a.stu_id, COUNT(a) FROM ApplicationForm a WHERE a.stu_id IS NOT NULL GROUP BY a.stu_id")
+	List<Object[]> countByStudent();
 }
@@ -1,7 +1,9 @@
 package com.lotus.lotusSPM.dao;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.lotus.lotusSPM.model.Coordinator;
@@ -10,5 +12,8 @@ import com.lotus.lotusSPM.model.Coordinator;
 public interface CoordinatorDao extends JpaRepository<Coordinator,Long>,CrudRepository<Coordinator,Long>{
 
 	Coordinator findByUsername(String username);
+
+	@Query("SELECT e.department FROM Coordinator e WHERE e.username = :username")
+	String findDepartmentByUsername(@Param("username") String username);
 	
 }
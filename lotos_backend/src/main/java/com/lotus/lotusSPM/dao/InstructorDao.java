@@ -1,7 +1,9 @@
 package com.lotus.lotusSPM.dao;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.lotus.lotusSPM.model.Instructor;
@@ -12,4 +14,7 @@ public interface InstructorDao extends JpaRepository<Instructor, Long>, CrudRepo
 
 	Instructor findByUsername(String username);
 
+	@Query("SELECT e.department FROM Instructor e WHERE e.username = :username")
+	String findDepartmentByUsername(@Param("username") String username);
+
 }
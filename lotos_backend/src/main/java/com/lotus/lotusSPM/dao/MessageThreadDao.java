@@ -0,0 +1,69 @@
+package com.lotus.lotusSPM.dao;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.lotus.lotusSPM.model.MessageThread;
+
+@Repository
+public interface MessageThreadDao extends JpaRepository<MessageThread, Long> {
+
+	MessageThread findByThreadKey(String threadKey);
+
+	@Query("select t from MessageThread t where t.participantLow = :username or t.participantHigh = :username")
+	Page<MessageThread> findByParticipant(@Param("username") String username, Pageable pageable);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.messageCount = t.messageCount + 1,"
+			+ " t.unreadLow = t.unreadLow + :unreadLow, t.unreadHigh = t.unreadHigh + :unreadHigh,"
+			+ " t.lastMessageId = :messageId, t.lastMessageFrom = :from, t.lastMessagePreview = :preview,"
+			+ " t.lastMessageAt = :sentAt where t.id = :id")
+	int appendMessage(@Param("id") Long id, @Param("messageId") Long messageId, @Param("from") String from,
+			@Param("preview") String preview, @Param("sentAt") LocalDateTime sentAt,
+			@Param("unreadLow") int unreadLow, @Param("unreadHigh") int unreadHigh);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.messageCount = t.messageCount - 1 where t.id = :id and t.messageCount > 0")
+	int removeMessage(@Param("id") Long id);
+
+	/**
+	 * Uncounts a removed message addressed to the low participant, if it was among the
+	 * {@code unreadLow} newest messages to them, that is, if fewer than that are newer.
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.unreadLow = t.unreadLow - 1"
+			+ " where t.id = :id and t.participantLow = :username and t.unreadLow > :newer")
+	int removeUnreadLow(@Param("id") Long id, @Param("username") String username, @Param("newer") int newer);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.unreadHigh = t.unreadHigh - 1"
+			+ " where t.id = :id and t.participantHigh = :username and t.unreadHigh > :newer")
+	int removeUnreadHigh(@Param("id") Long id, @Param("username") String username, @Param("newer") int newer);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from MessageThread t where t.id = :id and t.messageCount = 0")
+	int deleteIfEmpty(@Param("id") Long id);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.lastMessageId = :messageId, t.lastMessageFrom = :from,"
+			+ " t.lastMessagePreview = :preview, t.lastMessageAt = :sentAt"
+			+ " where t.id = :id and t.lastMessageId = :removedId")
+	int replaceLastMessage(@Param("id") Long id, @Param("removedId") Long removedId, @Param("messageId") Long messageId,
+			@Param("from") String from, @Param("preview") String preview, @Param("sentAt") LocalDateTime sentAt);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.unreadLow = 0 where t.id = :id and t.participantLow = :username")
+	int clearUnreadLow(@Param("id") Long id, @Param("username") String username);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update MessageThread t set t.unreadHigh = 0 where t.id = :id and t.participantHigh = :username")
+	int clearUnreadHigh(@Param("id") Long id, @Param("username") String username);
+
+}
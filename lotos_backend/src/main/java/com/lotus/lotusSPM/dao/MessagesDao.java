@@ -1,9 +1,15 @@
 package com.lotus.lotusSPM.dao;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.lotus.lotusSPM.model.Messages;
@@ -14,6 +20,15 @@ public interface MessagesDao extends JpaRepository< Messages, Long>, CrudReposit
 	 
 	List<Messages> findByTo(String to);
 	List<Messages> findByFrom(String from);
+	Slice<Messages> findByThreadIdOrderBySentAtDesc(Long threadId, Pageable pageable);
+	Messages findFirstByThreadIdOrderBySentAtDesc(Long threadId);
+	Slice<Messages> findBySentAtBeforeAndIdGreaterThanOrderByIdAsc(LocalDateTime cutoff, Long afterId, Pageable pageable);
+	Slice<Messages> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+	long countByThreadId(Long threadId);
+	long countByThreadIdAndToAndSentAtAfter(Long threadId, String to, LocalDateTime sentAt);
+
+	@Query("SELECT m.id FROM Messages m WHERE m.id IN :ids")
+	List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
 
 }
@@ -1,5 +1,7 @@
 package com.lotus.lotusSPM.dao;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -9,4 +11,6 @@ import com.lotus.lotusSPM.model.Notifications;
 @Repository
 public interface NotificationsDao extends JpaRepository<Notifications, Long>, CrudRepository<Notifications, Long> {
 
+	Slice<Notifications> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
 }
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -14,4 +15,17 @@ import com.lotus.lotusSPM.model.OfficialLetter;
 public interface OfficialLetterDao extends JpaRepository<OfficialLetter, Long>, CrudRepository<OfficialLetter, Long>{
 
 	OfficialLetter findByUsername(String username);
+
+	/**
+	 * Rows are [companyName, username, letters].
+	 */
+	@Query("SELECT l.comName, l.username, COUNT(l) FROM OfficialLetter l "
+			+ "WHERE l.comName IS NOT NULL AND l.username IS NOT NULL GROUP BY l.comName, l.username")
+	List<Object[]> countByCompanyAndUsername();
+
+	/**
+	 * Rows are [username, letters].
+	 */
+	@Query("SELECT l.username, COUNT(l) FROM OfficialLetter l WHERE l.username IS NOT NULL GROUP BY l.username")
+	List<Object[]> countByUsername();
 }
@@ -1,12 +1,19 @@
 package com.lotus.lotusSPM.dao;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import com.lotus.lotusSPM.dto.OpportunitySummary;
 import com.lotus.lotusSPM.model.Opportunities;
 import com.lotus.lotusSPM.model.Student;
 
@@ -14,6 +21,32 @@ import com.lotus.lotusSPM.model.Student;
 public interface OpportunitiesDao extends JpaRepository<Opportunities, Long>, CrudRepository<Opportunities, Long> {
 
 	Opportunities findByUsername(String id);
+
+	String SUMMARY = "SELECT new com.lotus.lotusSPM.dto.OpportunitySummary(o.id, o.title, o.companyName, o.location, "
+			+ "o.url, o.deadline, o.deadlineAt, o.text, o.username, o.jobType, o.logoHash, o.tenantId) FROM Opportunities o ";
+
+	@Query(SUMMARY + "WHERE o.active = true ORDER BY o.id DESC")
+	List<OpportunitySummary> findActiveSummaries();
+
+	@Query(SUMMARY + "WHERE o.active = true AND o.id > :afterId ORDER BY o.id")
+	List<OpportunitySummary> findActiveSummariesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+	@Query(SUMMARY + "WHERE o.active = true AND o.id = :id")
+	OpportunitySummary findActiveSummary(@Param("id") Long id);
+
+	/**
+	 * Active postings expiring before {@code horizon}, soonest first; served by idx_opportunities_active_deadline.
+	 */
+	@Query("SELECT o.id, o.deadlineAt FROM Opportunities o WHERE o.active = true AND o.deadlineAt < :horizon "
+			+ "ORDER BY o.deadlineAt")
+	List<Object[]> findActiveExpiringBefore(@Param("horizon") LocalDateTime horizon);
+
+	@Modifying
+	@Query("UPDATE Opportunities o SET o.active = false WHERE o.id IN :ids AND o.active = true AND o.deadlineAt <= :now")
+	int deactivateExpired(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+	@Query("SELECT o.id FROM Opportunities o WHERE o.logo IS NOT NULL ORDER BY o.id")
+	List<Long> findIdsWithEmbeddedLogo(Pageable pageable);
 	
 
 
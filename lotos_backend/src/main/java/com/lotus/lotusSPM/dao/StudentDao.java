@@ -3,7 +3,9 @@ package com.lotus.lotusSPM.dao;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.lotus.lotusSPM.model.Student;
@@ -13,4 +15,16 @@ public interface StudentDao extends JpaRepository<Student, Long>, CrudRepository
 
 	Student findByUsername(String username);
 
+	@Query("SELECT e.department FROM Student e WHERE e.username = :username")
+	String findDepartmentByUsername(@Param("username") String username);
+
+	/**
+	 * Rows are [tenantId, faculty, department, internshipStatus, enrollment year, enrollment month, students];
+	 * year and month are null for students without CREATED_AT.
+	 */
+	@Query("SELECT s.tenantId, s.faculty, s.department, s.internshipStatus, YEAR(s.createdAt), MONTH(s.createdAt), "
+			+ "COUNT(s) FROM Student s GROUP BY s.tenantId, s.faculty, s.department, s.internshipStatus, "
+			+ "YEAR(s.createdAt), MONTH(s.createdAt)")
+	List<Object[]> countByCell();
+
 }
@@ -1,5 +1,8 @@
 package com.lotus.lotusSPM.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class AuthResponse {
     private String token;
     private String type = "Bearer";
@@ -39,6 +42,7 @@ public class AuthResponse {
         this.type = type;
     }
 
+    @JsonSerialize(using = ToStringSerializer.class)
     public Long getId() {
         return id;
     }
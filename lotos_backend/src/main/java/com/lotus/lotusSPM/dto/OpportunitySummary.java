@@ -0,0 +1,98 @@
+package com.lotus.lotusSPM.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.opportunity.LogoVariant;
+import com.lotus.lotusSPM.opportunity.OpportunityLogoService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Opportunity as listed in the public feed; the logo is referenced by its content-hashed URL.
+ */
+public class OpportunitySummary {
+    private final Long id;
+    private final String title;
+    private final String companyName;
+    private final String location;
+    private final String url;
+    private final String deadline;
+    private final LocalDateTime deadlineAt;
+    private final String text;
+    private final String username;
+    private final String jobType;
+    private final String logoHash;
+    private final String tenantId;
+
+    public OpportunitySummary(Long id, String title, String companyName, String location, String url,
+                              String deadline, LocalDateTime deadlineAt, String text, String username,
+                              String jobType, String logoHash, String tenantId) {
+        this.id = id;
+        this.title = title;
+        this.companyName = companyName;
+        this.location = location;
+        this.url = url;
+        this.deadline = deadline;
+        this.deadlineAt = deadlineAt;
+        this.text = text;
+        this.username = username;
+        this.jobType = jobType;
+        this.logoHash = logoHash;
+        this.tenantId = tenantId;
+    }
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getCompanyName() {
+        return companyName;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getDeadline() {
+        return deadline;
+    }
+
+    public LocalDateTime getDeadlineAt() {
+        return deadlineAt;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getJobType() {
+        return jobType;
+    }
+
+    @JsonIgnore
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getLogoUrl() {
+        return OpportunityLogoService.logoUrl(logoHash, LogoVariant.MEDIUM);
+    }
+
+    public String getLogoThumbnailUrl() {
+        return OpportunityLogoService.logoUrl(logoHash, LogoVariant.SMALL);
+    }
+}
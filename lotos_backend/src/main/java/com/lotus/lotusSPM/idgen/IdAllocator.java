@@ -0,0 +1,242 @@
+package com.lotus.lotusSPM.idgen;
+
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out cluster-unique, k-sortable ids.
+ *
+ * Each replica leases a node id (0-1023) from Redis, or from the id_node_leases table when
+ * Redis is unreachable, and renews it at a third of the TTL. Threads take ids in small
+ * pre-allocated blocks so the generator lock is touched once per block. If the lease cannot be
+ * renewed before it expires, allocation stops and outstanding blocks are discarded, because
+ * another replica may then claim the same node id.
+ */
+@Component
+public class IdAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdAllocator.class);
+
+    private static final String KEY_PREFIX = "idgen:node:";
+
+    private static final DefaultRedisScript<Long> RENEW = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) " +
+        "else return 0 end", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    @Value("${app.idgen.block-size:32}")
+    private int blockSize;
+
+    @Value("${app.idgen.lease-ttl-millis:30000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private IdNodeLeaseRepository leaseRepository;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private ScheduledExecutorService renewer;
+
+    private final ThreadLocal<Block> blocks = new ThreadLocal<>();
+
+    // Replaced together whenever a lease is (re)acquired
+    private volatile SnowflakeIdGenerator generator;
+    private volatile int leaseGeneration;
+    private volatile long validUntil;
+    private volatile int nodeId = -1;
+    private volatile boolean redisLease;
+
+    private static final class Block {
+        final int generation;
+        long next;
+        long end;
+
+        Block(int generation, long next, long end) {
+            this.generation = generation;
+            this.next = next;
+            this.end = end;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        transaction = new TransactionTemplate(transactionManager);
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idgen-node-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Acquire synchronously so entities saved during startup already have a node id
+        acquireOrRenew();
+        renewer.scheduleWithFixedDelay(this::acquireOrRenew, leaseTtlMillis / 3, leaseTtlMillis / 3, TimeUnit.MILLISECONDS);
+        KSortableIdGenerator.install(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        renewer.shutdownNow();
+        int held = nodeId;
+        validUntil = 0;
+        if (held < 0) {
+            return;
+        }
+        try {
+            if (redisLease) {
+                redis().execute(RELEASE, Collections.singletonList(KEY_PREFIX + held), owner());
+            } else {
+                transaction.executeWithoutResult(status -> leaseRepository.release(held, owner()));
+            }
+        } catch (Exception e) {
+            logger.debug("Could not release node id {}: {}", held, e.getMessage());
+        }
+    }
+
+    public long nextId() {
+        Block block = blocks.get();
+        int generation = leaseGeneration;
+        if (block == null || block.generation != generation || block.next >= block.end) {
+            block = reserve(generation);
+            blocks.set(block);
+        }
+        if (System.currentTimeMillis() >= validUntil) {
+            throw new IllegalStateException("No valid node id lease; refusing to allocate ids");
+        }
+        return block.next++;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    private Block reserve(int generation) {
+        SnowflakeIdGenerator current = generator;
+        if (current == null || System.currentTimeMillis() >= validUntil) {
+            throw new IllegalStateException("No valid node id lease; refusing to allocate ids");
+        }
+        long first = current.nextBlock(blockSize);
+        return new Block(generation, first, first + blockSize);
+    }
+
+    private synchronized void acquireOrRenew() {
+        long attemptedAt = System.currentTimeMillis();
+        if (nodeId >= 0 && renew()) {
+            // Count validity from before the call so local expiry precedes the remote one
+            validUntil = attemptedAt + leaseTtlMillis;
+            return;
+        }
+        if (nodeId >= 0) {
+            logger.warn("Lost lease on node id {}; acquiring a new one", nodeId);
+            validUntil = 0;
+        }
+        StringRedisTemplate redis = redis();
+        int start = ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_NODE_ID + 1);
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_NODE_ID; i++) {
+            int candidate = (start + i) % (SnowflakeIdGenerator.MAX_NODE_ID + 1);
+            Boolean viaRedis = null;
+            if (redis != null) {
+                try {
+                    viaRedis = tryAcquireInRedis(redis, candidate);
+                } catch (Exception e) {
+                    logger.debug("Redis unavailable for node id lease, using database: {}", e.getMessage());
+                    redis = null;
+                }
+            }
+            if (redis == null) {
+                viaRedis = tryAcquireInDatabase(candidate);
+            }
+            if (viaRedis != null) {
+                nodeId = candidate;
+                redisLease = viaRedis;
+                generator = new SnowflakeIdGenerator(candidate);
+                leaseGeneration++;
+                validUntil = attemptedAt + leaseTtlMillis;
+                logger.info("Leased id generator node {} from {}", candidate, viaRedis ? "Redis" : "database");
+                return;
+            }
+        }
+        nodeId = -1;
+        logger.error("All {} id generator node ids are leased", SnowflakeIdGenerator.MAX_NODE_ID + 1);
+    }
+
+    private boolean renew() {
+        int held = nodeId;
+        long now = System.currentTimeMillis();
+        try {
+            if (redisLease) {
+                Long renewed = redis().execute(RENEW, Collections.singletonList(KEY_PREFIX + held), owner(),
+                    String.valueOf(leaseTtlMillis));
+                return renewed != null && renewed == 1L;
+            }
+            Integer claimed = transaction.execute(status -> leaseRepository.claim(held, owner(), now + leaseTtlMillis, now));
+            return claimed != null && claimed == 1;
+        } catch (Exception e) {
+            logger.warn("Could not renew node id {}: {}", held, e.getMessage());
+            return false;
+        }
+    }
+
+    // Both return where the lease came from (TRUE Redis, FALSE database), or null if the id is taken
+
+    private Boolean tryAcquireInRedis(StringRedisTemplate redis, int candidate) {
+        Boolean acquired = redis.opsForValue().setIfAbsent(KEY_PREFIX + candidate, owner(),
+            leaseTtlMillis, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(acquired) ? Boolean.TRUE : null;
+    }
+
+    private Boolean tryAcquireInDatabase(int candidate) {
+        long now = System.currentTimeMillis();
+        try {
+            Boolean claimed = transaction.execute(status -> {
+                if (leaseRepository.claim(candidate, owner(), now + leaseTtlMillis, now) == 1) {
+                    return true;
+                }
+                if (leaseRepository.existsById(candidate)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(new IdNodeLease(candidate, owner(), now + leaseTtlMillis));
+                return true;
+            });
+            return Boolean.TRUE.equals(claimed) ? Boolean.FALSE : null;
+        } catch (DataIntegrityViolationException e) {
+            // Another replica inserted the same node id first
+            return null;
+        }
+    }
+
+    private StringRedisTemplate redis() {
+        return redisTemplate.getIfAvailable();
+    }
+
+    private String owner() {
+        return clusterEventBus.getNodeId();
+    }
+}
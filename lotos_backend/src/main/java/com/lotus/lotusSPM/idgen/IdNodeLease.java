@@ -0,0 +1,45 @@
+package com.lotus.lotusSPM.idgen;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Database fallback for node id leases when Redis is unavailable.
+ */
+@Entity
+@Table(name = "id_node_leases")
+public class IdNodeLease {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "owner", length = 100, nullable = false)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    protected IdNodeLease() {
+    }
+
+    public IdNodeLease(Integer nodeId, String owner, long expiresAt) {
+        this.nodeId = nodeId;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
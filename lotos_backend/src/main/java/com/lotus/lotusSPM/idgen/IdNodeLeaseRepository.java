@@ -0,0 +1,24 @@
+package com.lotus.lotusSPM.idgen;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdNodeLeaseRepository extends JpaRepository<IdNodeLease, Integer> {
+
+    /**
+     * Take over an expired lease, or extend one this owner already holds.
+     */
+    @Modifying
+    @Query("UPDATE IdNodeLease l SET l.owner = :owner, l.expiresAt = :expiresAt "
+        + "WHERE l.nodeId = :nodeId AND (l.owner = :owner OR l.expiresAt < :now)")
+    int claim(@Param("nodeId") Integer nodeId, @Param("owner") String owner,
+              @Param("expiresAt") long expiresAt, @Param("now") long now);
+
+    @Modifying
+    @Query("DELETE FROM IdNodeLease l WHERE l.nodeId = :nodeId AND l.owner = :owner")
+    int release(@Param("nodeId") Integer nodeId, @Param("owner") String owner);
+}
@@ -0,0 +1,34 @@
+package com.lotus.lotusSPM.idgen;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate generator backed by {@link IdAllocator}.
+ *
+ * Every inserted entity gets a generated id, whatever id the caller set: ids chosen by
+ * clients would collide with generated ones and break their ordering. Hibernate creates
+ * generators itself, so the Spring-managed allocator is reached through a static holder.
+ */
+public class KSortableIdGenerator implements IdentifierGenerator {
+
+    public static final String NAME = "k-sortable";
+    public static final String STRATEGY = "com.lotus.lotusSPM.idgen.KSortableIdGenerator";
+
+    private static volatile IdAllocator allocator;
+
+    static void install(IdAllocator idAllocator) {
+        allocator = idAllocator;
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object entity) {
+        IdAllocator current = allocator;
+        if (current == null) {
+            throw new IllegalStateException("Id allocator is not initialized yet");
+        }
+        return current.nextId();
+    }
+}
@@ -0,0 +1,86 @@
+package com.lotus.lotusSPM.idgen;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since {@link #EPOCH_MILLIS},
+ * 10 bits of node id and a 12-bit per-millisecond sequence.
+ *
+ * Ids from one node are strictly increasing. Across nodes they are ordered to within clock
+ * skew, which keeps primary-key inserts near the right-hand edge of the index. The timestamp
+ * never moves backwards: if the wall clock steps back, the generator keeps counting from the
+ * last millisecond it used.
+ *
+ * Ids pass 2^53 within weeks of the epoch, beyond what a JavaScript number holds exactly,
+ * so entities serialize them to JSON as strings ({@code ToStringSerializer}); Jackson
+ * still reads either form back into a {@code Long}.
+ */
+public class SnowflakeIdGenerator {
+
+    /** 2024-01-01T00:00:00Z; gives about 69 years of ids. */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    private long lastMillis = -1;
+    private int sequence;
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        return nextBlock(1);
+    }
+
+    /**
+     * Reserve {@code size} consecutive ids and return the first; the block is
+     * {@code [first, first + size)}.
+     */
+    public synchronized long nextBlock(int size) {
+        if (size < 1 || size > MAX_SEQUENCE + 1) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + (MAX_SEQUENCE + 1));
+        }
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        if (now > lastMillis) {
+            lastMillis = now;
+            sequence = 0;
+        } else if (sequence + size > MAX_SEQUENCE + 1) {
+            // Sequence exhausted for this millisecond (or the clock stepped back): borrow the next one
+            lastMillis++;
+            sequence = 0;
+        }
+        long first = (lastMillis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+        sequence += size;
+        return first;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * The smallest id any node can generate at {@code epochMillis}.
+     */
+    public static long firstIdAt(long epochMillis) {
+        return (epochMillis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -0,0 +1,200 @@
+package com.lotus.lotusSPM.model;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * Conversation summary between two participants.
+ * Participants are stored in sorted order so a pair always maps to the same row.
+ */
+@Entity
+@Table(name = "MESSAGE_THREADS", indexes = {
+		@Index(name = "uk_message_threads_key", columnList = "THREAD_KEY", unique = true),
+		@Index(name = "idx_message_threads_low_last", columnList = "PARTICIPANT_LOW, LAST_MESSAGE_AT"),
+		@Index(name = "idx_message_threads_high_last", columnList = "PARTICIPANT_HIGH, LAST_MESSAGE_AT") })
+public class MessageThread {
+
+	private static final long serialVersionUID = 1L;
+
+	private Long id;
+	private String threadKey;
+	private String participantLow;
+	private String participantHigh;
+	private String subject;
+	private String tenantId;
+	private Long lastMessageId;
+	private String lastMessageFrom;
+	private String lastMessagePreview;
+	private LocalDateTime lastMessageAt;
+	private int messageCount;
+	private int unreadLow;
+	private int unreadHigh;
+	private LocalDateTime createdAt;
+
+	public MessageThread() {
+
+	}
+
+	public MessageThread(String threadKey, String participantLow, String participantHigh, String subject,
+			String tenantId) {
+		this.threadKey = threadKey;
+		this.participantLow = participantLow;
+		this.participantHigh = participantHigh;
+		this.subject = subject;
+		this.tenantId = tenantId;
+		this.createdAt = LocalDateTime.now();
+	}
+
+	public boolean hasParticipant(String username) {
+		return username != null && (username.equals(participantLow) || username.equals(participantHigh));
+	}
+
+	public int unreadFor(String username) {
+		if (username == null) {
+			return 0;
+		}
+		if (username.equals(participantLow)) {
+			return unreadLow;
+		}
+		return username.equals(participantHigh) ? unreadHigh : 0;
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	@Column(name = "THREAD_KEY", length = 64, nullable = false)
+	public String getThreadKey() {
+		return threadKey;
+	}
+
+	public void setThreadKey(String threadKey) {
+		this.threadKey = threadKey;
+	}
+
+	@Column(name = "PARTICIPANT_LOW", length = 100, nullable = false)
+	public String getParticipantLow() {
+		return participantLow;
+	}
+
+	public void setParticipantLow(String participantLow) {
+		this.participantLow = participantLow;
+	}
+
+	@Column(name = "PARTICIPANT_HIGH", length = 100, nullable = false)
+	public String getParticipantHigh() {
+		return participantHigh;
+	}
+
+	public void setParticipantHigh(String participantHigh) {
+		this.participantHigh = participantHigh;
+	}
+
+	@Column(name = "SUBJECT")
+	public String getSubject() {
+		return subject;
+	}
+
+	public void setSubject(String subject) {
+		this.subject = subject;
+	}
+
+	@Column(name = "TENANT_ID", length = 100)
+	public String getTenantId() {
+		return tenantId;
+	}
+
+	public void setTenantId(String tenantId) {
+		this.tenantId = tenantId;
+	}
+
+	@Column(name = "LAST_MESSAGE_ID")
+	@JsonSerialize(using = ToStringSerializer.class)
+	public Long getLastMessageId() {
+		return lastMessageId;
+	}
+
+	public void setLastMessageId(Long lastMessageId) {
+		this.lastMessageId = lastMessageId;
+	}
+
+	@Column(name = "LAST_MESSAGE_FROM", length = 100)
+	public String getLastMessageFrom() {
+		return lastMessageFrom;
+	}
+
+	public void setLastMessageFrom(String lastMessageFrom) {
+		this.lastMessageFrom = lastMessageFrom;
+	}
+
+	@Column(name = "LAST_MESSAGE_PREVIEW", length = 200)
+	public String getLastMessagePreview() {
+		return lastMessagePreview;
+	}
+
+	public void setLastMessagePreview(String lastMessagePreview) {
+		this.lastMessagePreview = lastMessagePreview;
+	}
+
+	@Column(name = "LAST_MESSAGE_AT")
+	public LocalDateTime getLastMessageAt() {
+		return lastMessageAt;
+	}
+
+	public void setLastMessageAt(LocalDateTime lastMessageAt) {
+		this.lastMessageAt = lastMessageAt;
+	}
+
+	@Column(name = "MESSAGE_COUNT", nullable = false)
+	public int getMessageCount() {
+		return messageCount;
+	}
+
+	public void setMessageCount(int messageCount) {
+		this.messageCount = messageCount;
+	}
+
+	@Column(name = "UNREAD_LOW", nullable = false)
+	public int getUnreadLow() {
+		return unreadLow;
+	}
+
+	public void setUnreadLow(int unreadLow) {
+		this.unreadLow = unreadLow;
+	}
+
+	@Column(name = "UNREAD_HIGH", nullable = false)
+	public int getUnreadHigh() {
+		return unreadHigh;
+	}
+
+	public void setUnreadHigh(int unreadHigh) {
+		this.unreadHigh = unreadHigh;
+	}
+
+	@Column(name = "CREATED_AT")
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+}
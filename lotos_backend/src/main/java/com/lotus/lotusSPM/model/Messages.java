@@ -1,12 +1,24 @@
 package com.lotus.lotusSPM.model;
 
+import java.time.LocalDateTime;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+
 @Entity
-@Table(name = "MESSAGES")
+@Table(name = "MESSAGES", indexes = {
+		@Index(name = "idx_messages_thread_sent", columnList = "THREAD_ID, SENT_AT"),
+		@Index(name = "idx_messages_sent_at", columnList = "SENT_AT") })
 
 public class Messages {
 	
@@ -21,6 +33,9 @@ public class Messages {
 	private String title;
 	private String text;
 	private String file;
+	private Long threadId;
+	private LocalDateTime sentAt;
+	private String tenantId;
 	
 	public Messages() {
 
@@ -41,6 +56,9 @@ public class Messages {
 	}
 
 	@Id
+	@GeneratedValue(generator = KSortableIdGenerator.NAME)
+	@GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
+	@JsonSerialize(using = ToStringSerializer.class)
 	public Long getId() {
 		return id;
 	}
@@ -120,7 +138,32 @@ public class Messages {
 	public void setFile(String file) {
 		this.file = file;
 	}
-	
-	
+
+	@Column(name = "THREAD_ID")
+	public Long getThreadId() {
+		return threadId;
+	}
+
+	public void setThreadId(Long threadId) {
+		this.threadId = threadId;
+	}
+
+	@Column(name = "SENT_AT")
+	public LocalDateTime getSentAt() {
+		return sentAt;
+	}
+
+	public void setSentAt(LocalDateTime sentAt) {
+		this.sentAt = sentAt;
+	}
+
+	@Column(name = "TENANT_ID", length = 100)
+	public String getTenantId() {
+		return tenantId;
+	}
+
+	public void setTenantId(String tenantId) {
+		this.tenantId = tenantId;
+	}
 
 }
@@ -2,9 +2,16 @@ package com.lotus.lotusSPM.model;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+
 @Entity
 @Table(name = "NOTIFICATIONS")
 public class Notifications {
@@ -18,6 +25,7 @@ public class Notifications {
 	private String time;
 	private String title;
 	private String text;
+	private String tenantId;
 	//özel classlar kulan dual
 	
 	public Notifications() {
@@ -36,6 +44,9 @@ public class Notifications {
 	}
 
 	@Id
+	@GeneratedValue(generator = KSortableIdGenerator.NAME)
+	@GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
+	@JsonSerialize(using = ToStringSerializer.class)
 	public Long getId() {
 		return id;
 	}
@@ -98,5 +109,14 @@ public class Notifications {
 		this.text = text;
 	}
 
+	@Column(name = "TENANT_ID", length = 100)
+	public String getTenantId() {
+		return tenantId;
+	}
+
+	public void setTenantId(String tenantId) {
+		this.tenantId = tenantId;
+	}
+
 
 }
@@ -1,34 +1,59 @@
 package com.lotus.lotusSPM.model;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+import com.lotus.lotusSPM.opportunity.LogoVariant;
+import com.lotus.lotusSPM.opportunity.OpportunityLogoService;
+
 @Entity
-@Table(name = "OPPORTUNITIES")
+@Table(name = "OPPORTUNITIES", indexes = {
+		@Index(name = "idx_opportunities_active_deadline", columnList = "active, deadlineAt") })
 public class Opportunities implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	@Id
+	@GeneratedValue(generator = KSortableIdGenerator.NAME)
+	@GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
+	@JsonSerialize(using = ToStringSerializer.class)
 	private Long id;
 	private String username;
 	private String text;
 	@Lob
 	private byte[] logo;
+	@Column(length = 64)
+	private String logoHash;
 
 	private String url;
 	private String location;
 	private String title;
 	private String companyName;
 	private String deadline;
+	private LocalDateTime deadlineAt;
+	@Column(nullable = false)
+	@ColumnDefault("true")
+	private boolean active = true;
+	@Column(length = 50)
+	private String jobType;
+	@Column(length = 100)
+	private String tenantId;
 
 	public Opportunities() {
 
@@ -117,15 +142,72 @@ public class Opportunities implements Serializable {
 		this.deadline = deadline;
 	}
 
+	/**
+	 * Moment the posting expires, derived from {@link #getDeadline()}; null means open-ended.
+	 */
+	@Column(name = "DEADLINE_AT")
+	public LocalDateTime getDeadlineAt() {
+		return deadlineAt;
+	}
+
+	public void setDeadlineAt(LocalDateTime deadlineAt) {
+		this.deadlineAt = deadlineAt;
+	}
+
+	@Column(name = "ACTIVE")
+	public boolean isActive() {
+		return active;
+	}
+
+	public void setActive(boolean active) {
+		this.active = active;
+	}
+
+	/**
+	 * Legacy embedded logo. Accepted on create, then moved to variant storage; never serialized.
+	 */
 	@Column(name = "LOGO")
+	@JsonIgnore
 	public byte[] getLogo() {
 		return logo;
 	}
 
+	@JsonProperty
 	public void setLogo(byte[] logo) {
 		this.logo = logo;
 	}
 
+	@Column(name = "LOGO_HASH")
+	public String getLogoHash() {
+		return logoHash;
+	}
+
+	public void setLogoHash(String logoHash) {
+		this.logoHash = logoHash;
+	}
+
+	public String getLogoUrl() {
+		return OpportunityLogoService.logoUrl(logoHash, LogoVariant.MEDIUM);
+	}
+
+	@Column(name = "JOB_TYPE")
+	public String getJobType() {
+		return jobType;
+	}
+
+	public void setJobType(String jobType) {
+		this.jobType = jobType;
+	}
+
+	@Column(name = "TENANT_ID")
+	public String getTenantId() {
+		return tenantId;
+	}
+
+	public void setTenantId(String tenantId) {
+		this.tenantId = tenantId;
+	}
+
 	@Column(name = "TEXT")
 	public String getText() {
 		return text;
@@ -1,13 +1,28 @@
 package com.lotus.lotusSPM.model;
 
+import java.time.LocalDateTime;
+
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.GenericGenerator;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+
 @Entity
-@Table(name = "STUDENT")
+@Table(name = "STUDENT", indexes = {
+		@Index(name = "idx_student_faculty_dept", columnList = "FACULTY, DEPARTMENT, INT_STATUS"),
+		@Index(name = "idx_student_status", columnList = "INT_STATUS"),
+		@Index(name = "idx_student_created", columnList = "CREATED_AT"),
+		@Index(name = "idx_student_tenant_cells", columnList = "TENANT_ID, FACULTY, DEPARTMENT, INT_STATUS, CREATED_AT") })
 public class Student {
 
 	private static final long serialVersionUID = 1L;
@@ -23,6 +38,8 @@ public class Student {
 	private String department;
 	@Lob
 	private byte[] transcript;
+	private LocalDateTime createdAt;
+	private String tenantId;
 
 	
 
@@ -45,6 +62,9 @@ public class Student {
 	}
 
 	@Id
+	@GeneratedValue(generator = KSortableIdGenerator.NAME)
+	@GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
+	@JsonSerialize(using = ToStringSerializer.class)
 	public Long getId() {
 		return id;
 	}
@@ -134,4 +154,29 @@ public class Student {
 		this.transcript = transcript;
 	}
 
+	@Column(name = "CREATED_AT", updatable = false)
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@Column(name = "TENANT_ID", length = 100)
+	public String getTenantId() {
+		return tenantId;
+	}
+
+	public void setTenantId(String tenantId) {
+		this.tenantId = tenantId;
+	}
+
+	@PrePersist
+	void onCreate() {
+		if (createdAt == null) {
+			createdAt = LocalDateTime.now();
+		}
+	}
+
 }
@@ -0,0 +1,8 @@
+package com.lotus.lotusSPM.notification;
+
+public enum AudienceType {
+    USER,
+    ROLE,
+    DEPARTMENT,
+    TENANT
+}
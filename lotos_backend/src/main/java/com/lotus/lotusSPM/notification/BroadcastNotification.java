@@ -0,0 +1,135 @@
+package com.lotus.lotusSPM.notification;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One notification addressed to an audience. It is stored once no matter how many
+ * users it reaches; per-user state lives in {@link NotificationReceipt}.
+ *
+ * The audience key folds tenant, audience type and value into one column so a user's
+ * feed is a single {@code audience_key IN (...)} range scan on (audience_key, id).
+ */
+@Entity
+@Table(name = "notification_broadcasts", indexes = {
+    @Index(name = "idx_broadcast_audience_id", columnList = "audience_key, id"),
+    @Index(name = "idx_broadcast_coalesce", columnList = "audience_key, event_type, last_occurred_at")
+})
+public class BroadcastNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "audience_key", length = 255, nullable = false)
+    private String audienceKey;
+
+    @Column(name = "tenant_id", length = 100)
+    private String tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "audience_type", length = 20, nullable = false)
+    private AudienceType audienceType;
+
+    @Column(name = "audience_value", length = 150, nullable = false)
+    private String audienceValue;
+
+    @Column(name = "event_type", length = 100)
+    private String eventType;
+
+    @Column(name = "sender", length = 100)
+    private String sender;
+
+    @Column(name = "title", length = 255)
+    private String title;
+
+    @Column(name = "text", columnDefinition = "TEXT")
+    private String text;
+
+    @Column(name = "occurrences", nullable = false)
+    private int occurrences;
+
+    @Column(name = "first_occurred_at", nullable = false)
+    private LocalDateTime firstOccurredAt;
+
+    @Column(name = "last_occurred_at", nullable = false)
+    private LocalDateTime lastOccurredAt;
+
+    public BroadcastNotification() {
+    }
+
+    public BroadcastNotification(String tenantId, AudienceType audienceType, String audienceValue, String eventType,
+                                 String sender, String title, String text) {
+        this.tenantId = tenantId;
+        this.audienceType = audienceType;
+        this.audienceValue = audienceValue;
+        this.audienceKey = audienceKey(tenantId, audienceType, audienceValue);
+        this.eventType = eventType;
+        this.sender = sender;
+        this.title = title;
+        this.text = text;
+        this.occurrences = 1;
+        this.firstOccurredAt = LocalDateTime.now();
+        this.lastOccurredAt = this.firstOccurredAt;
+    }
+
+    public static String audienceKey(String tenantId, AudienceType type, String value) {
+        return (tenantId != null ? tenantId : "") + "|" + type.name() + ":" + value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAudienceKey() {
+        return audienceKey;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public AudienceType getAudienceType() {
+        return audienceType;
+    }
+
+    public String getAudienceValue() {
+        return audienceValue;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public LocalDateTime getFirstOccurredAt() {
+        return firstOccurredAt;
+    }
+
+    public void setFirstOccurredAt(LocalDateTime firstOccurredAt) {
+        this.firstOccurredAt = firstOccurredAt;
+    }
+
+    public LocalDateTime getLastOccurredAt() {
+        return lastOccurredAt;
+    }
+}
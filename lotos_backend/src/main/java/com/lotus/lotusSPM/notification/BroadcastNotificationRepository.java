@@ -0,0 +1,40 @@
+package com.lotus.lotusSPM.notification;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BroadcastNotificationRepository extends JpaRepository<BroadcastNotification, Long> {
+
+    @Query("SELECT b FROM BroadcastNotification b WHERE b.audienceKey IN :keys AND b.id < :before ORDER BY b.id DESC")
+    List<BroadcastNotification> findFeed(@Param("keys") Collection<String> keys, @Param("before") long before,
+                                         Pageable pageable);
+
+    @Query("SELECT b.id FROM BroadcastNotification b WHERE b.audienceKey IN :keys AND b.id > :after ORDER BY b.id ASC")
+    List<Long> findVisibleIdsAfter(@Param("keys") Collection<String> keys, @Param("after") long after,
+                                   Pageable pageable);
+
+    @Query("SELECT MAX(b.id) FROM BroadcastNotification b WHERE b.audienceKey IN :keys")
+    Long findLatestVisibleId(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b WHERE b.audienceKey IN :keys AND b.id > :after")
+    long countVisibleAfter(@Param("keys") Collection<String> keys, @Param("after") long after);
+
+    @Query("SELECT COUNT(b) FROM BroadcastNotification b WHERE b.audienceKey IN :keys AND b.id IN :ids")
+    long countVisibleIn(@Param("keys") Collection<String> keys, @Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BroadcastNotification b WHERE b.audienceKey = :key AND b.eventType = :eventType " +
+           "AND b.lastOccurredAt > :since ORDER BY b.id DESC")
+    List<BroadcastNotification> findCoalescable(@Param("key") String key, @Param("eventType") String eventType,
+                                                @Param("since") LocalDateTime since, Pageable pageable);
+}
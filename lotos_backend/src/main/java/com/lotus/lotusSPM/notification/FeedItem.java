@@ -0,0 +1,67 @@
+package com.lotus.lotusSPM.notification;
+
+import java.time.LocalDateTime;
+
+/**
+ * A notification as seen by one user.
+ */
+public class FeedItem {
+
+    private final Long id;
+    private final String eventType;
+    private final String sender;
+    private final String title;
+    private final String text;
+    private final int occurrences;
+    private final LocalDateTime firstOccurredAt;
+    private final LocalDateTime lastOccurredAt;
+    private final boolean read;
+
+    public FeedItem(BroadcastNotification notification, boolean read) {
+        this.id = notification.getId();
+        this.eventType = notification.getEventType();
+        this.sender = notification.getSender();
+        this.title = notification.getTitle();
+        this.text = notification.getText();
+        this.occurrences = notification.getOccurrences();
+        this.firstOccurredAt = notification.getFirstOccurredAt();
+        this.lastOccurredAt = notification.getLastOccurredAt();
+        this.read = read;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public LocalDateTime getFirstOccurredAt() {
+        return firstOccurredAt;
+    }
+
+    public LocalDateTime getLastOccurredAt() {
+        return lastOccurredAt;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+}
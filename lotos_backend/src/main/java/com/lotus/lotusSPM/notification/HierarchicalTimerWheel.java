@@ -0,0 +1,186 @@
+package com.lotus.lotusSPM.notification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed hierarchical timer wheel keyed by timer id.
+ *
+ * Four levels of 64 slots cover 64^4 ticks; timers further out wait in an overflow queue
+ * until they come into range. Scheduling and cancelling are O(1), and each tick touches
+ * only the timers in the current slot plus those cascading down a level.
+ *
+ * Not thread-safe: the owner drives it from a single thread.
+ */
+public class HierarchicalTimerWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long RANGE = 1L << (SLOT_BITS * LEVELS);
+
+    private static final class Timer {
+        final long id;
+        final long deadlineTick;
+        Timer prev;
+        Timer next;
+        int level = -1;
+        int slot;
+
+        Timer(long id, long deadlineTick) {
+            this.id = id;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+    private final Map<Long, Timer> timers = new HashMap<>();
+    private final PriorityQueue<Timer> overflow = new PriorityQueue<>((a, b) -> Long.compare(a.deadlineTick, b.deadlineTick));
+    private final List<Timer> overdue = new ArrayList<>();
+    private long currentTick;
+
+    public HierarchicalTimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public boolean contains(long id) {
+        return timers.containsKey(id);
+    }
+
+    /**
+     * Schedule (or reschedule) a timer. Deadlines in the past fire on the next advance.
+     */
+    public void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        // Round up so a timer never fires before its deadline
+        Timer timer = new Timer(id, (deadlineMillis + tickMillis - 1) / tickMillis);
+        timers.put(id, timer);
+        place(timer);
+    }
+
+    public boolean cancel(long id) {
+        Timer timer = timers.remove(id);
+        if (timer == null) {
+            return false;
+        }
+        if (timer.level >= 0) {
+            unlink(timer);
+        } else {
+            // Rare paths: linear removal is acceptable
+            if (!overflow.remove(timer)) {
+                overdue.remove(timer);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advance to the given time, passing every expired timer id to the consumer in
+     * deadline-tick order.
+     */
+    public void advanceTo(long nowMillis, LongConsumer expired) {
+        fireOverdue(expired);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Timer timer = detachSlot(0, (int) (currentTick & MASK));
+            while (timer != null) {
+                Timer next = timer.next;
+                timers.remove(timer.id);
+                expired.accept(timer.id);
+                timer = next;
+            }
+            // Timers cascaded down exactly onto this tick
+            fireOverdue(expired);
+        }
+    }
+
+    private void fireOverdue(LongConsumer expired) {
+        if (overdue.isEmpty()) {
+            return;
+        }
+        List<Timer> due = new ArrayList<>(overdue);
+        overdue.clear();
+        for (Timer timer : due) {
+            timers.remove(timer.id);
+            expired.accept(timer.id);
+        }
+    }
+
+    private void cascade() {
+        // Higher levels first so their timers can land in the lower slots being refilled
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            long levelMask = (1L << (SLOT_BITS * level)) - 1;
+            if ((currentTick & levelMask) != 0) {
+                continue;
+            }
+            Timer timer = detachSlot(level, (int) ((currentTick >>> (SLOT_BITS * level)) & MASK));
+            while (timer != null) {
+                Timer next = timer.next;
+                place(timer);
+                timer = next;
+            }
+        }
+        while (!overflow.isEmpty() && overflow.peek().deadlineTick - currentTick < RANGE) {
+            place(overflow.poll());
+        }
+    }
+
+    private void place(Timer timer) {
+        timer.prev = null;
+        timer.next = null;
+        timer.level = -1;
+        long delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            overdue.add(timer);
+            return;
+        }
+        if (delta >= RANGE) {
+            overflow.add(timer);
+            return;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((timer.deadlineTick >>> (SLOT_BITS * level)) & MASK);
+        timer.level = level;
+        timer.slot = slot;
+        Timer head = wheels[level][slot];
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        wheels[level][slot] = timer;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            wheels[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.level = -1;
+    }
+
+    private Timer detachSlot(int level, int slot) {
+        Timer head = wheels[level][slot];
+        wheels[level][slot] = null;
+        return head;
+    }
+}
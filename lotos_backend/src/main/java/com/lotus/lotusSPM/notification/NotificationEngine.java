@@ -0,0 +1,234 @@
+package com.lotus.lotusSPM.notification;
+
+import com.lotus.lotusSPM.dao.CoordinatorDao;
+import com.lotus.lotusSPM.dao.InstructorDao;
+import com.lotus.lotusSPM.dao.StudentDao;
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Audience-targeted notifications with per-user read state.
+ *
+ * A notification is written once for its audience (a user, a role, a department or the
+ * whole tenant). Users resolve the audiences they belong to when reading their feed, so
+ * publishing to a role costs one insert instead of one row per member. Repeats of the
+ * same event to the same audience inside the coalescing window fold into a digest.
+ */
+@Service
+@Transactional
+public class NotificationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationEngine.class);
+
+    private static final int COMPACTION_SCAN = 256;
+
+    @Value("${app.notifications.coalesce-window-seconds:300}")
+    private long coalesceWindowSeconds;
+
+    @Autowired
+    private BroadcastNotificationRepository broadcastRepository;
+
+    @Autowired
+    private NotificationReceiptRepository receiptRepository;
+
+    @Autowired
+    private StudentDao studentDao;
+
+    @Autowired
+    private InstructorDao instructorDao;
+
+    @Autowired
+    private CoordinatorDao coordinatorDao;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void initialize() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public BroadcastNotification publish(AudienceType audienceType, String audienceValue, String eventType,
+                                         String sender, String title, String text) {
+        if (audienceType == null) {
+            throw new BadRequestException("Audience type is required");
+        }
+        String value = audienceType == AudienceType.TENANT ? "*" : audienceValue;
+        if (value == null || value.trim().isEmpty()) {
+            throw new BadRequestException("Audience value is required for " + audienceType);
+        }
+        if (audienceType == AudienceType.ROLE) {
+            value = value.toUpperCase();
+        }
+
+        String tenant = TenantContext.getCurrentTenant();
+        BroadcastNotification notification =
+            new BroadcastNotification(tenant, audienceType, value, eventType, sender, title, text);
+
+        if (eventType != null && coalesceWindowSeconds > 0) {
+            LocalDateTime since = LocalDateTime.now().minusSeconds(coalesceWindowSeconds);
+            List<BroadcastNotification> recent = broadcastRepository.findCoalescable(
+                notification.getAudienceKey(), eventType, since, PageRequest.of(0, 1));
+            if (!recent.isEmpty()) {
+                // Replace rather than update, so the digest gets a new id: it moves to the top
+                // of every feed and is unread again for users who had read the earlier one.
+                BroadcastNotification previous = recent.get(0);
+                notification.setOccurrences(previous.getOccurrences() + 1);
+                notification.setFirstOccurredAt(previous.getFirstOccurredAt());
+                broadcastRepository.delete(previous);
+                logger.debug("Coalesced {} for {} ({} occurrences)", eventType, notification.getAudienceKey(),
+                    notification.getOccurrences());
+            }
+        }
+        return broadcastRepository.save(notification);
+    }
+
+    @Transactional(readOnly = true)
+    public List<FeedItem> feed(String username, String role, Long before, int size) {
+        List<String> keys = audienceKeys(username, role);
+        List<BroadcastNotification> page = broadcastRepository.findFeed(keys,
+            before != null ? before : Long.MAX_VALUE, PageRequest.of(0, size));
+
+        NotificationReceipt receipt = receiptRepository
+            .findByTenantKeyAndUsername(tenantKey(), username).orElse(null);
+        ReadState state = receipt != null ? receipt.readState() : ReadState.empty();
+
+        List<FeedItem> items = new ArrayList<>(page.size());
+        for (BroadcastNotification notification : page) {
+            items.add(new FeedItem(notification, state.isRead(notification.getId())));
+        }
+
+        if (before == null && !page.isEmpty() && receipt != null
+                && page.get(0).getId() > receipt.getDeliveredUpTo()) {
+            requiresNew.execute(status -> receiptRepository.advanceDelivered(receipt.getId(), page.get(0).getId()));
+        }
+        return items;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> counts(String username, String role) {
+        List<String> keys = audienceKeys(username, role);
+        NotificationReceipt receipt = receiptRepository
+            .findByTenantKeyAndUsername(tenantKey(), username).orElse(null);
+
+        long unread;
+        long unseen;
+        if (receipt == null) {
+            unread = broadcastRepository.countVisibleAfter(keys, 0);
+            unseen = unread;
+        } else {
+            ReadState state = receipt.readState();
+            unread = broadcastRepository.countVisibleAfter(keys, state.getWatermark());
+            if (state.exceptionCount() > 0) {
+                List<Long> exceptions = new ArrayList<>(state.exceptionCount());
+                for (long id : state.exceptions()) {
+                    exceptions.add(id);
+                }
+                unread -= broadcastRepository.countVisibleIn(keys, exceptions);
+            }
+            unseen = broadcastRepository.countVisibleAfter(keys, receipt.getDeliveredUpTo());
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("unread", unread);
+        counts.put("unseen", unseen);
+        return counts;
+    }
+
+    public void markRead(String username, String role, Long id) {
+        NotificationReceipt receipt = lockReceipt(username);
+        ReadState state = receipt.readState();
+        if (!state.markRead(id)) {
+            return;
+        }
+        List<String> keys = audienceKeys(username, role);
+        state.compact(broadcastRepository.findVisibleIdsAfter(keys, state.getWatermark(),
+            PageRequest.of(0, COMPACTION_SCAN)));
+        receipt.setReadState(state);
+        receiptRepository.save(receipt);
+    }
+
+    public void markAllRead(String username, String role) {
+        Long latest = broadcastRepository.findLatestVisibleId(audienceKeys(username, role));
+        if (latest == null) {
+            return;
+        }
+        NotificationReceipt receipt = lockReceipt(username);
+        ReadState state = receipt.readState();
+        state.markAllRead(latest);
+        receipt.setReadState(state);
+        receipt.setDeliveredUpTo(Math.max(receipt.getDeliveredUpTo(), latest));
+        receiptRepository.save(receipt);
+    }
+
+    /**
+     * Audience keys the user belongs to in the current tenant.
+     */
+    List<String> audienceKeys(String username, String role) {
+        String tenant = TenantContext.getCurrentTenant();
+        List<String> keys = new ArrayList<>(4);
+        keys.add(BroadcastNotification.audienceKey(tenant, AudienceType.USER, username));
+        keys.add(BroadcastNotification.audienceKey(tenant, AudienceType.TENANT, "*"));
+        if (role != null) {
+            keys.add(BroadcastNotification.audienceKey(tenant, AudienceType.ROLE, role.toUpperCase()));
+            String department = departmentOf(username, role);
+            if (department != null) {
+                keys.add(BroadcastNotification.audienceKey(tenant, AudienceType.DEPARTMENT, department));
+            }
+        }
+        return keys;
+    }
+
+    private String departmentOf(String username, String role) {
+        switch (role.toUpperCase()) {
+            case "STUDENT":
+                return studentDao.findDepartmentByUsername(username);
+            case "INSTRUCTOR":
+                return instructorDao.findDepartmentByUsername(username);
+            case "COORDINATOR":
+                return coordinatorDao.findDepartmentByUsername(username);
+            default:
+                return null;
+        }
+    }
+
+    private NotificationReceipt lockReceipt(String username) {
+        String tenantKey = tenantKey();
+        return receiptRepository.findForUpdateByTenantKeyAndUsername(tenantKey, username).orElseGet(() -> {
+            try {
+                requiresNew.execute(status ->
+                    receiptRepository.saveAndFlush(new NotificationReceipt(tenantKey, username)));
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Receipt for {} created concurrently", username);
+            }
+            return receiptRepository.findForUpdateByTenantKeyAndUsername(tenantKey, username)
+                .orElseThrow(() -> new IllegalStateException("Receipt for " + username + " could not be created"));
+        });
+    }
+
+    private static String tenantKey() {
+        String tenant = TenantContext.getCurrentTenant();
+        return tenant != null ? tenant : "";
+    }
+}
@@ -0,0 +1,75 @@
+package com.lotus.lotusSPM.notification;
+
+import javax.persistence.*;
+
+/**
+ * Delivery and read state of one user, across all notifications they can see.
+ * See {@link ReadState} for the encoding of {@code read_exceptions}.
+ */
+@Entity
+@Table(name = "notification_receipts", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_notification_receipt_user", columnNames = {"tenant_key", "username"})
+})
+public class NotificationReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_key", length = 100, nullable = false)
+    private String tenantKey;
+
+    @Column(name = "username", length = 100, nullable = false)
+    private String username;
+
+    @Column(name = "delivered_up_to", nullable = false)
+    private long deliveredUpTo;
+
+    @Column(name = "read_up_to", nullable = false)
+    private long readUpTo;
+
+    @Lob
+    @Column(name = "read_exceptions", columnDefinition = "BLOB")
+    private byte[] readExceptions;
+
+    public NotificationReceipt() {
+    }
+
+    public NotificationReceipt(String tenantKey, String username) {
+        this.tenantKey = tenantKey;
+        this.username = username;
+    }
+
+    public ReadState readState() {
+        return ReadState.decode(readUpTo, readExceptions);
+    }
+
+    public void setReadState(ReadState state) {
+        this.readUpTo = state.getWatermark();
+        this.readExceptions = state.exceptionCount() > 0 ? state.encode() : null;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTenantKey() {
+        return tenantKey;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getDeliveredUpTo() {
+        return deliveredUpTo;
+    }
+
+    public void setDeliveredUpTo(long deliveredUpTo) {
+        this.deliveredUpTo = deliveredUpTo;
+    }
+
+    public long getReadUpTo() {
+        return readUpTo;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lotus.lotusSPM.notification;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface NotificationReceiptRepository extends JpaRepository<NotificationReceipt, Long> {
+
+    Optional<NotificationReceipt> findByTenantKeyAndUsername(String tenantKey, String username);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<NotificationReceipt> findForUpdateByTenantKeyAndUsername(String tenantKey, String username);
+
+    /**
+     * Monotonic, so concurrent feed requests never move the delivery watermark backwards.
+     */
+    @Modifying
+    @Query("UPDATE NotificationReceipt r SET r.deliveredUpTo = :upTo WHERE r.id = :id AND r.deliveredUpTo < :upTo")
+    int advanceDelivered(@Param("id") Long id, @Param("upTo") long upTo);
+}
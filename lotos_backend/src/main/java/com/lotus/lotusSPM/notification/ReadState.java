@@ -0,0 +1,144 @@
+package com.lotus.lotusSPM.notification;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-user read state: a watermark below which everything is read, plus the sorted ids
+ * above it that were read out of order. Ids are encoded as varint deltas, so a user who
+ * reads their feed roughly in order costs a handful of bytes regardless of feed length.
+ */
+public class ReadState {
+
+    static final int MAX_EXCEPTIONS = 2048;
+
+    private long watermark;
+    private long[] readIds;
+    private int size;
+
+    public ReadState(long watermark, long[] readIds) {
+        this.watermark = watermark;
+        this.readIds = readIds.length > 0 ? readIds : new long[8];
+        this.size = readIds.length;
+    }
+
+    public static ReadState empty() {
+        return new ReadState(0, new long[0]);
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public int exceptionCount() {
+        return size;
+    }
+
+    public long[] exceptions() {
+        return Arrays.copyOf(readIds, size);
+    }
+
+    public boolean isRead(long id) {
+        return id <= watermark || Arrays.binarySearch(readIds, 0, size, id) >= 0;
+    }
+
+    /**
+     * @return false if the id was already read
+     */
+    public boolean markRead(long id) {
+        if (id <= watermark) {
+            return false;
+        }
+        int pos = Arrays.binarySearch(readIds, 0, size, id);
+        if (pos >= 0) {
+            return false;
+        }
+        int insert = -pos - 1;
+        if (size == readIds.length) {
+            readIds = Arrays.copyOf(readIds, size * 2);
+        }
+        System.arraycopy(readIds, insert, readIds, insert + 1, size - insert);
+        readIds[insert] = id;
+        size++;
+        if (size > MAX_EXCEPTIONS) {
+            // Degrade gracefully: treat the oldest out-of-order reads as a contiguous prefix
+            advanceTo(readIds[size - MAX_EXCEPTIONS / 2]);
+        }
+        return true;
+    }
+
+    public void markAllRead(long upTo) {
+        advanceTo(upTo);
+    }
+
+    /**
+     * Move the watermark forward across ids the user can see that are already read.
+     *
+     * @param visibleAscending ids visible to the user above the current watermark, ascending
+     */
+    public void compact(List<Long> visibleAscending) {
+        long newWatermark = watermark;
+        for (Long id : visibleAscending) {
+            if (Arrays.binarySearch(readIds, 0, size, id) < 0) {
+                break;
+            }
+            newWatermark = id;
+        }
+        advanceTo(newWatermark);
+    }
+
+    private void advanceTo(long upTo) {
+        if (upTo <= watermark) {
+            return;
+        }
+        watermark = upTo;
+        int drop = 0;
+        while (drop < size && readIds[drop] <= upTo) {
+            drop++;
+        }
+        System.arraycopy(readIds, drop, readIds, 0, size - drop);
+        size -= drop;
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 2 + 1);
+        long previous = watermark;
+        for (int i = 0; i < size; i++) {
+            writeVarLong(out, readIds[i] - previous);
+            previous = readIds[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static ReadState decode(long watermark, byte[] encoded) {
+        if (encoded == null || encoded.length == 0) {
+            return new ReadState(watermark, new long[0]);
+        }
+        long[] ids = new long[encoded.length];
+        int count = 0;
+        long previous = watermark;
+        int pos = 0;
+        while (pos < encoded.length) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[pos++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            previous += delta;
+            ids[count++] = previous;
+        }
+        return new ReadState(watermark, Arrays.copyOf(ids, count));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
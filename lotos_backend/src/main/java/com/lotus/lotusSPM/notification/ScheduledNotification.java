@@ -0,0 +1,137 @@
+package com.lotus.lotusSPM.notification;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A notification to publish at a future time.
+ */
+@Entity
+@Table(name = "scheduled_notifications", indexes = {
+    @Index(name = "idx_scheduled_status_id", columnList = "status, id"),
+    @Index(name = "idx_scheduled_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_scheduled_sender", columnList = "sender, fire_at")
+})
+public class ScheduledNotification {
+
+    public enum Status { PENDING, SENT, CANCELLED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", length = 100)
+    private String tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "audience_type", length = 20, nullable = false)
+    private AudienceType audienceType;
+
+    @Column(name = "audience_value", length = 150, nullable = false)
+    private String audienceValue;
+
+    @Column(name = "event_type", length = 100)
+    private String eventType;
+
+    @Column(name = "sender", length = 100, nullable = false)
+    private String sender;
+
+    @Column(name = "title", length = 255)
+    private String title;
+
+    @Column(name = "text", columnDefinition = "TEXT")
+    private String text;
+
+    @Column(name = "fire_at", nullable = false)
+    private LocalDateTime fireAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status = Status.PENDING;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public AudienceType getAudienceType() {
+        return audienceType;
+    }
+
+    public void setAudienceType(AudienceType audienceType) {
+        this.audienceType = audienceType;
+    }
+
+    public String getAudienceValue() {
+        return audienceValue;
+    }
+
+    public void setAudienceValue(String audienceValue) {
+        this.audienceValue = audienceValue;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getSender() {
+        return sender;
+    }
+
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public LocalDateTime getFireAt() {
+        return fireAt;
+    }
+
+    public void setFireAt(LocalDateTime fireAt) {
+        this.fireAt = fireAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.lotus.lotusSPM.notification;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScheduledNotificationRepository extends JpaRepository<ScheduledNotification, Long> {
+
+    /**
+     * Rows are [id, fireAt]; used to load the timer wheel without materialising entities.
+     */
+    @Query("SELECT s.id, s.fireAt FROM ScheduledNotification s WHERE s.status = :status AND s.id > :after ORDER BY s.id ASC")
+    List<Object[]> findIdsByStatusAfter(@Param("status") ScheduledNotification.Status status,
+                                        @Param("after") long after, Pageable pageable);
+
+    @Query("SELECT s.id, s.fireAt FROM ScheduledNotification s WHERE s.status = :status AND s.createdAt > :since")
+    List<Object[]> findIdsByStatusCreatedSince(@Param("status") ScheduledNotification.Status status,
+                                               @Param("since") LocalDateTime since);
+
+    List<ScheduledNotification> findBySenderAndStatusOrderByFireAtAsc(String sender, ScheduledNotification.Status status,
+                                                                       Pageable pageable);
+
+    /**
+     * Moves a row from one status to another only if it is still in the expected one,
+     * so a reminder is sent at most once even if two leaders briefly overlap.
+     */
+    @Modifying
+    @Query("UPDATE ScheduledNotification s SET s.status = :to, s.sentAt = :now WHERE s.id = :id AND s.status = :from")
+    int transition(@Param("id") Long id, @Param("from") ScheduledNotification.Status from,
+                   @Param("to") ScheduledNotification.Status to, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,227 @@
+package com.lotus.lotusSPM.notification;
+
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers scheduled notifications at their fire time.
+ *
+ * Pending rows are loaded once into a {@link HierarchicalTimerWheel} on the replica holding
+ * the scheduler lease; after that only rows created since the last poll are read, so the
+ * cost per tick does not depend on how many reminders are pending. Other replicas only
+ * write rows. A row is claimed with a conditional status update before publishing, so a
+ * brief leadership overlap cannot send it twice.
+ */
+@Service
+public class ScheduledNotificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledNotificationService.class);
+
+    private static final int LOAD_PAGE_SIZE = 10000;
+    private static final long POLL_LOOKBACK_MILLIS = 60_000;
+    private static final long RETRY_DELAY_MILLIS = 60_000;
+
+    @Value("${app.notifications.scheduler.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${app.notifications.scheduler.poll-interval-millis:5000}")
+    private long pollIntervalMillis;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private ScheduledNotificationRepository repository;
+
+    @Autowired
+    private NotificationEngine notificationEngine;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private LeaderLease lease;
+    private ScheduledExecutorService ticker;
+
+    // Owned by the ticker thread
+    private HierarchicalTimerWheel wheel;
+    private long lastPollMillis;
+
+    @PostConstruct
+    public void start() {
+        transaction = new TransactionTemplate(transactionManager);
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "notification-scheduler", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    public ScheduledNotification schedule(ScheduledNotification request, String sender) {
+        if (request.getFireAt() == null) {
+            throw new BadRequestException("fireAt is required");
+        }
+        if (request.getAudienceType() == null) {
+            throw new BadRequestException("Audience type is required");
+        }
+        if (request.getAudienceType() == AudienceType.TENANT) {
+            request.setAudienceValue("*");
+        } else if (request.getAudienceValue() == null || request.getAudienceValue().trim().isEmpty()) {
+            throw new BadRequestException("Audience value is required for " + request.getAudienceType());
+        }
+        request.setSender(sender);
+        request.setTenantId(TenantContext.getCurrentTenant());
+        return repository.save(request);
+    }
+
+    public void cancel(Long id, String username, boolean admin) {
+        ScheduledNotification scheduled = repository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("ScheduledNotification", "id", id));
+        if (!admin && !scheduled.getSender().equals(username)) {
+            throw new BadRequestException("Only the sender can cancel scheduled notification " + id);
+        }
+        Integer changed = transaction.execute(status -> repository.transition(id,
+            ScheduledNotification.Status.PENDING, ScheduledNotification.Status.CANCELLED, null));
+        if (changed == null || changed == 0) {
+            throw new BadRequestException("Scheduled notification " + id + " has already been sent or cancelled");
+        }
+    }
+
+    public List<ScheduledNotification> findPending(String sender, int page, int size) {
+        return repository.findBySenderAndStatusOrderByFireAtAsc(sender, ScheduledNotification.Status.PENDING,
+            PageRequest.of(page, size));
+    }
+
+    private boolean isLeader() {
+        return lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+    }
+
+    void tick() {
+        try {
+            if (!isLeader()) {
+                if (wheel != null) {
+                    logger.info("Scheduler lease lost, dropping {} in-memory timers", wheel.size());
+                    wheel = null;
+                }
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (wheel == null) {
+                load(now);
+            } else if (now - lastPollMillis >= pollIntervalMillis) {
+                pollNew(now);
+            }
+
+            List<Long> due = new ArrayList<>();
+            wheel.advanceTo(now, due::add);
+            for (Long id : due) {
+                fire(id);
+            }
+        } catch (Exception e) {
+            logger.error("Notification scheduler tick failed", e);
+        }
+    }
+
+    private void load(long now) {
+        wheel = new HierarchicalTimerWheel(tickMillis, now);
+        lastPollMillis = now;
+        long after = 0;
+        List<Object[]> page;
+        do {
+            page = repository.findIdsByStatusAfter(ScheduledNotification.Status.PENDING, after,
+                PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (Object[] row : page) {
+                after = (Long) row[0];
+                wheel.schedule(after, epochMillis((LocalDateTime) row[1]));
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        logger.info("Notification scheduler is leader, loaded {} pending timers", wheel.size());
+    }
+
+    /**
+     * Rows can commit slightly after their created_at and replicas' clocks drift, so
+     * each poll looks back a fixed window; rows already in the wheel are skipped.
+     */
+    private void pollNew(long now) {
+        LocalDateTime since = new Timestamp(lastPollMillis - POLL_LOOKBACK_MILLIS).toLocalDateTime();
+        lastPollMillis = now;
+        for (Object[] row : repository.findIdsByStatusCreatedSince(ScheduledNotification.Status.PENDING, since)) {
+            Long id = (Long) row[0];
+            if (!wheel.contains(id)) {
+                wheel.schedule(id, epochMillis((LocalDateTime) row[1]));
+            }
+        }
+    }
+
+    private void fire(Long id) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                if (repository.transition(id, ScheduledNotification.Status.PENDING,
+                        ScheduledNotification.Status.SENT, LocalDateTime.now()) == 0) {
+                    return;
+                }
+                ScheduledNotification scheduled = repository.findById(id).orElse(null);
+                if (scheduled == null) {
+                    return;
+                }
+                TenantContext.setCurrentTenant(scheduled.getTenantId());
+                try {
+                    notificationEngine.publish(scheduled.getAudienceType(), scheduled.getAudienceValue(),
+                        scheduled.getEventType(), scheduled.getSender(), scheduled.getTitle(), scheduled.getText());
+                } finally {
+                    TenantContext.clear();
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to deliver scheduled notification {}, retrying later", id, e);
+            wheel.schedule(id, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+        }
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime();
+    }
+}
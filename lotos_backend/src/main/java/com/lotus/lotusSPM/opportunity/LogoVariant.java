@@ -0,0 +1,36 @@
+package com.lotus.lotusSPM.opportunity;
+
+/**
+ * Pre-generated logo sizes. Resized variants fit inside a square of the given edge.
+ */
+public enum LogoVariant {
+    SMALL("64", 64),
+    MEDIUM("128", 128),
+    LARGE("256", 256),
+    ORIGINAL("original", 0);
+
+    private final String path;
+    private final int edge;
+
+    LogoVariant(String path, int edge) {
+        this.path = path;
+        this.edge = edge;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getEdge() {
+        return edge;
+    }
+
+    public static LogoVariant fromPath(String path) {
+        for (LogoVariant variant : values()) {
+            if (variant.path.equals(path)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.lotus.lotusSPM.opportunity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts the free-text deadline entered by recruiters into the instant a posting expires.
+ * A date without a time stays open for the whole of that day.
+ */
+public final class OpportunityDeadlines {
+
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+        DateTimeFormatter.ISO_LOCAL_DATE,
+        DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+        DateTimeFormatter.ofPattern("d.M.yyyy"),
+        DateTimeFormatter.ofPattern("d/M/yyyy")
+    };
+
+    private OpportunityDeadlines() {
+    }
+
+    public static LocalDateTime expiryOf(String deadline) {
+        if (deadline == null || deadline.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = deadline.trim();
+        if (trimmed.length() > 10 && trimmed.charAt(4) == '-') {
+            try {
+                return LocalDateTime.parse(trimmed.replace(' ', 'T'));
+            } catch (DateTimeParseException e) {
+                trimmed = trimmed.substring(0, 10);
+            }
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(trimmed, format).plusDays(1).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calendar day on which a posting with this expiry closes.
+     */
+    public static LocalDate closingDay(LocalDateTime expiry) {
+        return expiry == null ? null : expiry.minusNanos(1).toLocalDate();
+    }
+}
@@ -0,0 +1,204 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deactivates opportunities the moment their deadline passes.
+ *
+ * Postings expiring within the horizon sit in a min-heap keyed by expiry, and a single
+ * thread sleeps until the head is due. The horizon is re-read from
+ * idx_opportunities_active_deadline periodically, so the heap stays small however many
+ * postings exist. Deactivation is a conditional update; every replica may sweep, and only
+ * the one whose update wins invalidates the caches.
+ */
+@Component
+public class OpportunityExpirySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunityExpirySweeper.class);
+
+    @Value("${app.opportunities.expiry.reload-interval-millis:3600000}")
+    private long reloadIntervalMillis;
+
+    @Autowired
+    private OpportunitiesDao opportunitiesDao;
+
+    @Autowired
+    private OpportunityFeedCache feedCache;
+
+    @Autowired
+    private OpportunitySearchService searchService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Expiry> queue = new PriorityQueue<>();
+    // Latest expiry per id; heap entries that disagree are stale and skipped when polled
+    private final Map<Long, Long> scheduled = new HashMap<>();
+
+    private TransactionTemplate transaction;
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        transaction = new TransactionTemplate(transactionManager);
+        running = true;
+        worker = new Thread(this::run, "opportunity-expiry-sweeper");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Track an opportunity's expiry; ignored when it falls beyond the current horizon.
+     */
+    public void schedule(Long id, LocalDateTime deadlineAt) {
+        if (id == null || deadlineAt == null) {
+            return;
+        }
+        long dueMillis = toMillis(deadlineAt);
+        if (dueMillis > System.currentTimeMillis() + 2 * reloadIntervalMillis) {
+            return;
+        }
+        lock.lock();
+        try {
+            Long previous = scheduled.put(id, dueMillis);
+            if (previous == null || previous != dueMillis) {
+                queue.add(new Expiry(id, dueMillis));
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pending() {
+        lock.lock();
+        try {
+            return scheduled.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reload everything due within two reload intervals, which also picks up postings
+     * created on other replicas and any that expired while no replica was running.
+     */
+    @Scheduled(fixedDelayString = "${app.opportunities.expiry.reload-interval-millis:3600000}")
+    public void reloadHorizon() {
+        LocalDateTime horizon = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(2 * reloadIntervalMillis));
+        List<Object[]> rows = opportunitiesDao.findActiveExpiringBefore(horizon);
+        for (Object[] row : rows) {
+            schedule((Long) row[0], (LocalDateTime) row[1]);
+        }
+        logger.debug("Opportunity expiry horizon reloaded: {} postings due before {}", rows.size(), horizon);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<Long> due = awaitDue();
+                if (!due.isEmpty()) {
+                    expire(due);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Opportunity expiry sweep failed", e);
+            }
+        }
+    }
+
+    private List<Long> awaitDue() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Expiry head = queue.peek();
+                if (head == null) {
+                    changed.await();
+                    continue;
+                }
+                long waitMillis = head.dueMillis - System.currentTimeMillis();
+                if (waitMillis > 0) {
+                    changed.await(waitMillis, TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                // Everything already due goes out in one update
+                List<Long> due = new ArrayList<>();
+                long now = System.currentTimeMillis();
+                while (!queue.isEmpty() && queue.peek().dueMillis <= now) {
+                    Expiry expiry = queue.poll();
+                    Long current = scheduled.get(expiry.id);
+                    if (current != null && current == expiry.dueMillis) {
+                        scheduled.remove(expiry.id);
+                        due.add(expiry.id);
+                    }
+                }
+                return due;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(List<Long> ids) {
+        Integer updated = transaction.execute(status -> opportunitiesDao.deactivateExpired(ids, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            return;
+        }
+        logger.info("Deactivated {} expired opportunities", updated);
+        feedCache.invalidate();
+        for (Long id : ids) {
+            searchService.refresh(id);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Expiry implements Comparable<Expiry> {
+        final long id;
+        final long dueMillis;
+
+        Expiry(long id, long dueMillis) {
+            this.id = id;
+            this.dueMillis = dueMillis;
+        }
+
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(dueMillis, other.dueMillis);
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.lotus.lotusSPM.dto.OpportunitySummary;
+import com.lotus.lotusSPM.search.CompressedBitmap;
+import com.lotus.lotusSPM.search.Tokenizer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory faceted index over opportunities, one partition per tenant.
+ *
+ * Each document gets a dense ordinal; every term, facet value and deadline day maps to a
+ * {@link CompressedBitmap} of ordinals. A query is a handful of bitmap intersections, and
+ * facet counts are intersection cardinalities, so nothing is scanned per document.
+ */
+public class OpportunityFacetIndex {
+
+    public enum Facet { LOCATION, COMPANY, JOB_TYPE }
+
+    static final int MAX_FACET_VALUES = 20;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    public void index(String tenantId, OpportunitySummary opportunity) {
+        partition(tenantId).put(opportunity);
+    }
+
+    public void remove(String tenantId, Long id) {
+        Partition partition = partitions.get(key(tenantId));
+        if (partition != null) {
+            partition.remove(id);
+        }
+    }
+
+    /**
+     * Remove {@code id} from whichever tenant holds it; used when the owning tenant is unknown.
+     */
+    public void removeEverywhere(Long id) {
+        for (Partition partition : partitions.values()) {
+            partition.remove(id);
+        }
+    }
+
+    public void clear() {
+        partitions.clear();
+    }
+
+    public int size(String tenantId) {
+        Partition partition = partitions.get(key(tenantId));
+        return partition == null ? 0 : partition.size();
+    }
+
+    public Result search(String tenantId, Query query) {
+        Partition partition = partitions.get(key(tenantId));
+        if (partition == null) {
+            return new Result(0, Collections.<OpportunitySummary>emptyList(),
+                new EnumMap<Facet, Map<String, Integer>>(Facet.class));
+        }
+        return partition.search(query);
+    }
+
+    static LocalDate closingDay(OpportunitySummary opportunity) {
+        LocalDateTime expiry = opportunity.getDeadlineAt() != null
+            ? opportunity.getDeadlineAt() : OpportunityDeadlines.expiryOf(opportunity.getDeadline());
+        return OpportunityDeadlines.closingDay(expiry);
+    }
+
+    private Partition partition(String tenantId) {
+        return partitions.computeIfAbsent(key(tenantId), k -> new Partition());
+    }
+
+    private static String key(String tenantId) {
+        return tenantId == null ? "" : tenantId;
+    }
+
+    private static String facetValue(OpportunitySummary opportunity, Facet facet) {
+        switch (facet) {
+            case LOCATION:
+                return opportunity.getLocation();
+            case COMPANY:
+                return opportunity.getCompanyName();
+            default:
+                return opportunity.getJobType();
+        }
+    }
+
+    static String normalizeValue(String value) {
+        return value == null ? "" : Tokenizer.normalize(value).trim().replaceAll("\\s+", " ");
+    }
+
+    private static final class Partition {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final List<OpportunitySummary> documents = new ArrayList<>();
+        private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+        private final CompressedBitmap live = new CompressedBitmap();
+        private final NavigableMap<String, CompressedBitmap> terms = new TreeMap<>();
+        private final Map<Facet, Map<String, CompressedBitmap>> facets = new EnumMap<>(Facet.class);
+        private final Map<Facet, Map<String, String>> labels = new EnumMap<>(Facet.class);
+        private final NavigableMap<Long, CompressedBitmap> deadlines = new TreeMap<>();
+
+        Partition() {
+            for (Facet facet : Facet.values()) {
+                facets.put(facet, new HashMap<String, CompressedBitmap>());
+                labels.put(facet, new HashMap<String, String>());
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return ordinals.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(OpportunitySummary opportunity) {
+            lock.writeLock().lock();
+            try {
+                removeInternal(opportunity.getId());
+                int ordinal = freeOrdinals.isEmpty() ? documents.size() : freeOrdinals.pop();
+                if (ordinal == documents.size()) {
+                    documents.add(opportunity);
+                } else {
+                    documents.set(ordinal, opportunity);
+                }
+                ordinals.put(opportunity.getId(), ordinal);
+                live.add(ordinal);
+
+                for (String term : termsOf(opportunity)) {
+                    terms.computeIfAbsent(term, t -> new CompressedBitmap()).add(ordinal);
+                }
+                for (Facet facet : Facet.values()) {
+                    String raw = facetValue(opportunity, facet);
+                    String value = normalizeValue(raw);
+                    if (!value.isEmpty()) {
+                        facets.get(facet).computeIfAbsent(value, v -> new CompressedBitmap()).add(ordinal);
+                        labels.get(facet).putIfAbsent(value, raw.trim());
+                    }
+                }
+                LocalDate deadline = closingDay(opportunity);
+                if (deadline != null) {
+                    deadlines.computeIfAbsent(deadline.toEpochDay(), d -> new CompressedBitmap()).add(ordinal);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                removeInternal(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void removeInternal(Long id) {
+            Integer ordinal = ordinals.remove(id);
+            if (ordinal == null) {
+                return;
+            }
+            OpportunitySummary existing = documents.get(ordinal);
+            for (String term : termsOf(existing)) {
+                removeFrom(terms, term, ordinal);
+            }
+            for (Facet facet : Facet.values()) {
+                String value = normalizeValue(facetValue(existing, facet));
+                if (!value.isEmpty() && removeFrom(facets.get(facet), value, ordinal)) {
+                    labels.get(facet).remove(value);
+                }
+            }
+            LocalDate deadline = closingDay(existing);
+            if (deadline != null) {
+                removeFrom(deadlines, deadline.toEpochDay(), ordinal);
+            }
+            live.remove(ordinal);
+            documents.set(ordinal, null);
+            freeOrdinals.push(ordinal);
+        }
+
+        Result search(Query query) {
+            lock.readLock().lock();
+            try {
+                CompressedBitmap base = live;
+                if (query.getText() != null && !query.getText().trim().isEmpty()) {
+                    base = base.and(textMatches(query.getText()));
+                }
+                if (query.getDeadlineFrom() != null || query.getDeadlineTo() != null) {
+                    base = base.and(deadlineMatches(query.getDeadlineFrom(), query.getDeadlineTo()));
+                }
+
+                Map<Facet, CompressedBitmap> facetFilters = new EnumMap<>(Facet.class);
+                for (Map.Entry<Facet, Set<String>> filter : query.getFilters().entrySet()) {
+                    if (!filter.getValue().isEmpty()) {
+                        facetFilters.put(filter.getKey(), facetMatches(filter.getKey(), filter.getValue()));
+                    }
+                }
+
+                CompressedBitmap matches = base;
+                for (CompressedBitmap filter : facetFilters.values()) {
+                    matches = matches.and(filter);
+                }
+
+                // Counts for a facet ignore that facet's own selection, so picking one
+                // location still shows how many results the other locations would give
+                Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+                for (Facet facet : Facet.values()) {
+                    CompressedBitmap scope = base;
+                    for (Map.Entry<Facet, CompressedBitmap> filter : facetFilters.entrySet()) {
+                        if (filter.getKey() != facet) {
+                            scope = scope.and(filter.getValue());
+                        }
+                    }
+                    counts.put(facet, facetCounts(facet, scope));
+                }
+
+                return new Result(matches.cardinality(), page(matches, query.getOffset(), query.getLimit()), counts);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private CompressedBitmap textMatches(String text) {
+            List<String> queryTerms = Tokenizer.tokenize(text);
+            boolean trailingPrefix = !text.endsWith(" ");
+            CompressedBitmap result = null;
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String term = queryTerms.get(i);
+                CompressedBitmap termMatches = terms.containsKey(term) ? terms.get(term) : new CompressedBitmap();
+                if (trailingPrefix && i == queryTerms.size() - 1) {
+                    int expansions = 0;
+                    for (CompressedBitmap candidate : terms.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                        if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        termMatches = termMatches.or(candidate);
+                    }
+                }
+                result = result == null ? termMatches : result.and(termMatches);
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result == null ? live : result;
+        }
+
+        private CompressedBitmap deadlineMatches(LocalDate from, LocalDate to) {
+            long low = from != null ? from.toEpochDay() : Long.MIN_VALUE;
+            long high = to != null ? to.toEpochDay() : Long.MAX_VALUE;
+            CompressedBitmap result = new CompressedBitmap();
+            if (low > high) {
+                return result;
+            }
+            for (CompressedBitmap day : deadlines.subMap(low, true, high, true).values()) {
+                result = result.or(day);
+            }
+            return result;
+        }
+
+        private CompressedBitmap facetMatches(Facet facet, Set<String> values) {
+            CompressedBitmap result = new CompressedBitmap();
+            for (String value : values) {
+                CompressedBitmap bitmap = facets.get(facet).get(normalizeValue(value));
+                if (bitmap != null) {
+                    result = result.or(bitmap);
+                }
+            }
+            return result;
+        }
+
+        private Map<String, Integer> facetCounts(Facet facet, CompressedBitmap scope) {
+            PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(
+                (a, b) -> a.getValue().equals(b.getValue()) ? b.getKey().compareTo(a.getKey()) : a.getValue() - b.getValue());
+            for (Map.Entry<String, CompressedBitmap> value : facets.get(facet).entrySet()) {
+                int count = scope.andCardinality(value.getValue());
+                if (count == 0) {
+                    continue;
+                }
+                top.add(new AbstractMap.SimpleImmutableEntry<>(labels.get(facet).get(value.getKey()), count));
+                if (top.size() > MAX_FACET_VALUES) {
+                    top.poll();
+                }
+            }
+            List<Map.Entry<String, Integer>> ordered = new ArrayList<>(top);
+            ordered.sort((a, b) -> a.getValue().equals(b.getValue()) ? a.getKey().compareTo(b.getKey()) : b.getValue() - a.getValue());
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : ordered) {
+                counts.put(entry.getKey(), entry.getValue());
+            }
+            return counts;
+        }
+
+        /**
+         * Newest first by id, keeping only offset + limit candidates in the heap.
+         */
+        private List<OpportunitySummary> page(CompressedBitmap matches, int offset, int limit) {
+            int wanted = offset + limit;
+            PriorityQueue<OpportunitySummary> top = new PriorityQueue<>((a, b) -> Long.compare(a.getId(), b.getId()));
+            matches.forEach(ordinal -> {
+                top.add(documents.get(ordinal));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            });
+            List<OpportunitySummary> ranked = new ArrayList<>(top);
+            ranked.sort((a, b) -> Long.compare(b.getId(), a.getId()));
+            if (offset >= ranked.size()) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<>(ranked.subList(offset, Math.min(ranked.size(), wanted)));
+        }
+
+        private static Set<String> termsOf(OpportunitySummary opportunity) {
+            Set<String> unique = new HashSet<>();
+            unique.addAll(Tokenizer.tokenize(opportunity.getTitle()));
+            unique.addAll(Tokenizer.tokenize(opportunity.getText()));
+            unique.addAll(Tokenizer.tokenize(opportunity.getCompanyName()));
+            unique.addAll(Tokenizer.tokenize(opportunity.getLocation()));
+            return unique;
+        }
+
+        private static <K> boolean removeFrom(Map<K, CompressedBitmap> postings, K key, int ordinal) {
+            CompressedBitmap bitmap = postings.get(key);
+            if (bitmap == null) {
+                return false;
+            }
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                postings.remove(key);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static class Query {
+        private final String text;
+        private final Map<Facet, Set<String>> filters;
+        private final LocalDate deadlineFrom;
+        private final LocalDate deadlineTo;
+        private final int offset;
+        private final int limit;
+
+        public Query(String text, Map<Facet, Set<String>> filters, LocalDate deadlineFrom, LocalDate deadlineTo,
+                     int offset, int limit) {
+            this.text = text;
+            this.filters = filters != null ? filters : Collections.<Facet, Set<String>>emptyMap();
+            this.deadlineFrom = deadlineFrom;
+            this.deadlineTo = deadlineTo;
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public Map<Facet, Set<String>> getFilters() {
+            return filters;
+        }
+
+        public LocalDate getDeadlineFrom() {
+            return deadlineFrom;
+        }
+
+        public LocalDate getDeadlineTo() {
+            return deadlineTo;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+    }
+
+    public static class Result {
+        private final int total;
+        private final List<OpportunitySummary> items;
+        private final Map<Facet, Map<String, Integer>> facets;
+
+        public Result(int total, List<OpportunitySummary> items, Map<Facet, Map<String, Integer>> facets) {
+            this.total = total;
+            this.items = items;
+            this.facets = facets;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<OpportunitySummary> getItems() {
+            return items;
+        }
+
+        public Map<Facet, Map<String, Integer>> getFacets() {
+            return facets;
+        }
+    }
+}
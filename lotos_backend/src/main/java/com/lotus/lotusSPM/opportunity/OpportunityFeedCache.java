@@ -0,0 +1,213 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import com.lotus.lotusSPM.dto.OpportunitySummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory snapshot of the public opportunities feed, pre-serialized to JSON.
+ *
+ * Writes schedule a rebuild after commit and announce it to other replicas; readers keep
+ * getting the previous snapshot until the new one is swapped in, so a burst of anonymous
+ * traffic never reaches the database. A maximum age bounds staleness if an invalidation
+ * from another replica is lost.
+ */
+@Component
+public class OpportunityFeedCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunityFeedCache.class);
+
+    private static final String CHANNEL = "opportunities:invalidate";
+
+    @Value("${app.opportunities.feed.max-snapshot-age-seconds:300}")
+    private long maxSnapshotAgeSeconds;
+
+    @Autowired
+    private OpportunitiesDao opportunitiesDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    private final Object buildLock = new Object();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "opportunity-feed-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Immutable feed state; the whole object is swapped on rebuild.
+     */
+    public static final class Snapshot {
+        private final byte[] body;
+        private final String etag;
+        private final long lastModified;
+        private final long builtAt;
+        private final Map<Long, Entry> items;
+
+        Snapshot(byte[] body, String etag, long lastModified, Map<Long, Entry> items) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.builtAt = System.currentTimeMillis();
+            this.items = items;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public Entry get(Long id) {
+            return items.get(id);
+        }
+    }
+
+    public static final class Entry {
+        private final byte[] body;
+        private final String etag;
+
+        Entry(byte[] body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    @PostConstruct
+    public void initialize() {
+        clusterEventBus.subscribe(CHANNEL, payload -> scheduleRebuild());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // First request builds synchronously; concurrent first requests wait for it
+            synchronized (buildLock) {
+                if (snapshot == null) {
+                    snapshot = build(null);
+                }
+                return snapshot;
+            }
+        }
+        if (System.currentTimeMillis() - current.builtAt > maxSnapshotAgeSeconds * 1000) {
+            scheduleRebuild();
+        }
+        return current;
+    }
+
+    /**
+     * Call from the writing transaction; the rebuild runs once it has committed.
+     */
+    public void invalidate() {
+        Runnable action = () -> {
+            scheduleRebuild();
+            clusterEventBus.publish(CHANNEL, "*");
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void scheduleRebuild() {
+        // Coalesce bursts of writes into one rebuild
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    Snapshot rebuilt = build(snapshot);
+                    synchronized (buildLock) {
+                        snapshot = rebuilt;
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to rebuild opportunities feed, serving previous snapshot", e);
+                }
+            });
+        }
+    }
+
+    private Snapshot build(Snapshot previous) {
+        List<OpportunitySummary> summaries = opportunitiesDao.findActiveSummaries();
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(summaries);
+            String etag = etag(body);
+            if (previous != null && previous.etag.equals(etag)) {
+                // Unchanged content keeps its validators so clients keep getting 304s
+                return new Snapshot(previous.body, previous.etag, previous.lastModified, previous.items);
+            }
+            Map<Long, Entry> items = new HashMap<>(summaries.size() * 2);
+            for (OpportunitySummary summary : summaries) {
+                byte[] itemBody = objectMapper.writeValueAsBytes(summary);
+                items.put(summary.getId(), new Entry(itemBody, etag(itemBody)));
+            }
+            logger.debug("Opportunities feed rebuilt: {} postings, {} bytes", summaries.size(), body.length);
+            // HTTP dates have second precision
+            long lastModified = System.currentTimeMillis() / 1000 * 1000;
+            return new Snapshot(body, etag, lastModified, items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize opportunities feed", e);
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 27) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
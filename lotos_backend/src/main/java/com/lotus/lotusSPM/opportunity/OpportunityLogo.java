@@ -0,0 +1,88 @@
+package com.lotus.lotusSPM.opportunity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One size variant of an uploaded logo, addressed by the SHA-256 of the original upload.
+ * Identical uploads share rows, and a given (hash, variant) never changes.
+ */
+@Entity
+@Table(name = "opportunity_logos", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_opportunity_logo_variant", columnNames = {"content_hash", "variant"})
+})
+public class OpportunityLogo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "variant", length = 20, nullable = false)
+    private LogoVariant variant;
+
+    @Column(name = "content_type", length = 50, nullable = false)
+    private String contentType;
+
+    @Column(name = "width", nullable = false)
+    private int width;
+
+    @Column(name = "height", nullable = false)
+    private int height;
+
+    @Lob
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OpportunityLogo() {
+    }
+
+    public OpportunityLogo(String contentHash, LogoVariant variant, String contentType, int width, int height,
+                           byte[] data) {
+        this.contentHash = contentHash;
+        this.variant = variant;
+        this.contentType = contentType;
+        this.width = width;
+        this.height = height;
+        this.data = data;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public LogoVariant getVariant() {
+        return variant;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,14 @@
+package com.lotus.lotusSPM.opportunity;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OpportunityLogoRepository extends JpaRepository<OpportunityLogo, Long> {
+
+    Optional<OpportunityLogo> findByContentHashAndVariant(String contentHash, LogoVariant variant);
+
+    boolean existsByContentHash(String contentHash);
+}
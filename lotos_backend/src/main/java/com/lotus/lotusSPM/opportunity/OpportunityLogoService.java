@@ -0,0 +1,301 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import com.lotus.lotusSPM.model.Opportunities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores opportunity logos outside the opportunity row, as content-addressed size variants.
+ *
+ * Variants are generated once at upload. Because the URL contains the content hash, a
+ * given URL always returns the same bytes and can be cached by clients indefinitely.
+ */
+@Service
+public class OpportunityLogoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunityLogoService.class);
+
+    private static final String URL_PREFIX = "/api/opportunities/logos/";
+    private static final int BACKFILL_BATCH = 50;
+
+    @Value("${app.opportunities.logo.max-bytes:2097152}")
+    private int maxBytes;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private OpportunityLogoRepository logoRepository;
+
+    @Autowired
+    private OpportunitiesDao opportunitiesDao;
+
+    @Autowired
+    private OpportunityFeedCache feedCache;
+
+    @Autowired
+    private OpportunitySearchService searchService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    private TransactionTemplate transaction;
+    private TransactionTemplate insertTransaction;
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() {
+        transaction = new TransactionTemplate(transactionManager);
+        // A duplicate-key failure must not mark the caller's transaction rollback-only
+        insertTransaction = new TransactionTemplate(transactionManager);
+        insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "opportunity-logo-backfill", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    public static String logoUrl(String contentHash, LogoVariant variant) {
+        return contentHash == null ? null : URL_PREFIX + contentHash + "/" + variant.getPath();
+    }
+
+    @Transactional
+    public String upload(Long opportunityId, byte[] upload) {
+        Opportunities opportunity = opportunitiesDao.findById(opportunityId)
+            .orElseThrow(() -> new ResourceNotFoundException("Opportunity", "id", opportunityId));
+        String hash = attach(opportunity, upload);
+        opportunitiesDao.save(opportunity);
+        feedCache.invalidate();
+        searchService.refresh(opportunityId);
+        return hash;
+    }
+
+    /**
+     * Store the variants for {@code upload} and point the opportunity at them. The caller saves the entity.
+     */
+    public String attach(Opportunities opportunity, byte[] upload) {
+        if (upload == null || upload.length == 0) {
+            throw new BadRequestException("Logo file is empty");
+        }
+        if (upload.length > maxBytes) {
+            throw new BadRequestException("Logo must be at most " + maxBytes + " bytes");
+        }
+        String hash = storeVariants(upload);
+        opportunity.setLogoHash(hash);
+        opportunity.setLogo(null);
+        return hash;
+    }
+
+    @Transactional(readOnly = true)
+    public OpportunityLogo find(String contentHash, LogoVariant variant) {
+        return logoRepository.findByContentHashAndVariant(contentHash, variant)
+            .orElseThrow(() -> new ResourceNotFoundException("Logo", "hash", contentHash + "/" + variant.getPath()));
+    }
+
+    /**
+     * Moves logos still embedded in opportunity rows into variant storage, a few rows per
+     * transaction, and clears the embedded copy.
+     *
+     * Only the lease holder migrates. The other replicas wait until no embedded logos are
+     * left, so one of them takes over if the leader goes away part way through.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillEmbeddedLogos() {
+        Thread worker = new Thread(() -> {
+            int migrated = 0;
+            try {
+                List<Long> ids;
+                while (!(ids = opportunitiesDao.findIdsWithEmbeddedLogo(PageRequest.of(0, BACKFILL_BATCH))).isEmpty()) {
+                    if (!isLeader()) {
+                        Thread.sleep(leaseTtlMillis);
+                        continue;
+                    }
+                    for (Long id : ids) {
+                        transaction.executeWithoutResult(status -> migrateEmbedded(id));
+                        migrated++;
+                    }
+                }
+                stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Logo backfill stopped after {} opportunities", migrated, e);
+            }
+            if (migrated > 0) {
+                logger.info("Moved {} embedded opportunity logos to variant storage", migrated);
+                feedCache.invalidate();
+            }
+        }, "opportunity-logo-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void migrateEmbedded(Long id) {
+        Opportunities opportunity = opportunitiesDao.findById(id).orElse(null);
+        if (opportunity == null || opportunity.getLogo() == null) {
+            return;
+        }
+        try {
+            opportunity.setLogoHash(storeVariants(opportunity.getLogo()));
+        } catch (BadRequestException e) {
+            logger.warn("Dropping unreadable embedded logo of opportunity {}", id);
+        }
+        opportunity.setLogo(null);
+        opportunitiesDao.save(opportunity);
+        searchService.refresh(id);
+    }
+
+    private String storeVariants(byte[] upload) {
+        String hash = sha256(upload);
+        if (logoRepository.existsByContentHash(hash)) {
+            return hash;
+        }
+
+        BufferedImage image;
+        String contentType;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(upload));
+            contentType = detectContentType(upload);
+        } catch (IOException e) {
+            image = null;
+            contentType = null;
+        }
+        if (image == null || contentType == null) {
+            throw new BadRequestException("Logo must be a PNG, JPEG or GIF image");
+        }
+
+        List<OpportunityLogo> variants = new ArrayList<>();
+        variants.add(new OpportunityLogo(hash, LogoVariant.ORIGINAL, contentType,
+            image.getWidth(), image.getHeight(), upload));
+        for (LogoVariant variant : LogoVariant.values()) {
+            if (variant == LogoVariant.ORIGINAL) {
+                continue;
+            }
+            BufferedImage resized = resize(image, variant.getEdge());
+            variants.add(new OpportunityLogo(hash, variant, "image/png",
+                resized.getWidth(), resized.getHeight(), encodePng(resized)));
+        }
+        try {
+            insertTransaction.executeWithoutResult(status -> {
+                logoRepository.saveAll(variants);
+                logoRepository.flush();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Same logo uploaded concurrently; the other upload's variants are identical
+            logger.debug("Logo {} stored concurrently", hash);
+        }
+        return hash;
+    }
+
+    private boolean isLeader() {
+        return lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+    }
+
+    /**
+     * Fit inside edge x edge, halving repeatedly first so large downscales stay smooth.
+     */
+    static BufferedImage resize(BufferedImage source, int edge) {
+        double scale = Math.min(1.0, (double) edge / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static byte[] encodePng(BufferedImage image) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("PNG encoding failed", e);
+        }
+    }
+
+    private static String detectContentType(byte[] data) {
+        if (data.length >= 8 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "image/png";
+        }
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8) {
+            return "image/jpeg";
+        }
+        if (data.length >= 6 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F') {
+            return "image/gif";
+        }
+        return null;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
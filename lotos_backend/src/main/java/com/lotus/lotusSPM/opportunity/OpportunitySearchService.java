@@ -0,0 +1,110 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import com.lotus.lotusSPM.dto.OpportunitySummary;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Keeps an {@link OpportunityFacetIndex} in step with the opportunities table.
+ *
+ * The index is loaded in the background at startup and then maintained per row after each
+ * commit. Other replicas are told which id changed and reload just that row.
+ */
+@Service
+public class OpportunitySearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpportunitySearchService.class);
+
+    private static final String CHANNEL = "opportunities:index";
+    private static final int LOAD_BATCH = 500;
+
+    @Autowired
+    private OpportunitiesDao opportunitiesDao;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    private final OpportunityFacetIndex index = new OpportunityFacetIndex();
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void initialize() {
+        clusterEventBus.subscribe(CHANNEL, payload -> reload(Long.valueOf(payload)));
+        Thread loader = new Thread(this::load, "opportunity-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public OpportunityFacetIndex.Result search(OpportunityFacetIndex.Query query) {
+        return index.search(TenantContext.getCurrentTenant(), query);
+    }
+
+    /**
+     * Re-index one opportunity once the surrounding transaction commits.
+     */
+    public void refresh(Long id) {
+        afterCommit(() -> {
+            reload(id);
+            clusterEventBus.publish(CHANNEL, String.valueOf(id));
+        });
+    }
+
+    private void reload(Long id) {
+        OpportunitySummary summary = opportunitiesDao.findActiveSummary(id);
+        // Expired, deleted, or possibly moved to another tenant: drop every existing copy first
+        index.removeEverywhere(id);
+        if (summary != null) {
+            index.index(summary.getTenantId(), summary);
+        }
+    }
+
+    private void load() {
+        try {
+            long started = System.nanoTime();
+            long afterId = Long.MIN_VALUE;
+            int loaded = 0;
+            List<OpportunitySummary> batch;
+            do {
+                batch = opportunitiesDao.findActiveSummariesAfter(afterId, PageRequest.of(0, LOAD_BATCH));
+                for (OpportunitySummary summary : batch) {
+                    index.index(summary.getTenantId(), summary);
+                    afterId = summary.getId();
+                    loaded++;
+                }
+            } while (batch.size() == LOAD_BATCH);
+            ready = true;
+            logger.info("Opportunity facet index loaded: {} opportunities in {} ms", loaded,
+                (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            logger.error("Failed to load opportunity facet index", e);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
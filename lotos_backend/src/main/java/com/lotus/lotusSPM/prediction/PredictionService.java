@@ -0,0 +1,440 @@
+package com.lotus.lotusSPM.prediction;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.cluster.LeaderLease;
+import com.lotus.lotusSPM.dao.ApplicationFormDao;
+import com.lotus.lotusSPM.dao.OfficialLetterDao;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scores every student with the success model and keeps the results in student_predictions,
+ * so reading a prediction is a single-row lookup.
+ *
+ * A run streams students through a forward-only cursor, cuts them into chunks and scores the
+ * chunks on a small pool; each chunk is upserted in its own transaction. When the pool is
+ * busy the reading thread scores the next chunk itself, which keeps the cursor from running
+ * ahead of the writers. The model file is re-read at the start of every run, and every row
+ * records the version that produced it.
+ */
+@Service
+public class PredictionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PredictionService.class);
+
+    private static final String DEFAULT_MODEL = "models/student-success.json";
+
+    private static final String FEATURE_QUERY = "SELECT s.id, s.username, s.faculty, s.department, "
+        + "s.internshipStatus, s.createdAt, CASE WHEN s.transcript IS NULL THEN 0 ELSE 1 END FROM Student s";
+
+    @Value("${app.predictions.model-path:}")
+    private String modelPath;
+
+    @Value("${app.predictions.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.predictions.threads:4}")
+    private int threads;
+
+    @Value("${app.predictions.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.cluster.leader-election.enabled:true}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${app.cluster.leader-election.ttl-millis:15000}")
+    private long leaseTtlMillis;
+
+    @Autowired
+    private StudentPredictionRepository predictionRepository;
+
+    @Autowired
+    private OfficialLetterDao officialLetterDao;
+
+    @Autowired
+    private ApplicationFormDao applicationFormDao;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile SuccessModel model;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private TransactionTemplate transaction;
+    private LeaderLease lease;
+
+    @PostConstruct
+    public void initialize() {
+        model = loadModel();
+        transaction = new TransactionTemplate(transactionManager);
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (leaderElectionEnabled && redis != null) {
+            lease = new LeaderLease(redis, "prediction-scoring", UUID.randomUUID().toString(), leaseTtlMillis);
+            lease.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lease != null) {
+            lease.stop();
+        }
+    }
+
+    public String getModelVersion() {
+        return model.getVersion();
+    }
+
+    @Scheduled(cron = "${app.predictions.cron:0 0 4 * * *}")
+    public void scheduledRun() {
+        boolean leader = lease == null ? !leaderElectionEnabled || redisTemplate.getIfAvailable() == null : lease.isLeader();
+        if (leader && running.compareAndSet(false, true)) {
+            try {
+                scoreAll();
+            } catch (Exception e) {
+                logger.error("Prediction scoring failed", e);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * Starts a run in the background unless one is already in progress on this node.
+     *
+     * @return whether a run was started
+     */
+    public boolean scoreAllAsync() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread runner = new Thread(() -> {
+            try {
+                scoreAll();
+            } catch (Exception e) {
+                logger.error("Prediction scoring failed", e);
+            } finally {
+                running.set(false);
+            }
+        }, "prediction-scoring");
+        runner.setDaemon(true);
+        runner.start();
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * The stored success prediction for a student. Students registered since the last run
+     * are scored on the spot.
+     */
+    public StudentPrediction getPrediction(Long studentId) {
+        return predictionRepository.findByStudentIdAndPredictionType(studentId, StudentPrediction.SUCCESS)
+            .orElseGet(() -> {
+                try {
+                    return scoreOne(studentId);
+                } catch (DataIntegrityViolationException e) {
+                    // Another request or a run inserted the row first
+                    return predictionRepository.findByStudentIdAndPredictionType(studentId, StudentPrediction.SUCCESS)
+                        .orElseThrow(() -> e);
+                }
+            });
+    }
+
+    private List<String> recommendations(StudentPrediction prediction) {
+        if (prediction.getRecommendations() == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(prediction.getRecommendations(), new TypeReference<List<String>>() { });
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Malformed recommendations for student " + prediction.getStudentId(), e);
+        }
+    }
+
+    /**
+     * The stored prediction as the API returns it.
+     */
+    public Map<String, Object> toMap(StudentPrediction prediction) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("studentId", prediction.getStudentId());
+        map.put("successProbability", prediction.getSuccessProbability().doubleValue());
+        map.put("riskLevel", prediction.getRiskLevel());
+        map.put("recommendations", recommendations(prediction));
+        map.put("modelVersion", prediction.getModelVersion());
+        map.put("scoredAt", prediction.getCreatedAt());
+        return map;
+    }
+
+    /**
+     * Scores every student and upserts the results.
+     *
+     * @return the number of students scored
+     */
+    public int scoreAll() {
+        long started = System.nanoTime();
+        refreshModel();
+        SuccessModel current = model;
+        Map<String, Long> letters = counts(officialLetterDao.countByUsername());
+        Map<String, Long> attachments = counts(applicationFormDao.countByStudent());
+        LocalDate today = LocalDate.now();
+
+        AtomicInteger written = new AtomicInteger();
+        ThreadPoolExecutor executor = newExecutor();
+        List<Future<?>> chunks = new ArrayList<>();
+        int scored = 0;
+        StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+        try {
+            try (ScrollableResults rows = session.createQuery(FEATURE_QUERY + " ORDER BY s.id")
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<StudentFeatures> chunk = new ArrayList<>(chunkSize);
+                while (rows.next()) {
+                    chunk.add(features(rows.get(), letters, attachments, today));
+                    if (chunk.size() == chunkSize) {
+                        chunks.add(submit(executor, current, chunk, written));
+                        scored += chunk.size();
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    chunks.add(submit(executor, current, chunk, written));
+                    scored += chunk.size();
+                }
+            }
+            awaitAll(chunks);
+        } finally {
+            session.close();
+            executor.shutdown();
+        }
+        logger.info("Scored {} students with model {} in {} ms; {} predictions changed", scored,
+            current.getVersion(), (System.nanoTime() - started) / 1_000_000, written.get());
+        return scored;
+    }
+
+    private StudentPrediction scoreOne(Long studentId) {
+        List<?> rows = entityManager.createQuery(FEATURE_QUERY + " WHERE s.id = :id")
+            .setParameter("id", studentId)
+            .getResultList();
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Student", "id", studentId);
+        }
+        Object[] row = (Object[]) rows.get(0);
+        String username = (String) row[1];
+        StudentFeatures features = StudentFeatures.of(studentId, (String) row[2], (String) row[3], (String) row[4],
+            (LocalDateTime) row[5], ((Number) row[6]).intValue() == 1,
+            count(entityManager.createQuery("SELECT COUNT(l) FROM OfficialLetter l WHERE l.username = :username")
+                .setParameter("username", username).getSingleResult()),
+            count(entityManager.createQuery("SELECT COUNT(a) FROM ApplicationForm a WHERE a.stu_id = :username")
+                .setParameter("username", username).getSingleResult()),
+            LocalDate.now());
+        upsert(model, Collections.singletonList(features));
+        return predictionRepository.findByStudentIdAndPredictionType(studentId, StudentPrediction.SUCCESS)
+            .orElseThrow(() -> new ResourceNotFoundException("Prediction", "studentId", studentId));
+    }
+
+    private Future<?> submit(ThreadPoolExecutor executor, SuccessModel current, List<StudentFeatures> chunk,
+                             AtomicInteger written) {
+        return executor.submit(() -> written.addAndGet(upsert(current, chunk)));
+    }
+
+    private int upsert(SuccessModel current, List<StudentFeatures> chunk) {
+        Integer rows = transaction.execute(status -> {
+            List<Long> ids = new ArrayList<>(chunk.size());
+            for (StudentFeatures features : chunk) {
+                ids.add(features.getStudentId());
+            }
+            Map<Long, StudentPrediction> existing = new HashMap<>();
+            for (StudentPrediction row : predictionRepository.findByPredictionTypeAndStudentIdIn(
+                StudentPrediction.SUCCESS, ids)) {
+                existing.put(row.getStudentId(), row);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            List<StudentPrediction> changed = new ArrayList<>();
+            for (StudentFeatures features : chunk) {
+                double probability = current.score(features);
+                BigDecimal rounded = BigDecimal.valueOf(probability).setScale(4, RoundingMode.HALF_UP);
+                StudentPrediction row = existing.get(features.getStudentId());
+                if (row == null) {
+                    row = new StudentPrediction(features.getStudentId(), StudentPrediction.SUCCESS);
+                } else if (rounded.compareTo(row.getSuccessProbability()) == 0
+                    && current.getVersion().equals(row.getModelVersion())) {
+                    continue;
+                }
+                row.setSuccessProbability(rounded);
+                row.setRiskLevel(riskLevel(probability));
+                row.setRecommendations(toJson(recommendations(probability)));
+                row.setModelVersion(current.getVersion());
+                row.setCreatedAt(now);
+                changed.add(row);
+            }
+            predictionRepository.saveAll(changed);
+            entityManager.flush();
+            entityManager.clear();
+            return changed.size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private ThreadPoolExecutor newExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads), r -> {
+                Thread thread = new Thread(r, "prediction-chunk-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static void awaitAll(List<Future<?>> chunks) {
+        int failed = 0;
+        Throwable first = null;
+        for (Future<?> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (ExecutionException e) {
+                failed++;
+                first = first != null ? first : e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while scoring students", e);
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + chunks.size() + " prediction chunks failed", first);
+        }
+    }
+
+    private static StudentFeatures features(Object[] row, Map<String, Long> letters, Map<String, Long> attachments,
+                                            LocalDate today) {
+        String username = (String) row[1];
+        return StudentFeatures.of(((Number) row[0]).longValue(), (String) row[2], (String) row[3], (String) row[4],
+            (LocalDateTime) row[5], ((Number) row[6]).intValue() == 1,
+            username != null ? letters.getOrDefault(username, 0L) : 0,
+            username != null ? attachments.getOrDefault(username, 0L) : 0,
+            today);
+    }
+
+    // One entry per student who has any, which is far fewer than all students
+    private static Map<String, Long> counts(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private static long count(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    static String riskLevel(double probability) {
+        return probability < 0.5 ? "HIGH" : probability < 0.75 ? "MEDIUM" : "LOW";
+    }
+
+    static List<String> recommendations(double probability) {
+        List<String> recommendations = new ArrayList<>();
+        if (probability < 0.5) {
+            recommendations.add("Schedule academic counseling session");
+            recommendations.add("Enroll in tutoring program");
+            recommendations.add("Monitor attendance closely");
+        } else if (probability < 0.75) {
+            recommendations.add("Provide career guidance");
+            recommendations.add("Encourage internship applications");
+        } else {
+            recommendations.add("Recommend for leadership programs");
+            recommendations.add("Consider for merit scholarships");
+        }
+        return recommendations;
+    }
+
+    private String toJson(List<String> values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void refreshModel() {
+        try {
+            SuccessModel loaded = loadModel();
+            if (!loaded.getVersion().equals(model.getVersion())) {
+                logger.info("Success model changed from {} to {}", model.getVersion(), loaded.getVersion());
+            }
+            model = loaded;
+        } catch (RuntimeException e) {
+            logger.error("Could not reload success model; keeping {}", model.getVersion(), e);
+        }
+    }
+
+    private SuccessModel loadModel() {
+        try (InputStream in = modelPath.isEmpty()
+            ? new ClassPathResource(DEFAULT_MODEL).getInputStream()
+            : Files.newInputStream(Paths.get(modelPath))) {
+            return SuccessModel.fromJson(objectMapper.readTree(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read success model " + (modelPath.isEmpty() ? DEFAULT_MODEL : modelPath), e);
+        }
+    }
+}
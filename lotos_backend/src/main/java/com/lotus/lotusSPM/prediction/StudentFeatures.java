@@ -0,0 +1,64 @@
+package com.lotus.lotusSPM.prediction;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named numeric features of one student. Categorical fields are one-hot encoded as
+ * {@code field=value}; a feature that is absent counts as zero.
+ */
+public final class StudentFeatures {
+
+    private final long studentId;
+    private final Map<String, Double> values = new HashMap<>();
+
+    StudentFeatures(long studentId) {
+        this.studentId = studentId;
+    }
+
+    /**
+     * @param letters     official letters issued to the student
+     * @param attachments application form files the student uploaded
+     */
+    static StudentFeatures of(long studentId, String faculty, String department, String internshipStatus,
+                              LocalDateTime createdAt, boolean hasTranscript, long letters, long attachments,
+                              LocalDate today) {
+        StudentFeatures features = new StudentFeatures(studentId);
+        features.set("has_transcript", hasTranscript ? 1 : 0);
+        features.set("letters", letters);
+        features.set("application_files", attachments);
+        if (createdAt != null) {
+            features.set("account_age_days", ChronoUnit.DAYS.between(createdAt.toLocalDate(), today));
+        }
+        features.category("faculty", faculty);
+        features.category("department", department);
+        features.category("status", internshipStatus);
+        return features;
+    }
+
+    public long getStudentId() {
+        return studentId;
+    }
+
+    public double get(String name) {
+        Double value = values.get(name);
+        return value != null ? value : 0;
+    }
+
+    void set(String name, double value) {
+        values.put(name, value);
+    }
+
+    Map<String, Double> values() {
+        return values;
+    }
+
+    private void category(String field, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            set(field + "=" + value.trim().toUpperCase(), 1);
+        }
+    }
+}
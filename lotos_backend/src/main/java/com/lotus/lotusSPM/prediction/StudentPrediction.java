@@ -0,0 +1,114 @@
+package com.lotus.lotusSPM.prediction;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.lotus.lotusSPM.idgen.KSortableIdGenerator;
+import org.hibernate.annotations.GenericGenerator;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The latest score of one prediction type for one student. Each scoring run overwrites the
+ * row in place, so there is exactly one per (student, type).
+ */
+@Entity
+@Table(name = "student_predictions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_prediction_student_type", columnNames = {"student_id", "prediction_type"})
+})
+public class StudentPrediction {
+
+    public static final String SUCCESS = "SUCCESS";
+
+    // Assigned before insert, which lets Hibernate batch the inserts
+    @Id
+    @GeneratedValue(generator = KSortableIdGenerator.NAME)
+    @GenericGenerator(name = KSortableIdGenerator.NAME, strategy = KSortableIdGenerator.STRATEGY)
+    private Long id;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "prediction_type", length = 50, nullable = false)
+    private String predictionType;
+
+    @Column(name = "success_probability", precision = 5, scale = 4)
+    private BigDecimal successProbability;
+
+    @Column(name = "risk_level", length = 20)
+    private String riskLevel;
+
+    // JSON array of recommendation strings
+    @Lob
+    @Column(name = "recommendations")
+    private String recommendations;
+
+    @Column(name = "model_version", length = 20)
+    private String modelVersion;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public StudentPrediction() {
+    }
+
+    public StudentPrediction(Long studentId, String predictionType) {
+        this.studentId = studentId;
+        this.predictionType = predictionType;
+    }
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    public Long getId() {
+        return id;
+    }
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public String getPredictionType() {
+        return predictionType;
+    }
+
+    public BigDecimal getSuccessProbability() {
+        return successProbability;
+    }
+
+    public void setSuccessProbability(BigDecimal successProbability) {
+        this.successProbability = successProbability;
+    }
+
+    public String getRiskLevel() {
+        return riskLevel;
+    }
+
+    public void setRiskLevel(String riskLevel) {
+        this.riskLevel = riskLevel;
+    }
+
+    public String getRecommendations() {
+        return recommendations;
+    }
+
+    public void setRecommendations(String recommendations) {
+        this.recommendations = recommendations;
+    }
+
+    public String getModelVersion() {
+        return modelVersion;
+    }
+
+    public void setModelVersion(String modelVersion) {
+        this.modelVersion = modelVersion;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.lotus.lotusSPM.prediction;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentPredictionRepository extends JpaRepository<StudentPrediction, Long> {
+
+    Optional<StudentPrediction> findByStudentIdAndPredictionType(Long studentId, String predictionType);
+
+    List<StudentPrediction> findByPredictionTypeAndStudentIdIn(String predictionType, Collection<Long> studentIds);
+}
@@ -0,0 +1,163 @@
+package com.lotus.lotusSPM.prediction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A trained success model, read from its JSON export.
+ *
+ * Two shapes are understood. {@code "type": "logistic"} has an {@code intercept} and a
+ * {@code weights} object keyed by feature name. {@code "type": "gbt"} is a gradient-boosted
+ * tree ensemble with {@code base_score} (log-odds), {@code learning_rate} and {@code trees};
+ * each tree is a flat {@code nodes} array rooted at index 0 whose nodes are either
+ * {@code {"feature", "threshold", "left", "right"}}, going left when the value is below the
+ * threshold, or {@code {"leaf"}}. Both produce a probability through the logistic function.
+ */
+public abstract class SuccessModel {
+
+    private final String version;
+
+    SuccessModel(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Stored with every prediction, so scores from different models can be told apart.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Probability of success in [0, 1].
+     */
+    public double score(StudentFeatures features) {
+        return 1 / (1 + Math.exp(-logOdds(features)));
+    }
+
+    abstract double logOdds(StudentFeatures features);
+
+    public static SuccessModel fromJson(JsonNode json) {
+        String version = json.path("version").asText(null);
+        if (version == null || version.isEmpty() || version.length() > 20) {
+            throw new IllegalArgumentException("Model version must be 1-20 characters");
+        }
+        String type = json.path("type").asText("");
+        switch (type) {
+            case "logistic":
+                return new Logistic(version, json);
+            case "gbt":
+                return new TreeEnsemble(version, json);
+            default:
+                throw new IllegalArgumentException("Unknown model type '" + type + "'");
+        }
+    }
+
+    private static final class Logistic extends SuccessModel {
+
+        private final double intercept;
+        private final Map<String, Double> weights = new HashMap<>();
+
+        Logistic(String version, JsonNode json) {
+            super(version);
+            intercept = json.path("intercept").asDouble();
+            Iterator<Map.Entry<String, JsonNode>> fields = json.path("weights").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                weights.put(field.getKey(), field.getValue().asDouble());
+            }
+        }
+
+        @Override
+        double logOdds(StudentFeatures features) {
+            double sum = intercept;
+            for (Map.Entry<String, Double> feature : features.values().entrySet()) {
+                Double weight = weights.get(feature.getKey());
+                if (weight != null) {
+                    sum += weight * feature.getValue();
+                }
+            }
+            return sum;
+        }
+    }
+
+    private static final class TreeEnsemble extends SuccessModel {
+
+        private final double baseScore;
+        private final double learningRate;
+        private final Tree[] trees;
+
+        TreeEnsemble(String version, JsonNode json) {
+            super(version);
+            baseScore = json.path("base_score").asDouble();
+            learningRate = json.path("learning_rate").asDouble(1);
+            JsonNode treeNodes = json.path("trees");
+            trees = new Tree[treeNodes.size()];
+            for (int i = 0; i < trees.length; i++) {
+                trees[i] = new Tree(treeNodes.get(i).path("nodes"));
+            }
+        }
+
+        @Override
+        double logOdds(StudentFeatures features) {
+            double sum = baseScore;
+            for (Tree tree : trees) {
+                sum += learningRate * tree.leaf(features);
+            }
+            return sum;
+        }
+    }
+
+    // Parallel arrays indexed by node; feature is null for leaves
+    private static final class Tree {
+
+        private final String[] feature;
+        private final double[] threshold;
+        private final int[] left;
+        private final int[] right;
+        private final double[] leaf;
+
+        Tree(JsonNode nodes) {
+            int size = nodes.size();
+            if (size == 0) {
+                throw new IllegalArgumentException("Tree has no nodes");
+            }
+            feature = new String[size];
+            threshold = new double[size];
+            left = new int[size];
+            right = new int[size];
+            leaf = new double[size];
+            for (int i = 0; i < size; i++) {
+                JsonNode node = nodes.get(i);
+                if (node.has("leaf")) {
+                    leaf[i] = node.get("leaf").asDouble();
+                    continue;
+                }
+                feature[i] = node.path("feature").asText();
+                threshold[i] = node.path("threshold").asDouble();
+                left[i] = child(node, "left", i, size);
+                right[i] = child(node, "right", i, size);
+            }
+        }
+
+        double leaf(StudentFeatures features) {
+            int node = 0;
+            while (feature[node] != null) {
+                node = features.get(feature[node]) < threshold[node] ? left[node] : right[node];
+            }
+            return leaf[node];
+        }
+
+        // Children must come after their parent, which also rules out cycles
+        private static int child(JsonNode node, String side, int parent, int size) {
+            int child = node.path(side).asInt(-1);
+            if (child <= parent || child >= size) {
+                throw new IllegalArgumentException("Node " + parent + " has invalid " + side + " child " + child);
+            }
+            return child;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.lotus.lotusSPM.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis rate limiter that checks all of a client's windows in one script call.
+ *
+ * Each window allows {@code limit} requests per period by GCRA (generic cell rate
+ * algorithm), which behaves as a token bucket refilled evenly over the period. The
+ * window's key holds only the theoretical arrival time of the client's next request, on
+ * Redis's clock, and expires when the bucket is full again. A request is allowed only if
+ * every window allows it, and only allowed requests are counted. Spring runs the script by
+ * EVALSHA, loading it on first use, so a check is one atomic round trip.
+ */
+@Component
+public class RateLimiter {
+
+    // KEYS[i] is window i's key, ARGV[2i-1] and ARGV[2i] its limit and period in ms. Replies
+    // {allowed, retry after ms, then remaining and ms until full for each window}
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SCRIPT = new DefaultRedisScript<>(
+        // Lets the script write after reading the clock on Redis before 5
+        "redis.replicate_commands() " +
+        "local time = redis.call('TIME') " +
+        "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+        "local tats = {} " +
+        "local retry = 0 " +
+        "for i, key in ipairs(KEYS) do " +
+        "  local period = tonumber(ARGV[2 * i]) " +
+        "  local interval = period / tonumber(ARGV[2 * i - 1]) " +
+        "  local stored = redis.call('GET', key) " +
+        "  local tat = math.max(stored and tonumber(stored) or now, now) " +
+        "  tats[i] = tat " +
+        "  retry = math.max(retry, tat + interval - period - now) " +
+        "end " +
+        "local reply = {retry > 0 and 0 or 1, math.ceil(retry)} " +
+        "for i, key in ipairs(KEYS) do " +
+        "  local period = tonumber(ARGV[2 * i]) " +
+        "  local interval = period / tonumber(ARGV[2 * i - 1]) " +
+        "  local tat = tats[i] " +
+        "  if retry <= 0 then " +
+        "    tat = tat + interval " +
+        "    redis.call('SET', key, string.format('%.3f', tat), 'PX', math.ceil(tat - now)) " +
+        "  end " +
+        "  reply[#reply + 1] = math.floor((now + period - tat) / interval) " +
+        "  reply[#reply + 1] = math.ceil(tat - now) " +
+        "end " +
+        "return reply", List.class);
+
+    @Value("${app.rate-limit.per-minute:100}")
+    private int perMinute;
+
+    @Value("${app.rate-limit.per-hour:1000}")
+    private int perHour;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private List<Window> windows;
+
+    @PostConstruct
+    public void initialize() {
+        windows = Collections.unmodifiableList(Arrays.asList(
+                new Window("Minute", perMinute, 60_000L),
+                new Window("Hour", perHour, 3_600_000L)));
+    }
+
+    /**
+     * Counts a request by the client against every window, unless one of them is exhausted.
+     */
+    public Decision acquire(String identifier) {
+        List<String> keys = new ArrayList<>(windows.size());
+        String[] args = new String[windows.size() * 2];
+        for (int i = 0; i < windows.size(); i++) {
+            Window window = windows.get(i);
+            // The hash tag keeps a client's keys in one cluster slot, as a script needs
+            keys.add("rate_limit:{" + identifier + "}:" + window.getName().toLowerCase());
+            args[2 * i] = String.valueOf(window.getLimit());
+            args[2 * i + 1] = String.valueOf(window.getPeriodMillis());
+        }
+        List<?> reply = redisTemplate.execute(SCRIPT, keys, (Object[]) args);
+        return Decision.of(windows, reply);
+    }
+
+    /**
+     * At most {@code limit} requests per period.
+     */
+    public static final class Window {
+        private final String name;
+        private final int limit;
+        private final long periodMillis;
+
+        public Window(String name, int limit, long periodMillis) {
+            this.name = name;
+            this.limit = limit;
+            this.periodMillis = periodMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+    }
+
+    /**
+     * Whether a request was allowed, and where each window stands after it.
+     */
+    public static final class Decision {
+        private final List<Window> windows;
+        private final boolean allowed;
+        private final long retryAfterMillis;
+        private final long[] remaining;
+        private final long[] resetMillis;
+
+        private Decision(List<Window> windows, boolean allowed, long retryAfterMillis, long[] remaining,
+                         long[] resetMillis) {
+            this.windows = windows;
+            this.allowed = allowed;
+            this.retryAfterMillis = retryAfterMillis;
+            this.remaining = remaining;
+            this.resetMillis = resetMillis;
+        }
+
+        static Decision of(List<Window> windows, List<?> reply) {
+            if (reply == null || reply.size() != 2 + windows.size() * 2) {
+                throw new IllegalStateException("Unexpected rate limit script reply: " + reply);
+            }
+            long[] remaining = new long[windows.size()];
+            long[] resetMillis = new long[windows.size()];
+            for (int i = 0; i < windows.size(); i++) {
+                remaining[i] = Math.max(0, ((Number) reply.get(2 + 2 * i)).longValue());
+                resetMillis[i] = Math.max(0, ((Number) reply.get(3 + 2 * i)).longValue());
+            }
+            return new Decision(windows, ((Number) reply.get(0)).longValue() == 1,
+                    Math.max(0, ((Number) reply.get(1)).longValue()), remaining, resetMillis);
+        }
+
+        public boolean isAllowed() {
+            return allowed;
+        }
+
+        /**
+         * Until the request would be allowed; 0 when it was.
+         */
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+
+        public List<Window> getWindows() {
+            return windows;
+        }
+
+        public long getRemaining(int window) {
+            return remaining[window];
+        }
+
+        /**
+         * Until the window's full quota is available again.
+         */
+        public long getResetMillis(int window) {
+            return resetMillis[window];
+        }
+
+        /**
+         * The longest window with nothing left, which a refused request is reported against.
+         */
+        public Window getExhausted() {
+            Window exhausted = null;
+            for (int i = 0; i < windows.size(); i++) {
+                if (remaining[i] == 0
+                        && (exhausted == null || windows.get(i).getPeriodMillis() > exhausted.getPeriodMillis())) {
+                    exhausted = windows.get(i);
+                }
+            }
+            return exhausted;
+        }
+    }
+}
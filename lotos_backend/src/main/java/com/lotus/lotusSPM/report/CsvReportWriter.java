@@ -0,0 +1,64 @@
+package com.lotus.lotusSPM.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV. Text that a spreadsheet would evaluate as a formula is prefixed with a quote.
+ */
+class CsvReportWriter implements ReportWriter {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer out;
+
+    CsvReportWriter(OutputStream stream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void header(List<String> columns) throws IOException {
+        line(columns.toArray());
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        line(values);
+    }
+
+    @Override
+    public void finish(ReportSummary summary) throws IOException {
+        out.flush();
+    }
+
+    private void line(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(escape(values[i]));
+        }
+        out.write("\r\n");
+    }
+
+    static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value instanceof LocalDateTime ? TIMESTAMP.format((LocalDateTime) value) : value.toString();
+        if (!(value instanceof Number) && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,125 @@
+package com.lotus.lotusSPM.report;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs custom reports as a single forward-only pass over a database cursor.
+ *
+ * Rows are read through a stateless session, so nothing is attached to a persistence
+ * context, and each row is written and folded into the summary before the next is fetched.
+ * Memory use is one fetch block however many students match.
+ */
+@Service
+public class ReportEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportEngine.class);
+
+    @Value("${app.reports.fetch-size:1000}")
+    private int fetchSize;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Writes every matching row to {@code out} in the given format.
+     */
+    public ReportSummary export(ReportQuery query, ReportFormat format, OutputStream out) throws IOException {
+        ReportWriter writer = ReportWriter.create(format, out);
+        writer.header(ReportQuery.COLUMNS);
+        ReportSummary summary = scan(query, writer::row);
+        writer.finish(summary);
+        return summary;
+    }
+
+    /**
+     * The first {@code limit} matching rows keyed by column, with a summary that still covers
+     * every matching row.
+     */
+    public Preview preview(ReportQuery query, int limit) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try {
+            ReportSummary summary = scan(query, row -> {
+                if (rows.size() < limit) {
+                    Map<String, Object> values = new LinkedHashMap<>();
+                    for (int i = 0; i < row.length; i++) {
+                        values.put(ReportQuery.COLUMNS.get(i), row[i]);
+                    }
+                    rows.add(values);
+                }
+            });
+            return new Preview(rows, summary);
+        } catch (IOException e) {
+            // Nothing is written to a stream here
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ReportSummary scan(ReportQuery reportQuery, RowSink sink) throws IOException {
+        long started = System.nanoTime();
+        ReportSummary summary = new ReportSummary();
+        StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+        try {
+            Query<?> query = session.createQuery(reportQuery.getJpql());
+            reportQuery.getParameters().forEach(query::setParameter);
+            query.setFetchSize(fetchSize);
+            try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                while (results.next()) {
+                    Object[] row = results.get();
+                    summary.accept(row);
+                    sink.accept(row);
+                }
+            }
+        } finally {
+            session.close();
+        }
+        logger.info("Report scanned {} rows in {} ms", summary.getTotalRecords(),
+            (System.nanoTime() - started) / 1_000_000);
+        return summary;
+    }
+
+    private interface RowSink {
+        void accept(Object[] row) throws IOException;
+    }
+
+    /**
+     * A bounded slice of a report for JSON responses.
+     */
+    public static final class Preview {
+        private final List<Map<String, Object>> rows;
+        private final ReportSummary summary;
+
+        Preview(List<Map<String, Object>> rows, ReportSummary summary) {
+            this.rows = rows;
+            this.summary = summary;
+        }
+
+        public List<Map<String, Object>> getRows() {
+            return rows;
+        }
+
+        public ReportSummary getSummary() {
+            return summary;
+        }
+
+        public boolean isTruncated() {
+            return summary.getTotalRecords() > rows.size();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.lotus.lotusSPM.report;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+
+public enum ReportFormat {
+
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ReportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ReportFormat parse(String value) {
+        for (ReportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("format must be csv or xlsx");
+    }
+}
@@ -0,0 +1,113 @@
+package com.lotus.lotusSPM.report;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * State of an asynchronous report, stored next to its output so any replica sharing the
+ * reports directory can answer for it.
+ */
+public class ReportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private String owner;
+    private String tenant;
+    private ReportFormat format;
+    private Map<String, String> filters;
+    private Status status;
+    private Map<String, Object> summary;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @JsonIgnore
+    public String getFileName() {
+        return "students-report-" + id + "." + format.getExtension();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(ReportFormat format) {
+        this.format = format;
+    }
+
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    public void setFilters(Map<String, String> filters) {
+        this.filters = filters;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Map<String, Object> getSummary() {
+        return summary;
+    }
+
+    public void setSummary(Map<String, Object> summary) {
+        this.summary = summary;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,240 @@
+package com.lotus.lotusSPM.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Generates large reports in the background and keeps the finished files for download.
+ *
+ * Each job is a {@code {id}.json} state file and its output, written as {@code .part} and
+ * renamed once complete, so a download never sees a half-written report. Files live in
+ * {@code app.reports.dir}, which must be a volume every replica mounts: a job is polled and
+ * downloaded through whichever pod the request lands on, not the one that ran it. Without
+ * the directory, background reports stay disabled rather than falling back to pod-local disk.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
+    @Value("${app.reports.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.reports.dir:}")
+    private String reportsDir;
+
+    @Value("${app.reports.async.threads:2}")
+    private int threads;
+
+    @Value("${app.reports.async.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${app.reports.retention-hours:24}")
+    private long retentionHours;
+
+    @Autowired
+    private ReportEngine reportEngine;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Path directory;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (reportsDir.trim().isEmpty()) {
+            throw new IllegalStateException("app.reports.async.enabled requires app.reports.dir (REPORTS_DIR)"
+                + " on storage shared by all replicas");
+        }
+        directory = Files.createDirectories(Paths.get(reportsDir));
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "report-job-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Queues a report for the caller's tenant; the filters are validated before anything is
+     * queued.
+     */
+    public ReportJob submit(Map<String, String> filters, ReportFormat format, String owner) {
+        requireEnabled();
+        String tenant = TenantContext.getCurrentTenant();
+        ReportQuery query = ReportQuery.compile(filters, tenant);
+
+        ReportJob job = new ReportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setOwner(owner);
+        job.setTenant(tenant);
+        job.setFormat(format);
+        job.setFilters(filters != null ? new LinkedHashMap<>(filters) : new LinkedHashMap<>());
+        job.setStatus(ReportJob.Status.QUEUED);
+        job.setCreatedAt(LocalDateTime.now());
+        save(job);
+        try {
+            executor.execute(() -> run(job, query));
+        } catch (RejectedExecutionException e) {
+            delete(job.getId());
+            throw new BadRequestException("Too many reports are being generated; try again later");
+        }
+        return job;
+    }
+
+    /**
+     * The job, provided it belongs to {@code owner}; anyone else is told it does not exist.
+     */
+    public ReportJob get(String id, String owner) {
+        requireEnabled();
+        ReportJob job = JOB_ID.matcher(id).matches() ? load(id) : null;
+        if (job == null || !job.getOwner().equals(owner)) {
+            throw new ResourceNotFoundException("Report", "id", id);
+        }
+        return job;
+    }
+
+    /**
+     * The finished output of a completed job.
+     */
+    public Path output(ReportJob job) {
+        Path file = directory.resolve(job.getId() + "." + job.getFormat().getExtension());
+        if (job.getStatus() != ReportJob.Status.COMPLETED || !Files.exists(file)) {
+            throw new BadRequestException("Report " + job.getId() + " is " + job.getStatus());
+        }
+        return file;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reports.cleanup-interval-millis:3600000}")
+    public void removeExpired() {
+        if (!enabled) {
+            return;
+        }
+        FileTime cutoff = FileTime.from(Instant.now().minus(retentionHours, ChronoUnit.HOURS));
+        int removed = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(file);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not clean up expired reports in {}", directory, e);
+        }
+        if (removed > 0) {
+            logger.info("Removed {} expired report files", removed);
+        }
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new BadRequestException("Background reports are not enabled");
+        }
+    }
+
+    private void run(ReportJob job, ReportQuery query) {
+        job.setStatus(ReportJob.Status.RUNNING);
+        save(job);
+        Path file = directory.resolve(job.getId() + "." + job.getFormat().getExtension());
+        Path part = directory.resolve(file.getFileName() + ".part");
+        try {
+            ReportSummary summary;
+            try (OutputStream out = Files.newOutputStream(part)) {
+                summary = reportEngine.export(query, job.getFormat(), out);
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.setSummary(summary.toMap());
+            job.setStatus(ReportJob.Status.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Report {} failed", job.getId(), e);
+            deleteQuietly(part);
+            job.setError(e.getMessage());
+            job.setStatus(ReportJob.Status.FAILED);
+        }
+        job.setCompletedAt(LocalDateTime.now());
+        save(job);
+    }
+
+    private void save(ReportJob job) {
+        Path state = directory.resolve(job.getId() + ".json");
+        Path tmp = directory.resolve(job.getId() + ".json.tmp");
+        try {
+            objectMapper.writeValue(tmp.toFile(), job);
+            Files.move(tmp, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ReportJob load(String id) {
+        Path state = directory.resolve(id + ".json");
+        if (!Files.exists(state)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(state.toFile(), ReportJob.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete(String id) {
+        deleteQuietly(directory.resolve(id + ".json"));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", file, e);
+        }
+    }
+}
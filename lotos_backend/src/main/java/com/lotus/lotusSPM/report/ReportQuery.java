@@ -0,0 +1,100 @@
+package com.lotus.lotusSPM.report;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A custom-report filter map compiled into one parameterised JPQL query over students.
+ *
+ * Values only ever travel as bind parameters. Filters that are absent or empty add no
+ * condition, and unrecognised keys are ignored as the report API always has.
+ */
+public final class ReportQuery {
+
+    public static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        "ID", "USERNAME", "NAME", "SURNAME", "EMAIL", "FACULTY", "DEPARTMENT", "INT_STATUS", "CREATED_AT"));
+
+    // Index of each column in a row, matching COLUMNS
+    static final int FACULTY = 5;
+    static final int DEPARTMENT = 6;
+    static final int STATUS = 7;
+    static final int CREATED_AT = 8;
+
+    private static final String SELECT = "SELECT s.id, s.username, s.name, s.surname, s.email, s.faculty, "
+        + "s.department, s.internshipStatus, s.createdAt FROM Student s WHERE 1 = 1";
+
+    private final String jpql;
+    private final Map<String, Object> parameters;
+
+    private ReportQuery(String jpql, Map<String, Object> parameters) {
+        this.jpql = jpql;
+        this.parameters = Collections.unmodifiableMap(parameters);
+    }
+
+    /**
+     * @param tenant restricts the report to one tenant's students, or null for all
+     */
+    public static ReportQuery compile(Map<String, String> filters, String tenant) {
+        StringBuilder jpql = new StringBuilder(SELECT);
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (tenant != null) {
+            jpql.append(" AND s.tenantId = :tenant");
+            parameters.put("tenant", tenant);
+        }
+        String faculty = value(filters, "faculty");
+        if (faculty != null) {
+            jpql.append(" AND s.faculty = :faculty");
+            parameters.put("faculty", faculty);
+        }
+        String department = value(filters, "department");
+        if (department != null) {
+            jpql.append(" AND s.department = :department");
+            parameters.put("department", department);
+        }
+        String status = value(filters, "status");
+        if (status != null) {
+            jpql.append(" AND s.internshipStatus = :status");
+            parameters.put("status", status);
+        }
+        String dateFrom = value(filters, "dateFrom");
+        if (dateFrom != null) {
+            jpql.append(" AND s.createdAt >= :dateFrom");
+            parameters.put("dateFrom", parseDate(dateFrom, "dateFrom").atStartOfDay());
+        }
+        String dateTo = value(filters, "dateTo");
+        if (dateTo != null) {
+            jpql.append(" AND s.createdAt < :dateTo");
+            parameters.put("dateTo", parseDate(dateTo, "dateTo").plusDays(1).atStartOfDay());
+        }
+        jpql.append(" ORDER BY s.id");
+        return new ReportQuery(jpql.toString(), parameters);
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public Map<String, Object> getParameters() {
+        return parameters;
+    }
+
+    private static String value(Map<String, String> filters, String key) {
+        String value = filters != null ? filters.get(key) : null;
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static LocalDate parseDate(String value, String field) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(field + " must be an ISO date (yyyy-MM-dd)");
+        }
+    }
+}
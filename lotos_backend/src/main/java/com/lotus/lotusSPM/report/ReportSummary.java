@@ -0,0 +1,57 @@
+package com.lotus.lotusSPM.report;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates folded from report rows as they stream past, so the summary costs no second
+ * pass over the data.
+ */
+public class ReportSummary {
+
+    private static final String UNSPECIFIED = "Unspecified";
+
+    private long totalRecords;
+    private final Map<String, Long> byFaculty = new TreeMap<>();
+    private final Map<String, Long> byDepartment = new TreeMap<>();
+    private final Map<String, Long> byInternshipStatus = new TreeMap<>();
+    private LocalDateTime firstCreatedAt;
+    private LocalDateTime lastCreatedAt;
+
+    void accept(Object[] row) {
+        totalRecords++;
+        byFaculty.merge(label(row[ReportQuery.FACULTY]), 1L, Long::sum);
+        byDepartment.merge(label(row[ReportQuery.DEPARTMENT]), 1L, Long::sum);
+        byInternshipStatus.merge(label(row[ReportQuery.STATUS]), 1L, Long::sum);
+        LocalDateTime createdAt = (LocalDateTime) row[ReportQuery.CREATED_AT];
+        if (createdAt != null) {
+            if (firstCreatedAt == null || createdAt.isBefore(firstCreatedAt)) {
+                firstCreatedAt = createdAt;
+            }
+            if (lastCreatedAt == null || createdAt.isAfter(lastCreatedAt)) {
+                lastCreatedAt = createdAt;
+            }
+        }
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalRecords", totalRecords);
+        summary.put("byFaculty", byFaculty);
+        summary.put("byDepartment", byDepartment);
+        summary.put("byInternshipStatus", byInternshipStatus);
+        summary.put("firstCreatedAt", firstCreatedAt);
+        summary.put("lastCreatedAt", lastCreatedAt);
+        return summary;
+    }
+
+    private static String label(Object value) {
+        return value == null || value.toString().trim().isEmpty() ? UNSPECIFIED : value.toString().trim();
+    }
+}
@@ -0,0 +1,22 @@
+package com.lotus.lotusSPM.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes report rows to a stream one at a time; nothing is buffered beyond the current row.
+ * {@link #finish} completes the document but leaves the underlying stream open.
+ */
+interface ReportWriter {
+
+    void header(List<String> columns) throws IOException;
+
+    void row(Object[] values) throws IOException;
+
+    void finish(ReportSummary summary) throws IOException;
+
+    static ReportWriter create(ReportFormat format, OutputStream out) {
+        return format == ReportFormat.XLSX ? new XlsxReportWriter(out) : new CsvReportWriter(out);
+    }
+}
@@ -0,0 +1,231 @@
+package com.lotus.lotusSPM.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming SpreadsheetML (.xlsx) writer.
+ *
+ * Rows go straight into the worksheet part of the zip with inline strings, so memory stays
+ * flat however many rows there are. A sheet that reaches Excel's row limit continues in
+ * another; the workbook parts naming the sheets are written last, since readers locate
+ * parts through the zip's central directory rather than their order. A "Summary" sheet
+ * closes the workbook.
+ */
+class XlsxReportWriter implements ReportWriter {
+
+    // Excel's limit is 1,048,576 rows including the header
+    static final int MAX_DATA_ROWS = 1_048_575;
+
+    private static final LocalDateTime EXCEL_EPOCH = LocalDateTime.of(1899, 12, 30, 0, 0);
+    private static final double MILLIS_PER_DAY = 86_400_000d;
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private List<String> columns;
+    private int sheets;
+    private int rowInSheet;
+
+    XlsxReportWriter(OutputStream stream) {
+        this.zip = new ZipOutputStream(stream, StandardCharsets.UTF_8);
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void header(List<String> columns) throws IOException {
+        this.columns = columns;
+        startSheet();
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        if (rowInSheet > MAX_DATA_ROWS) {
+            endSheet();
+            startSheet();
+        }
+        writeRow(values);
+    }
+
+    @Override
+    public void finish(ReportSummary summary) throws IOException {
+        endSheet();
+        writeSummarySheet(summary);
+        part("xl/workbook.xml", workbook());
+        part("xl/_rels/workbook.xml.rels", workbookRels());
+        part("xl/styles.xml", STYLES);
+        part("_rels/.rels", ROOT_RELS);
+        part("[Content_Types].xml", contentTypes());
+        zip.finish();
+    }
+
+    private void startSheet() throws IOException {
+        sheets++;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        rowInSheet = 0;
+        writeRow(columns.toArray());
+    }
+
+    private void endSheet() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private void writeSummarySheet(ReportSummary summary) throws IOException {
+        sheets++;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        rowInSheet = 0;
+        Map<String, Object> values = summary.toMap();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                writeRow(new Object[] { entry.getKey() });
+                for (Map.Entry<?, ?> count : ((Map<?, ?>) entry.getValue()).entrySet()) {
+                    writeRow(new Object[] { "", count.getKey(), count.getValue() });
+                }
+            } else {
+                writeRow(new Object[] { entry.getKey(), entry.getValue() });
+            }
+        }
+        endSheet();
+    }
+
+    private void writeRow(Object[] values) throws IOException {
+        rowInSheet++;
+        out.write("<row r=\"");
+        out.write(Integer.toString(rowInSheet));
+        out.write("\">");
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String ref = columnName(i) + rowInSheet;
+            if (value instanceof Number && !exceedsPrecision((Number) value)) {
+                out.write("<c r=\"" + ref + "\"><v>" + value + "</v></c>");
+            } else if (value instanceof LocalDateTime) {
+                out.write("<c r=\"" + ref + "\" s=\"1\"><v>" + serialDate((LocalDateTime) value) + "</v></c>");
+            } else {
+                out.write("<c r=\"" + ref + "\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                escape(value.toString());
+                out.write("</t></is></c>");
+            }
+        }
+        out.write("</row>");
+    }
+
+    private void escape(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': out.write("&lt;"); break;
+                case '>': out.write("&gt;"); break;
+                case '&': out.write("&amp;"); break;
+                case '"': out.write("&quot;"); break;
+                default:
+                    // Control characters other than tab and newlines are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        out.write(c);
+                    }
+            }
+        }
+    }
+
+    private void part(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+            + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 1; i <= sheets; i++) {
+            String name = i == sheets ? "Summary" : i == 1 ? "Students" : "Students " + i;
+            xml.append("<sheet name=\"").append(name).append("\" sheetId=\"").append(i)
+                .append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Relationship Id=\"rId").append(i)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" ")
+                .append("Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(sheets + 1)
+            .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" ")
+            .append("Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/xl/workbook.xml\" "
+            + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+            + "<Override PartName=\"/xl/styles.xml\" "
+            + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheets; i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ")
+                .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    static String columnName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    // Excel keeps 15 significant digits, which would round away the tail of k-sortable ids
+    private static boolean exceedsPrecision(Number value) {
+        return value instanceof Long && Math.abs(value.longValue()) >= 1_000_000_000_000_000L;
+    }
+
+    private static double serialDate(LocalDateTime value) {
+        return Duration.between(EXCEL_EPOCH, value).toMillis() / MILLIS_PER_DAY;
+    }
+
+    private static final String ROOT_RELS = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+        + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+        + "<Relationship Id=\"rId1\" "
+        + "Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" "
+        + "Target=\"xl/workbook.xml\"/></Relationships>";
+
+    // Style 1 formats timestamps as yyyy-mm-dd hh:mm:ss
+    private static final String STYLES = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+        + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+        + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/></numFmts>"
+        + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+        + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+        + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+        + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+        + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+        + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+        + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+        + "</styleSheet>";
+}
@@ -0,0 +1,461 @@
+package com.lotus.lotusSPM.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints, laid out like a Roaring bitmap.
+ *
+ * Values are split by their high 16 bits into chunks. A chunk holding at most
+ * {@value #ARRAY_MAX} values keeps them as a sorted {@code char[]}; a denser chunk
+ * switches to a fixed 8 KB bit array. Sparse posting lists stay small and dense ones
+ * intersect word by word.
+ *
+ * Not thread-safe; callers publish immutable instances or guard mutation themselves.
+ */
+public final class CompressedBitmap {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys = new char[0];
+    private Object[] containers = new Object[0];
+    private int[] cardinalities = new int[0];
+    private int size;
+
+    public static CompressedBitmap of(int... values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    public boolean add(int value) {
+        checkValue(value);
+        char high = (char) (value >>> 16);
+        char low = (char) value;
+        int index = findChunk(high);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, high, new char[] { low }, 1);
+            return true;
+        }
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            words[low >>> 6] |= mask;
+            cardinalities[index]++;
+            return true;
+        }
+        char[] array = (char[]) container;
+        int cardinality = cardinalities[index];
+        int position = Arrays.binarySearch(array, 0, cardinality, low);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (cardinality == ARRAY_MAX) {
+            long[] words = toWords(array, cardinality);
+            words[low >>> 6] |= 1L << low;
+            containers[index] = words;
+        } else {
+            if (cardinality == array.length) {
+                array = Arrays.copyOf(array, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+                containers[index] = array;
+            }
+            System.arraycopy(array, position, array, position + 1, cardinality - position);
+            array[position] = low;
+        }
+        cardinalities[index]++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = findChunk((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object container = containers[index];
+        int cardinality = cardinalities[index];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long mask = 1L << low;
+            if ((words[low >>> 6] & mask) == 0) {
+                return false;
+            }
+            words[low >>> 6] &= ~mask;
+            cardinality--;
+            if (cardinality <= ARRAY_MAX) {
+                containers[index] = toArray(words, cardinality);
+            }
+        } else {
+            char[] array = (char[]) container;
+            int position = Arrays.binarySearch(array, 0, cardinality, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(array, position + 1, array, position, cardinality - position - 1);
+            cardinality--;
+        }
+        if (cardinality == 0) {
+            removeChunk(index);
+        } else {
+            cardinalities[index] = cardinality;
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = findChunk((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object container = containers[index];
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[index], low) >= 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cardinalities[i];
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Object merged = andContainers(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]);
+                int cardinality = containerCardinality(merged);
+                if (cardinality > 0) {
+                    result.appendChunk(keys[i], shrink(merged, cardinality), cardinality);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Size of {@code this AND other} without materializing it; used for facet counts.
+     */
+    public int andCardinality(CompressedBitmap other) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += andCount(containers[i], cardinalities[i], other.containers[j], other.cardinalities[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendChunk(keys[i], copy(containers[i], cardinalities[i]), cardinalities[i]);
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.appendChunk(other.keys[j], copy(other.containers[j], other.cardinalities[j]), other.cardinalities[j]);
+                j++;
+            } else {
+                long[] words = toWords(containers[i], cardinalities[i]);
+                orInto(words, other.containers[j], other.cardinalities[j]);
+                int cardinality = popCount(words);
+                result.appendChunk(keys[i], shrink(words, cardinality), cardinality);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < other.size && other.keys[j] == keys[i]) {
+                long[] words = toWords(containers[i], cardinalities[i]);
+                long[] removed = toWords(other.containers[j], other.cardinalities[j]);
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] &= ~removed[w];
+                }
+                int cardinality = popCount(words);
+                if (cardinality > 0) {
+                    result.appendChunk(keys[i], shrink(words, cardinality), cardinality);
+                }
+            } else {
+                result.appendChunk(keys[i], copy(containers[i], cardinalities[i]), cardinalities[i]);
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < size; i++) {
+            result.appendChunk(keys[i], copy(containers[i], cardinalities[i]), cardinalities[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Visit values in ascending order.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            int base = keys[i] << 16;
+            Object container = containers[i];
+            if (container instanceof long[]) {
+                long[] words = (long[]) container;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        consumer.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] array = (char[]) container;
+                for (int k = 0; k < cardinalities[i]; k++) {
+                    consumer.accept(base | array[k]);
+                }
+            }
+        }
+    }
+
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] position = new int[1];
+        forEach(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Approximate heap footprint of the containers, for diagnostics.
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L + cardinalities.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i] instanceof long[] ? BITMAP_WORDS * 8L : ((char[]) containers[i]).length * 2L;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof CompressedBitmap)) {
+            return false;
+        }
+        return Arrays.equals(toArray(), ((CompressedBitmap) o).toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    private static Object andContainers(Object a, int cardinalityA, Object b, int cardinalityB) {
+        if (a instanceof char[] && b instanceof char[]) {
+            char[] left = (char[]) a;
+            char[] right = (char[]) b;
+            char[] out = new char[Math.min(cardinalityA, cardinalityB)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinalityA && j < cardinalityB) {
+                if (left[i] < right[j]) {
+                    i++;
+                } else if (left[i] > right[j]) {
+                    j++;
+                } else {
+                    out[count++] = left[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, count);
+        }
+        if (a instanceof char[] || b instanceof char[]) {
+            char[] array = (char[]) (a instanceof char[] ? a : b);
+            int cardinality = a instanceof char[] ? cardinalityA : cardinalityB;
+            long[] words = (long[]) (a instanceof char[] ? b : a);
+            char[] out = new char[cardinality];
+            int count = 0;
+            for (int k = 0; k < cardinality; k++) {
+                char low = array[k];
+                if ((words[low >>> 6] & (1L << low)) != 0) {
+                    out[count++] = low;
+                }
+            }
+            return Arrays.copyOf(out, count);
+        }
+        long[] left = (long[]) a;
+        long[] right = (long[]) b;
+        long[] out = new long[BITMAP_WORDS];
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            out[w] = left[w] & right[w];
+        }
+        return out;
+    }
+
+    private static int andCount(Object a, int cardinalityA, Object b, int cardinalityB) {
+        if (a instanceof long[] && b instanceof long[]) {
+            long[] left = (long[]) a;
+            long[] right = (long[]) b;
+            int count = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                count += Long.bitCount(left[w] & right[w]);
+            }
+            return count;
+        }
+        return containerCardinality(andContainers(a, cardinalityA, b, cardinalityB));
+    }
+
+    private static void orInto(long[] words, Object container, int cardinality) {
+        if (container instanceof long[]) {
+            long[] other = (long[]) container;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= other[w];
+            }
+        } else {
+            char[] array = (char[]) container;
+            for (int k = 0; k < cardinality; k++) {
+                words[array[k] >>> 6] |= 1L << array[k];
+            }
+        }
+    }
+
+    private static long[] toWords(Object container, int cardinality) {
+        if (container instanceof long[]) {
+            return ((long[]) container).clone();
+        }
+        return toWords((char[]) container, cardinality);
+    }
+
+    private static long[] toWords(char[] array, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int k = 0; k < cardinality; k++) {
+            words[array[k] >>> 6] |= 1L << array[k];
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int cardinality) {
+        char[] array = new char[cardinality];
+        int count = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                array[count++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+
+    private static Object shrink(Object container, int cardinality) {
+        if (container instanceof long[] && cardinality <= ARRAY_MAX) {
+            return toArray((long[]) container, cardinality);
+        }
+        return container;
+    }
+
+    private static Object copy(Object container, int cardinality) {
+        if (container instanceof long[]) {
+            return ((long[]) container).clone();
+        }
+        return Arrays.copyOf((char[]) container, cardinality);
+    }
+
+    private static int containerCardinality(Object container) {
+        return container instanceof long[] ? popCount((long[]) container) : ((char[]) container).length;
+    }
+
+    private static int popCount(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private int findChunk(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+
+    private void insertChunk(int index, char high, Object container, int cardinality) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+        keys[index] = high;
+        containers[index] = container;
+        cardinalities[index] = cardinality;
+        size++;
+    }
+
+    private void appendChunk(char high, Object container, int cardinality) {
+        insertChunk(size, high, container, cardinality);
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        System.arraycopy(cardinalities, index + 1, cardinalities, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Bitmap values must be non-negative: " + value);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.lotus.lotusSPM.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index with BM25 ranking.
+ * Terms are kept sorted so prefix queries are a range scan over the term dictionary.
+ */
+public class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_WEIGHT = 0.6;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final NavigableMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private final Map<String, SearchDocument> documents = new HashMap<>();
+    private long totalLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(SearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getKey());
+            for (Map.Entry<String, Integer> term : document.getTerms().entrySet()) {
+                postings.computeIfAbsent(term.getKey(), t -> new HashMap<>()).put(document.getKey(), term.getValue());
+            }
+            documents.put(document.getKey(), document);
+            totalLength += document.getLength();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return documents.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<SearchDocument> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(documents.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents must match every query term (AND). The last term, and any term
+     * ending in '*', also matches terms it is a prefix of.
+     */
+    public SearchResult search(String query, Predicate<SearchDocument> filter, int offset, int limit) {
+        List<QueryTerm> terms = parse(query);
+        if (terms.isEmpty()) {
+            return new SearchResult(0, Collections.<SearchHit>emptyList());
+        }
+
+        lock.readLock().lock();
+        try {
+            double avgLength = documents.isEmpty() ? 1.0 : Math.max(1.0, (double) totalLength / documents.size());
+            Map<String, Double> scores = null;
+
+            for (QueryTerm term : terms) {
+                Map<String, Double> termScores = scoreTerm(term, avgLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<String, Double> merged = new HashMap<>();
+                    Map<String, Double> smaller = scores.size() <= termScores.size() ? scores : termScores;
+                    Map<String, Double> larger = smaller == scores ? termScores : scores;
+                    for (Map.Entry<String, Double> entry : smaller.entrySet()) {
+                        Double other = larger.get(entry.getKey());
+                        if (other != null) {
+                            merged.put(entry.getKey(), entry.getValue() + other);
+                        }
+                    }
+                    scores = merged;
+                }
+                if (scores.isEmpty()) {
+                    return new SearchResult(0, Collections.<SearchHit>emptyList());
+                }
+            }
+
+            int wanted = offset + limit;
+            PriorityQueue<SearchHit> top = new PriorityQueue<>((a, b) -> Double.compare(a.getScore(), b.getScore()));
+            int total = 0;
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                SearchDocument doc = documents.get(entry.getKey());
+                if (doc == null || !filter.test(doc)) {
+                    continue;
+                }
+                total++;
+                top.add(new SearchHit(doc.getType(), doc.getId(), doc.getTitle(), entry.getValue()));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+
+            List<SearchHit> ranked = new ArrayList<>(top);
+            ranked.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+            List<SearchHit> page = offset >= ranked.size()
+                ? Collections.<SearchHit>emptyList()
+                : ranked.subList(offset, Math.min(ranked.size(), wanted));
+            return new SearchResult(total, new ArrayList<>(page));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Double> scoreTerm(QueryTerm term, double avgLength) {
+        Map<String, Double> scores = new HashMap<>();
+        addScores(term.text, 1.0, avgLength, scores);
+        if (term.prefix) {
+            int expansions = 0;
+            for (String candidate : postings.subMap(term.text, false, term.text + Character.MAX_VALUE, false).keySet()) {
+                if (++expansions > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                addScores(candidate, PREFIX_WEIGHT, avgLength, scores);
+            }
+        }
+        return scores;
+    }
+
+    private void addScores(String term, double weight, double avgLength, Map<String, Double> scores) {
+        Map<String, Integer> posting = postings.get(term);
+        if (posting == null) {
+            return;
+        }
+        int n = documents.size();
+        double idf = Math.log(1.0 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+        for (Map.Entry<String, Integer> entry : posting.entrySet()) {
+            SearchDocument doc = documents.get(entry.getKey());
+            int tf = entry.getValue();
+            double norm = tf + K1 * (1 - B + B * doc.getLength() / avgLength);
+            double score = weight * idf * (tf * (K1 + 1)) / norm;
+            scores.merge(entry.getKey(), score, Math::max);
+        }
+    }
+
+    private boolean removeInternal(String key) {
+        SearchDocument existing = documents.remove(key);
+        if (existing == null) {
+            return false;
+        }
+        for (String term : existing.getTerms().keySet()) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(key);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.getLength();
+        return true;
+    }
+
+    static List<QueryTerm> parse(String query) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        String trimmed = query.trim();
+        boolean trailingPrefix = !trimmed.isEmpty() && !query.endsWith(" ");
+        String[] raw = trimmed.split("\\s+");
+        for (int i = 0; i < raw.length; i++) {
+            boolean explicitPrefix = raw[i].endsWith("*");
+            boolean prefix = explicitPrefix || (trailingPrefix && i == raw.length - 1);
+            List<String> tokens = Tokenizer.tokenize(raw[i]);
+            for (int j = 0; j < tokens.size(); j++) {
+                terms.add(new QueryTerm(tokens.get(j), prefix && j == tokens.size() - 1));
+            }
+        }
+        return terms;
+    }
+
+    static final class QueryTerm {
+        final String text;
+        final boolean prefix;
+
+        QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+    }
+
+    public static class SearchResult {
+        private final int total;
+        private final List<SearchHit> hits;
+
+        public SearchResult(int total, List<SearchHit> hits) {
+            this.total = total;
+            this.hits = hits;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<SearchHit> getHits() {
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.lotus.lotusSPM.search;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Indexed form of a message or notification: term frequencies plus the
+ * fields needed to scope and display a hit. Raw text is not retained.
+ */
+public class SearchDocument {
+
+    public enum Type { MESSAGE, NOTIFICATION }
+
+    static final int TITLE_BOOST = 2;
+    static final int MAX_TITLE_LENGTH = 200;
+
+    private final Type type;
+    private final long id;
+    private final String tenantId;
+    private final String[] recipients;
+    private final String title;
+    private final Map<String, Integer> terms;
+    private final int length;
+
+    public SearchDocument(Type type, long id, String tenantId, String[] recipients, String title,
+                          Map<String, Integer> terms, int length) {
+        this.type = type;
+        this.id = id;
+        this.tenantId = tenantId;
+        this.recipients = recipients;
+        this.title = title;
+        this.terms = Collections.unmodifiableMap(terms);
+        this.length = length;
+    }
+
+    /**
+     * Build a document from title-like fields (boosted) and body text.
+     */
+    public static SearchDocument of(Type type, long id, String tenantId, String[] recipients,
+                                    String[] titleFields, String body) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = 0;
+        StringBuilder display = new StringBuilder();
+        for (String field : titleFields) {
+            if (field == null || field.isEmpty()) {
+                continue;
+            }
+            if (display.length() == 0) {
+                display.append(field);
+            }
+            for (String term : Tokenizer.tokenize(field)) {
+                terms.merge(term, TITLE_BOOST, Integer::sum);
+                length++;
+            }
+        }
+        for (String term : Tokenizer.tokenize(body)) {
+            terms.merge(term, 1, Integer::sum);
+            length++;
+        }
+        String shownTitle = display.length() > MAX_TITLE_LENGTH
+            ? display.substring(0, MAX_TITLE_LENGTH) : display.toString();
+        return new SearchDocument(type, id, tenantId, recipients, shownTitle, terms, length);
+    }
+
+    public static String key(Type type, long id) {
+        return (type == Type.MESSAGE ? "M:" : "N:") + id;
+    }
+
+    public String getKey() {
+        return key(type, id);
+    }
+
+    public boolean visibleTo(String username, String tenant) {
+        if (tenantId == null ? tenant != null : !tenantId.equals(tenant)) {
+            return false;
+        }
+        return Arrays.asList(recipients).contains(username);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String[] getRecipients() {
+        return recipients;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Map<String, Integer> getTerms() {
+        return terms;
+    }
+
+    public int getLength() {
+        return length;
+    }
+}
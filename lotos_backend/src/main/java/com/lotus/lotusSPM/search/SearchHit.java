@@ -0,0 +1,32 @@
+package com.lotus.lotusSPM.search;
+
+public class SearchHit {
+
+    private final SearchDocument.Type type;
+    private final long id;
+    private final String title;
+    private final double score;
+
+    public SearchHit(SearchDocument.Type type, long id, String title, double score) {
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.score = score;
+    }
+
+    public SearchDocument.Type getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,503 @@
+package com.lotus.lotusSPM.search;
+
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.dao.NotificationsDao;
+import com.lotus.lotusSPM.idgen.SnowflakeIdGenerator;
+import com.lotus.lotusSPM.model.Messages;
+import com.lotus.lotusSPM.model.Notifications;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search over messages and notifications.
+ *
+ * Each replica keeps its own {@link InvertedIndex} persisted through a {@link SegmentStore},
+ * so restarts replay segments instead of re-reading the tables. Mutations are appended to
+ * a Redis stream, the replication log, which every replica reads from its own offset and
+ * re-indexes from the database. The offset is saved beside the segments, so a restarted
+ * replica replays the adds, updates and deletes it missed. When the log can no longer show
+ * what was missed (no saved offset, entries trimmed past it, Redis unreachable or emptied)
+ * the index is reconciled with the tables instead.
+ *
+ * Without replication this replica is the only writer, and after the replay it only reads
+ * the rows with ids above the highest replayed ones, which committed after their segments.
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private static final String LOG_KEY = "search:log";
+    private static final String OFFSET_FILE = "replication.offset";
+    private static final RecordId LOG_START = RecordId.of(0, 0);
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    @Value("${app.search.index-dir:${java.io.tmpdir}/lotus-search}")
+    private String indexDir;
+
+    @Value("${app.search.segment-max-bytes:8388608}")
+    private long segmentMaxBytes;
+
+    @Value("${app.search.max-sealed-segments:16}")
+    private int maxSealedSegments;
+
+    @Value("${app.search.replication.enabled:true}")
+    private boolean replicationEnabled;
+
+    @Value("${app.search.replication.log-max-length:100000}")
+    private long logMaxLength;
+
+    @Value("${app.search.replication.poll-millis:1000}")
+    private long pollMillis;
+
+    @Value("${app.search.catch-up-lookback-millis:300000}")
+    private long catchUpLookbackMillis;
+
+    @Autowired
+    private MessagesDao messagesDao;
+
+    @Autowired
+    private NotificationsDao notificationsDao;
+
+    @Autowired
+    private ClusterEventBus clusterEventBus;
+
+    @Autowired
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    private final InvertedIndex index = new InvertedIndex();
+    private final Object mutationLock = new Object();
+    private SegmentStore store;
+    private volatile boolean ready;
+    // Last replication log entry reflected in the segments; null when unknown
+    private RecordId offset;
+    private boolean logReachable = true;
+    private ScheduledExecutorService replicator;
+
+    @PostConstruct
+    public void initialize() throws IOException {
+        store = new SegmentStore(Paths.get(indexDir), segmentMaxBytes);
+
+        Thread loader = new Thread(this::load, "search-index-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (replicator != null) {
+            replicator.shutdownNow();
+        }
+        store.close();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public InvertedIndex.SearchResult search(String username, String query, int page, int size) {
+        String tenant = TenantContext.getCurrentTenant();
+        return index.search(query, doc -> doc.visibleTo(username, tenant), page * size, size);
+    }
+
+    public void indexMessage(Messages message) {
+        afterCommit(() -> {
+            apply(toDocument(message));
+            publish("A", SearchDocument.Type.MESSAGE, message.getId());
+        });
+    }
+
+    public void indexNotification(Notifications notification) {
+        afterCommit(() -> {
+            apply(toDocument(notification));
+            publish("A", SearchDocument.Type.NOTIFICATION, notification.getId());
+        });
+    }
+
+    public void remove(SearchDocument.Type type, Long id) {
+        afterCommit(() -> {
+            delete(SearchDocument.key(type, id));
+            publish("D", type, id);
+        });
+    }
+
+    private void load() {
+        try {
+            if (store.isEmpty()) {
+                logger.info("No search segments found in {}, rebuilding from database", indexDir);
+                store.replay(doc -> { }, key -> { });
+                reconcile();
+            } else {
+                Map<SearchDocument.Type, Long> highWater = new EnumMap<>(SearchDocument.Type.class);
+                store.replay(doc -> {
+                    index.add(doc);
+                    highWater.merge(doc.getType(), doc.getId(), Math::max);
+                }, index::remove);
+                logger.info("Search index loaded from segments: {} documents", index.size());
+                if (replicationEnabled) {
+                    offset = readOffset();
+                    replicate();
+                } else {
+                    catchUp(highWater);
+                }
+            }
+            ready = true;
+        } catch (Exception e) {
+            logger.error("Failed to load search index from {}", indexDir, e);
+        }
+        if (replicationEnabled && redisTemplate.getIfAvailable() != null) {
+            replicator = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "search-replication");
+                thread.setDaemon(true);
+                return thread;
+            });
+            replicator.scheduleWithFixedDelay(this::replicate, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Brings the index up to date with the replication log, or with the tables when the log
+     * cannot show what this replica missed.
+     */
+    void replicate() {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            // No log at all, so the segments may lack whatever other replicas wrote
+            if (!ready) {
+                reconcile();
+            }
+            return;
+        }
+        boolean caughtUp;
+        try {
+            caughtUp = applyLog(redis);
+        } catch (Exception e) {
+            if (logReachable) {
+                logger.warn("Search replication log unavailable, retrying: {}", e.getMessage());
+                logReachable = false;
+            }
+            // Segments of unknown age are not served while waiting; the log is applied once it is back
+            if (!ready) {
+                reconcile();
+            }
+            return;
+        }
+        if (!logReachable) {
+            logger.info("Search replication log reachable again");
+            logReachable = true;
+        }
+        if (!caughtUp) {
+            logger.warn("Search replication log does not reach back to offset {}, rebuilding from the database", offset);
+            reconcile();
+        }
+    }
+
+    /**
+     * Applies the log entries after the offset; false, with nothing applied, when entries
+     * after it may have been trimmed.
+     */
+    private boolean applyLog(StringRedisTemplate redis) throws IOException {
+        if (offset == null) {
+            return false;
+        }
+        List<MapRecord<String, Object, Object>> first =
+            redis.opsForStream().range(LOG_KEY, Range.unbounded(), RedisZSetCommands.Limit.limit().count(1));
+        boolean empty = first == null || first.isEmpty();
+        // An offset at the start was saved while the log was empty, so nothing before its first entry was missed
+        if (!offset.equals(LOG_START) && (empty || compare(first.get(0).getId(), offset) > 0)) {
+            return false;
+        }
+        while (!empty) {
+            List<MapRecord<String, Object, Object>> entries = redis.opsForStream().read(
+                StreamReadOptions.empty().count(REBUILD_PAGE_SIZE),
+                StreamOffset.create(LOG_KEY, ReadOffset.from(offset)));
+            if (entries == null || entries.isEmpty()) {
+                break;
+            }
+            for (MapRecord<String, Object, Object> entry : entries) {
+                // Mutations made by this process were applied when they committed
+                if (!clusterEventBus.getNodeId().equals(entry.getValue().get("node"))) {
+                    onRemoteMutation((String) entry.getValue().get("mutation"));
+                }
+                offset = entry.getId();
+            }
+            writeOffset(offset);
+            empty = entries.size() < REBUILD_PAGE_SIZE;
+        }
+        return true;
+    }
+
+    /**
+     * Makes the index match the tables: every row is indexed again and documents whose rows
+     * are gone are removed. Entries logged from the start are applied again afterwards.
+     */
+    private void reconcile() {
+        try {
+            RecordId tail = replicationEnabled ? logTail() : null;
+            Set<String> live = new HashSet<>();
+            Page<Messages> messages;
+            int page = 0;
+            do {
+                messages = messagesDao.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE));
+                for (Messages message : messages) {
+                    SearchDocument document = toDocument(message);
+                    index.add(document);
+                    live.add(document.getKey());
+                }
+            } while (messages.hasNext());
+
+            Page<Notifications> notifications;
+            page = 0;
+            do {
+                notifications = notificationsDao.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE));
+                for (Notifications notification : notifications) {
+                    SearchDocument document = toDocument(notification);
+                    index.add(document);
+                    live.add(document.getKey());
+                }
+            } while (notifications.hasNext());
+
+            int removed = 0;
+            for (SearchDocument document : index.snapshot()) {
+                if (!live.contains(document.getKey()) && index.remove(document.getKey())) {
+                    removed++;
+                }
+            }
+            synchronized (mutationLock) {
+                store.compact(index.snapshot());
+            }
+            if (tail != null) {
+                offset = tail;
+                writeOffset(tail);
+            }
+            logger.info("Search index rebuilt from database: {} documents, {} removed", index.size(), removed);
+        } catch (IOException e) {
+            logger.error("Failed to rebuild search index in {}", indexDir, e);
+        }
+    }
+
+    // The log's last entry, or its start when empty; null when Redis cannot say
+    private RecordId logTail() {
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            return null;
+        }
+        try {
+            List<MapRecord<String, Object, Object>> last =
+                redis.opsForStream().reverseRange(LOG_KEY, Range.unbounded(), RedisZSetCommands.Limit.limit().count(1));
+            return last == null || last.isEmpty() ? LOG_START : last.get(0).getId();
+        } catch (Exception e) {
+            logger.warn("Search replication log unavailable, the index will be rebuilt again once it is back: {}",
+                e.getMessage());
+            return null;
+        }
+    }
+
+    private RecordId readOffset() throws IOException {
+        Path file = Paths.get(indexDir).resolve(OFFSET_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String value = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim();
+        return value.isEmpty() ? null : RecordId.of(value);
+    }
+
+    // Written after the entries it covers reached the segments, and replaced atomically
+    private void writeOffset(RecordId applied) throws IOException {
+        Path file = Paths.get(indexDir).resolve(OFFSET_FILE);
+        Path tmp = Paths.get(indexDir).resolve(OFFSET_FILE + ".tmp");
+        Files.write(tmp, applied.getValue().getBytes(StandardCharsets.US_ASCII));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int compare(RecordId a, RecordId b) {
+        int byTime = Long.compare(a.getTimestamp(), b.getTimestamp());
+        return byTime != 0 ? byTime : Long.compare(a.getSequence(), b.getSequence());
+    }
+
+    /**
+     * Index rows with ids above the replayed high-water marks. Ids are only ordered to within
+     * clock skew and commit delays, so the scan starts a lookback window below each mark.
+     */
+    private void catchUp(Map<SearchDocument.Type, Long> highWater) {
+        int added = 0;
+        Slice<Messages> messages;
+        long after = catchUpFrom(highWater.get(SearchDocument.Type.MESSAGE));
+        do {
+            messages = messagesDao.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Messages message : messages) {
+                if (!index.contains(SearchDocument.key(SearchDocument.Type.MESSAGE, message.getId()))) {
+                    apply(toDocument(message));
+                    added++;
+                }
+                after = message.getId();
+            }
+        } while (messages.hasNext());
+
+        Slice<Notifications> notifications;
+        after = catchUpFrom(highWater.get(SearchDocument.Type.NOTIFICATION));
+        do {
+            notifications = notificationsDao.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, REBUILD_PAGE_SIZE));
+            for (Notifications notification : notifications) {
+                if (!index.contains(SearchDocument.key(SearchDocument.Type.NOTIFICATION, notification.getId()))) {
+                    apply(toDocument(notification));
+                    added++;
+                }
+                after = notification.getId();
+            }
+        } while (notifications.hasNext());
+
+        if (added > 0) {
+            logger.info("Search index caught up on {} documents written while this replica was down", added);
+        }
+    }
+
+    private long catchUpFrom(Long highWater) {
+        if (highWater == null) {
+            return 0;
+        }
+        long from = SnowflakeIdGenerator.timestampOf(highWater) - catchUpLookbackMillis;
+        // Ids from before k-sortable ids were introduced are too small to carry a timestamp
+        return from > SnowflakeIdGenerator.EPOCH_MILLIS ? SnowflakeIdGenerator.firstIdAt(from) : highWater;
+    }
+
+    private void apply(SearchDocument document) {
+        synchronized (mutationLock) {
+            index.add(document);
+            try {
+                store.appendAdd(document);
+                compactIfNeeded();
+            } catch (IOException e) {
+                logger.error("Failed to persist search document {}", document.getKey(), e);
+            }
+        }
+    }
+
+    private void delete(String key) {
+        synchronized (mutationLock) {
+            if (index.remove(key)) {
+                try {
+                    store.appendDelete(key);
+                    compactIfNeeded();
+                } catch (IOException e) {
+                    logger.error("Failed to persist search deletion {}", key, e);
+                }
+            }
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (store.sealedCount() > maxSealedSegments) {
+            store.compact(index.snapshot());
+        }
+    }
+
+    private void publish(String op, SearchDocument.Type type, Long id) {
+        if (!replicationEnabled) {
+            return;
+        }
+        StringRedisTemplate redis = redisTemplate.getIfAvailable();
+        if (redis == null) {
+            return;
+        }
+        Map<String, String> entry = new HashMap<>();
+        entry.put("node", clusterEventBus.getNodeId());
+        entry.put("mutation", op + "|" + type.name() + "|" + id);
+        try {
+            redis.opsForStream().add(LOG_KEY, entry);
+            redis.opsForStream().trim(LOG_KEY, logMaxLength, true);
+        } catch (Exception e) {
+            logger.warn("Could not log search mutation {} {} {}, other replicas will miss it: {}", op, type, id,
+                e.getMessage());
+        }
+    }
+
+    void onRemoteMutation(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length != 3) {
+            return;
+        }
+        SearchDocument.Type type = SearchDocument.Type.valueOf(parts[1]);
+        long id = Long.parseLong(parts[2]);
+        if ("D".equals(parts[0])) {
+            delete(SearchDocument.key(type, id));
+        } else if (type == SearchDocument.Type.MESSAGE) {
+            messagesDao.findById(id).ifPresent(message -> apply(toDocument(message)));
+        } else {
+            notificationsDao.findById(id).ifPresent(notification -> apply(toDocument(notification)));
+        }
+    }
+
+    private static SearchDocument toDocument(Messages message) {
+        return SearchDocument.of(SearchDocument.Type.MESSAGE, message.getId(), message.getTenantId(),
+            recipients(message.getFrom(), message.getTo()),
+            new String[] { message.getSubject(), message.getTitle() }, message.getText());
+    }
+
+    private static SearchDocument toDocument(Notifications notification) {
+        return SearchDocument.of(SearchDocument.Type.NOTIFICATION, notification.getId(), notification.getTenantId(),
+            recipients(notification.getFrom(), notification.getTo()),
+            new String[] { notification.getTitle() }, notification.getText());
+    }
+
+    private static String[] recipients(String... users) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String user : users) {
+            if (user != null && !user.isEmpty()) {
+                unique.add(user);
+            }
+        }
+        return unique.toArray(new String[0]);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,303 @@
+package com.lotus.lotusSPM.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists index mutations as numbered segment files.
+ *
+ * Mutations are appended to an active {@code .log} segment. Once it grows past
+ * the configured size it is sealed into a gzip-compressed {@code .seg} file.
+ * Compaction rewrites all sealed segments as a single snapshot of live documents.
+ * On restart, segments are replayed in sequence order.
+ */
+public class SegmentStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentStore.class);
+
+    private static final int MAGIC = 0x4C534731;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_DELETE = 2;
+    private static final String SEALED_SUFFIX = ".seg";
+    private static final String ACTIVE_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long maxActiveBytes;
+
+    private DataOutputStream active;
+    private long activeSequence;
+    private long activeBytes;
+
+    public SegmentStore(Path directory, long maxActiveBytes) throws IOException {
+        this.directory = directory;
+        this.maxActiveBytes = maxActiveBytes;
+        Files.createDirectories(directory);
+    }
+
+    public synchronized boolean isEmpty() throws IOException {
+        return sealedSegments().isEmpty() && activeSegments().isEmpty();
+    }
+
+    public synchronized int sealedCount() throws IOException {
+        return sealedSegments().size();
+    }
+
+    /**
+     * Replay every persisted mutation, oldest first, then open a fresh active segment.
+     */
+    public synchronized void replay(Consumer<SearchDocument> onAdd, Consumer<String> onDelete) throws IOException {
+        closeActive();
+        for (Path segment : sealedSegments()) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new GZIPInputStream(Files.newInputStream(segment))))) {
+                readRecords(in, segment, onAdd, onDelete);
+            }
+        }
+        // Unsealed logs from a previous run: replay, then seal so the sequence keeps moving forward
+        for (Path log : activeSegments()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+                readRecords(in, log, onAdd, onDelete);
+            }
+            sealFile(log);
+        }
+        openActive(nextSequence());
+    }
+
+    public synchronized void appendAdd(SearchDocument document) throws IOException {
+        ensureActive();
+        active.writeByte(OP_ADD);
+        writeDocument(active, document);
+        afterAppend();
+    }
+
+    public synchronized void appendDelete(String key) throws IOException {
+        ensureActive();
+        active.writeByte(OP_DELETE);
+        active.writeUTF(key);
+        afterAppend();
+    }
+
+    /**
+     * Replace all sealed segments (and the active one) with a single snapshot.
+     * Callers must not append concurrently with the snapshot they pass in.
+     */
+    public synchronized void compact(Collection<SearchDocument> live) throws IOException {
+        closeActive();
+        for (Path log : activeSegments()) {
+            sealFile(log);
+        }
+        List<Path> sealed = sealedSegments();
+        long snapshotSequence = sealed.isEmpty() ? 1 : sequenceOf(sealed.get(sealed.size() - 1));
+
+        Path tmp = directory.resolve("snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+            out.writeInt(MAGIC);
+            for (SearchDocument document : live) {
+                out.writeByte(OP_ADD);
+                writeDocument(out, document);
+            }
+        }
+        Files.move(tmp, segmentPath(snapshotSequence, SEALED_SUFFIX),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path old : sealed) {
+            if (sequenceOf(old) != snapshotSequence) {
+                Files.deleteIfExists(old);
+            }
+        }
+        openActive(snapshotSequence + 1);
+        logger.info("Search index compacted into segment {} ({} documents)", snapshotSequence, live.size());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeActive();
+    }
+
+    private void afterAppend() throws IOException {
+        active.flush();
+        activeBytes = active.size();
+        if (activeBytes >= maxActiveBytes) {
+            closeActive();
+            sealFile(segmentPath(activeSequence, ACTIVE_SUFFIX));
+            openActive(activeSequence + 1);
+        }
+    }
+
+    private void ensureActive() throws IOException {
+        if (active == null) {
+            openActive(nextSequence());
+        }
+    }
+
+    private void openActive(long sequence) throws IOException {
+        activeSequence = sequence;
+        OutputStream out = Files.newOutputStream(segmentPath(sequence, ACTIVE_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        active = new DataOutputStream(new BufferedOutputStream(out));
+        active.writeInt(MAGIC);
+        active.flush();
+        activeBytes = active.size();
+    }
+
+    private void closeActive() throws IOException {
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+    }
+
+    private void sealFile(Path log) throws IOException {
+        Path sealed = segmentPath(sequenceOf(log), SEALED_SUFFIX);
+        Path tmp = directory.resolve(sealed.getFileName() + ".tmp");
+        try (InputStream in = Files.newInputStream(log);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        Files.move(tmp, sealed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(log);
+    }
+
+    private void readRecords(DataInputStream in, Path source, Consumer<SearchDocument> onAdd,
+                             Consumer<String> onDelete) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a search segment: " + source);
+        }
+        while (true) {
+            int op;
+            try {
+                op = in.read();
+                if (op == -1) {
+                    return;
+                }
+                if (op == OP_ADD) {
+                    onAdd.accept(readDocument(in));
+                } else if (op == OP_DELETE) {
+                    onDelete.accept(in.readUTF());
+                } else {
+                    throw new IOException("Corrupt segment " + source + ": unknown op " + op);
+                }
+            } catch (EOFException e) {
+                // A torn final record from a crash mid-append; everything before it is intact
+                logger.warn("Truncated record at end of search segment {}", source);
+                return;
+            }
+        }
+    }
+
+    private static void writeDocument(DataOutputStream out, SearchDocument doc) throws IOException {
+        out.writeByte(doc.getType().ordinal());
+        out.writeLong(doc.getId());
+        out.writeBoolean(doc.getTenantId() != null);
+        if (doc.getTenantId() != null) {
+            out.writeUTF(doc.getTenantId());
+        }
+        out.writeShort(doc.getRecipients().length);
+        for (String recipient : doc.getRecipients()) {
+            out.writeUTF(recipient);
+        }
+        out.writeUTF(doc.getTitle() != null ? doc.getTitle() : "");
+        out.writeInt(doc.getLength());
+        out.writeInt(doc.getTerms().size());
+        for (Map.Entry<String, Integer> term : doc.getTerms().entrySet()) {
+            out.writeUTF(term.getKey());
+            out.writeInt(term.getValue());
+        }
+    }
+
+    private static SearchDocument readDocument(DataInputStream in) throws IOException {
+        SearchDocument.Type type = SearchDocument.Type.values()[in.readByte()];
+        long id = in.readLong();
+        String tenantId = in.readBoolean() ? in.readUTF() : null;
+        String[] recipients = new String[in.readShort()];
+        for (int i = 0; i < recipients.length; i++) {
+            recipients[i] = in.readUTF();
+        }
+        String title = in.readUTF();
+        int length = in.readInt();
+        int termCount = in.readInt();
+        Map<String, Integer> terms = new HashMap<>(termCount * 2);
+        for (int i = 0; i < termCount; i++) {
+            terms.put(in.readUTF(), in.readInt());
+        }
+        return new SearchDocument(type, id, tenantId, recipients, title, terms, length);
+    }
+
+    private long nextSequence() throws IOException {
+        long max = 0;
+        for (Path segment : listSegments()) {
+            max = Math.max(max, sequenceOf(segment));
+        }
+        return max + 1;
+    }
+
+    private List<Path> sealedSegments() throws IOException {
+        return filter(SEALED_SUFFIX);
+    }
+
+    private List<Path> activeSegments() throws IOException {
+        List<Path> logs = filter(ACTIVE_SUFFIX);
+        if (active != null) {
+            logs.remove(segmentPath(activeSequence, ACTIVE_SUFFIX));
+        }
+        return logs;
+    }
+
+    private List<Path> filter(String suffix) throws IOException {
+        List<Path> matches = new ArrayList<>();
+        for (Path segment : listSegments()) {
+            if (segment.getFileName().toString().endsWith(suffix)) {
+                matches.add(segment);
+            }
+        }
+        return matches;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.{seg,log}")) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments, (a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return segments;
+    }
+
+    private Path segmentPath(long sequence, String suffix) {
+        return directory.resolve(String.format("segment-%08d%s", sequence, suffix));
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.lastIndexOf('.')));
+    }
+}
@@ -0,0 +1,54 @@
+package com.lotus.lotusSPM.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into normalized search terms.
+ * Diacritics are folded (including Turkish dotless i) so "ögrenci" matches "öğrenci".
+ */
+public final class Tokenizer {
+
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MAX_TERM_LENGTH = 40;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "the", "and", "for", "with", "you", "are", "this", "that", "from", "have",
+        "ve", "ile", "bir", "bu", "da", "de", "icin", "mi", "ne"
+    ));
+
+    private Tokenizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = text.replace('ı', 'i').replace('İ', 'i');
+        folded = MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (token.length() < MIN_TERM_LENGTH || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            terms.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+        }
+        return terms;
+    }
+}
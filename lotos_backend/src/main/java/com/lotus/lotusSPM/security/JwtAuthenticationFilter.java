@@ -1,5 +1,6 @@
 package com.lotus.lotusSPM.security;
 
+import com.lotus.lotusSPM.analytics.AnalyticsSketches;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired(required = false)
+    private AnalyticsSketches analyticsSketches;
+
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
@@ -42,6 +46,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (analyticsSketches != null) {
+                    // Usernames are only unique within a role
+                    analyticsSketches.recordActiveUser(role + ":" + username);
+                }
             }
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
@@ -0,0 +1,210 @@
+package com.lotus.lotusSPM.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.lotus.lotusSPM.archive.MessageArchiveService;
+import com.lotus.lotusSPM.dao.MessageThreadDao;
+import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import com.lotus.lotusSPM.model.MessageThread;
+import com.lotus.lotusSPM.model.Messages;
+import com.lotus.lotusSPM.service.base.MessageThreadService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains conversation summaries incrementally as messages are written,
+ * so inbox listing and conversation views never have to join the raw message table.
+ */
+@Service
+@Transactional(rollbackFor = Exception.class)
+@Slf4j
+public class MessageThreadServiceImpl implements MessageThreadService {
+
+	private static final int PREVIEW_LENGTH = 200;
+	private static final Pattern REPLY_PREFIX = Pattern.compile("^((re|fwd?|ynt|ilt)\\s*:\\s*)+", Pattern.CASE_INSENSITIVE);
+
+	private MessageThreadDao messageThreadDao;
+	private MessagesDao messagesDao;
+	private MessageArchiveService messageArchiveService;
+	private TransactionTemplate requiresNew;
+
+	@Autowired
+	public void setMessageThreadDao(MessageThreadDao messageThreadDao) {
+		this.messageThreadDao = messageThreadDao;
+	}
+
+	@Autowired
+	public void setMessagesDao(MessagesDao messagesDao) {
+		this.messagesDao = messagesDao;
+	}
+
+	@Autowired
+	public void setMessageArchiveService(MessageArchiveService messageArchiveService) {
+		this.messageArchiveService = messageArchiveService;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.requiresNew = new TransactionTemplate(transactionManager);
+		this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@Override
+	public MessageThread resolveThread(Messages message) {
+		String low = lower(message.getFrom(), message.getTo());
+		String high = higher(message.getFrom(), message.getTo());
+
+		// Replies carry the thread id they belong to; trust it only if the pair matches.
+		if (message.getThreadId() != null) {
+			MessageThread existing = messageThreadDao.findById(message.getThreadId()).orElse(null);
+			if (existing != null && low.equals(existing.getParticipantLow()) && high.equals(existing.getParticipantHigh())) {
+				return existing;
+			}
+		}
+
+		String subject = normalizeSubject(message.getSubject() != null ? message.getSubject() : message.getTitle());
+		String key = threadKey(message.getTenantId(), low, high, subject);
+		MessageThread thread = messageThreadDao.findByThreadKey(key);
+		if (thread != null) {
+			return thread;
+		}
+
+		MessageThread created = new MessageThread(key, low, high, subject, message.getTenantId());
+		try {
+			return requiresNew.execute(status -> messageThreadDao.saveAndFlush(created));
+		} catch (DataIntegrityViolationException ex) {
+			// Another request opened the same conversation concurrently
+			log.debug("Thread {} created concurrently, reusing existing row", key);
+			return messageThreadDao.findByThreadKey(key);
+		}
+	}
+
+	@Override
+	public void onMessageAdded(MessageThread thread, Messages message) {
+		String recipient = message.getTo();
+		int unreadLow = recipient != null && recipient.equals(thread.getParticipantLow()) ? 1 : 0;
+		int unreadHigh = unreadLow == 0 && recipient != null && recipient.equals(thread.getParticipantHigh()) ? 1 : 0;
+
+		messageThreadDao.appendMessage(thread.getId(), message.getId(), message.getFrom(), preview(message),
+				message.getSentAt(), unreadLow, unreadHigh);
+	}
+
+	/**
+	 * Counters change in single UPDATE statements, like {@link #onMessageAdded}, so concurrent
+	 * sends and deletes in one conversation do not overwrite each other.
+	 */
+	@Override
+	public void onMessageRemoved(Messages message) {
+		Long threadId = message.getThreadId();
+		if (threadId == null || messageThreadDao.removeMessage(threadId) == 0) {
+			return;
+		}
+
+		String recipient = message.getTo();
+		if (recipient != null) {
+			// Unread messages are the newest ones to the recipient; archived ones are older than any hot row
+			int newer = message.getSentAt() != null
+					? (int) messagesDao.countByThreadIdAndToAndSentAtAfter(threadId, recipient, message.getSentAt()) : 0;
+			if (messageThreadDao.removeUnreadLow(threadId, recipient, newer) == 0) {
+				messageThreadDao.removeUnreadHigh(threadId, recipient, newer);
+			}
+		}
+
+		if (messageThreadDao.deleteIfEmpty(threadId) > 0) {
+			return;
+		}
+
+		MessageThread thread = messageThreadDao.findById(threadId).orElse(null);
+		if (thread != null && message.getId().equals(thread.getLastMessageId())) {
+			Messages latest = messagesDao.findFirstByThreadIdOrderBySentAtDesc(threadId);
+			if (latest == null) {
+				List<Messages> archived = messageArchiveService.findByThread(threadId, 0, 1);
+				latest = archived.isEmpty() ? null : archived.get(0);
+			}
+			if (latest != null) {
+				messageThreadDao.replaceLastMessage(threadId, message.getId(), latest.getId(), latest.getFrom(),
+						preview(latest), latest.getSentAt());
+			}
+		}
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public Page<MessageThread> findThreads(String username, Pageable pageable) {
+		return messageThreadDao.findByParticipant(username, pageable);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+	public MessageThread findThread(Long id) {
+		return messageThreadDao.findById(id)
+				.orElseThrow(() -> new ResourceNotFoundException("MessageThread", "id", id));
+	}
+
+	@Override
+	public void markRead(Long threadId, String username) {
+		if (messageThreadDao.clearUnreadLow(threadId, username) == 0) {
+			messageThreadDao.clearUnreadHigh(threadId, username);
+		}
+	}
+
+	static String normalizeSubject(String subject) {
+		if (subject == null) {
+			return "";
+		}
+		return REPLY_PREFIX.matcher(subject.trim()).replaceFirst("").trim();
+	}
+
+	static String threadKey(String tenantId, String low, String high, String subject) {
+		String raw = (tenantId != null ? tenantId : "") + '\n' + low + '\n' + high + '\n'
+				+ subject.toLowerCase(Locale.ROOT);
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	private static String preview(Messages message) {
+		String text = message.getText() != null ? message.getText() : message.getTitle();
+		if (text == null) {
+			return null;
+		}
+		return text.length() <= PREVIEW_LENGTH ? text : text.substring(0, PREVIEW_LENGTH);
+	}
+
+	private static String lower(String a, String b) {
+		return nullToEmpty(a).compareTo(nullToEmpty(b)) <= 0 ? nullToEmpty(a) : nullToEmpty(b);
+	}
+
+	private static String higher(String a, String b) {
+		return nullToEmpty(a).compareTo(nullToEmpty(b)) <= 0 ? nullToEmpty(b) : nullToEmpty(a);
+	}
+
+	private static String nullToEmpty(String s) {
+		return s != null ? s : "";
+	}
+
+}
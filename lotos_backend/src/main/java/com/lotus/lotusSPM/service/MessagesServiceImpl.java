@@ -1,13 +1,24 @@
 package com.lotus.lotusSPM.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.lotus.lotusSPM.archive.MessageArchiveService;
 import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.model.MessageThread;
 import com.lotus.lotusSPM.model.Messages;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import com.lotus.lotusSPM.search.SearchDocument;
+import com.lotus.lotusSPM.search.SearchIndexService;
+import com.lotus.lotusSPM.service.base.MessageThreadService;
 import com.lotus.lotusSPM.service.base.MessagesService;
 
 
@@ -16,20 +27,61 @@ import com.lotus.lotusSPM.service.base.MessagesService;
 public class MessagesServiceImpl implements MessagesService {
 
 	private MessagesDao messagesDao;
+	private MessageThreadService messageThreadService;
+	private SearchIndexService searchIndexService;
+	private MessageArchiveService messageArchiveService;
 
 	@Autowired
 	public void setMessagesDao(MessagesDao messagesDao) {
 		this.messagesDao = messagesDao;
 	}
 
+	@Autowired
+	public void setMessageThreadService(MessageThreadService messageThreadService) {
+		this.messageThreadService = messageThreadService;
+	}
+
+	@Autowired
+	public void setSearchIndexService(SearchIndexService searchIndexService) {
+		this.searchIndexService = searchIndexService;
+	}
+
+	@Autowired
+	public void setMessageArchiveService(MessageArchiveService messageArchiveService) {
+		this.messageArchiveService = messageArchiveService;
+	}
+
 	@Override
 	public void deleteMessage(Long id) {
-		messagesDao.deleteById(id);
+		Messages message = messagesDao.findById(id).orElse(null);
+		if (message != null) {
+			messagesDao.deleteById(id);
+			messageThreadService.onMessageRemoved(message);
+		} else {
+			Messages archived = messageArchiveService.findById(id).orElse(null);
+			if (!messageArchiveService.delete(id)) {
+				messagesDao.deleteById(id);
+			} else if (archived != null) {
+				messageThreadService.onMessageRemoved(archived);
+			}
+		}
+		searchIndexService.remove(SearchDocument.Type.MESSAGE, id);
 	}
 
 	@Override
 	public Messages createMessage(Messages messages) {
-		return messagesDao.save(messages);
+		// A client id would make save() update whichever message already has it
+		messages.setId(null);
+		messages.setSentAt(LocalDateTime.now());
+		messages.setTenantId(TenantContext.getCurrentTenant());
+
+		MessageThread thread = messageThreadService.resolveThread(messages);
+		messages.setThreadId(thread.getId());
+
+		Messages saved = messagesDao.save(messages);
+		messageThreadService.onMessageAdded(thread, saved);
+		searchIndexService.indexMessage(saved);
+		return saved;
 	}
 
 	@Override
@@ -39,18 +91,48 @@ public class MessagesServiceImpl implements MessagesService {
 
 	@Override
 	public List<Messages> findByTo(String to) {
-		 List<Messages> results = messagesDao.findByTo(to);
-	        return results;	}
+		// Archived messages are older than every hot row, so they go first
+		List<Messages> results = new ArrayList<>(messageArchiveService.findByRecipient(to));
+		results.addAll(messagesDao.findByTo(to));
+		return results;
+	}
 
 	@Override
 	public List<Messages> findByFrom(String from) {
-		List<Messages> result = messagesDao.findByFrom(from);
+		List<Messages> result = new ArrayList<>(messageArchiveService.findBySender(from));
+		result.addAll(messagesDao.findByFrom(from));
 		return result;
 	}
 
+	/**
+	 * Hot rows first, then the archived ones, which are all older; the archive is only read
+	 * once a page reaches past the hot rows.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Slice<Messages> findByThread(Long threadId, Pageable pageable) {
+		Slice<Messages> hot = messagesDao.findByThreadIdOrderBySentAtDesc(threadId, pageable);
+		if (hot.hasNext()) {
+			return hot;
+		}
+		long hotCount = hot.hasContent() || pageable.getOffset() == 0
+				? pageable.getOffset() + hot.getNumberOfElements() : messagesDao.countByThreadId(threadId);
+		int wanted = pageable.getPageSize() - hot.getNumberOfElements();
+		List<Messages> archived = messageArchiveService.findByThread(threadId,
+				Math.max(0, pageable.getOffset() - hotCount), wanted + 1);
+
+		List<Messages> content = new ArrayList<>(hot.getContent());
+		content.addAll(archived.subList(0, Math.min(wanted, archived.size())));
+		return new SliceImpl<>(content, pageable, archived.size() > wanted);
+	}
+
 	@Override
 	public Messages findById(Long id) {
-		return messagesDao.findById(id)
+		Messages message = messagesDao.findById(id).orElse(null);
+		if (message != null) {
+			return message;
+		}
+		return messageArchiveService.findById(id)
 				.orElseThrow(() -> new RuntimeException("Message not found with id: " + id));
 	}
 
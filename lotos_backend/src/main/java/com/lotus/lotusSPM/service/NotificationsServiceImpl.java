@@ -1,7 +1,10 @@
 package com.lotus.lotusSPM.service;
 
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -9,6 +12,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.lotus.lotusSPM.dao.NotificationsDao;
 import com.lotus.lotusSPM.model.Notifications;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import com.lotus.lotusSPM.notification.AudienceType;
+import com.lotus.lotusSPM.notification.NotificationEngine;
+import com.lotus.lotusSPM.search.SearchDocument;
+import com.lotus.lotusSPM.search.SearchIndexService;
 import com.lotus.lotusSPM.service.base.NotificationsService;
 
 
@@ -16,16 +24,32 @@ import com.lotus.lotusSPM.service.base.NotificationsService;
 @Transactional(rollbackFor = Exception.class)
 public class NotificationsServiceImpl implements NotificationsService {
 
+	private static final Set<String> LEGACY_ROLES = new HashSet<>(
+			Arrays.asList("STUDENT", "COORDINATOR", "INSTRUCTOR", "ADMIN", "CAREER_CENTER"));
+
 	private NotificationsDao notificationsDao;
+	private SearchIndexService searchIndexService;
+	private NotificationEngine notificationEngine;
 
 	@Autowired
 	public void setNotificationsDao(NotificationsDao notificationsDao) {
 		this.notificationsDao = notificationsDao;
 	}
 
+	@Autowired
+	public void setSearchIndexService(SearchIndexService searchIndexService) {
+		this.searchIndexService = searchIndexService;
+	}
+
+	@Autowired
+	public void setNotificationEngine(NotificationEngine notificationEngine) {
+		this.notificationEngine = notificationEngine;
+	}
+
 	@Override
 	public void deleteNotifications(Long id) {
 		notificationsDao.deleteById(id);
+		searchIndexService.remove(SearchDocument.Type.NOTIFICATION, id);
 	}
 
 
@@ -36,7 +60,31 @@ public class NotificationsServiceImpl implements NotificationsService {
 
 	@Override
 	public Notifications createNotifications(Notifications notifications) {
-		return notificationsDao.save(notifications);
+		notifications.setId(null);
+		notifications.setTenantId(TenantContext.getCurrentTenant());
+		Notifications saved = notificationsDao.save(notifications);
+		searchIndexService.indexNotification(saved);
+		publishToFeed(saved);
+		return saved;
+	}
+
+	/**
+	 * Legacy notifications address a single username, a role name, or "ALL";
+	 * mirror them into the audience feeds so both APIs see them.
+	 */
+	private void publishToFeed(Notifications notification) {
+		String to = notification.getTo();
+		if (to == null || to.trim().isEmpty()) {
+			return;
+		}
+		AudienceType type = AudienceType.USER;
+		if ("ALL".equalsIgnoreCase(to) || "*".equals(to)) {
+			type = AudienceType.TENANT;
+		} else if (LEGACY_ROLES.contains(to.toUpperCase())) {
+			type = AudienceType.ROLE;
+		}
+		notificationEngine.publish(type, to, null, notification.getFrom(), notification.getTitle(),
+				notification.getText());
 	}
 
 	
@@ -1,8 +1,9 @@
 package com.lotus.lotusSPM.service;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -12,14 +13,28 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import com.lotus.lotusSPM.exception.BadRequestException;
 import com.lotus.lotusSPM.model.Opportunities;
+import com.lotus.lotusSPM.opportunity.OpportunityDeadlines;
+import com.lotus.lotusSPM.opportunity.OpportunityExpirySweeper;
+import com.lotus.lotusSPM.opportunity.OpportunityFeedCache;
+import com.lotus.lotusSPM.opportunity.OpportunityLogoService;
+import com.lotus.lotusSPM.opportunity.OpportunitySearchService;
+import com.lotus.lotusSPM.multitenant.TenantContext;
 import com.lotus.lotusSPM.service.base.OpportunitiesService;
 
+import lombok.extern.slf4j.Slf4j;
+
 @Service
 @Transactional(rollbackFor = Exception.class)
+@Slf4j
 public class OpportunitiesServiceImpl implements OpportunitiesService {
 
 	private OpportunitiesDao opportunitiesDao;
+	private OpportunityFeedCache opportunityFeedCache;
+	private OpportunityLogoService opportunityLogoService;
+	private OpportunitySearchService opportunitySearchService;
+	private OpportunityExpirySweeper opportunityExpirySweeper;
 
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
@@ -29,6 +44,26 @@ public class OpportunitiesServiceImpl implements OpportunitiesService {
 		this.opportunitiesDao = opportunitiesDao;
 	}
 
+	@Autowired
+	public void setOpportunityFeedCache(OpportunityFeedCache opportunityFeedCache) {
+		this.opportunityFeedCache = opportunityFeedCache;
+	}
+
+	@Autowired
+	public void setOpportunityLogoService(OpportunityLogoService opportunityLogoService) {
+		this.opportunityLogoService = opportunityLogoService;
+	}
+
+	@Autowired
+	public void setOpportunitySearchService(OpportunitySearchService opportunitySearchService) {
+		this.opportunitySearchService = opportunitySearchService;
+	}
+
+	@Autowired
+	public void setOpportunityExpirySweeper(OpportunityExpirySweeper opportunityExpirySweeper) {
+		this.opportunityExpirySweeper = opportunityExpirySweeper;
+	}
+
 	
 
 	@Override
@@ -54,7 +89,7 @@ public class OpportunitiesServiceImpl implements OpportunitiesService {
 
 		StringBuilder sb = new StringBuilder();
 
-		Random random = new Random();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
 
 		int length = 10;
 
@@ -81,7 +116,28 @@ public class OpportunitiesServiceImpl implements OpportunitiesService {
 
 	@Override
 	public Opportunities createOpportunities(Opportunities opportunities) {
-		return opportunitiesDao.save(opportunities);
+		opportunities.setId(null);
+		if (opportunities.getTenantId() == null) {
+			opportunities.setTenantId(TenantContext.getCurrentTenant());
+		}
+		if (opportunities.getDeadlineAt() == null) {
+			opportunities.setDeadlineAt(OpportunityDeadlines.expiryOf(opportunities.getDeadline()));
+		}
+		opportunities.setActive(opportunities.getDeadlineAt() == null
+				|| opportunities.getDeadlineAt().isAfter(LocalDateTime.now()));
+		if (opportunities.getLogo() != null) {
+			try {
+				opportunityLogoService.attach(opportunities, opportunities.getLogo());
+			} catch (BadRequestException ex) {
+				log.warn("Ignoring unreadable logo for opportunity {}: {}", opportunities.getId(), ex.getMessage());
+				opportunities.setLogo(null);
+			}
+		}
+		Opportunities saved = opportunitiesDao.save(opportunities);
+		opportunityFeedCache.invalidate();
+		opportunitySearchService.refresh(saved.getId());
+		opportunityExpirySweeper.schedule(saved.getId(), saved.getDeadlineAt());
+		return saved;
 	}
 
 }
@@ -16,6 +16,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.lotus.lotusSPM.dao.StudentDao;
 import com.lotus.lotusSPM.model.Student;
+import com.lotus.lotusSPM.multitenant.TenantContext;
 import com.lotus.lotusSPM.service.base.StudentService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -77,6 +78,10 @@ public class StudentServiceImpl implements StudentService {
 	@CacheEvict(value = "students", allEntries = true)
 	public Student createStudent(Student student) {
 		log.info("Creating new student, clearing cache");
+		student.setId(null);
+		if (student.getTenantId() == null) {
+			student.setTenantId(TenantContext.getCurrentTenant());
+		}
 		return studentDao.save(student);
 	}
 
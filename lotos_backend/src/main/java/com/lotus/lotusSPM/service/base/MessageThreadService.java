@@ -0,0 +1,18 @@
+package com.lotus.lotusSPM.service.base;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.lotus.lotusSPM.model.MessageThread;
+import com.lotus.lotusSPM.model.Messages;
+
+public interface MessageThreadService {
+
+	MessageThread resolveThread(Messages message);
+	void onMessageAdded(MessageThread thread, Messages message);
+	void onMessageRemoved(Messages message);
+	Page<MessageThread> findThreads(String username, Pageable pageable);
+	MessageThread findThread(Long id);
+	void markRead(Long threadId, String username);
+
+}
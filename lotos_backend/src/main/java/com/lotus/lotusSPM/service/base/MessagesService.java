@@ -2,6 +2,9 @@ package com.lotus.lotusSPM.service.base;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
 import com.lotus.lotusSPM.model.Messages;
 
 public interface MessagesService {
@@ -12,5 +15,6 @@ public interface MessagesService {
 	List<Messages> findByTo(String to);
 	List<Messages> findByFrom(String from);
 	Messages findById(Long id);
+	Slice<Messages> findByThread(Long threadId, Pageable pageable);
 
 }
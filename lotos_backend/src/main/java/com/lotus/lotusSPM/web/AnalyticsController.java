@@ -1,13 +1,36 @@
 package com.lotus.lotusSPM.web;
 
 import com.lotus.lotusSPM.analytics.AnalyticsService;
+import com.lotus.lotusSPM.analytics.CubeQuery;
+import com.lotus.lotusSPM.analytics.CubeResult;
+import com.lotus.lotusSPM.analytics.SnapshotGranularity;
+import com.lotus.lotusSPM.analytics.TimeSeriesPoint;
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import com.lotus.lotusSPM.prediction.PredictionService;
+import com.lotus.lotusSPM.report.ReportEngine;
+import com.lotus.lotusSPM.report.ReportFormat;
+import com.lotus.lotusSPM.report.ReportJob;
+import com.lotus.lotusSPM.report.ReportJobService;
+import com.lotus.lotusSPM.report.ReportQuery;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Path;
+import java.security.Principal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +40,22 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class AnalyticsController {
 
+    private static final int MAX_ACTIVITY_DAYS = 366;
+    // Sketches track the top 100 by default; more would not be reliable
+    private static final int MAX_ACTIVITY_LIMIT = 100;
+
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private ReportEngine reportEngine;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @Autowired
+    private PredictionService predictionService;
+
     @GetMapping("/enrollment")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR')")
     @Operation(summary = "Get enrollment statistics", description = "Retrieve enrollment data by faculty, department, and status")
@@ -44,6 +80,13 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/dashboard")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR')")
+    @Operation(summary = "Get dashboard", description = "Enrollment, placement and trend together; failed sections are listed under errors")
+    public ResponseEntity<Map<String, Object>> getDashboard() {
+        return ResponseEntity.ok(analyticsService.getDashboard());
+    }
+
     @GetMapping("/trend")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR')")
     @Operation(summary = "Get enrollment trend", description = "Retrieve time-series enrollment data")
@@ -56,6 +99,46 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/timeseries")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'CAREER_CENTER')")
+    @Operation(summary = "Get metric history",
+        description = "Checkpointed metric values per day, week or month; granularity is chosen from the span when omitted")
+    public ResponseEntity<List<TimeSeriesPoint>> getMetricSeries(
+            @RequestParam String metric,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        LocalDate end = to != null ? parseDate(to, "to") : LocalDate.now();
+        LocalDate start = from != null ? parseDate(from, "from") : end.minusYears(1);
+        return ResponseEntity.ok(analyticsService.getMetricSeries(metric, parseGranularity(granularity), start, end));
+    }
+
+    @GetMapping("/activity")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'CAREER_CENTER')")
+    @Operation(summary = "Get approximate activity",
+        description = "Distinct active users and the companies and opportunities with the most letters and views "
+            + "over the last days, estimated from sketches with their error bounds")
+    public ResponseEntity<Map<String, Object>> getActivity(
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (days < 1 || days > MAX_ACTIVITY_DAYS) {
+            throw new BadRequestException("days must be between 1 and " + MAX_ACTIVITY_DAYS);
+        }
+        if (limit < 1 || limit > MAX_ACTIVITY_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_ACTIVITY_LIMIT);
+        }
+        return ResponseEntity.ok(analyticsService.getActivity(days, limit));
+    }
+
+    @GetMapping("/cube")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'CAREER_CENTER')")
+    @Operation(summary = "Slice students",
+        description = "Student counts grouped by any of tenant, faculty, department, status and period (groupBy), "
+            + "filtered by comma-separated values per dimension and periodFrom/periodTo (yyyy-MM)")
+    public ResponseEntity<CubeResult> sliceStudents(@RequestParam Map<String, String> parameters) {
+        return ResponseEntity.ok(analyticsService.sliceStudents(CubeQuery.from(parameters)));
+    }
+
     @PostMapping("/report/custom")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Generate custom report", description = "Create custom analytics report with filters")
@@ -68,15 +151,103 @@ public class AnalyticsController {
         }
     }
 
+    @GetMapping("/report/custom/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export custom report",
+        description = "Stream every matching student as CSV or XLSX; takes the same filters as the custom report")
+    public ResponseEntity<StreamingResponseBody> exportCustomReport(
+            @RequestParam Map<String, String> filters,
+            @RequestParam(defaultValue = "csv") String format) {
+        ReportFormat reportFormat = ReportFormat.parse(format);
+        // Compiled up front so invalid filters are rejected before the response starts
+        ReportQuery query = ReportQuery.compile(filters, TenantContext.getCurrentTenant());
+        StreamingResponseBody body = out -> reportEngine.export(query, reportFormat, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(reportFormat.getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"students-report." + reportFormat.getExtension() + "\"")
+            .body(body);
+    }
+
+    @PostMapping("/report/custom/jobs")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Queue custom report",
+        description = "Generate a large report in the background; poll the job and download it when completed")
+    public ResponseEntity<Map<String, Object>> submitCustomReport(
+            @RequestBody Map<String, String> filters,
+            @RequestParam(defaultValue = "csv") String format,
+            Principal principal) {
+        ReportJob job = reportJobService.submit(filters, ReportFormat.parse(format), principal.getName());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(describe(job));
+    }
+
+    @GetMapping("/report/custom/jobs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get custom report job", description = "Status and summary of a queued report")
+    public ResponseEntity<Map<String, Object>> getCustomReport(@PathVariable String id, Principal principal) {
+        return ResponseEntity.ok(describe(reportJobService.get(id, principal.getName())));
+    }
+
+    @GetMapping("/report/custom/jobs/{id}/download")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Download custom report", description = "The finished file of a completed report job")
+    public ResponseEntity<Resource> downloadCustomReport(@PathVariable String id, Principal principal) {
+        ReportJob job = reportJobService.get(id, principal.getName());
+        Path file = reportJobService.output(job);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(job.getFormat().getContentType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+            .body(new FileSystemResource(file));
+    }
+
     @GetMapping("/predict/student/{studentId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR')")
-    @Operation(summary = "Predict student success", description = "Get ML-based success prediction for a student")
-    public ResponseEntity<?> predictStudentSuccess(@PathVariable Long studentId) {
+    @Operation(summary = "Predict student success", description = "Get the batch-scored success prediction for a student")
+    public ResponseEntity<Map<String, Object>> predictStudentSuccess(@PathVariable Long studentId) {
+        return ResponseEntity.ok(analyticsService.predictStudentSuccess(studentId));
+    }
+
+    @PostMapping("/predict/score")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Score all students", description = "Start a batch scoring run outside the nightly schedule")
+    public ResponseEntity<Map<String, Object>> scoreStudents() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("started", predictionService.scoreAllAsync());
+        body.put("modelVersion", predictionService.getModelVersion());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
+    private static Map<String, Object> describe(ReportJob job) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", job.getId());
+        body.put("status", job.getStatus());
+        body.put("format", job.getFormat());
+        body.put("createdAt", job.getCreatedAt());
+        body.put("completedAt", job.getCompletedAt());
+        body.put("summary", job.getSummary());
+        body.put("error", job.getError());
+        if (job.getStatus() == ReportJob.Status.COMPLETED) {
+            body.put("downloadUrl", "/api/analytics/report/custom/jobs/" + job.getId() + "/download");
+        }
+        return body;
+    }
+
+    private static LocalDate parseDate(String value, String field) {
         try {
-            Map<String, Object> prediction = analyticsService.predictStudentSuccess(studentId);
-            return ResponseEntity.ok(prediction);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error generating prediction: " + e.getMessage());
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(field + " must be an ISO date (yyyy-MM-dd)");
+        }
+    }
+
+    private static SnapshotGranularity parseGranularity(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return SnapshotGranularity.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("granularity must be one of DAY, WEEK, MONTH");
         }
     }
 }
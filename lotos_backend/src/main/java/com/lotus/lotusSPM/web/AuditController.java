@@ -0,0 +1,80 @@
+package com.lotus.lotusSPM.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lotus.lotusSPM.audit.AuditHistoryService;
+import com.lotus.lotusSPM.audit.AuditPage;
+import com.lotus.lotusSPM.audit.AuditQuery;
+import com.lotus.lotusSPM.audit.AuditSearchService;
+import com.lotus.lotusSPM.audit.AuditVerification;
+import com.lotus.lotusSPM.audit.AuditVerificationService;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/audit")
+@Tag(name = "Audit", description = "Audit trail of changes to entities")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class AuditController {
+
+    @Autowired
+    private AuditHistoryService auditHistoryService;
+
+    @Autowired
+    private AuditSearchService auditSearchService;
+
+    @Autowired
+    private AuditVerificationService auditVerificationService;
+
+    @GetMapping
+    @Operation(summary = "Search audit records",
+        description = "Newest first, filtered by username, action, or entityType and entityId, and from/to; "
+            + "pass a page's nextCursor as 'cursor' to get the next one")
+    public ResponseEntity<AuditPage> search(@RequestParam Map<String, String> filters,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int size) {
+        AuditQuery query = AuditQuery.compile(filters, TenantContext.getCurrentTenant());
+        return ResponseEntity.ok(auditSearchService.search(query, cursor, size));
+    }
+
+    @GetMapping("/export")
+    @Operation(summary = "Export audit records",
+        description = "Stream every matching record as newline-delimited JSON; takes the same filters as the search")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam Map<String, String> filters) {
+        // Compiled up front so invalid filters are rejected before the response starts
+        AuditQuery query = AuditQuery.compile(filters, TenantContext.getCurrentTenant());
+        StreamingResponseBody body = out -> auditSearchService.export(query, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audit.jsonl\"")
+            .body(body);
+    }
+
+    @GetMapping("/{id}/state")
+    @Operation(summary = "Audited change in full",
+        description = "The entity's state before and after the audited change, rebuilt from snapshots and diffs")
+    public ResponseEntity<Map<String, JsonNode>> getState(@PathVariable Long id) {
+        Map<String, JsonNode> state = new LinkedHashMap<>();
+        state.put("before", auditHistoryService.stateBefore(id));
+        state.put("after", auditHistoryService.stateAfter(id));
+        return ResponseEntity.ok(state);
+    }
+
+    @PostMapping("/verify")
+    @Operation(summary = "Verify the audit hash chain",
+        description = "Checks the segments written since the last passing check, or the whole chain with full=true")
+    public ResponseEntity<AuditVerification> verify(@RequestParam(defaultValue = "false") boolean full) {
+        return ResponseEntity.ok(auditVerificationService.verify(full));
+    }
+}
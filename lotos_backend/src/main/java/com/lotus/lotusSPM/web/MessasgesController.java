@@ -4,19 +4,27 @@ import java.net.URI;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import com.lotus.lotusSPM.model.Admin;
+import com.lotus.lotusSPM.model.MessageThread;
 import com.lotus.lotusSPM.model.Messages;
 import com.lotus.lotusSPM.model.Notifications;
+import com.lotus.lotusSPM.service.base.MessageThreadService;
 import com.lotus.lotusSPM.service.base.MessagesService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +36,9 @@ public class MessasgesController {
 	@Autowired
 	private MessagesService messagesService;
 
+	@Autowired
+	private MessageThreadService messageThreadService;
+
 
 	@GetMapping("/message/{id}")
 	public ResponseEntity<Object> getMessage(@PathVariable("id") Long id) {
@@ -58,8 +69,8 @@ public class MessasgesController {
 	@PostMapping("/message")
 	public ResponseEntity<URI> createMessages(@RequestBody Messages messages) {
 		try {
-			messagesService.createMessage(messages);
-			Long id = messages.getId();
+			Messages saved = messagesService.createMessage(messages);
+			Long id = saved.getId();
 			URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(id).toUri();
 			return ResponseEntity.created(location).build();
 		} catch (Exception ex) {
@@ -83,4 +94,40 @@ public class MessasgesController {
 
 	}
 
+	/**
+	 * List conversations for a user, most recently active first.
+	 */
+	@GetMapping("/messageThreads/{username}")
+	public ResponseEntity<Page<MessageThread>> getThreads(@PathVariable("username") String username,
+			@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "20") int size) {
+		size = Math.min(size, 100);
+		Page<MessageThread> threads = messageThreadService.findThreads(username,
+				PageRequest.of(page, size, Sort.by("lastMessageAt").descending()));
+		return ResponseEntity.ok(threads);
+	}
+
+	@GetMapping("/messageThread/{id}")
+	public ResponseEntity<MessageThread> getThread(@PathVariable("id") Long id) {
+		return ResponseEntity.ok(messageThreadService.findThread(id));
+	}
+
+	/**
+	 * Messages of one conversation, newest first. Served by the (thread_id, sent_at) index
+	 * without a count query; the total is available on the thread summary.
+	 */
+	@GetMapping("/messageThread/{id}/messages")
+	public ResponseEntity<Slice<Messages>> getThreadMessages(@PathVariable("id") Long id,
+			@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "50") int size) {
+		size = Math.min(size, 100);
+		return ResponseEntity.ok(messagesService.findByThread(id, PageRequest.of(page, size)));
+	}
+
+	@PutMapping("/messageThread/{id}/read/{username}")
+	public ResponseEntity<?> markThreadRead(@PathVariable("id") Long id, @PathVariable("username") String username) {
+		messageThreadService.markRead(id, username);
+		return ResponseEntity.ok().build();
+	}
+
 }
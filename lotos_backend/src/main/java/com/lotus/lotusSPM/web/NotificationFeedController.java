@@ -0,0 +1,109 @@
+package com.lotus.lotusSPM.web;
+
+import com.lotus.lotusSPM.notification.AudienceType;
+import com.lotus.lotusSPM.notification.BroadcastNotification;
+import com.lotus.lotusSPM.notification.FeedItem;
+import com.lotus.lotusSPM.notification.NotificationEngine;
+import com.lotus.lotusSPM.notification.ScheduledNotification;
+import com.lotus.lotusSPM.notification.ScheduledNotificationService;
+import com.lotus.lotusSPM.security.UserPrincipal;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@Tag(name = "Notifications", description = "Audience-targeted notifications and per-user feeds")
+public class NotificationFeedController {
+
+    @Autowired
+    private NotificationEngine notificationEngine;
+
+    @Autowired
+    private ScheduledNotificationService scheduledNotificationService;
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'INSTRUCTOR', 'CAREER_CENTER')")
+    @Operation(summary = "Publish notification", description = "Send to a user, role, department or the whole tenant")
+    public ResponseEntity<BroadcastNotification> publish(@RequestBody Map<String, String> request,
+                                                         @AuthenticationPrincipal UserPrincipal user) {
+        AudienceType audienceType;
+        try {
+            audienceType = AudienceType.valueOf(String.valueOf(request.get("audienceType")).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            audienceType = null;
+        }
+        BroadcastNotification published = notificationEngine.publish(audienceType, request.get("audienceValue"),
+            request.get("eventType"), user.getUsername(), request.get("title"), request.get("text"));
+        return ResponseEntity.status(HttpStatus.CREATED).body(published);
+    }
+
+    @GetMapping("/feed")
+    @Operation(summary = "Notification feed", description = "Newest first; pass the last id of a page as 'before' to get the next one")
+    public ResponseEntity<?> feed(@RequestParam(required = false) Long before,
+                                  @RequestParam(defaultValue = "20") int size,
+                                  @AuthenticationPrincipal UserPrincipal user) {
+        size = Math.min(size, 100);
+        List<FeedItem> items = notificationEngine.feed(user.getUsername(), user.getRole(), before, size);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("items", items);
+        body.put("nextBefore", items.size() == size ? items.get(items.size() - 1).getId() : null);
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping("/counts")
+    @Operation(summary = "Unread and unseen counts")
+    public ResponseEntity<Map<String, Long>> counts(@AuthenticationPrincipal UserPrincipal user) {
+        return ResponseEntity.ok(notificationEngine.counts(user.getUsername(), user.getRole()));
+    }
+
+    @PutMapping("/{id}/read")
+    @Operation(summary = "Mark one notification read")
+    public ResponseEntity<Void> markRead(@PathVariable("id") Long id, @AuthenticationPrincipal UserPrincipal user) {
+        notificationEngine.markRead(user.getUsername(), user.getRole(), id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping("/read-all")
+    @Operation(summary = "Mark the whole feed read")
+    public ResponseEntity<Void> markAllRead(@AuthenticationPrincipal UserPrincipal user) {
+        notificationEngine.markAllRead(user.getUsername(), user.getRole());
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/scheduled")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'INSTRUCTOR', 'CAREER_CENTER')")
+    @Operation(summary = "Schedule notification", description = "Publish to the audience at fireAt, e.g. a deadline reminder")
+    public ResponseEntity<ScheduledNotification> schedule(@RequestBody ScheduledNotification request,
+                                                          @AuthenticationPrincipal UserPrincipal user) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(scheduledNotificationService.schedule(request, user.getUsername()));
+    }
+
+    @GetMapping("/scheduled")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'INSTRUCTOR', 'CAREER_CENTER')")
+    @Operation(summary = "Pending scheduled notifications of the caller")
+    public ResponseEntity<List<ScheduledNotification>> scheduled(@RequestParam(defaultValue = "0") int page,
+                                                                 @RequestParam(defaultValue = "20") int size,
+                                                                 @AuthenticationPrincipal UserPrincipal user) {
+        return ResponseEntity.ok(scheduledNotificationService.findPending(user.getUsername(), page, Math.min(size, 100)));
+    }
+
+    @DeleteMapping("/scheduled/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'INSTRUCTOR', 'CAREER_CENTER')")
+    @Operation(summary = "Cancel a pending scheduled notification")
+    public ResponseEntity<Void> cancelScheduled(@PathVariable("id") Long id, @AuthenticationPrincipal UserPrincipal user) {
+        scheduledNotificationService.cancel(id, user.getUsername(), "ADMIN".equals(user.getRole()));
+        return ResponseEntity.noContent().build();
+    }
+}
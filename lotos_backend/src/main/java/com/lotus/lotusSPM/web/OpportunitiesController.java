@@ -17,6 +17,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.lotus.lotusSPM.analytics.AnalyticsSketches;
 import com.lotus.lotusSPM.message.ResponseMessage;
 import com.lotus.lotusSPM.model.Opportunities;
 import com.lotus.lotusSPM.service.base.OpportunitiesService;
@@ -30,6 +31,9 @@ public class OpportunitiesController {
 	@Autowired
 	private OpportunitiesService opportunitiesService;
 
+	@Autowired
+	private AnalyticsSketches analyticsSketches;
+
 	@PostMapping("/opportunitie")
 	public ResponseEntity<URI> createOpportunitie(@RequestBody Opportunities opportunities) {
 		try {
@@ -55,6 +59,7 @@ public class OpportunitiesController {
 	public ResponseEntity<Object> getOpportunities(@PathVariable("id") Long id) {
 
 		Opportunities opp = opportunitiesService.findById(id);
+		analyticsSketches.recordOpportunityView(id);
 		return ResponseEntity.ok(opp);
 
 	}
@@ -0,0 +1,167 @@
+package com.lotus.lotusSPM.web;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.exception.ResourceNotFoundException;
+import com.lotus.lotusSPM.opportunity.LogoVariant;
+import com.lotus.lotusSPM.opportunity.OpportunityFacetIndex;
+import com.lotus.lotusSPM.opportunity.OpportunityFeedCache;
+import com.lotus.lotusSPM.opportunity.OpportunityLogo;
+import com.lotus.lotusSPM.opportunity.OpportunityLogoService;
+import com.lotus.lotusSPM.opportunity.OpportunitySearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public, anonymous read API for opportunities, served from {@link OpportunityFeedCache}.
+ */
+@RestController
+@RequestMapping("/api/opportunities")
+@Tag(name = "Opportunities", description = "Public opportunities feed")
+public class OpportunityFeedController {
+
+    private static final long LOGO_MAX_AGE_DAYS = 365;
+
+    @Autowired
+    private OpportunityFeedCache feedCache;
+
+    @Autowired
+    private OpportunityLogoService logoService;
+
+    @Autowired
+    private OpportunitySearchService searchService;
+
+    @Value("${app.opportunities.feed.max-age-seconds:30}")
+    private long maxAgeSeconds;
+
+    @Value("${app.opportunities.feed.stale-while-revalidate-seconds:60}")
+    private long staleWhileRevalidateSeconds;
+
+    @GetMapping
+    @Operation(summary = "List opportunities", description = "Newest first, without logos; supports If-None-Match / If-Modified-Since")
+    public ResponseEntity<byte[]> list(WebRequest request) {
+        OpportunityFeedCache.Snapshot snapshot = feedCache.current();
+        if (request.checkNotModified(snapshot.getEtag(), snapshot.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl())
+            .eTag(snapshot.getEtag())
+            .lastModified(snapshot.getLastModified())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(snapshot.getBody());
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search opportunities", description = "Full-text plus location/company/job type facets and a deadline range; newest first")
+    public ResponseEntity<OpportunityFacetIndex.Result> search(
+            @RequestParam(value = "q", required = false) String q,
+            @RequestParam(value = "location", required = false) List<String> locations,
+            @RequestParam(value = "company", required = false) List<String> companies,
+            @RequestParam(value = "jobType", required = false) List<String> jobTypes,
+            @RequestParam(value = "deadlineFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate deadlineFrom,
+            @RequestParam(value = "deadlineTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate deadlineTo,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, 100));
+        Map<OpportunityFacetIndex.Facet, Set<String>> filters = new EnumMap<>(OpportunityFacetIndex.Facet.class);
+        addFilter(filters, OpportunityFacetIndex.Facet.LOCATION, locations);
+        addFilter(filters, OpportunityFacetIndex.Facet.COMPANY, companies);
+        addFilter(filters, OpportunityFacetIndex.Facet.JOB_TYPE, jobTypes);
+        OpportunityFacetIndex.Query query = new OpportunityFacetIndex.Query(q, filters, deadlineFrom, deadlineTo,
+            Math.max(0, page) * pageSize, pageSize);
+        // Results are tenant-scoped, so unlike the feed they are not publicly cacheable
+        return ResponseEntity.ok(searchService.search(query));
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get opportunity")
+    public ResponseEntity<byte[]> get(@PathVariable("id") Long id, WebRequest request) {
+        OpportunityFeedCache.Snapshot snapshot = feedCache.current();
+        OpportunityFeedCache.Entry entry = snapshot.get(id);
+        if (entry == null) {
+            throw new ResourceNotFoundException("Opportunity", "id", id);
+        }
+        if (request.checkNotModified(entry.getEtag(), snapshot.getLastModified())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl())
+            .eTag(entry.getEtag())
+            .lastModified(snapshot.getLastModified())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(entry.getBody());
+    }
+
+    @GetMapping("/logos/{hash}/{variant}")
+    @Operation(summary = "Get logo variant", description = "Content-addressed; the URL changes whenever the logo does")
+    public ResponseEntity<byte[]> logo(@PathVariable("hash") String hash, @PathVariable("variant") String variant,
+                                       WebRequest request) {
+        LogoVariant logoVariant = LogoVariant.fromPath(variant);
+        if (logoVariant == null) {
+            throw new ResourceNotFoundException("Logo", "variant", variant);
+        }
+        String etag = "\"" + hash + "-" + logoVariant.getPath() + "\"";
+        // CacheControl has no immutable() in this Spring version, so the directive is appended by hand
+        String immutable = CacheControl.maxAge(LOGO_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic().getHeaderValue()
+            + ", immutable";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        OpportunityLogo logo = logoService.find(hash, logoVariant);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, immutable)
+            .eTag(etag)
+            .contentType(MediaType.parseMediaType(logo.getContentType()))
+            .body(logo.getData());
+    }
+
+    @PostMapping(value = "/{id}/logo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'COORDINATOR', 'CAREER_CENTER')")
+    @Operation(summary = "Upload opportunity logo", description = "Stores the original plus resized variants")
+    public ResponseEntity<Map<String, String>> uploadLogo(@PathVariable("id") Long id,
+                                                          @RequestParam("file") MultipartFile file) {
+        byte[] bytes;
+        try {
+            bytes = file.getBytes();
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read uploaded logo");
+        }
+        String hash = logoService.upload(id, bytes);
+        return ResponseEntity.ok(Collections.singletonMap("logoUrl",
+            OpportunityLogoService.logoUrl(hash, LogoVariant.MEDIUM)));
+    }
+
+    private static void addFilter(Map<OpportunityFacetIndex.Facet, Set<String>> filters,
+                                  OpportunityFacetIndex.Facet facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, new LinkedHashSet<>(values));
+        }
+    }
+
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS)
+            .cachePublic()
+            .staleWhileRevalidate(staleWhileRevalidateSeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,48 @@
+package com.lotus.lotusSPM.web;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.search.InvertedIndex;
+import com.lotus.lotusSPM.search.SearchIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@Tag(name = "Search", description = "Full-text search over messages and notifications")
+public class SearchController {
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @GetMapping
+    @Operation(summary = "Search inbox", description = "Ranked search over the caller's messages and notifications; the last word matches as a prefix")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "20") int size,
+                                    Principal principal) {
+        if (query.trim().isEmpty()) {
+            throw new BadRequestException("Search query must not be empty");
+        }
+        if (page < 0 || size < 1) {
+            throw new BadRequestException("Page must be at least 0 and size at least 1");
+        }
+        size = Math.min(size, 100);
+
+        InvertedIndex.SearchResult result = searchIndexService.search(principal.getName(), query, page, size);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("total", result.getTotal());
+        body.put("page", page);
+        body.put("size", size);
+        body.put("hits", result.getHits());
+        body.put("complete", searchIndexService.isReady());
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,17 @@
+-- Opportunity logo variants
+-- Version: 10.0.0
+-- Description: Content-addressed logo sizes stored outside the opportunities row
+
+CREATE TABLE IF NOT EXISTS opportunity_logos (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    content_hash CHAR(64) NOT NULL,
+    variant VARCHAR(16) NOT NULL,
+    content_type VARCHAR(50) NOT NULL,
+    width INT NOT NULL,
+    height INT NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_opportunity_logos_hash_variant (content_hash, variant)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE opportunities ADD COLUMN logo_hash CHAR(64) NULL;
@@ -0,0 +1,12 @@
+-- Opportunity facets
+-- Version: 11.0.0
+-- Description: Job type and tenant scoping for the in-memory opportunity search index
+
+ALTER TABLE opportunities ADD COLUMN job_type VARCHAR(50) NULL;
+
+-- V4 added tenant_id as BIGINT; tenant ids are strings, as on messages (V6)
+ALTER TABLE opportunities MODIFY COLUMN tenant_id VARCHAR(100) NULL;
+
+-- Index loads page through a tenant by id
+DROP INDEX idx_opportunities_tenant ON opportunities;
+CREATE INDEX idx_opportunities_tenant ON opportunities (tenant_id, id);
@@ -0,0 +1,24 @@
+-- Opportunity expiry
+-- Version: 12.0.0
+-- Description: Typed deadline and active flag so expired postings drop out of feeds
+
+ALTER TABLE opportunities
+    ADD COLUMN deadline_at DATETIME(6) NULL,
+    ADD COLUMN active BOOLEAN NOT NULL DEFAULT TRUE;
+
+-- Date-only deadlines stay open for the whole day; other formats are filled in by the application
+UPDATE opportunities
+SET deadline_at = DATE_ADD(STR_TO_DATE(LEFT(deadline, 10), '%Y-%m-%d'), INTERVAL 1 DAY)
+WHERE deadline REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}';
+
+UPDATE opportunities
+SET deadline_at = DATE_ADD(STR_TO_DATE(deadline, '%d.%m.%Y'), INTERVAL 1 DAY)
+WHERE deadline_at IS NULL AND deadline REGEXP '^[0-9]{1,2}\\.[0-9]{1,2}\\.[0-9]{4}$';
+
+UPDATE opportunities
+SET deadline_at = DATE_ADD(STR_TO_DATE(deadline, '%d/%m/%Y'), INTERVAL 1 DAY)
+WHERE deadline_at IS NULL AND deadline REGEXP '^[0-9]{1,2}/[0-9]{1,2}/[0-9]{4}$';
+
+UPDATE opportunities SET active = FALSE WHERE deadline_at IS NOT NULL AND deadline_at <= NOW();
+
+CREATE INDEX idx_opportunities_active_deadline ON opportunities (active, deadline_at);
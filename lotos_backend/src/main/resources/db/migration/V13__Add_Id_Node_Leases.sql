@@ -0,0 +1,9 @@
+-- Id generator node leases
+-- Version: 13.0.0
+-- Description: Database fallback for leasing k-sortable id generator node ids when Redis is down
+
+CREATE TABLE IF NOT EXISTS id_node_leases (
+    node_id INT PRIMARY KEY,
+    owner VARCHAR(100) NOT NULL,
+    expires_at BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
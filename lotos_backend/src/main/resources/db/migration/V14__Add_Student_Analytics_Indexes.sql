@@ -0,0 +1,6 @@
+-- Student analytics indexes
+-- Version: 14.0.0
+-- Description: Make the faculty/department index cover the grouped analytics scan
+
+DROP INDEX idx_student_faculty_dept ON student;
+CREATE INDEX idx_student_faculty_dept ON student(faculty, department, internship_status);
@@ -0,0 +1,10 @@
+-- Incremental analytics aggregates
+-- Version: 15.0.0
+-- Description: Tenant-scoped student counts and per-day checkpoints of the in-memory counters
+
+-- Tenant ids are strings everywhere else (see V11)
+ALTER TABLE student MODIFY COLUMN tenant_id VARCHAR(100) NULL;
+CREATE INDEX idx_student_tenant_cells ON student(tenant_id, faculty, department, internship_status);
+
+ALTER TABLE analytics_snapshots MODIFY COLUMN tenant_id VARCHAR(100) NULL;
+CREATE INDEX idx_snapshot_metric_tenant_date ON analytics_snapshots(metric_name, tenant_id, snapshot_date);
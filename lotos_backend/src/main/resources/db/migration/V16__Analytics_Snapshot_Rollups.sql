@@ -0,0 +1,12 @@
+-- Snapshot rollups
+-- Version: 16.0.0
+-- Description: Day, week and month buckets in analytics_snapshots for downsampled trend charts
+
+ALTER TABLE analytics_snapshots
+    ADD COLUMN granularity VARCHAR(10) NOT NULL DEFAULT 'DAY';
+
+-- Ids are now assigned by the application so inserts can be batched
+ALTER TABLE analytics_snapshots MODIFY COLUMN id BIGINT NOT NULL;
+
+DROP INDEX idx_snapshot_metric_tenant_date ON analytics_snapshots;
+CREATE INDEX idx_snapshot_series ON analytics_snapshots(metric_name, tenant_id, granularity, snapshot_date);
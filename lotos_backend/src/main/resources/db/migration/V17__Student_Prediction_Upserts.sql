@@ -0,0 +1,10 @@
+-- Batch-scored predictions
+-- Version: 17.0.0
+-- Description: One row per student and prediction type, overwritten by each scoring run
+
+-- Ids are now assigned by the application so inserts can be batched
+ALTER TABLE student_predictions MODIFY COLUMN id BIGINT NOT NULL;
+
+-- Created first: the student foreign key needs an index leading with student_id
+CREATE UNIQUE INDEX uk_prediction_student_type ON student_predictions(student_id, prediction_type);
+DROP INDEX idx_prediction_student ON student_predictions;
@@ -0,0 +1,6 @@
+-- Student cube
+-- Version: 18.0.0
+-- Description: Enrollment month joins the cell grouping, so the covering index carries created_at
+
+DROP INDEX idx_student_tenant_cells ON student;
+CREATE INDEX idx_student_tenant_cells ON student(tenant_id, faculty, department, internship_status, created_at);
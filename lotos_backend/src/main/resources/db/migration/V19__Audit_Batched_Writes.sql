@@ -0,0 +1,5 @@
+-- Batched audit writes
+-- Version: 19.0.0
+-- Description: Audit ids are assigned by the application so the audit writer can batch its inserts
+
+ALTER TABLE audit_log MODIFY COLUMN id BIGINT NOT NULL;
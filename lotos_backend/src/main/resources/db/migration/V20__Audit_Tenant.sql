@@ -0,0 +1,5 @@
+-- Audit tenant
+-- Version: 20.0.0
+-- Description: Audit records keep the tenant captured on the request thread
+
+ALTER TABLE audit_log ADD COLUMN tenant_id VARCHAR(100) NULL;
@@ -0,0 +1,10 @@
+-- Audit value diffs
+-- Version: 21.0.0
+-- Description: Audit updates store a JSON Patch between periodic full snapshots; rows without a format keep both full values
+
+ALTER TABLE audit_log ADD COLUMN value_format VARCHAR(10) NULL;
+
+CREATE INDEX idx_audit_entity ON audit_log (entity_type, entity_id);
+
+-- Versions of an entity are replayed in timestamp order; whole seconds would tie too often
+ALTER TABLE audit_log MODIFY COLUMN timestamp TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
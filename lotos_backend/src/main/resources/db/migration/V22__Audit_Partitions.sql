@@ -0,0 +1,37 @@
+-- Audit partitioning and archival
+-- Version: 22.0.0
+-- Description: Monthly partitions for audit_log and the manifest of months exported to files
+
+-- =====================================================
+-- Archive Manifest
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS audit_archive (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    period VARCHAR(7) NOT NULL,
+    file_name VARCHAR(100) NOT NULL,
+    row_count BIGINT NOT NULL,
+    min_timestamp DATETIME(6) NOT NULL,
+    max_timestamp DATETIME(6) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    sha256 CHAR(64) NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    INDEX idx_audit_archive_period (period),
+    INDEX idx_audit_archive_range (min_timestamp, max_timestamp)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- Monthly Partitions
+-- =====================================================
+
+-- RANGE COLUMNS accepts DATETIME but not TIMESTAMP, and UNIX_TIMESTAMP() of a
+-- TIMESTAMP(3) is DECIMAL, which no partitioning function may return (ERROR 1491)
+ALTER TABLE audit_log MODIFY COLUMN timestamp DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3);
+
+-- Every unique key of a partitioned table must include the partitioning column
+ALTER TABLE audit_log DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp);
+
+-- One catch-all partition; the application splits months off it (AuditPartitions)
+ALTER TABLE audit_log PARTITION BY RANGE COLUMNS (timestamp) (
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
@@ -0,0 +1,13 @@
+-- Audit search indexes
+-- Version: 23.0.0
+-- Description: Each audit search filter has an index ending in the timestamp, so keyset pages are range scans
+
+CREATE INDEX idx_audit_user_time ON audit_log (username, timestamp);
+CREATE INDEX idx_audit_action_time ON audit_log (action, timestamp);
+CREATE INDEX idx_audit_entity_time ON audit_log (entity_type, entity_id, timestamp);
+
+-- Prefixes of the indexes above
+DROP INDEX idx_audit_username ON audit_log;
+DROP INDEX idx_audit_action ON audit_log;
+DROP INDEX idx_audit_entity_type ON audit_log;
+DROP INDEX idx_audit_entity ON audit_log;
@@ -0,0 +1,51 @@
+-- Audit hash chain
+-- Version: 24.0.0
+-- Description: Each batch of audit records is a segment of a hash chain with a Merkle root over its records, for tamper evidence
+
+ALTER TABLE audit_log ADD COLUMN segment_id BIGINT NULL;
+
+CREATE INDEX idx_audit_segment ON audit_log (segment_id);
+
+-- =====================================================
+-- Chain
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS audit_segment (
+    sequence BIGINT PRIMARY KEY,
+    record_count INT NOT NULL,
+    min_timestamp DATETIME(3) NOT NULL,
+    max_timestamp DATETIME(3) NOT NULL,
+    merkle_root CHAR(64) NOT NULL,
+    previous_hash CHAR(64) NOT NULL,
+    hash CHAR(64) NOT NULL,
+    written_at DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- One row, locked by each writer appending a segment
+CREATE TABLE IF NOT EXISTS audit_chain_head (
+    id BIGINT PRIMARY KEY,
+    sequence BIGINT NOT NULL,
+    hash CHAR(64) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO audit_chain_head (id, sequence, hash) VALUES (1, 0, REPEAT('0', 64));
+
+-- =====================================================
+-- Verification Runs
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS audit_verification (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    full_scan BOOLEAN NOT NULL,
+    after_sequence BIGINT NOT NULL,
+    through_sequence BIGINT NOT NULL,
+    through_hash CHAR(64) NOT NULL,
+    segments BIGINT NOT NULL,
+    records BIGINT NOT NULL,
+    failures INT NOT NULL,
+    detail VARCHAR(2000) NULL,
+    passed BOOLEAN NOT NULL,
+    started_at DATETIME(6) NOT NULL,
+    finished_at DATETIME(6) NULL,
+    INDEX idx_audit_verification_passed (passed, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
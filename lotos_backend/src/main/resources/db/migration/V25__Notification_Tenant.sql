@@ -0,0 +1,5 @@
+-- Notification tenant
+-- Version: 25.0.0
+-- Description: Notifications keep the tenant they were created under, so every search index path scopes them alike
+
+ALTER TABLE notifications ADD COLUMN tenant_id VARCHAR(100) NULL;
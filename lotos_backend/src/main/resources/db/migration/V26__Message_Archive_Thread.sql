@@ -0,0 +1,6 @@
+-- Archived messages by conversation
+-- Version: 26.0.0
+-- Description: Archive index rows carry the message's thread, so conversation pages continue into the archive
+
+ALTER TABLE message_archive_index ADD COLUMN thread_id BIGINT NULL;
+CREATE INDEX idx_message_archive_thread ON message_archive_index (thread_id, sent_at);
@@ -0,0 +1,5 @@
+-- Audit patch bases
+-- Version: 27.0.0
+-- Description: A patch record keeps the SHA-256 of the state it was diffed from, checked when versions are rebuilt
+
+ALTER TABLE audit_log ADD COLUMN base_hash CHAR(64) NULL;
@@ -0,0 +1,38 @@
+-- Server-side conversation threading
+-- Version: 6.0.0
+-- Description: Thread summary table and thread columns on messages
+
+-- =====================================================
+-- Thread Summary Table
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS message_threads (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    thread_key CHAR(64) NOT NULL,
+    participant_low VARCHAR(100) NOT NULL,
+    participant_high VARCHAR(100) NOT NULL,
+    subject VARCHAR(255),
+    tenant_id VARCHAR(100),
+    last_message_id BIGINT,
+    last_message_from VARCHAR(100),
+    last_message_preview VARCHAR(200),
+    last_message_at DATETIME(6),
+    message_count INT NOT NULL DEFAULT 0,
+    unread_low INT NOT NULL DEFAULT 0,
+    unread_high INT NOT NULL DEFAULT 0,
+    created_at DATETIME(6),
+    UNIQUE KEY uk_message_threads_key (thread_key),
+    INDEX idx_message_threads_low_last (participant_low, last_message_at),
+    INDEX idx_message_threads_high_last (participant_high, last_message_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- Thread Columns on Messages
+-- =====================================================
+
+-- tenant_id was added as BIGINT in V4; tenants are resolved by subdomain/header key
+ALTER TABLE messages MODIFY COLUMN tenant_id VARCHAR(100) DEFAULT NULL;
+ALTER TABLE messages ADD COLUMN thread_id BIGINT DEFAULT NULL;
+ALTER TABLE messages ADD COLUMN sent_at DATETIME(6) DEFAULT NULL;
+
+CREATE INDEX idx_messages_thread_sent ON messages(thread_id, sent_at);
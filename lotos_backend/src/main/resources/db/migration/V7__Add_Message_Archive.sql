@@ -0,0 +1,28 @@
+-- Tiered message archival
+-- Version: 7.0.0
+-- Description: Index of messages moved to per-user archive segment files
+
+-- =====================================================
+-- Archive Index Table
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS message_archive_index (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    message_id BIGINT NOT NULL,
+    username VARCHAR(100) NOT NULL,
+    mailbox VARCHAR(10) NOT NULL,
+    segment INT NOT NULL,
+    block_offset BIGINT NOT NULL,
+    block_length INT NOT NULL,
+    sent_at DATETIME(6),
+    archived_at DATETIME(6) NOT NULL,
+    UNIQUE KEY uk_message_archive_entry (message_id, username, mailbox),
+    INDEX idx_message_archive_mailbox (username, mailbox, sent_at),
+    INDEX idx_message_archive_message (message_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- Archival Candidate Scan
+-- =====================================================
+
+CREATE INDEX idx_messages_sent_at ON messages(sent_at);
@@ -0,0 +1,40 @@
+-- Audience-targeted notifications
+-- Version: 8.0.0
+-- Description: Notifications stored once per audience, with compact per-user read state
+
+-- =====================================================
+-- Broadcast Table
+-- =====================================================
+
+-- audience_key = '<tenant>|<TYPE>:<value>', e.g. 'acme|ROLE:STUDENT' or '|USER:jdoe'
+CREATE TABLE IF NOT EXISTS notification_broadcasts (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    audience_key VARCHAR(255) NOT NULL,
+    tenant_id VARCHAR(100),
+    audience_type VARCHAR(20) NOT NULL,
+    audience_value VARCHAR(150) NOT NULL,
+    event_type VARCHAR(100),
+    sender VARCHAR(100),
+    title VARCHAR(255),
+    text TEXT,
+    occurrences INT NOT NULL DEFAULT 1,
+    first_occurred_at DATETIME(6) NOT NULL,
+    last_occurred_at DATETIME(6) NOT NULL,
+    INDEX idx_broadcast_audience_id (audience_key, id),
+    INDEX idx_broadcast_coalesce (audience_key, event_type, last_occurred_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- =====================================================
+-- Per-User Receipts
+-- =====================================================
+
+-- read_exceptions holds varint-delta encoded ids read above read_up_to
+CREATE TABLE IF NOT EXISTS notification_receipts (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    tenant_key VARCHAR(100) NOT NULL,
+    username VARCHAR(100) NOT NULL,
+    delivered_up_to BIGINT NOT NULL DEFAULT 0,
+    read_up_to BIGINT NOT NULL DEFAULT 0,
+    read_exceptions BLOB,
+    UNIQUE KEY uk_notification_receipt_user (tenant_key, username)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,21 @@
+-- Scheduled notifications
+-- Version: 9.0.0
+-- Description: Notifications published at a future time by the scheduler leader
+
+CREATE TABLE IF NOT EXISTS scheduled_notifications (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    tenant_id VARCHAR(100),
+    audience_type VARCHAR(20) NOT NULL,
+    audience_value VARCHAR(150) NOT NULL,
+    event_type VARCHAR(100),
+    sender VARCHAR(100) NOT NULL,
+    title VARCHAR(255),
+    text TEXT,
+    fire_at DATETIME(6) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at DATETIME(6) NOT NULL,
+    sent_at DATETIME(6),
+    INDEX idx_scheduled_status_id (status, id),
+    INDEX idx_scheduled_status_created (status, created_at),
+    INDEX idx_scheduled_sender (sender, fire_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,129 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.dao.OfficialLetterDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsAggregatorTest {
+
+    private static final StudentCell SEARCHING = new StudentCell("t1", "Engineering", "CS", "SEARCHING");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private AnalyticsRepository analyticsRepository;
+
+    @Mock
+    private OfficialLetterDao officialLetterDao;
+
+    @InjectMocks
+    private AnalyticsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(aggregator, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(aggregator, "cubeMaxBytes", 1L << 20);
+        ReflectionTestUtils.setField(aggregator, "clockSkewMillis", 500L);
+        lenient().when(analyticsRepository.getPlacedStatuses()).thenReturn(Collections.singleton("PLACED"));
+        lenient().when(officialLetterDao.countByCompanyAndUsername()).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void testRecountSkipsDeltasItsScanAlreadySaw() throws Exception {
+        // Given
+        long now = System.currentTimeMillis();
+        String seen = json(new AnalyticsDelta(AnalyticsDelta.Kind.STUDENT, null, SEARCHING, null, null, 0,
+            now - 10_000, now - 9_000));
+        String unseen = json(new AnalyticsDelta(AnalyticsDelta.Kind.STUDENT, null, SEARCHING, null, null, 0,
+            now + 60_000, now + 61_000));
+        doAnswer(invocation -> {
+            BiConsumer<StudentCell, Long> sink = invocation.getArgument(0);
+            // Both arrive while the scan runs; only the second committed after it started
+            ReflectionTestUtils.invokeMethod(aggregator, "onRemoteDelta", seen);
+            ReflectionTestUtils.invokeMethod(aggregator, "onRemoteDelta", unseen);
+            sink.accept(SEARCHING, 2L);
+            return null;
+        }).when(analyticsRepository).forEachStudentCell(any());
+
+        // When
+        aggregator.recount();
+
+        // Then
+        assertEquals(3, aggregator.getStudentBreakdown().getTotal());
+        assertFalse((Boolean) ReflectionTestUtils.getField(aggregator, "recountRequested"));
+    }
+
+    @Test
+    void testLateRemoteDeltaFromBeforeScanIsNotCountedTwice() throws Exception {
+        // Given
+        long now = System.currentTimeMillis();
+        doAnswer(invocation -> {
+            BiConsumer<StudentCell, Long> sink = invocation.getArgument(0);
+            sink.accept(SEARCHING, 2L);
+            return null;
+        }).when(analyticsRepository).forEachStudentCell(any());
+        aggregator.recount();
+
+        // When
+        ReflectionTestUtils.invokeMethod(aggregator, "onRemoteDelta", json(new AnalyticsDelta(
+            AnalyticsDelta.Kind.STUDENT, null, SEARCHING, null, null, 0, now - 10_000, now - 9_000)));
+
+        // Then
+        assertEquals(2, aggregator.getStudentBreakdown().getTotal());
+    }
+
+    @Test
+    void testDeltaStraddlingScanStartRequestsAnotherRecount() throws Exception {
+        // Given
+        long now = System.currentTimeMillis();
+        String straddling = json(new AnalyticsDelta(AnalyticsDelta.Kind.STUDENT, null, SEARCHING, null, null, 0,
+            now - 100, now + 100));
+        doAnswer(invocation -> {
+            ReflectionTestUtils.invokeMethod(aggregator, "onRemoteDelta", straddling);
+            BiConsumer<StudentCell, Long> sink = invocation.getArgument(0);
+            sink.accept(SEARCHING, 2L);
+            return null;
+        }).when(analyticsRepository).forEachStudentCell(any());
+
+        // When
+        aggregator.recount();
+
+        // Then
+        assertEquals(2, aggregator.getStudentBreakdown().getTotal());
+        assertTrue((Boolean) ReflectionTestUtils.getField(aggregator, "recountRequested"));
+    }
+
+    @Test
+    void testOrderAgainstAllowsForClockSkew() {
+        // Given
+        AnalyticsDelta delta = new AnalyticsDelta(AnalyticsDelta.Kind.STUDENT, null, SEARCHING, null, null, 0,
+            900, 1_000);
+        AnalyticsDelta unstamped = AnalyticsDelta.student(null, SEARCHING);
+
+        // Then
+        assertEquals(AnalyticsDelta.Order.BEFORE, delta.orderAgainst(2_000, 500));
+        assertEquals(AnalyticsDelta.Order.UNKNOWN, delta.orderAgainst(1_200, 500));
+        assertEquals(AnalyticsDelta.Order.AFTER, delta.orderAgainst(300, 500));
+        assertEquals(AnalyticsDelta.Order.AFTER, unstamped.orderAgainst(2_000, 500));
+    }
+
+    private String json(AnalyticsDelta delta) throws Exception {
+        return objectMapper.writeValueAsString(delta);
+    }
+}
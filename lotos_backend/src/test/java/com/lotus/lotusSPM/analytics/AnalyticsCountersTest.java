@@ -0,0 +1,74 @@
+package com.lotus.lotusSPM.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalyticsCountersTest {
+
+    private final AnalyticsCounters counters = new AnalyticsCounters(new HashSet<>(Arrays.asList("PLACED")));
+
+    @Test
+    void testStatusChangeMovesStudentBetweenCells() {
+        // Given
+        StudentCell searching = new StudentCell("t1", "Engineering", "CS", "SEARCHING");
+        counters.addStudents(searching, 2);
+        counters.addStudents(new StudentCell("t2", "Law", "Law", "SEARCHING"), 1);
+
+        // When
+        counters.apply(AnalyticsDelta.student(searching, new StudentCell("t1", "Engineering", "CS", "placed")));
+
+        // Then
+        StudentBreakdown tenant = counters.students("t1");
+        assertEquals(2, tenant.getTotal());
+        assertEquals(1, tenant.getPlaced());
+        assertEquals(Long.valueOf(1), tenant.getByInternshipStatus().get("SEARCHING"));
+        assertEquals(Long.valueOf(1), tenant.getByInternshipStatus().get("placed"));
+        assertEquals(3, counters.students(null).getTotal());
+        assertEquals(0, counters.students("unknown").getTotal());
+    }
+
+    @Test
+    void testDeletingLastStudentDropsLabel() {
+        // Given
+        StudentCell cell = new StudentCell(null, "Medicine", null, null);
+        counters.addStudents(cell, 1);
+
+        // When
+        counters.apply(AnalyticsDelta.student(cell, null));
+
+        // Then
+        StudentBreakdown all = counters.students(null);
+        assertEquals(0, all.getTotal());
+        assertTrue(all.getByFaculty().isEmpty());
+        assertTrue(all.getByDepartment().isEmpty());
+    }
+
+    @Test
+    void testTopCompaniesCountDistinctStudents() {
+        // Given
+        counters.addLetters("Acme", "alice", 2);
+        counters.addLetters("Acme", "bob", 1);
+        counters.addLetters("Globex", "carol", 1);
+        counters.topCompanies(10);
+
+        // When
+        counters.apply(AnalyticsDelta.letter("Globex", "dave", 1));
+        counters.apply(AnalyticsDelta.letter("Globex", "erin", 1));
+        counters.apply(AnalyticsDelta.letter("Acme", "alice", -1));
+        counters.apply(AnalyticsDelta.letter("Initech", "frank", -1));
+
+        // Then
+        List<Map<String, Object>> top = counters.topCompanies(10);
+        assertEquals(2, top.size());
+        assertEquals("Globex", top.get(0).get("company"));
+        assertEquals(3L, top.get(0).get("students"));
+        assertEquals(2L, top.get(1).get("students"));
+        assertEquals(1, counters.topCompanies(1).size());
+    }
+}
@@ -0,0 +1,103 @@
+package com.lotus.lotusSPM.analytics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsRepositoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<Object[]> groupedQuery;
+
+    @InjectMocks
+    private AnalyticsRepository analyticsRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(analyticsRepository, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(analyticsRepository, "placedStatusList", "PLACED,COMPLETED");
+        analyticsRepository.initialize();
+        when(entityManager.createQuery(contains("GROUP BY s.faculty, s.department, s.internshipStatus"),
+            eq(Object[].class))).thenReturn(groupedQuery);
+    }
+
+    @Test
+    void testGroupedCellsFoldIntoEveryBreakdown() {
+        // Given
+        when(groupedQuery.getResultList()).thenReturn(rows(
+            new Object[] { "Engineering", "CS", "PLACED", 3L },
+            new Object[] { "Engineering", "EE", "Searching", 2L },
+            new Object[] { "Science", " CS ", "completed", 1L },
+            new Object[] { null, "", null, 4L }));
+
+        // When
+        StudentBreakdown breakdown = analyticsRepository.getStudentBreakdown();
+
+        // Then
+        assertEquals(10, breakdown.getTotal());
+        assertEquals(4, breakdown.getPlaced());
+        assertEquals(Arrays.asList("Engineering", "Unspecified", "Science"),
+            new ArrayList<>(breakdown.getByFaculty().keySet()));
+        assertEquals(Long.valueOf(5), breakdown.getByFaculty().get("Engineering"));
+        Map<String, Long> byDepartment = breakdown.getByDepartment();
+        assertEquals(Long.valueOf(4), byDepartment.get("CS"));
+        assertEquals(Long.valueOf(2), byDepartment.get("EE"));
+        assertEquals(Long.valueOf(4), byDepartment.get("Unspecified"));
+        assertEquals(Long.valueOf(1), breakdown.getByInternshipStatus().get("completed"));
+        assertEquals(Long.valueOf(4), breakdown.getByInternshipStatus().get("Unspecified"));
+    }
+
+    @Test
+    void testBreakdownIsOneTimedQuery() {
+        // Given
+        when(groupedQuery.getResultList()).thenReturn(rows(new Object[] { "Engineering", "CS", "PLACED", 3L }));
+
+        // When
+        analyticsRepository.getStudentBreakdown();
+
+        // Then
+        verify(entityManager, times(1)).createQuery(contains("GROUP BY"), eq(Object[].class));
+        assertEquals(1, meterRegistry.get("analytics.query").tag("query", "student_breakdown").timer().count());
+    }
+
+    @Test
+    void testNoStudentsGiveEmptyBreakdowns() {
+        // Given
+        when(groupedQuery.getResultList()).thenReturn(rows());
+
+        // When
+        StudentBreakdown breakdown = analyticsRepository.getStudentBreakdown();
+
+        // Then
+        assertEquals(0, breakdown.getTotal());
+        assertTrue(breakdown.getByFaculty().isEmpty());
+        assertTrue(breakdown.getByInternshipStatus().isEmpty());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
+}
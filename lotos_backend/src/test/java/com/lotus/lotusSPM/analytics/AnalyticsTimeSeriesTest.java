@@ -0,0 +1,79 @@
+package com.lotus.lotusSPM.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsTimeSeriesTest {
+
+    private final TreeMap<LocalDate, Long> table = new TreeMap<>();
+
+    @Mock
+    private AnalyticsSnapshotRepository snapshotRepository;
+
+    @InjectMocks
+    private AnalyticsTimeSeries timeSeries;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timeSeries, "cachedSeries", 8);
+        ReflectionTestUtils.setField(timeSeries, "settleMarginMillis", 3600000L);
+        timeSeries.initialize();
+        when(snapshotRepository.findByMetricNameAndTenantIdAndGranularityAndSnapshotDateBetweenOrderBySnapshotDateAsc(
+            eq("students.total"), eq(null), eq(SnapshotGranularity.DAY), any(), any()))
+            .thenAnswer(invocation -> rows(invocation.getArgument(3), invocation.getArgument(4)));
+    }
+
+    @Test
+    void testPreviousDayIsReReadUntilItSettles() {
+        // Given
+        LocalDate today = LocalDate.now();
+        for (int days = 10; days >= 0; days--) {
+            table.put(today.minusDays(days), 100L - days);
+        }
+        timeSeries.series("students.total", null, SnapshotGranularity.DAY, today.minusDays(10), today);
+
+        // When: a checkpoint rewrites yesterday, and an old row changes behind the cache
+        table.put(today.minusDays(1), 500L);
+        table.put(today.minusDays(5), 700L);
+        List<TimeSeriesPoint> points =
+            timeSeries.series("students.total", null, SnapshotGranularity.DAY, today.minusDays(10), today);
+
+        // Then
+        Map<LocalDate, BigDecimal> values = new TreeMap<>();
+        for (TimeSeriesPoint point : points) {
+            assertNull(values.put(point.getBucket(), point.getValue()), "Bucket returned twice: " + point.getBucket());
+        }
+        assertEquals(11, values.size());
+        assertEquals(BigDecimal.valueOf(500), values.get(today.minusDays(1)));
+        assertEquals(BigDecimal.valueOf(95), values.get(today.minusDays(5)));
+        assertEquals(BigDecimal.valueOf(100), values.get(today));
+    }
+
+    private List<AnalyticsSnapshot> rows(LocalDate from, LocalDate to) {
+        List<AnalyticsSnapshot> rows = new ArrayList<>();
+        for (Map.Entry<LocalDate, Long> entry : table.subMap(from, true, to, true).entrySet()) {
+            AnalyticsSnapshot row = new AnalyticsSnapshot(SnapshotGranularity.DAY, entry.getKey(), null, "students.total");
+            row.setMetricValue(BigDecimal.valueOf(entry.getValue()));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,163 @@
+package com.lotus.lotusSPM.analytics;
+
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricFanOutTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private MetricFanOut fanOut;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        fanOut.stop();
+        TenantContext.clear();
+    }
+
+    @Test
+    void testSlowMetricTimesOutWhileOthersReturn() {
+        // Given
+        start(2, 4);
+
+        // When
+        MetricFanOut.MetricResults results = fanOut.compose()
+            .metric("fast", () -> 1)
+            .metric("slow", 50, blocked())
+            .run();
+
+        // Then
+        assertEquals(Integer.valueOf(1), results.get("fast", 0));
+        assertEquals(Integer.valueOf(-1), results.get("slow", -1));
+        assertEquals("timed out after 50 ms", results.getErrors().get("slow"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedMetricIsMarkedUnderErrors() {
+        // Given
+        start(2, 4);
+
+        // When
+        Map<String, Object> map = fanOut.compose()
+            .metric("total", () -> 42)
+            .metric("broken", () -> {
+                throw new IllegalStateException("boom");
+            })
+            .run()
+            .toMap();
+
+        // Then
+        assertEquals(42, map.get("total"));
+        assertFalse(map.containsKey("broken"));
+        assertEquals("failed: boom", ((Map<String, String>) map.get("errors")).get("broken"));
+    }
+
+    @Test
+    void testMetricsBeyondTheQueueAreRejected() {
+        // Given: two running and one queued fill the pool
+        start(2, 1);
+
+        // When
+        MetricFanOut.MetricResults results = fanOut.compose()
+            .metric("a", 50, blocked())
+            .metric("b", 50, blocked())
+            .metric("c", 50, blocked())
+            .metric("d", 50, blocked())
+            .run();
+
+        // Then
+        assertEquals("rejected: analytics executor is saturated", results.getErrors().get("d"));
+        assertEquals("timed out after 50 ms", results.getErrors().get("a"));
+        assertEquals(4, results.getErrors().size());
+    }
+
+    @Test
+    void testTenantIsPropagatedAndPoolThreadRestored() {
+        // Given
+        start(1, 4);
+        TenantContext.setCurrentTenant("t1");
+
+        // When
+        String seenByMetric = fanOut.compose()
+            .metric("tenant", TenantContext::getCurrentTenant)
+            .run()
+            .get("tenant", "missing");
+        TenantContext.clear();
+        String seenAfterwards = fanOut.compose()
+            .metric("tenant", TenantContext::getCurrentTenant)
+            .run()
+            .get("tenant", "missing");
+
+        // Then
+        assertEquals("t1", seenByMetric);
+        assertNull(seenAfterwards);
+    }
+
+    @Test
+    void testCallerTenantIsUntouched() {
+        // Given
+        start(1, 4);
+        TenantContext.setCurrentTenant("t1");
+
+        // When
+        fanOut.compose().metric("other", () -> {
+            TenantContext.setCurrentTenant("t2");
+            return null;
+        }).run();
+
+        // Then
+        assertEquals("t1", TenantContext.getCurrentTenant());
+    }
+
+    @Test
+    void testNestedCompositionRunsInlineOnTheSameThread() {
+        // Given: a single pool thread, which a nested submission would wait on forever
+        start(1, 4);
+
+        // When
+        MetricFanOut.MetricResults results = fanOut.compose()
+            .metric("outer", 1000, () -> {
+                String outerThread = Thread.currentThread().getName();
+                String innerThread = fanOut.compose()
+                    .metric("inner", () -> Thread.currentThread().getName())
+                    .run()
+                    .get("inner", "missing");
+                return outerThread.equals(innerThread);
+            })
+            .run();
+
+        // Then
+        assertTrue(results.getErrors().isEmpty(), results.getErrors().toString());
+        assertEquals(Boolean.TRUE, results.get("outer", Boolean.FALSE));
+    }
+
+    private void start(int threads, int queueCapacity) {
+        fanOut = new MetricFanOut();
+        ReflectionTestUtils.setField(fanOut, "threads", threads);
+        ReflectionTestUtils.setField(fanOut, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(fanOut, "defaultTimeoutMillis", 1000L);
+        fanOut.start();
+    }
+
+    private Supplier<Object> blocked() {
+        return () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        };
+    }
+}
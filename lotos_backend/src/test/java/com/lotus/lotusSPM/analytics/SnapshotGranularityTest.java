@@ -0,0 +1,38 @@
+package com.lotus.lotusSPM.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotGranularityTest {
+
+    @Test
+    void testBucketStartAlignsToWeekAndMonth() {
+        // Given
+        LocalDate sunday = LocalDate.of(2026, 3, 1);
+
+        // When
+        LocalDate week = SnapshotGranularity.WEEK.bucketStart(sunday);
+        LocalDate month = SnapshotGranularity.MONTH.bucketStart(LocalDate.of(2026, 2, 28));
+
+        // Then
+        assertEquals(LocalDate.of(2026, 2, 23), week);
+        assertEquals(LocalDate.of(2026, 2, 1), month);
+        assertEquals(sunday, SnapshotGranularity.DAY.bucketStart(sunday));
+        assertEquals(LocalDate.of(2026, 3, 2), SnapshotGranularity.WEEK.nextBucket(week));
+        assertEquals(LocalDate.of(2026, 3, 1), SnapshotGranularity.MONTH.nextBucket(month));
+    }
+
+    @Test
+    void testForSpanKeepsPointCountSmall() {
+        // Given
+        LocalDate to = LocalDate.of(2026, 10, 1);
+
+        // When / Then
+        assertEquals(SnapshotGranularity.DAY, SnapshotGranularity.forSpan(to.minusMonths(3), to));
+        assertEquals(SnapshotGranularity.WEEK, SnapshotGranularity.forSpan(to.minusYears(1), to));
+        assertEquals(SnapshotGranularity.MONTH, SnapshotGranularity.forSpan(to.minusYears(5), to));
+    }
+}
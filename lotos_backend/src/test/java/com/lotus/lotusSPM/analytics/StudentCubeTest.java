@@ -0,0 +1,79 @@
+package com.lotus.lotusSPM.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentCubeTest {
+
+    private final StudentCube cube = new StudentCube(Long.MAX_VALUE);
+
+    @Test
+    void testFiltersAndGroupsAcrossDimensions() {
+        // Given
+        cube.add(new StudentCell("t1", "Engineering", "CS", "PLACED", "2024-01"), 3);
+        cube.add(new StudentCell("t1", "Engineering", "EE", "SEARCHING", "2024-02"), 2);
+        cube.add(new StudentCell("t1", "Law", "Law", "PLACED", "2024-02"), 4);
+        cube.add(new StudentCell("t2", "Engineering", "CS", "PLACED", "2024-02"), 5);
+
+        // When
+        CubeResult result = cube.query(query("groupBy", "faculty", "tenant", "t1", "status", "PLACED,SEARCHING"));
+
+        // Then
+        assertEquals(9, result.getTotal());
+        assertEquals(2, result.getGroups().size());
+        assertEquals("Engineering", result.getGroups().get(0).get("faculty"));
+        assertEquals(5L, result.getGroups().get(0).get("count"));
+        assertEquals("Law", result.getGroups().get(1).get("faculty"));
+        assertEquals("cube", result.getSource());
+    }
+
+    @Test
+    void testPeriodRangeAndDeltas() {
+        // Given
+        StudentCell january = new StudentCell("t1", "Engineering", "CS", "SEARCHING", "2024-01");
+        cube.add(january, 2);
+        cube.add(new StudentCell("t1", "Engineering", "CS", "SEARCHING", "2024-03"), 1);
+        cube.add(new StudentCell("t1", "Engineering", null, "SEARCHING", null), 6);
+
+        // When
+        cube.apply(AnalyticsDelta.student(january, new StudentCell("t1", "Engineering", "CS", "PLACED", "2024-01")));
+        CubeResult result = cube.query(query("groupBy", "status,period", "periodFrom", "2024-01", "periodTo", "2024-02"));
+
+        // Then
+        assertEquals(2, result.getTotal());
+        assertEquals(2, result.getGroups().size());
+        assertEquals(1L, result.getGroups().get(0).get("count"));
+        assertEquals("2024-01", result.getGroups().get(0).get("period"));
+        assertEquals(StudentBreakdown.UNSPECIFIED,
+            cube.query(query("groupBy", "department", "period", "Unspecified")).getGroups().get(0).get("department"));
+    }
+
+    @Test
+    void testCellBeyondBudgetMarksCubeIncomplete() {
+        // Given
+        StudentCube small = new StudentCube(new StudentCube(Long.MAX_VALUE).estimatedBytes() + 4096);
+        small.add(new StudentCell("t1", "Engineering", "CS", "PLACED", "2024-01"), 1);
+        assertTrue(small.isComplete());
+
+        // When
+        for (int i = 0; i < 100 && small.isComplete(); i++) {
+            small.add(new StudentCell("t1", "Faculty " + i, "CS", "PLACED", "2024-01"), 1);
+        }
+
+        // Then
+        assertFalse(small.isComplete());
+        assertTrue(small.estimatedBytes() <= new StudentCube(Long.MAX_VALUE).estimatedBytes() + 4096);
+    }
+
+    private static CubeQuery query(String... parameters) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < parameters.length; i += 2) {
+            map.put(parameters[i], parameters[i + 1]);
+        }
+        return CubeQuery.from(map);
+    }
+}
@@ -0,0 +1,71 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    @Test
+    void testFindsHeavyKeysWithinBounds() {
+        // Given
+        HeavyHitters sketch = new HeavyHitters(0.005, 0.99, 20);
+
+        // When: three popular companies among a thousand rare ones
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("company" + i, 1);
+            sketch.add("Acme", 3);
+            sketch.add("Globex", 2);
+            sketch.add("Initech", 1);
+        }
+
+        // Then
+        List<HeavyHitters.Hitter> top = sketch.top(3);
+        assertEquals("Acme", top.get(0).getKey());
+        assertEquals("Globex", top.get(1).getKey());
+        assertEquals("Initech", top.get(2).getKey());
+        for (HeavyHitters.Hitter hitter : top) {
+            long actual = hitter.getKey().equals("Acme") ? 3000 : hitter.getKey().equals("Globex") ? 2000 : 1000;
+            assertTrue(hitter.getLowerBound() <= actual);
+            assertTrue(hitter.getEstimate() >= actual);
+            assertTrue(hitter.getEstimate() - actual <= sketch.maxOvercount());
+        }
+        assertEquals(7000, sketch.getTotal());
+    }
+
+    @Test
+    void testMergedReplicasMatchSingleStream() {
+        // Given: the same letters spread over two replicas
+        HeavyHitters first = new HeavyHitters(0.005, 0.99, 10);
+        HeavyHitters second = new HeavyHitters(0.005, 0.99, 10);
+        for (int i = 0; i < 500; i++) {
+            (i % 2 == 0 ? first : second).add("Acme", 1);
+            (i % 3 == 0 ? first : second).add("rare" + i, 1);
+        }
+        first.add("Globex", 200);
+
+        // When
+        HeavyHitters merged = HeavyHitters.fromBytes(first.toBytes());
+        merged.merge(HeavyHitters.fromBytes(second.toBytes()));
+
+        // Then
+        List<HeavyHitters.Hitter> top = merged.top(2);
+        assertEquals("Acme", top.get(0).getKey());
+        assertEquals(500, top.get(0).getEstimate());
+        assertTrue(top.get(0).getLowerBound() <= 500);
+        assertEquals("Globex", top.get(1).getKey());
+        assertEquals(1200, merged.getTotal());
+    }
+
+    @Test
+    void testIncompatibleSketchesDoNotMerge() {
+        // Given
+        HeavyHitters sketch = new HeavyHitters(0.005, 0.99, 10);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new HeavyHitters(0.01, 0.99, 10)));
+        assertThrows(IllegalArgumentException.class, () -> HeavyHitters.fromBytes(new byte[] {1, 2}));
+    }
+}
@@ -0,0 +1,60 @@
+package com.lotus.lotusSPM.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void testEstimateWithinErrorBound() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog(14);
+
+        // When
+        for (int i = 0; i < 100000; i++) {
+            sketch.add("STUDENT:user" + i);
+            sketch.add("STUDENT:user" + (i % 1000));
+        }
+
+        // Then
+        double error = Math.abs(sketch.estimate() - 100000) / 100000.0;
+        assertTrue(error < 3 * sketch.relativeStandardError(), "relative error " + error);
+    }
+
+    @Test
+    void testSmallCardinalityIsNearlyExact() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog(14);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            sketch.add("ADMIN:user" + i);
+        }
+
+        // Then
+        assertEquals(50, sketch.estimate());
+        assertEquals(0, new HyperLogLog(14).estimate());
+    }
+
+    @Test
+    void testMergeEqualsUnionAndSurvivesSerialization() {
+        // Given
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 20000; i++) {
+            (i % 2 == 0 ? first : second).add("user" + i);
+            union.add("user" + i);
+        }
+
+        // When
+        HyperLogLog merged = HyperLogLog.fromBytes(first.toBytes());
+        merged.merge(HyperLogLog.fromBytes(second.toBytes()));
+        merged.merge(second);
+
+        // Then
+        assertArrayEquals(union.toBytes(), merged.toBytes());
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new HyperLogLog(14)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.lotus.lotusSPM.archive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageArchiveServiceTest {
+
+    @Mock
+    private ArchivedMessageRefRepository refRepository;
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @InjectMocks
+    private MessageArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(archiveService, "archiveDir", "");
+        ReflectionTestUtils.setField(archiveService, "segmentMaxBytes", 1L << 20);
+    }
+
+    @Test
+    void testEnabledWithoutSharedDirectoryFailsStartup() {
+        // Given
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+
+        // When / Then
+        IllegalStateException e = assertThrows(IllegalStateException.class, archiveService::initialize);
+        assertTrue(e.getMessage().contains("MESSAGE_ARCHIVE_DIR"));
+    }
+
+    @Test
+    void testDisabledWithoutDirectoryServesNoArchivedMessages() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(archiveService, "enabled", false);
+        when(refRepository.findByUsernameAndMailboxOrderBySentAtAsc("bob", ArchivedMessageRef.Mailbox.INBOX))
+            .thenReturn(Collections.emptyList());
+
+        // When
+        archiveService.initialize();
+
+        // Then
+        assertTrue(archiveService.findByRecipient("bob").isEmpty());
+    }
+}
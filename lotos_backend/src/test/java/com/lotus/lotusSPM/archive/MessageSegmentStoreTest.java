@@ -0,0 +1,79 @@
+package com.lotus.lotusSPM.archive;
+
+import com.lotus.lotusSPM.model.Messages;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBlocksRoundTrip() throws Exception {
+        // Given
+        MessageSegmentStore store = new MessageSegmentStore(directory, 1 << 20);
+        Messages first = message(1L, "alice", "bob", "Staj başvurusu");
+        Messages second = message(2L, "bob", "alice", null);
+
+        // When
+        MessageSegmentStore.BlockLocation a = store.append("alice", Arrays.asList(first, second));
+        MessageSegmentStore.BlockLocation b = store.append("alice", Collections.singletonList(second));
+        List<Messages> read = store.readBlock("alice", a.getSegment(), a.getOffset(), a.getLength());
+
+        // Then
+        assertEquals(a.getOffset() + a.getLength(), b.getOffset(), "Blocks are appended back to back");
+        assertEquals(2, read.size());
+        assertEquals("Staj başvurusu", read.get(0).getText());
+        assertEquals(first.getSentAt(), read.get(0).getSentAt());
+        assertEquals(Long.valueOf(7L), read.get(0).getThreadId());
+        assertNull(read.get(1).getText());
+    }
+
+    @Test
+    void testSegmentRotatesWhenFull() throws Exception {
+        // Given
+        MessageSegmentStore store = new MessageSegmentStore(directory, 64);
+
+        // When
+        MessageSegmentStore.BlockLocation a = store.append("alice", Collections.singletonList(message(1L, "alice", "bob", "x")));
+        MessageSegmentStore.BlockLocation b = store.append("alice", Collections.singletonList(message(2L, "alice", "bob", "y")));
+
+        // Then
+        assertEquals(a.getSegment() + 1, b.getSegment());
+        assertEquals(0, b.getOffset());
+        assertEquals("y", store.readBlock("alice", b.getSegment(), b.getOffset(), b.getLength()).get(0).getText());
+    }
+
+    @Test
+    void testUsernamesMapToDistinctDirectories() throws Exception {
+        // Given
+        MessageSegmentStore store = new MessageSegmentStore(directory, 1 << 20);
+
+        // When
+        store.append("a/b", Collections.singletonList(message(1L, "a/b", "c", "one")));
+        store.append("a_b", Collections.singletonList(message(2L, "a_b", "c", "two")));
+
+        // Then
+        assertNotEquals(store.userDirectory("a/b"), store.userDirectory("a_b"));
+        assertTrue(store.userDirectory("a/b").startsWith(directory));
+        assertEquals(2, Files.list(directory).count());
+    }
+
+    private static Messages message(Long id, String from, String to, String text) {
+        Messages message = new Messages(id, from, to, "2024-01-01", "10:00", "Subject", "Title", text, null);
+        message.setThreadId(7L);
+        message.setSentAt(LocalDateTime.of(2024, 1, 1, 10, 0, 0, 123_000_000));
+        message.setTenantId("tenant-a");
+        return message;
+    }
+}
@@ -0,0 +1,128 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuditArchiveServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Mock
+    private AuditArchiveRepository archiveRepository;
+
+    @TempDir
+    Path dir;
+
+    @InjectMocks
+    private AuditArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(archiveService, "archiveDir", "");
+        ReflectionTestUtils.setField(archiveService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void testEnabledWithoutSharedDirectoryFailsStartup() {
+        // Given
+        ReflectionTestUtils.setField(archiveService, "enabled", true);
+
+        // When / Then
+        IllegalStateException e = assertThrows(IllegalStateException.class, archiveService::initialize);
+        assertTrue(e.getMessage().contains("AUDIT_ARCHIVE_DIR"));
+    }
+
+    @Test
+    void testRecordedArchiveWithoutDirectoryIsNotReadAsEmpty() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(archiveService, "enabled", false);
+        archiveService.initialize();
+        AuditArchive archive = new AuditArchive("2026-01", "audit-2026-01-1.jsonl.gz", 3, null, null, 10, "00");
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> archiveService.read(archive, record -> { }));
+    }
+
+    @Test
+    void testArchivedPagesContinueNewestFirstAcrossFiles() throws Exception {
+        // Given: January and February archived, in the ascending order they are exported
+        ReflectionTestUtils.setField(archiveService, "archiveDir", dir.toString());
+        archiveService.initialize();
+        AuditArchiveStore store = new AuditArchiveStore(dir, objectMapper);
+        AuditArchive january = write(store, "2026-01", record(1L, "alice", 1, 5), record(2L, "bob", 1, 10),
+            record(3L, "alice", 1, 20));
+        AuditArchive february = write(store, "2026-02", record(4L, "alice", 2, 1), record(5L, "alice", 2, 1),
+            record(6L, "bob", 2, 14));
+        when(archiveRepository.findAllByOrderByMaxTimestampDesc()).thenReturn(Arrays.asList(february, january));
+        AuditQuery alice = AuditQuery.compile(Collections.singletonMap("username", "alice"), null);
+
+        // When
+        List<AuditLog> first = archiveService.findArchivedPage(alice, null, 2);
+        List<AuditLog> second = archiveService.findArchivedPage(alice, AuditCursor.after(first.get(1)), 2);
+
+        // Then
+        assertEquals(Arrays.asList(5L, 4L), ids(first));
+        assertEquals(Arrays.asList(3L, 1L), ids(second));
+    }
+
+    @Test
+    void testArchivesOlderThanAFullPageAreNotRead() throws Exception {
+        // Given: January's file is recorded but gone, so reading it would fail
+        ReflectionTestUtils.setField(archiveService, "archiveDir", dir.toString());
+        archiveService.initialize();
+        AuditArchiveStore store = new AuditArchiveStore(dir, objectMapper);
+        AuditArchive february = write(store, "2026-02", record(4L, "alice", 2, 1), record(5L, "alice", 2, 3));
+        AuditArchive january = new AuditArchive("2026-01", "audit-2026-01-0.jsonl.gz", 1,
+            LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 31, 0, 0), 10, "00");
+        when(archiveRepository.findAllByOrderByMaxTimestampDesc()).thenReturn(Arrays.asList(february, january));
+
+        // When
+        List<AuditLog> page = archiveService.findArchivedPage(AuditQuery.compile(null, null), null, 2);
+
+        // Then
+        assertEquals(Arrays.asList(5L, 4L), ids(page));
+    }
+
+    private static AuditArchive write(AuditArchiveStore store, String period, AuditLog... records) throws Exception {
+        try (AuditArchiveStore.Writer writer = store.create("audit-" + period + "-1.jsonl.gz")) {
+            for (AuditLog record : records) {
+                writer.append(record);
+            }
+            return writer.finish(period);
+        }
+    }
+
+    private static AuditLog record(Long id, String username, int month, int day) {
+        AuditLog record = new AuditLog(1L, "ADMIN", username, "UPDATE", "Student", "7", null, "{}", null, null);
+        record.setId(id);
+        record.setTimestamp(LocalDateTime.of(2026, month, day, 12, 0));
+        return record;
+    }
+
+    private static List<Long> ids(List<AuditLog> records) {
+        return records.stream().map(AuditLog::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,115 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditArchiveStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testArchivedRecordsReadBack() throws Exception {
+        // Given
+        AuditArchiveStore store = new AuditArchiveStore(dir, objectMapper);
+        AuditArchive archive;
+        try (AuditArchiveStore.Writer writer = store.create("audit-2026-01-1.jsonl.gz")) {
+            writer.append(record(1L, LocalDateTime.of(2026, 1, 5, 10, 0)));
+            writer.append(record(2L, LocalDateTime.of(2025, 12, 31, 23, 59)));
+            writer.append(record(3L, LocalDateTime.of(2026, 1, 31, 8, 30)));
+            archive = writer.finish("2026-01");
+        }
+
+        // When
+        List<AuditLog> records = new ArrayList<>();
+        store.read(archive.getFileName(), archive.getSha256(), records::add);
+
+        // Then
+        assertEquals(3, archive.getRowCount());
+        assertEquals(LocalDateTime.of(2025, 12, 31, 23, 59), archive.getMinTimestamp());
+        assertEquals(LocalDateTime.of(2026, 1, 31, 8, 30), archive.getMaxTimestamp());
+        assertEquals(Files.size(dir.resolve(archive.getFileName())), archive.getSizeBytes());
+        assertEquals(3, records.size());
+        assertEquals(Long.valueOf(2L), records.get(1).getId());
+        assertEquals(archive.getSha256() + "  " + archive.getFileName() + "\n", new String(
+            Files.readAllBytes(dir.resolve(archive.getFileName() + ".sha256")), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testCorruptedArchiveIsRejected() throws Exception {
+        // Given
+        AuditArchiveStore store = new AuditArchiveStore(dir, objectMapper);
+        AuditArchive archive;
+        try (AuditArchiveStore.Writer writer = store.create("audit-2026-02-1.jsonl.gz")) {
+            writer.append(record(1L, LocalDateTime.of(2026, 2, 1, 0, 0)));
+            archive = writer.finish("2026-02");
+        }
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve(archive.getFileName()).toFile(), "rw")) {
+            file.seek(file.length());
+            file.write(0);
+        }
+
+        // When / Then
+        assertThrows(IOException.class, () -> store.read(archive.getFileName(), archive.getSha256(), r -> { }));
+    }
+
+    @Test
+    void testMissingArchiveIsNotReportedAsCorrupt() throws Exception {
+        // Given
+        AuditArchiveStore store = new AuditArchiveStore(dir, objectMapper);
+        AuditArchive archive;
+        try (AuditArchiveStore.Writer writer = store.create("audit-2026-02-1.jsonl.gz")) {
+            writer.append(record(1L, LocalDateTime.of(2026, 2, 1, 0, 0)));
+            archive = writer.finish("2026-02");
+        }
+        store.delete(archive.getFileName());
+
+        // When / Then
+        assertThrows(IllegalStateException.class,
+            () -> store.read(archive.getFileName(), archive.getSha256(), r -> fail("nothing to read")));
+    }
+
+    @Test
+    void testEmptyOrAbandonedArchiveLeavesNoFile() throws Exception {
+        // Given
+        AuditArchiveStore store = new AuditArchiveStore(dir, objectMapper);
+
+        // When
+        AuditArchive empty;
+        try (AuditArchiveStore.Writer writer = store.create("audit-2026-03-1.jsonl.gz")) {
+            empty = writer.finish("2026-03");
+        }
+        try (AuditArchiveStore.Writer writer = store.create("audit-2026-04-1.jsonl.gz")) {
+            writer.append(record(1L, LocalDateTime.of(2026, 4, 1, 0, 0)));
+        }
+
+        // Then
+        assertNull(empty);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static AuditLog record(Long id, LocalDateTime timestamp) {
+        AuditLog record = new AuditLog(1L, "ADMIN", "admin", "UPDATE", "Student", "7", null, "{\"name\":\"x\"}",
+            "10.0.0.1", "JUnit");
+        record.setId(id);
+        record.setTimestamp(timestamp);
+        return record;
+    }
+}
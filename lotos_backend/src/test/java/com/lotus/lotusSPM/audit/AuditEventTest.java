@@ -0,0 +1,86 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import com.lotus.lotusSPM.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditEventTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+        TenantContext.clear();
+    }
+
+    @Test
+    void testContextIsCapturedWhenTheEventIsBuilt() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.1");
+        request.addHeader("User-Agent", "JUnit");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        UserPrincipal principal = new UserPrincipal(5L, "ayse", "ayse@example.com", "x", "STUDENT");
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+        TenantContext.setCurrentTenant("tenant-a");
+
+        // When
+        AuditEvent event = AuditEvent.builder("UPDATE", "Student")
+            .entityId(5L)
+            .newValue(Collections.singletonMap("name", "Ayse"))
+            .build();
+        tearDown();
+        AuditLog record = event.toAuditLog(objectMapper);
+
+        // Then
+        assertEquals("203.0.113.7", record.getIpAddress());
+        assertEquals("JUnit", record.getUserAgent());
+        assertEquals("tenant-a", record.getTenantId());
+        assertEquals(Long.valueOf(5L), record.getUserId());
+        assertEquals("STUDENT", record.getUserType());
+        assertEquals("ayse", record.getUsername());
+        assertEquals("5", record.getEntityId());
+        assertEquals("{\"name\":\"Ayse\"}", record.getNewValue());
+        assertNull(record.getOldValue());
+    }
+
+    @Test
+    void testEventOutsideARequestIsAttributedToTheSystem() throws Exception {
+        // When
+        AuditLog record = AuditEvent.builder("CLEANUP", "Message").build().toAuditLog(objectMapper);
+
+        // Then
+        assertEquals(AuditContext.SYSTEM, record.getIpAddress());
+        assertEquals(AuditContext.SYSTEM, record.getUserType());
+        assertEquals(AuditContext.SYSTEM, record.getUsername());
+        assertNull(record.getTenantId());
+    }
+
+    @Test
+    void testExplicitUserOverridesThePrincipal() throws Exception {
+        // When
+        AuditLog record = AuditEvent.builder("LOGIN", "Admin")
+            .user(9L, "ADMIN", "root")
+            .build()
+            .toAuditLog(objectMapper);
+
+        // Then
+        assertEquals(Long.valueOf(9L), record.getUserId());
+        assertEquals("ADMIN", record.getUserType());
+        assertEquals("root", record.getUsername());
+    }
+}
@@ -0,0 +1,114 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditHashesTest {
+
+    @Test
+    void testAnyChangedFieldChangesTheRoot() {
+        // Given
+        List<AuditLog> records = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            records.add(record(id, "{\"name\":\"v" + id + "\"}"));
+        }
+        String root = root(records);
+
+        // When
+        records.get(3).setNewValue("{\"name\":\"forged\"}");
+        String changedValue = root(records);
+        records.get(3).setNewValue("{\"name\":\"v4\"}");
+        records.get(3).setUsername("someone");
+        String changedUser = root(records);
+        records.get(3).setUsername("admin");
+
+        // Then
+        assertEquals(root, root(records));
+        assertNotEquals(root, changedValue);
+        assertNotEquals(root, changedUser);
+        assertNotEquals(root, root(records.subList(0, 4)));
+    }
+
+    @Test
+    void testStateHashIgnoresFieldOrderAndNumberForm() throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // When
+        String written = AuditHashes.state(objectMapper.readTree("{\"gpa\":3.50,\"name\":\"Ayse\",\"credits\":30}"));
+        String readBack = AuditHashes.state(objectMapper.readTree("{\"credits\":30.0,\"name\":\"Ayse\",\"gpa\":3.5}"));
+        String changed = AuditHashes.state(objectMapper.readTree("{\"credits\":31,\"name\":\"Ayse\",\"gpa\":3.5}"));
+
+        // Then
+        assertEquals(written, readBack);
+        assertNotEquals(written, changed);
+    }
+
+    @Test
+    void testBaseHashIsCoveredOnlyWhenPresent() {
+        // Given
+        AuditLog record = record(1L, "[]");
+        byte[] withoutBase = AuditHashes.leaf(record);
+
+        // When
+        record.setBaseHash(AuditHashes.GENESIS);
+
+        // Then
+        assertFalse(Arrays.equals(withoutBase, AuditHashes.leaf(record)));
+    }
+
+    @Test
+    void testOddLeafIsCarriedUpNotDuplicated() {
+        // Given
+        byte[] a = AuditHashes.leaf(record(1L, "a"));
+        byte[] b = AuditHashes.leaf(record(2L, "b"));
+        byte[] c = AuditHashes.leaf(record(3L, "c"));
+
+        // When
+        String three = AuditHashes.merkleRoot(Arrays.asList(a, b, c));
+        String four = AuditHashes.merkleRoot(Arrays.asList(a, b, c, c));
+
+        // Then
+        assertNotEquals(three, four);
+        assertEquals(AuditHashes.hex(a), AuditHashes.merkleRoot(Arrays.asList(a)));
+    }
+
+    @Test
+    void testLinkDependsOnThePreviousSegment() {
+        // Given
+        String root = AuditHashes.merkleRoot(Arrays.asList(AuditHashes.leaf(record(1L, "a"))));
+
+        // When
+        String first = AuditHashes.link(AuditHashes.GENESIS, 1, 1, root);
+        String relinked = AuditHashes.link(first, 1, 1, root);
+
+        // Then
+        assertEquals(64, first.length());
+        assertNotEquals(first, relinked);
+        assertNotEquals(first, AuditHashes.link(AuditHashes.GENESIS, 2, 1, root));
+    }
+
+    private static String root(List<AuditLog> records) {
+        List<byte[]> leaves = new ArrayList<>();
+        for (AuditLog record : records) {
+            leaves.add(AuditHashes.leaf(record));
+        }
+        return AuditHashes.merkleRoot(leaves);
+    }
+
+    private static AuditLog record(Long id, String newValue) {
+        AuditLog record = new AuditLog(1L, "ADMIN", "admin", "UPDATE", "Student", "7", null, newValue,
+            "10.0.0.1", "JUnit");
+        record.setId(id);
+        record.setSegmentId(1L);
+        record.setTimestamp(LocalDateTime.of(2026, 1, 5, 10, 0, 0, 123000000));
+        return record;
+    }
+}
@@ -0,0 +1,38 @@
+package com.lotus.lotusSPM.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuditPartitionsTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testExtendSplitsMonthsOffFutureOnDatetimeBoundaries() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+            .thenReturn(Arrays.asList("p202611", AuditPartitions.FUTURE));
+
+        // When
+        new AuditPartitions(jdbcTemplate).extendThrough(YearMonth.of(2026, 1), YearMonth.of(2027, 1));
+
+        // Then
+        verify(jdbcTemplate).execute("ALTER TABLE audit_log REORGANIZE PARTITION p_future INTO ("
+            + "PARTITION p202612 VALUES LESS THAN ('2027-01-01 00:00:00'), "
+            + "PARTITION p202701 VALUES LESS THAN ('2027-02-01 00:00:00'), "
+            + "PARTITION p_future VALUES LESS THAN MAXVALUE)");
+    }
+}
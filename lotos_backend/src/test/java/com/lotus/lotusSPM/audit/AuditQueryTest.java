@@ -0,0 +1,84 @@
+package com.lotus.lotusSPM.audit;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditQueryTest {
+
+    @Test
+    void testFiltersCompileToConditions() {
+        // Given
+        Map<String, String> filters = new HashMap<>();
+        filters.put("entityType", "Student");
+        filters.put("entityId", "7");
+        filters.put("from", "2026-03-01");
+        filters.put("to", "2026-03-31");
+        filters.put("username", " ");
+        filters.put("cursor", "ignored");
+
+        // When
+        AuditQuery query = AuditQuery.compile(filters, "tenant-a");
+
+        // Then
+        assertEquals(" AND a.tenantId = :tenant AND a.entityType = :entityType AND a.entityId = :entityId"
+            + " AND a.timestamp >= :from AND a.timestamp < :to", query.getConditions());
+        assertEquals(LocalDateTime.of(2026, 3, 1, 0, 0), query.getParameters().get("from"));
+        assertEquals(LocalDateTime.of(2026, 4, 1, 0, 0), query.getParameters().get("to"));
+        assertEquals(5, query.getParameters().size());
+    }
+
+    @Test
+    void testArchivedRecordsAreMatchedLikeTheConditions() {
+        // Given
+        Map<String, String> filters = new HashMap<>();
+        filters.put("action", "UPDATE");
+        filters.put("to", "2026-03-31");
+        AuditQuery query = AuditQuery.compile(filters, "tenant-a");
+
+        // When / Then
+        assertTrue(query.matches(record("tenant-a", "UPDATE", LocalDateTime.of(2026, 3, 31, 23, 59))));
+        assertFalse(query.matches(record("tenant-a", "UPDATE", LocalDateTime.of(2026, 4, 1, 0, 0))));
+        assertFalse(query.matches(record("tenant-b", "UPDATE", LocalDateTime.of(2026, 3, 1, 0, 0))));
+        assertFalse(query.matches(record("tenant-a", "DELETE", LocalDateTime.of(2026, 3, 1, 0, 0))));
+    }
+
+    @Test
+    void testInvalidFiltersAreRejected() {
+        // Given
+        Map<String, String> entityIdAlone = new HashMap<>();
+        entityIdAlone.put("entityId", "7");
+        Map<String, String> badDate = new HashMap<>();
+        badDate.put("from", "yesterday");
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> AuditQuery.compile(entityIdAlone, null));
+        assertThrows(BadRequestException.class, () -> AuditQuery.compile(badDate, null));
+    }
+
+    @Test
+    void testCursorRoundTrips() {
+        // Given
+        AuditCursor cursor = new AuditCursor(LocalDateTime.of(2026, 3, 14, 15, 9, 26, 535000000), 1234567890123L);
+
+        // When
+        AuditCursor parsed = AuditCursor.parse(cursor.encode());
+
+        // Then
+        assertEquals(cursor.getTimestamp(), parsed.getTimestamp());
+        assertEquals(cursor.getId(), parsed.getId());
+        assertThrows(BadRequestException.class, () -> AuditCursor.parse("not-a-cursor"));
+    }
+
+    private static AuditLog record(String tenant, String action, LocalDateTime timestamp) {
+        AuditLog record = new AuditLog(1L, "ADMIN", "admin", action, "Student", "7", null, "{}", null, null);
+        record.setTenantId(tenant);
+        record.setTimestamp(timestamp);
+        return record;
+    }
+}
@@ -0,0 +1,97 @@
+package com.lotus.lotusSPM.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditSearchServiceTest {
+
+    private final AuditQuery query = AuditQuery.compile(null, null);
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<AuditLog> hotQuery;
+
+    @Mock
+    private AuditArchiveRepository archiveRepository;
+
+    @Mock
+    private AuditArchiveService archiveService;
+
+    @InjectMocks
+    private AuditSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(entityManager.createQuery(anyString(), eq(AuditLog.class))).thenReturn(hotQuery);
+        lenient().when(hotQuery.setMaxResults(anyInt())).thenReturn(hotQuery);
+        lenient().when(hotQuery.setParameter(anyString(), any())).thenReturn(hotQuery);
+    }
+
+    @Test
+    void testPageReachingTheArchiveContinuesIntoIt() {
+        // Given: March is hot, February archived but not yet removed from the table
+        when(archiveRepository.findLatestArchivedTimestamp()).thenReturn(at(2, 28));
+        when(hotQuery.getResultList()).thenReturn(Arrays.asList(record(9L, at(3, 2)), record(8L, at(3, 1)),
+            record(5L, at(2, 20))));
+        when(archiveService.findArchivedPage(query, null, 4))
+            .thenReturn(Arrays.asList(record(5L, at(2, 20)), record(4L, at(2, 10)), record(3L, at(2, 5))));
+
+        // When
+        AuditPage page = searchService.search(query, null, 3);
+
+        // Then
+        assertEquals(Arrays.asList(9L, 8L, 5L), ids(page.getItems()));
+        assertNotNull(page.getNextCursor());
+    }
+
+    @Test
+    void testPageWithinTheHotMonthsDoesNotReadArchives() {
+        // Given
+        when(archiveRepository.findLatestArchivedTimestamp()).thenReturn(at(2, 28));
+        when(hotQuery.getResultList()).thenReturn(Arrays.asList(record(9L, at(3, 3)), record(8L, at(3, 2)),
+            record(7L, at(3, 1))));
+
+        // When
+        AuditPage page = searchService.search(query, null, 2);
+
+        // Then
+        assertEquals(Arrays.asList(9L, 8L), ids(page.getItems()));
+        verifyNoInteractions(archiveService);
+    }
+
+    private static LocalDateTime at(int month, int day) {
+        return LocalDateTime.of(2026, month, day, 12, 0);
+    }
+
+    private static AuditLog record(Long id, LocalDateTime timestamp) {
+        AuditLog record = new AuditLog(1L, "ADMIN", "admin", "UPDATE", "Student", "7", null, "{}", null, null);
+        record.setId(id);
+        record.setTimestamp(timestamp);
+        return record;
+    }
+
+    private static List<Long> ids(List<AuditLog> records) {
+        return records.stream().map(AuditLog::getId).collect(Collectors.toList());
+    }
+}
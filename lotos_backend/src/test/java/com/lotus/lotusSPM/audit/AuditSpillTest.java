@@ -0,0 +1,80 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditSpillTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSpilledRecordsReplayWithoutIds() throws Exception {
+        // Given
+        AuditSpill spill = new AuditSpill(dir, objectMapper);
+        AuditLog first = record("UPDATE", "1");
+        first.setId(42L);
+        spill.append(Arrays.asList(first, record("DELETE", "2")));
+
+        // When
+        List<Path> files = spill.sealAll();
+        List<AuditLog> records = spill.read(files.get(0));
+
+        // Then
+        assertEquals(1, files.size());
+        assertEquals(2, records.size());
+        assertNull(records.get(0).getId());
+        assertEquals("UPDATE", records.get(0).getAction());
+        assertEquals(first.getTimestamp(), records.get(0).getTimestamp());
+        assertEquals("2", records.get(1).getEntityId());
+    }
+
+    @Test
+    void testPartialReplayKeepsRemainingRecords() throws Exception {
+        // Given
+        AuditSpill spill = new AuditSpill(dir, objectMapper);
+        spill.append(Arrays.asList(record("A", "1"), record("B", "2"), record("C", "3")));
+        Path file = spill.sealAll().get(0);
+        List<AuditLog> records = spill.read(file);
+
+        // When
+        spill.replace(file, records.subList(2, 3));
+
+        // Then
+        assertEquals("C", spill.read(file).get(0).getAction());
+        spill.replace(file, records.subList(3, 3));
+        assertTrue(spill.sealAll().isEmpty());
+    }
+
+    @Test
+    void testFileLeftOpenByCrashIsRecovered() throws Exception {
+        // Given: a complete record followed by one cut short
+        String complete = objectMapper.writeValueAsString(record("UPDATE", "7"));
+        Files.write(dir.resolve("audit-0000000000001-000001.spilling"),
+            (complete + "\n" + complete.substring(0, 20)).getBytes(StandardCharsets.UTF_8));
+
+        // When
+        AuditSpill spill = new AuditSpill(dir, objectMapper);
+        List<Path> files = spill.sealAll();
+
+        // Then
+        assertEquals(1, files.size());
+        assertEquals(1, spill.read(files.get(0)).size());
+    }
+
+    private static AuditLog record(String action, String entityId) {
+        return new AuditLog(1L, "ADMIN", "admin", action, "Student", entityId, null, "{\"name\":\"x\"}",
+            "10.0.0.1", "JUnit");
+    }
+}
@@ -0,0 +1,92 @@
+package com.lotus.lotusSPM.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditValueEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testUpdatesArePatchesBetweenSnapshots() throws Exception {
+        // Given
+        AuditValueEncoder encoder = new AuditValueEncoder(objectMapper, 3);
+
+        // When
+        AuditValueFormat[] formats = new AuditValueFormat[5];
+        for (int i = 0; i < formats.length; i++) {
+            formats[i] = encoder.encode(update("7", student(i), student(i + 1))).getValueFormat();
+        }
+
+        // Then: the first change the encoder sees is a snapshot, then every third
+        assertArrayEquals(new AuditValueFormat[]{AuditValueFormat.SNAPSHOT, AuditValueFormat.PATCH,
+            AuditValueFormat.PATCH, AuditValueFormat.SNAPSHOT, AuditValueFormat.PATCH}, formats);
+    }
+
+    @Test
+    void testPatchHoldsOnlyTheChange() throws Exception {
+        // Given
+        AuditValueEncoder encoder = new AuditValueEncoder(objectMapper, 50);
+        encoder.encode(AuditEvent.builder("CREATE", "Student").entityId("7").newValue(student(0)).build());
+
+        // When
+        AuditLog record = encoder.encode(update("7", student(0), student(1)));
+
+        // Then
+        assertEquals(AuditValueFormat.PATCH, record.getValueFormat());
+        assertNull(record.getOldValue());
+        assertEquals("[{\"op\":\"replace\",\"path\":\"/credits\",\"value\":1}]", record.getNewValue());
+    }
+
+    @Test
+    void testUpdateFromAnotherStateIsASnapshot() throws Exception {
+        // Given: the caller's old state is not the one last recorded
+        AuditValueEncoder encoder = new AuditValueEncoder(objectMapper, 50);
+        encoder.encode(AuditEvent.builder("CREATE", "Student").entityId("7").newValue(student(0)).build());
+
+        // When
+        AuditLog stale = encoder.encode(update("7", student(5), student(6)));
+        AuditLog next = encoder.encode(update("7", student(6), student(7)));
+
+        // Then
+        assertEquals(AuditValueFormat.SNAPSHOT, stale.getValueFormat());
+        assertNull(stale.getBaseHash());
+        assertEquals(AuditValueFormat.PATCH, next.getValueFormat());
+        assertEquals(AuditHashes.state(objectMapper.valueToTree(student(6))), next.getBaseHash());
+    }
+
+    @Test
+    void testCreatesAndDeletesKeepFullValues() throws Exception {
+        // Given
+        AuditValueEncoder encoder = new AuditValueEncoder(objectMapper, 50);
+
+        // When
+        AuditLog created = encoder.encode(AuditEvent.builder("CREATE", "Student").entityId("7")
+            .newValue(student(0)).build());
+        AuditLog deleted = encoder.encode(AuditEvent.builder("DELETE", "Student").entityId("7")
+            .oldValue(student(0)).build());
+
+        // Then
+        assertEquals(AuditValueFormat.FULL, created.getValueFormat());
+        assertEquals(AuditValueFormat.FULL, deleted.getValueFormat());
+        assertNotNull(deleted.getOldValue());
+    }
+
+    private static AuditEvent update(String entityId, Object oldValue, Object newValue) {
+        return AuditEvent.builder("UPDATE", "Student").entityId(entityId).oldValue(oldValue).newValue(newValue).build();
+    }
+
+    private static Map<String, Object> student(int credits) {
+        Map<String, Object> student = new LinkedHashMap<>();
+        student.put("name", "Ayse Yilmaz");
+        student.put("department", "Computer Engineering");
+        student.put("transcript", "CS101 A, CS102 B+, MATH101 A-, PHYS101 B, CS201 A, CS202 A-");
+        student.put("credits", credits);
+        return student;
+    }
+}
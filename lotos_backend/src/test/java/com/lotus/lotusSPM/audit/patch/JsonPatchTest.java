@@ -0,0 +1,113 @@
+package com.lotus.lotusSPM.audit.patch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testChangedMemberIsTheOnlyOperation() throws Exception {
+        // Given
+        JsonNode source = json("{\"name\":\"Ayse\",\"gpa\":3.1,\"courses\":[\"CS101\",\"CS102\"]}");
+        JsonNode target = json("{\"name\":\"Ayse\",\"gpa\":3.4,\"courses\":[\"CS101\",\"CS102\"]}");
+
+        // When
+        ArrayNode patch = JsonPatch.diff(source, target);
+
+        // Then
+        assertEquals(json("[{\"op\":\"replace\",\"path\":\"/gpa\",\"value\":3.4}]"), patch);
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    void testArrayEditsRoundTrip() throws Exception {
+        String[][] cases = {
+            {"[1,2,3]", "[1,2,3,4,5]"},
+            {"[1,2,3,4,5]", "[1,5]"},
+            {"[1,2,3]", "[0,1,2,3]"},
+            {"[1,2,3]", "[1,9,3]"},
+            {"[{\"a\":1},{\"a\":2}]", "[{\"a\":1},{\"a\":3,\"b\":true}]"},
+            {"[]", "[[1],[2]]"},
+            {"[1,2,3]", "[]"},
+        };
+        for (String[] pair : cases) {
+            // Given
+            JsonNode source = json(pair[0]);
+            JsonNode target = json(pair[1]);
+
+            // When
+            JsonNode patched = JsonPatch.apply(source, JsonPatch.diff(source, target));
+
+            // Then
+            assertEquals(target, patched, pair[0] + " -> " + pair[1]);
+        }
+    }
+
+    @Test
+    void testAppendToLongArrayStaysSmall() throws Exception {
+        // Given
+        ArrayNode source = objectMapper.createArrayNode();
+        for (int i = 0; i < 500; i++) {
+            source.addObject().put("course", "C" + i).put("grade", "A");
+        }
+        ArrayNode target = source.deepCopy();
+        target.addObject().put("course", "C500").put("grade", "B");
+
+        // When
+        ArrayNode patch = JsonPatch.diff(source, target);
+
+        // Then
+        assertEquals(1, patch.size());
+        assertEquals("/500", patch.get(0).get("path").asText());
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    void testMemberNamesAreEscaped() throws Exception {
+        // Given
+        JsonNode source = json("{\"a/b\":1,\"c~d\":{\"x\":1}}");
+        JsonNode target = json("{\"a/b\":2,\"c~d\":{}}");
+
+        // When
+        ArrayNode patch = JsonPatch.diff(source, target);
+
+        // Then
+        assertEquals("/a~1b", patch.get(0).get("path").asText());
+        assertEquals("/c~0d/x", patch.get(1).get("path").asText());
+        assertEquals(target, JsonPatch.apply(source, patch));
+    }
+
+    @Test
+    void testSourceIsNotModified() throws Exception {
+        // Given
+        JsonNode source = json("{\"a\":[1,2]}");
+
+        // When
+        JsonPatch.apply(source, json("[{\"op\":\"add\",\"path\":\"/a/-\",\"value\":3}]"));
+
+        // Then
+        assertEquals(json("{\"a\":[1,2]}"), source);
+    }
+
+    @Test
+    void testPatchThatDoesNotFitIsRejected() throws Exception {
+        JsonNode source = json("{\"a\":1}");
+
+        assertThrows(IllegalArgumentException.class,
+            () -> JsonPatch.apply(source, json("[{\"op\":\"remove\",\"path\":\"/b\"}]")));
+        assertThrows(IllegalArgumentException.class,
+            () -> JsonPatch.apply(source, json("[{\"op\":\"replace\",\"path\":\"/a/0\",\"value\":2}]")));
+        assertThrows(IllegalArgumentException.class,
+            () -> JsonPatch.apply(source, json("[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/b\"}]")));
+    }
+
+    private JsonNode json(String text) throws Exception {
+        return objectMapper.readTree(text);
+    }
+}
@@ -0,0 +1,101 @@
+package com.lotus.lotusSPM.idgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.model.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    void testIdsEncodeTimestampAndNode() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(513, () -> NOW);
+
+        // When
+        long id = generator.nextId();
+
+        // Then
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(513, SnowflakeIdGenerator.nodeOf(id));
+        assertTrue(id > 0);
+    }
+
+    @Test
+    void testSequenceOverflowBorrowsNextMillisecond() {
+        // Given: a frozen clock
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW);
+        long previous = -1;
+
+        // When
+        for (int i = 0; i < 3 * (SnowflakeIdGenerator.MAX_SEQUENCE + 1); i++) {
+            long id = generator.nextId();
+
+            // Then
+            assertTrue(id > previous, "Ids from one node are strictly increasing");
+            previous = id;
+        }
+        assertEquals(NOW + 2, SnowflakeIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void testClockStepBackKeepsIdsUnique() {
+        // Given
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, clock::get);
+        Set<Long> seen = new HashSet<>();
+        long before = generator.nextId();
+        seen.add(before);
+
+        // When
+        clock.addAndGet(-5_000);
+        long after = generator.nextId();
+
+        // Then
+        assertTrue(after > before);
+        assertTrue(seen.add(after));
+    }
+
+    @Test
+    void testBlocksAreContiguousAndDisjoint() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, () -> NOW);
+
+        // When
+        long first = generator.nextBlock(32);
+        long second = generator.nextBlock(32);
+
+        // Then
+        assertEquals(first + 32, second);
+        assertEquals(3, SnowflakeIdGenerator.nodeOf(first + 31));
+        assertThrows(IllegalArgumentException.class, () -> generator.nextBlock(0));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+    }
+
+    @Test
+    void testIdsBeyondJavaScriptPrecisionAreSerializedAsStrings() throws Exception {
+        // Given
+        long id = new SnowflakeIdGenerator(7, () -> NOW + 400L * 24 * 3600 * 1000).nextId();
+        Student student = new Student();
+        student.setId(id);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // When
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(student));
+        Student read = objectMapper.treeToValue(json, Student.class);
+
+        // Then
+        assertTrue(id > (1L << 53));
+        assertTrue(json.get("id").isTextual());
+        assertEquals(Long.toString(id), json.get("id").asText());
+        assertEquals(Long.valueOf(id), read.getId());
+    }
+}
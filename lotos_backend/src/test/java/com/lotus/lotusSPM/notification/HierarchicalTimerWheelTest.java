@@ -0,0 +1,131 @@
+package com.lotus.lotusSPM.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimerWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void testTimerFiresAtDeadlineNotBefore() {
+        // Given
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        wheel.schedule(1, 5_500);
+        List<Long> fired = new ArrayList<>();
+
+        // When
+        wheel.advanceTo(5_000, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTo(6_000, fired::add);
+
+        // Then
+        assertEquals(Arrays.asList(1L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testTimersCascadeAcrossLevels() {
+        // Given: deadlines on every level, including exact slot boundaries
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        long[] deadlines = { 63, 64, 65, 4095, 4096, 4097, 262_144, 300_000, 16_777_216, 20_000_000 };
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i] * TICK);
+        }
+
+        // When / Then
+        for (int i = 0; i < deadlines.length; i++) {
+            List<Long> fired = new ArrayList<>();
+            wheel.advanceTo((deadlines[i] - 1) * TICK, fired::add);
+            assertFalse(fired.contains((long) i), "Timer " + i + " fired early");
+            wheel.advanceTo(deadlines[i] * TICK, fired::add);
+            assertTrue(fired.contains((long) i), "Timer " + i + " did not fire at tick " + deadlines[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testCancelledTimerDoesNotFire() {
+        // Given
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        wheel.schedule(1, 10_000);
+        wheel.schedule(2, 10_000_000);
+        wheel.schedule(3, 10_000);
+
+        // When
+        assertTrue(wheel.cancel(1));
+        assertTrue(wheel.cancel(2));
+        assertFalse(wheel.cancel(42));
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(20_000_000, fired::add);
+
+        // Then
+        assertEquals(Arrays.asList(3L), fired);
+    }
+
+    @Test
+    void testRescheduleReplacesDeadline() {
+        // Given
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        wheel.schedule(1, 10_000);
+
+        // When
+        wheel.schedule(1, 50_000);
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(20_000, fired::add);
+
+        // Then
+        assertTrue(fired.isEmpty());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineFiresOnNextAdvance() {
+        // Given
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 100_000);
+        wheel.schedule(7, 1_000);
+        List<Long> fired = new ArrayList<>();
+
+        // When
+        wheel.advanceTo(100_000, fired::add);
+
+        // Then
+        assertEquals(Arrays.asList(7L), fired);
+    }
+
+    @Test
+    void testRandomDeadlinesFireInOrder() {
+        // Given
+        HierarchicalTimerWheel wheel = new HierarchicalTimerWheel(TICK, 0);
+        Random random = new Random(42);
+        long[] deadlines = new long[5000];
+        for (int i = 0; i < deadlines.length; i++) {
+            deadlines[i] = (1 + random.nextInt(500_000)) * TICK;
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        // When
+        List<Long> fired = new ArrayList<>();
+        long previousDeadline = 0;
+        for (long now = 0; now <= 500_000 * TICK; now += 997 * TICK) {
+            int before = fired.size();
+            wheel.advanceTo(now, fired::add);
+            for (int i = before; i < fired.size(); i++) {
+                long deadline = deadlines[fired.get(i).intValue()];
+                assertTrue(deadline <= now, "Fired early");
+                assertTrue(deadline >= previousDeadline, "Fired out of order");
+                previousDeadline = deadline;
+            }
+        }
+        wheel.advanceTo(500_001 * TICK, fired::add);
+
+        // Then
+        assertEquals(deadlines.length, fired.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.lotus.lotusSPM.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadStateTest {
+
+    @Test
+    void testOutOfOrderReadsAreTracked() {
+        // Given
+        ReadState state = ReadState.empty();
+
+        // When
+        state.markRead(10);
+        state.markRead(3);
+        state.markRead(7);
+
+        // Then
+        assertTrue(state.isRead(3));
+        assertTrue(state.isRead(10));
+        assertFalse(state.isRead(5));
+        assertArrayEquals(new long[] { 3, 7, 10 }, state.exceptions());
+        assertFalse(state.markRead(7), "Reading twice is a no-op");
+    }
+
+    @Test
+    void testCompactAdvancesWatermarkOverContiguousReads() {
+        // Given
+        ReadState state = ReadState.empty();
+        state.markRead(4);
+        state.markRead(9);
+        state.markRead(20);
+
+        // When: the user can see 4, 9, 15, 20; 15 is still unread
+        state.compact(Arrays.asList(4L, 9L, 15L, 20L));
+
+        // Then
+        assertEquals(9, state.getWatermark());
+        assertArrayEquals(new long[] { 20 }, state.exceptions());
+        assertTrue(state.isRead(1));
+        assertFalse(state.isRead(15));
+    }
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        // Given
+        ReadState state = new ReadState(1000, new long[0]);
+        state.markRead(1001);
+        state.markRead(1500);
+        state.markRead(5_000_000_000L);
+
+        // When
+        byte[] encoded = state.encode();
+        ReadState decoded = ReadState.decode(state.getWatermark(), encoded);
+
+        // Then
+        assertTrue(encoded.length < 12, "Deltas should be varint encoded");
+        assertEquals(1000, decoded.getWatermark());
+        assertArrayEquals(state.exceptions(), decoded.exceptions());
+    }
+
+    @Test
+    void testMarkAllReadClearsExceptions() {
+        // Given
+        ReadState state = ReadState.empty();
+        state.markRead(5);
+        state.markRead(50);
+
+        // When
+        state.markAllRead(40);
+
+        // Then
+        assertEquals(40, state.getWatermark());
+        assertArrayEquals(new long[] { 50 }, state.exceptions());
+    }
+
+    @Test
+    void testExceptionListIsBounded() {
+        // Given
+        ReadState state = ReadState.empty();
+
+        // When: every other id read, so nothing is contiguous
+        for (long id = 2; id <= ReadState.MAX_EXCEPTIONS * 4L; id += 2) {
+            state.markRead(id);
+        }
+
+        // Then
+        assertTrue(state.exceptionCount() <= ReadState.MAX_EXCEPTIONS);
+        assertTrue(state.isRead(ReadState.MAX_EXCEPTIONS * 4L));
+    }
+}
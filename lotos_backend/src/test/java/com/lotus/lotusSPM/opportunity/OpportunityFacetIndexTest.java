@@ -0,0 +1,87 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.lotus.lotusSPM.dto.OpportunitySummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpportunityFacetIndexTest {
+
+    @Test
+    void testFacetCountsIgnoreOwnSelection() {
+        // Given
+        OpportunityFacetIndex index = new OpportunityFacetIndex();
+        index.index("t1", opportunity(1L, "Java Intern", "Acme", "İstanbul", "INTERNSHIP", "2026-11-01"));
+        index.index("t1", opportunity(2L, "Backend Developer", "Acme", "Ankara", "FULL_TIME", "2026-12-15"));
+        index.index("t1", opportunity(3L, "Java Developer", "Globex", "istanbul", "FULL_TIME", "20.11.2026"));
+
+        // When
+        OpportunityFacetIndex.Result result = index.search("t1",
+            query(null, filter(OpportunityFacetIndex.Facet.LOCATION, "Istanbul"), null, null));
+
+        // Then
+        assertEquals(2, result.getTotal());
+        assertEquals(Long.valueOf(3L), result.getItems().get(0).getId(), "Newest first");
+        assertEquals(Integer.valueOf(2), result.getFacets().get(OpportunityFacetIndex.Facet.LOCATION).get("İstanbul"));
+        assertEquals(Integer.valueOf(1), result.getFacets().get(OpportunityFacetIndex.Facet.LOCATION).get("Ankara"));
+        assertEquals(Integer.valueOf(1), result.getFacets().get(OpportunityFacetIndex.Facet.COMPANY).get("Globex"));
+    }
+
+    @Test
+    void testTextPrefixAndDeadlineRange() {
+        // Given
+        OpportunityFacetIndex index = new OpportunityFacetIndex();
+        index.index("t1", opportunity(1L, "Java Intern", "Acme", "Izmir", "INTERNSHIP", "2026-11-01"));
+        index.index("t1", opportunity(2L, "Javascript Developer", "Acme", "Izmir", "FULL_TIME", "2026-12-15"));
+        index.index("t1", opportunity(3L, "Java Developer", "Globex", "Izmir", "FULL_TIME", "20/11/2026"));
+
+        // When
+        OpportunityFacetIndex.Result prefix = index.search("t1", query("jav", null, null, null));
+        OpportunityFacetIndex.Result ranged = index.search("t1",
+            query("java ", null, LocalDate.of(2026, 11, 10), LocalDate.of(2026, 11, 30)));
+
+        // Then
+        assertEquals(3, prefix.getTotal());
+        assertEquals(1, ranged.getTotal());
+        assertEquals(Long.valueOf(3L), ranged.getItems().get(0).getId());
+    }
+
+    @Test
+    void testUpdateReplacesPostingsAndTenantsAreIsolated() {
+        // Given
+        OpportunityFacetIndex index = new OpportunityFacetIndex();
+        index.index("t1", opportunity(1L, "Data Analyst", "Acme", "Bursa", "FULL_TIME", null));
+        index.index("t2", opportunity(2L, "Data Engineer", "Initech", "Bursa", "FULL_TIME", null));
+
+        // When
+        index.index("t1", opportunity(1L, "Product Manager", "Acme", "Bursa", "FULL_TIME", null));
+
+        // Then
+        assertEquals(0, index.search("t1", query("data", null, null, null)).getTotal());
+        assertEquals(1, index.search("t1", query("product", null, null, null)).getTotal());
+        assertEquals(1, index.search("t2", query("data", null, null, null)).getTotal());
+        assertEquals(0, index.search("t3", query(null, null, null, null)).getTotal());
+    }
+
+    private static OpportunityFacetIndex.Query query(String text, Map<OpportunityFacetIndex.Facet, Set<String>> filters,
+                                                     LocalDate from, LocalDate to) {
+        return new OpportunityFacetIndex.Query(text, filters, from, to, 0, 10);
+    }
+
+    private static Map<OpportunityFacetIndex.Facet, Set<String>> filter(OpportunityFacetIndex.Facet facet, String value) {
+        Map<OpportunityFacetIndex.Facet, Set<String>> filters = new EnumMap<>(OpportunityFacetIndex.Facet.class);
+        filters.put(facet, Collections.singleton(value));
+        return filters;
+    }
+
+    private static OpportunitySummary opportunity(Long id, String title, String company, String location,
+                                                  String jobType, String deadline) {
+        return new OpportunitySummary(id, title, company, location, null, deadline, null, null, "hr", jobType, null, null);
+    }
+}
@@ -0,0 +1,126 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import com.lotus.lotusSPM.dto.OpportunitySummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpportunityFeedCacheTest {
+
+    @Mock
+    private OpportunitiesDao opportunitiesDao;
+
+    @Mock
+    private ClusterEventBus clusterEventBus;
+
+    @InjectMocks
+    private OpportunityFeedCache feedCache;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(feedCache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(feedCache, "maxSnapshotAgeSeconds", 300L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        feedCache.shutdown();
+    }
+
+    @Test
+    void testSnapshotIsBuiltOnceAndServedFromMemory() {
+        // Given
+        when(opportunitiesDao.findActiveSummaries()).thenReturn(Arrays.asList(summary(2L, "Backend intern"),
+            summary(1L, "Data intern")));
+
+        // When
+        OpportunityFeedCache.Snapshot first = feedCache.current();
+        OpportunityFeedCache.Snapshot second = feedCache.current();
+
+        // Then
+        verify(opportunitiesDao, times(1)).findActiveSummaries();
+        assertSame(first, second);
+        assertTrue(first.getEtag().startsWith("\"") && first.getEtag().endsWith("\""));
+        assertEquals(0, first.getLastModified() % 1000);
+        assertNotNull(first.get(1L));
+        assertNotEquals(first.get(1L).getEtag(), first.get(2L).getEtag());
+        assertNull(first.get(3L));
+    }
+
+    @Test
+    void testUnchangedRebuildKeepsValidators() {
+        // Given
+        when(opportunitiesDao.findActiveSummaries()).thenReturn(Collections.singletonList(summary(1L, "Data intern")));
+        OpportunityFeedCache.Snapshot previous = build(null);
+
+        // When
+        OpportunityFeedCache.Snapshot rebuilt = build(previous);
+
+        // Then
+        assertEquals(previous.getEtag(), rebuilt.getEtag());
+        assertEquals(previous.getLastModified(), rebuilt.getLastModified());
+        assertSame(previous.getBody(), rebuilt.getBody());
+    }
+
+    @Test
+    void testChangedContentGetsNewEtag() {
+        // Given
+        when(opportunitiesDao.findActiveSummaries())
+            .thenReturn(Collections.singletonList(summary(1L, "Data intern")))
+            .thenReturn(Collections.singletonList(summary(1L, "Data engineering intern")));
+        OpportunityFeedCache.Snapshot previous = build(null);
+
+        // When
+        OpportunityFeedCache.Snapshot rebuilt = build(previous);
+
+        // Then
+        assertNotEquals(previous.getEtag(), rebuilt.getEtag());
+        assertNotEquals(previous.get(1L).getEtag(), rebuilt.get(1L).getEtag());
+    }
+
+    @Test
+    void testInvalidationWaitsForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        feedCache.invalidate();
+
+        // Then
+        verify(clusterEventBus, never()).publish(anyString(), anyString());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(clusterEventBus).publish("opportunities:invalidate", "*");
+    }
+
+    private OpportunityFeedCache.Snapshot build(OpportunityFeedCache.Snapshot previous) {
+        return ReflectionTestUtils.invokeMethod(feedCache, "build", previous);
+    }
+
+    private static OpportunitySummary summary(Long id, String title) {
+        return new OpportunitySummary(id, title, "Acme", "Izmir", null, "2026-12-01", null, "Apply online",
+            "career", "Internship", null, null);
+    }
+}
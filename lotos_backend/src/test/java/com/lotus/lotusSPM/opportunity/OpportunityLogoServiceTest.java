@@ -0,0 +1,169 @@
+package com.lotus.lotusSPM.opportunity;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import com.lotus.lotusSPM.model.Opportunities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpportunityLogoServiceTest {
+
+    @Mock
+    private OpportunityLogoRepository logoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @InjectMocks
+    private OpportunityLogoService logoService;
+
+    private Opportunities opportunity;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(logoService, "maxBytes", 2097152);
+        logoService.initialize();
+        opportunity = new Opportunities();
+        opportunity.setLogo(new byte[] { 1 });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUploadStoresOriginalAndFittedVariants() throws Exception {
+        // Given
+        byte[] png = png(400, 200);
+
+        // When
+        String hash = logoService.attach(opportunity, png);
+
+        // Then
+        ArgumentCaptor<List<OpportunityLogo>> saved = ArgumentCaptor.forClass(List.class);
+        verify(logoRepository).saveAll(saved.capture());
+        Map<LogoVariant, OpportunityLogo> variants = byVariant(saved.getValue());
+        assertEquals(LogoVariant.values().length, variants.size());
+        assertArrayEquals(png, variants.get(LogoVariant.ORIGINAL).getData());
+        assertSize(variants.get(LogoVariant.ORIGINAL), 400, 200);
+        assertSize(variants.get(LogoVariant.SMALL), 64, 32);
+        assertSize(variants.get(LogoVariant.MEDIUM), 128, 64);
+        assertSize(variants.get(LogoVariant.LARGE), 256, 128);
+        for (OpportunityLogo logo : saved.getValue()) {
+            assertEquals(hash, logo.getContentHash());
+            assertEquals("image/png", logo.getContentType());
+        }
+        assertEquals(64, hash.length());
+        assertEquals(hash, opportunity.getLogoHash());
+        assertNull(opportunity.getLogo());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSmallLogoIsNotUpscaled() throws Exception {
+        // When
+        logoService.attach(opportunity, png(40, 20));
+
+        // Then
+        ArgumentCaptor<List<OpportunityLogo>> saved = ArgumentCaptor.forClass(List.class);
+        verify(logoRepository).saveAll(saved.capture());
+        assertSize(byVariant(saved.getValue()).get(LogoVariant.LARGE), 40, 20);
+    }
+
+    @Test
+    void testKnownContentIsNotStoredAgain() throws Exception {
+        // Given
+        byte[] png = png(100, 100);
+        when(logoRepository.existsByContentHash(any())).thenReturn(false, true);
+        String first = logoService.attach(opportunity, png);
+
+        // When
+        String second = logoService.attach(new Opportunities(), png);
+
+        // Then
+        assertEquals(first, second);
+        verify(logoRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void testConcurrentDuplicateInsertIsTolerated() throws Exception {
+        // Given
+        when(logoRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("uk_opportunity_logo"));
+
+        // When
+        String hash = logoService.attach(opportunity, png(100, 100));
+
+        // Then
+        assertEquals(hash, opportunity.getLogoHash());
+    }
+
+    @Test
+    void testVariantsAreInsertedInTheirOwnTransaction() throws Exception {
+        // When
+        logoService.attach(opportunity, png(100, 100));
+
+        // Then
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+    }
+
+    @Test
+    void testNonImageIsRejected() {
+        assertThrows(BadRequestException.class, () -> logoService.attach(opportunity, "not an image".getBytes()));
+        verify(logoRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testOversizedUploadIsRejected() {
+        // Given
+        ReflectionTestUtils.setField(logoService, "maxBytes", 16);
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> logoService.attach(opportunity, new byte[17]));
+        verifyNoInteractions(logoRepository);
+    }
+
+    private static Map<LogoVariant, OpportunityLogo> byVariant(List<OpportunityLogo> logos) {
+        Map<LogoVariant, OpportunityLogo> variants = new EnumMap<>(LogoVariant.class);
+        for (OpportunityLogo logo : logos) {
+            assertNull(variants.put(logo.getVariant(), logo), "Variant stored twice: " + logo.getVariant());
+        }
+        return variants;
+    }
+
+    private static void assertSize(OpportunityLogo logo, int width, int height) {
+        assertEquals(width, logo.getWidth(), logo.getVariant() + " width");
+        assertEquals(height, logo.getHeight(), logo.getVariant() + " height");
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
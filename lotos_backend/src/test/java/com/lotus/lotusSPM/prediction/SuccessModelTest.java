@@ -0,0 +1,64 @@
+package com.lotus.lotusSPM.prediction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuccessModelTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testLogisticModelWeighsNamedFeatures() throws Exception {
+        // Given
+        SuccessModel model = SuccessModel.fromJson(objectMapper.readTree(
+            "{\"version\":\"v1\",\"type\":\"logistic\",\"intercept\":-1,"
+                + "\"weights\":{\"letters\":0.5,\"status=PLACED\":2}}"));
+        StudentFeatures features = StudentFeatures.of(1L, "Eng", null, "placed", null, false, 2, 0,
+            LocalDate.of(2026, 1, 1));
+
+        // When
+        double probability = model.score(features);
+
+        // Then
+        assertEquals("v1", model.getVersion());
+        assertEquals(1 / (1 + Math.exp(-2.0)), probability, 1e-9);
+    }
+
+    @Test
+    void testTreeEnsembleFollowsThresholds() throws Exception {
+        // Given
+        SuccessModel model = SuccessModel.fromJson(objectMapper.readTree(
+            "{\"version\":\"gbt-3\",\"type\":\"gbt\",\"base_score\":0,\"learning_rate\":0.5,\"trees\":["
+                + "{\"nodes\":[{\"feature\":\"account_age_days\",\"threshold\":30,\"left\":1,\"right\":2},"
+                + "{\"leaf\":-1},{\"leaf\":1}]},"
+                + "{\"nodes\":[{\"leaf\":0.4}]}]}"));
+        LocalDate today = LocalDate.of(2026, 3, 1);
+        StudentFeatures recent = StudentFeatures.of(1L, null, null, null, LocalDateTime.of(2026, 2, 20, 9, 0),
+            false, 0, 0, today);
+        StudentFeatures established = StudentFeatures.of(2L, null, null, null, LocalDateTime.of(2025, 9, 1, 9, 0),
+            false, 0, 0, today);
+
+        // When / Then
+        assertEquals(1 / (1 + Math.exp(0.3)), model.score(recent), 1e-9);
+        assertEquals(1 / (1 + Math.exp(-0.7)), model.score(established), 1e-9);
+    }
+
+    @Test
+    void testRejectsMalformedModels() throws Exception {
+        // Given
+        String cyclic = "{\"version\":\"bad\",\"type\":\"gbt\",\"trees\":[{\"nodes\":"
+            + "[{\"feature\":\"letters\",\"threshold\":1,\"left\":0,\"right\":0}]}]}";
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> SuccessModel.fromJson(objectMapper.readTree(cyclic)));
+        assertThrows(IllegalArgumentException.class,
+            () -> SuccessModel.fromJson(objectMapper.readTree("{\"version\":\"v\",\"type\":\"svm\"}")));
+        assertThrows(IllegalArgumentException.class,
+            () -> SuccessModel.fromJson(objectMapper.readTree("{\"type\":\"logistic\"}")));
+    }
+}
@@ -0,0 +1,113 @@
+package com.lotus.lotusSPM.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the limiter's script on a real Redis. Skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RateLimiterRedisTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+        new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RateLimiter rateLimiter;
+    private String identifier;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        rateLimiter = new RateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(rateLimiter, "perMinute", 3);
+        ReflectionTestUtils.setField(rateLimiter, "perHour", 5);
+        rateLimiter.initialize();
+        identifier = "user:" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testRequestsAllowedUpToLimitThenRefused() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            assertTrue(rateLimiter.acquire(identifier).isAllowed());
+        }
+
+        // When
+        RateLimiter.Decision decision = rateLimiter.acquire(identifier);
+
+        // Then
+        assertFalse(decision.isAllowed());
+        assertEquals("Minute", decision.getExhausted().getName());
+        assertTrue(decision.getRetryAfterMillis() > 0 && decision.getRetryAfterMillis() <= 20_000,
+            "Retry after " + decision.getRetryAfterMillis());
+        assertEquals(0, decision.getRemaining(0));
+    }
+
+    @Test
+    void testMinuteRefusalDoesNotSpendHourQuota() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire(identifier);
+        }
+        String hourKey = "rate_limit:{" + identifier + "}:hour";
+        String hourBefore = redisTemplate.opsForValue().get(hourKey);
+
+        // When
+        RateLimiter.Decision first = rateLimiter.acquire(identifier);
+        RateLimiter.Decision second = rateLimiter.acquire(identifier);
+
+        // Then
+        assertFalse(first.isAllowed());
+        assertFalse(second.isAllowed());
+        assertEquals(hourBefore, redisTemplate.opsForValue().get(hourKey));
+        assertEquals(2, second.getRemaining(1));
+    }
+
+    @Test
+    void testKeysExpireOnceTheBucketIsFull() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(rateLimiter, "windows",
+            Arrays.asList(new RateLimiter.Window("Second", 2, 1_000L)));
+        String key = "rate_limit:{" + identifier + "}:second";
+        rateLimiter.acquire(identifier);
+        rateLimiter.acquire(identifier);
+        assertFalse(rateLimiter.acquire(identifier).isAllowed());
+
+        // When
+        Long ttl = redisTemplate.getExpire(key, TimeUnit.MILLISECONDS);
+        Thread.sleep(1_100);
+
+        // Then
+        assertTrue(ttl != null && ttl > 0 && ttl <= 1_000, "TTL " + ttl);
+        assertFalse(redisTemplate.hasKey(key));
+        RateLimiter.Decision decision = rateLimiter.acquire(identifier);
+        assertTrue(decision.isAllowed());
+        assertEquals(1, decision.getRemaining(0));
+    }
+}
@@ -0,0 +1,74 @@
+package com.lotus.lotusSPM.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rateLimiter, "perMinute", 100);
+        ReflectionTestUtils.setField(rateLimiter, "perHour", 1000);
+        rateLimiter.initialize();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAllWindowsCheckedInOneCall() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), any(List.class), any(), any(), any(), any()))
+            .thenReturn(Arrays.asList(1L, 0L, 99L, 600L, 999L, 3600L));
+
+        // When
+        RateLimiter.Decision decision = rateLimiter.acquire("user:alice");
+
+        // Then
+        verify(redisTemplate).execute(any(RedisScript.class),
+            eq(Arrays.asList("rate_limit:{user:alice}:minute", "rate_limit:{user:alice}:hour")),
+            eq("100"), eq("60000"), eq("1000"), eq("3600000"));
+        assertTrue(decision.isAllowed());
+        assertEquals(99, decision.getRemaining(0));
+        assertEquals(999, decision.getRemaining(1));
+        assertEquals(3600, decision.getResetMillis(1));
+        assertNull(decision.getExhausted());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefusalReportsTheLongestExhaustedWindow() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), any(List.class), any(), any(), any(), any()))
+            .thenReturn(Arrays.asList(0L, 3600L, 0L, 60000L, 0L, 3600000L));
+
+        // When
+        RateLimiter.Decision decision = rateLimiter.acquire("ip:10.0.0.1");
+
+        // Then
+        assertFalse(decision.isAllowed());
+        assertEquals(3600, decision.getRetryAfterMillis());
+        assertEquals("Hour", decision.getExhausted().getName());
+    }
+}
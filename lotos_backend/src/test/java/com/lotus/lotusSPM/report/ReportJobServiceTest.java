@@ -0,0 +1,56 @@
+package com.lotus.lotusSPM.report;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    @Mock
+    private ReportEngine reportEngine;
+
+    @InjectMocks
+    private ReportJobService reportJobService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reportJobService, "reportsDir", "");
+        ReflectionTestUtils.setField(reportJobService, "threads", 1);
+        ReflectionTestUtils.setField(reportJobService, "queueCapacity", 1);
+    }
+
+    @Test
+    void testEnabledWithoutSharedDirectoryFailsStartup() {
+        // Given
+        ReflectionTestUtils.setField(reportJobService, "enabled", true);
+
+        // When / Then
+        IllegalStateException e = assertThrows(IllegalStateException.class, reportJobService::initialize);
+        assertTrue(e.getMessage().contains("REPORTS_DIR"));
+    }
+
+    @Test
+    void testDisabledRejectsJobs() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(reportJobService, "enabled", false);
+        reportJobService.initialize();
+
+        // When / Then
+        assertThrows(BadRequestException.class,
+            () -> reportJobService.submit(Collections.emptyMap(), ReportFormat.CSV, "admin"));
+        reportJobService.removeExpired();
+        reportJobService.stop();
+        verifyNoInteractions(reportEngine);
+    }
+}
@@ -0,0 +1,64 @@
+package com.lotus.lotusSPM.report;
+
+import com.lotus.lotusSPM.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportQueryTest {
+
+    @Test
+    void testCompileBindsFiltersAsParameters() {
+        // Given
+        Map<String, String> filters = new HashMap<>();
+        filters.put("faculty", "Engineering' OR '1'='1");
+        filters.put("department", " ");
+        filters.put("dateTo", "2026-03-31");
+
+        // When
+        ReportQuery query = ReportQuery.compile(filters, "tenant-a");
+
+        // Then
+        assertFalse(query.getJpql().contains("Engineering"));
+        assertFalse(query.getJpql().contains(":department"));
+        assertEquals("Engineering' OR '1'='1", query.getParameters().get("faculty"));
+        assertEquals("tenant-a", query.getParameters().get("tenant"));
+        assertEquals(LocalDateTime.of(2026, 4, 1, 0, 0), query.getParameters().get("dateTo"));
+    }
+
+    @Test
+    void testCompileRejectsMalformedDate() {
+        // Given
+        Map<String, String> filters = new HashMap<>();
+        filters.put("dateFrom", "01/03/2026");
+
+        // When / Then
+        assertThrows(BadRequestException.class, () -> ReportQuery.compile(filters, null));
+    }
+
+    @Test
+    void testCsvQuotesSpecialCharactersAndDefusesFormulas() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReportWriter writer = ReportWriter.create(ReportFormat.CSV, out);
+        Object[] row = { 1L, "a\"b", "=SUM(A1)", null, "x,y", "ENG", "D1", null, LocalDateTime.of(2026, 1, 2, 3, 4, 5) };
+        ReportSummary summary = new ReportSummary();
+
+        // When
+        writer.row(row);
+        summary.accept(row);
+        writer.finish(summary);
+
+        // Then
+        assertEquals("1,\"a\"\"b\",'=SUM(A1),,\"x,y\",ENG,D1,,2026-01-02 03:04:05\r\n",
+            new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1L, summary.getTotalRecords());
+        assertEquals(1L, ((Map<?, ?>) summary.toMap().get("byInternshipStatus")).get("Unspecified"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.lotus.lotusSPM.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+
+    @Test
+    void testAddRemoveAcrossChunks() {
+        // Given
+        CompressedBitmap bitmap = CompressedBitmap.of(5, 70000, 3, 5, 1 << 20);
+
+        // When
+        boolean removed = bitmap.remove(70000);
+
+        // Then
+        assertTrue(removed);
+        assertFalse(bitmap.remove(70000));
+        assertArrayEquals(new int[] { 3, 5, 1 << 20 }, bitmap.toArray());
+        assertTrue(bitmap.contains(1 << 20));
+        assertFalse(bitmap.contains(4));
+    }
+
+    @Test
+    void testDenseChunkConvertsToBitsAndBack() {
+        // Given
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i <= CompressedBitmap.ARRAY_MAX; i++) {
+            bitmap.add(i * 2);
+        }
+        long denseBytes = bitmap.sizeInBytes();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            bitmap.remove(i * 2);
+        }
+
+        // Then
+        assertEquals(CompressedBitmap.ARRAY_MAX + 1 - 100, bitmap.cardinality());
+        assertTrue(bitmap.contains(200));
+        assertFalse(bitmap.contains(198));
+        assertTrue(denseBytes >= 8192, "Over ARRAY_MAX values the chunk is a bit array");
+    }
+
+    @Test
+    void testSetOperationsMatchReference() {
+        // Given
+        Random random = new Random(42);
+        CompressedBitmap a = new CompressedBitmap();
+        CompressedBitmap b = new CompressedBitmap();
+        TreeSet<Integer> setA = new TreeSet<>();
+        TreeSet<Integer> setB = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int x = random.nextInt(200000);
+            a.add(x);
+            setA.add(x);
+            // b is dense in the first chunk and sparse elsewhere
+            int y = i < 15000 ? random.nextInt(65536) : random.nextInt(400000);
+            b.add(y);
+            setB.add(y);
+        }
+
+        // When
+        TreeSet<Integer> and = new TreeSet<>(setA);
+        and.retainAll(setB);
+        TreeSet<Integer> or = new TreeSet<>(setA);
+        or.addAll(setB);
+        TreeSet<Integer> andNot = new TreeSet<>(setA);
+        andNot.removeAll(setB);
+
+        // Then
+        assertArrayEquals(toArray(and), a.and(b).toArray());
+        assertEquals(and.size(), a.andCardinality(b));
+        assertArrayEquals(toArray(or), a.or(b).toArray());
+        assertArrayEquals(toArray(andNot), a.andNot(b).toArray());
+        assertEquals(setA.size(), a.cardinality(), "Operands are left untouched");
+    }
+
+    @Test
+    void testNegativeValuesRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressedBitmap().add(-1));
+    }
+
+    private static int[] toArray(TreeSet<Integer> set) {
+        int[] values = new int[set.size()];
+        int i = 0;
+        for (int value : set) {
+            values[i++] = value;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,103 @@
+package com.lotus.lotusSPM.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.add(message(1, "alice", "bob", "Internship application", "Please review my internship form"));
+        index.add(message(2, "bob", "alice", "Re: Internship application", "Reviewed, looks fine"));
+        index.add(message(3, "carol", "dave", "Internship deadline", "Deadline is next week"));
+        index.add(message(4, "alice", "bob", "Lunch", "Are we meeting at noon"));
+    }
+
+    @Test
+    void testSearchIsScopedToRecipient() {
+        // When
+        InvertedIndex.SearchResult result = index.search("internship ", d -> d.visibleTo("alice", null), 0, 10);
+
+        // Then
+        assertEquals(2, result.getTotal());
+        for (SearchHit hit : result.getHits()) {
+            assertNotEquals(3L, hit.getId(), "Other users' messages must not leak");
+        }
+    }
+
+    @Test
+    void testSearchIsScopedToTenant() {
+        // When
+        InvertedIndex.SearchResult result = index.search("internship", d -> d.visibleTo("alice", "tenant-a"), 0, 10);
+
+        // Then
+        assertEquals(0, result.getTotal());
+    }
+
+    @Test
+    void testLastTermMatchesAsPrefix() {
+        // When
+        InvertedIndex.SearchResult result = index.search("dead", d -> d.visibleTo("dave", null), 0, 10);
+
+        // Then
+        assertEquals(1, result.getTotal());
+        assertEquals(3L, result.getHits().get(0).getId());
+    }
+
+    @Test
+    void testAllTermsMustMatch() {
+        // When
+        InvertedIndex.SearchResult result = index.search("internship lunch ", d -> d.visibleTo("alice", null), 0, 10);
+
+        // Then
+        assertEquals(0, result.getTotal());
+    }
+
+    @Test
+    void testTitleMatchesRankHigher() {
+        // Given
+        index.add(message(5, "alice", "bob", "Form", "internship internship"));
+        index.add(message(6, "alice", "bob", "Internship", "form"));
+
+        // When
+        List<SearchHit> hits = index.search("internship ", d -> d.visibleTo("alice", null), 0, 10).getHits();
+
+        // Then
+        assertTrue(hits.size() >= 2);
+        assertEquals(6L, hits.get(0).getId());
+    }
+
+    @Test
+    void testRemoveDropsDocument() {
+        // When
+        assertTrue(index.remove(SearchDocument.key(SearchDocument.Type.MESSAGE, 1)));
+
+        // Then
+        assertEquals(1, index.search("internship ", d -> d.visibleTo("alice", null), 0, 10).getTotal());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void testDiacriticsAreFolded() {
+        // Given
+        index.add(message(7, "alice", "bob", "Öğrenci belgesi", "staj için gerekli"));
+
+        // When
+        InvertedIndex.SearchResult result = index.search("ogrenci", d -> d.visibleTo("bob", null), 0, 10);
+
+        // Then
+        assertEquals(1, result.getTotal());
+    }
+
+    private static SearchDocument message(long id, String from, String to, String subject, String text) {
+        return SearchDocument.of(SearchDocument.Type.MESSAGE, id, null, new String[] { from, to },
+            new String[] { subject }, text);
+    }
+}
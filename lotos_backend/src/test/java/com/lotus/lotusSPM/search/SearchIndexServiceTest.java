@@ -0,0 +1,207 @@
+package com.lotus.lotusSPM.search;
+
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.dao.NotificationsDao;
+import com.lotus.lotusSPM.idgen.SnowflakeIdGenerator;
+import com.lotus.lotusSPM.model.Messages;
+import com.lotus.lotusSPM.model.Notifications;
+import com.lotus.lotusSPM.multitenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexServiceTest {
+
+    private static final long LOOKBACK_MILLIS = 300000;
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private MessagesDao messagesDao;
+
+    @Mock
+    private NotificationsDao notificationsDao;
+
+    @Mock
+    private ClusterEventBus clusterEventBus;
+
+    @Mock
+    private ObjectProvider<StringRedisTemplate> redisTemplate;
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    @Mock
+    private StreamOperations<String, Object, Object> stream;
+
+    @InjectMocks
+    private SearchIndexService service;
+
+    private SegmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "maxSealedSegments", 16);
+        ReflectionTestUtils.setField(service, "catchUpLookbackMillis", LOOKBACK_MILLIS);
+        ReflectionTestUtils.setField(service, "pollMillis", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) {
+            service.shutdown();
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void testLoadCatchesUpOnRowsWrittenWhileDown() throws Exception {
+        // Given
+        long now = System.currentTimeMillis();
+        long replayedId = SnowflakeIdGenerator.firstIdAt(now - 3600000);
+        long missedId = SnowflakeIdGenerator.firstIdAt(now);
+        try (SegmentStore previousRun = new SegmentStore(directory, 1 << 20)) {
+            previousRun.appendAdd(SearchDocument.of(SearchDocument.Type.MESSAGE, replayedId, null,
+                new String[] { "bob" }, new String[] { "Old" }, "replayed before the restart"));
+        }
+        openStore();
+        when(messagesDao.findByIdGreaterThanOrderByIdAsc(
+            eq(SnowflakeIdGenerator.firstIdAt(now - 3600000 - LOOKBACK_MILLIS)), any()))
+            .thenReturn(new SliceImpl<>(Collections.singletonList(
+                new Messages(missedId, "alice", "bob", null, null, "Missed", null, "written while down", null))));
+        when(notificationsDao.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+            .thenReturn(new SliceImpl<>(Collections.<Notifications>emptyList()));
+
+        // When
+        ReflectionTestUtils.invokeMethod(service, "load");
+
+        // Then
+        assertTrue(service.isReady());
+        assertEquals(1, service.search("bob", "replayed", 0, 10).getTotal());
+        assertEquals(missedId, service.search("bob", "written while down", 0, 10).getHits().get(0).getId());
+    }
+
+    @Test
+    void testRemoteNotificationKeepsItsTenant() throws Exception {
+        // Given
+        Notifications notification = new Notifications(7L, "admin", "bob", null, null, "Deadline", "forms due friday");
+        notification.setTenantId("t1");
+        when(notificationsDao.findById(7L)).thenReturn(Optional.of(notification));
+        openStore();
+
+        // When
+        service.onRemoteMutation("A|NOTIFICATION|7");
+
+        // Then
+        assertEquals(0, service.search("bob", "forms", 0, 10).getTotal());
+        TenantContext.setCurrentTenant("t1");
+        assertEquals(1, service.search("bob", "forms", 0, 10).getTotal());
+    }
+
+    @Test
+    void testRestartReplaysLoggedDeletesAfterItsOffset() throws Exception {
+        // Given: a message indexed before the restart was deleted on another replica meanwhile
+        indexBeforeRestart(7L, "deleted while down");
+        Files.write(directory.resolve("replication.offset"), "5-0".getBytes(StandardCharsets.US_ASCII));
+        enableReplication();
+        when(clusterEventBus.getNodeId()).thenReturn("this-node");
+        when(stream.range(eq("search:log"), any(), any()))
+            .thenReturn(Collections.singletonList(entry("3-0", "A|MESSAGE|1")));
+        when(stream.read(any(StreamReadOptions.class), any(StreamOffset.class))).thenReturn(Collections.singletonList(entry("6-0", "D|MESSAGE|7")));
+
+        // When
+        ReflectionTestUtils.invokeMethod(service, "load");
+
+        // Then
+        assertTrue(service.isReady());
+        assertEquals(0, service.search("bob", "deleted", 0, 10).getTotal());
+        assertEquals("6-0", new String(Files.readAllBytes(directory.resolve("replication.offset")),
+            StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testTrimmedLogRebuildsFromDatabase() throws Exception {
+        // Given: the log no longer reaches back to the saved offset
+        indexBeforeRestart(7L, "deleted while down");
+        Files.write(directory.resolve("replication.offset"), "5-0".getBytes(StandardCharsets.US_ASCII));
+        enableReplication();
+        when(stream.range(eq("search:log"), any(), any()))
+            .thenReturn(Collections.singletonList(entry("9-0", "A|MESSAGE|1")));
+        when(stream.reverseRange(eq("search:log"), any(), any()))
+            .thenReturn(Collections.singletonList(entry("12-0", "A|MESSAGE|8")));
+        when(messagesDao.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(
+            Collections.singletonList(new Messages(8L, "alice", "bob", null, null, "Kept", null, "still here", null))));
+        when(notificationsDao.findAll(any(Pageable.class)))
+            .thenReturn(new PageImpl<>(Collections.<Notifications>emptyList()));
+
+        // When
+        ReflectionTestUtils.invokeMethod(service, "load");
+
+        // Then
+        assertEquals(0, service.search("bob", "deleted", 0, 10).getTotal());
+        assertEquals(1, service.search("bob", "still", 0, 10).getTotal());
+        assertEquals("12-0", new String(Files.readAllBytes(directory.resolve("replication.offset")),
+            StandardCharsets.US_ASCII));
+    }
+
+    private void indexBeforeRestart(long id, String text) throws Exception {
+        try (SegmentStore previousRun = new SegmentStore(directory, 1 << 20)) {
+            previousRun.appendAdd(SearchDocument.of(SearchDocument.Type.MESSAGE, id, null,
+                new String[] { "bob" }, new String[] { "Old" }, text));
+        }
+        openStore();
+    }
+
+    private void enableReplication() {
+        ReflectionTestUtils.setField(service, "replicationEnabled", true);
+        ReflectionTestUtils.setField(service, "indexDir", directory.toString());
+        when(redisTemplate.getIfAvailable()).thenReturn(redis);
+        when(redis.opsForStream()).thenReturn(stream);
+    }
+
+    private static MapRecord<String, Object, Object> entry(String id, String mutation) {
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put("node", "other-node");
+        fields.put("mutation", mutation);
+        return StreamRecords.<String, Object, Object>mapBacked(fields).withStreamKey("search:log")
+            .withId(RecordId.of(id));
+    }
+
+    private void openStore() throws Exception {
+        store = new SegmentStore(directory, 1 << 20);
+        ReflectionTestUtils.setField(service, "store", store);
+    }
+}
@@ -0,0 +1,67 @@
+package com.lotus.lotusSPM.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMutationsSurviveRestart() throws Exception {
+        // Given
+        try (SegmentStore store = new SegmentStore(directory, 256)) {
+            for (long id = 1; id <= 20; id++) {
+                store.appendAdd(document(id, "message number " + id));
+            }
+            store.appendDelete(SearchDocument.key(SearchDocument.Type.MESSAGE, 5));
+        }
+
+        // When
+        InvertedIndex restored = new InvertedIndex();
+        try (SegmentStore store = new SegmentStore(directory, 256)) {
+            assertTrue(store.sealedCount() > 0, "Small segment size should force sealing");
+            store.replay(restored::add, restored::remove);
+        }
+
+        // Then
+        assertEquals(19, restored.size());
+        assertEquals(0, restored.search("number", d -> d.getId() == 5, 0, 10).getTotal());
+    }
+
+    @Test
+    void testCompactionKeepsOnlyLiveDocuments() throws Exception {
+        // Given
+        InvertedIndex index = new InvertedIndex();
+        try (SegmentStore store = new SegmentStore(directory, 128)) {
+            for (long id = 1; id <= 10; id++) {
+                SearchDocument doc = document(id, "text " + id);
+                index.add(doc);
+                store.appendAdd(doc);
+            }
+            index.remove(SearchDocument.key(SearchDocument.Type.MESSAGE, 1));
+            store.appendDelete(SearchDocument.key(SearchDocument.Type.MESSAGE, 1));
+
+            // When
+            store.compact(index.snapshot());
+            assertEquals(1, store.sealedCount());
+        }
+
+        // Then
+        InvertedIndex restored = new InvertedIndex();
+        try (SegmentStore store = new SegmentStore(directory, 128)) {
+            store.replay(restored::add, restored::remove);
+        }
+        assertEquals(9, restored.size());
+    }
+
+    private static SearchDocument document(long id, String text) {
+        return SearchDocument.of(SearchDocument.Type.MESSAGE, id, null, new String[] { "alice" },
+            new String[] { "subject" }, text);
+    }
+}
@@ -0,0 +1,119 @@
+package com.lotus.lotusSPM.service;
+
+import com.lotus.lotusSPM.archive.MessageArchiveService;
+import com.lotus.lotusSPM.dao.MessageThreadDao;
+import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.model.MessageThread;
+import com.lotus.lotusSPM.model.Messages;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageThreadServiceTest {
+
+    private static final Long THREAD_ID = 5L;
+    private static final LocalDateTime SENT_AT = LocalDateTime.of(2026, 3, 2, 10, 0);
+
+    @Mock
+    private MessageThreadDao messageThreadDao;
+
+    @Mock
+    private MessagesDao messagesDao;
+
+    @Mock
+    private MessageArchiveService messageArchiveService;
+
+    @InjectMocks
+    private MessageThreadServiceImpl messageThreadService;
+
+    private Messages removed;
+    private MessageThread thread;
+
+    @BeforeEach
+    void setUp() {
+        removed = new Messages(11L, "alice", "bob", null, null, "Hello", null, "hi bob", null);
+        removed.setThreadId(THREAD_ID);
+        removed.setSentAt(SENT_AT);
+
+        thread = new MessageThread("key", "alice", "bob", "Hello", null);
+        thread.setId(THREAD_ID);
+        thread.setLastMessageId(12L);
+    }
+
+    @Test
+    void testRemovingUnreadMessageDecrementsCountersInPlace() {
+        // Given
+        when(messageThreadDao.removeMessage(THREAD_ID)).thenReturn(1);
+        when(messagesDao.countByThreadIdAndToAndSentAtAfter(THREAD_ID, "bob", SENT_AT)).thenReturn(1L);
+        when(messageThreadDao.removeUnreadLow(THREAD_ID, "bob", 1)).thenReturn(0);
+        when(messageThreadDao.findById(THREAD_ID)).thenReturn(Optional.of(thread));
+
+        // When
+        messageThreadService.onMessageRemoved(removed);
+
+        // Then
+        verify(messageThreadDao).removeUnreadHigh(THREAD_ID, "bob", 1);
+        verify(messageThreadDao).deleteIfEmpty(THREAD_ID);
+        verify(messageThreadDao, never()).save(any());
+        verify(messageThreadDao, never()).replaceLastMessage(anyLong(), anyLong(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void testRemovingFinalMessageDeletesThread() {
+        // Given
+        when(messageThreadDao.removeMessage(THREAD_ID)).thenReturn(1);
+        when(messageThreadDao.removeUnreadLow(THREAD_ID, "bob", 0)).thenReturn(0);
+        when(messageThreadDao.deleteIfEmpty(THREAD_ID)).thenReturn(1);
+
+        // When
+        messageThreadService.onMessageRemoved(removed);
+
+        // Then
+        verify(messageThreadDao, never()).findById(any());
+    }
+
+    @Test
+    void testRemovingLatestMessageFallsBackToArchiveForSummary() {
+        // Given
+        thread.setLastMessageId(removed.getId());
+        Messages older = new Messages(3L, "bob", "alice", null, null, "Hello", null, "archived reply", null);
+        older.setSentAt(SENT_AT.minusYears(2));
+        when(messageThreadDao.removeMessage(THREAD_ID)).thenReturn(1);
+        when(messageThreadDao.removeUnreadLow(THREAD_ID, "bob", 0)).thenReturn(0);
+        when(messageThreadDao.findById(THREAD_ID)).thenReturn(Optional.of(thread));
+        when(messagesDao.findFirstByThreadIdOrderBySentAtDesc(THREAD_ID)).thenReturn(null);
+        when(messageArchiveService.findByThread(THREAD_ID, 0, 1)).thenReturn(Collections.singletonList(older));
+
+        // When
+        messageThreadService.onMessageRemoved(removed);
+
+        // Then
+        verify(messageThreadDao).replaceLastMessage(THREAD_ID, 11L, 3L, "bob", "archived reply", older.getSentAt());
+    }
+
+    @Test
+    void testRemovingFromDeletedThreadStops() {
+        // Given
+        when(messageThreadDao.removeMessage(THREAD_ID)).thenReturn(0);
+
+        // When
+        messageThreadService.onMessageRemoved(removed);
+
+        // Then
+        verify(messageThreadDao, never()).removeUnreadLow(any(), any(), anyInt());
+        verify(messageThreadDao, never()).deleteIfEmpty(any());
+    }
+}
@@ -0,0 +1,118 @@
+package com.lotus.lotusSPM.service;
+
+import com.lotus.lotusSPM.archive.MessageArchiveService;
+import com.lotus.lotusSPM.dao.MessagesDao;
+import com.lotus.lotusSPM.model.Messages;
+import com.lotus.lotusSPM.search.SearchIndexService;
+import com.lotus.lotusSPM.service.base.MessageThreadService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessagesServiceTest {
+
+    private static final Long THREAD_ID = 7L;
+
+    @Mock
+    private MessagesDao messagesDao;
+
+    @Mock
+    private MessageThreadService messageThreadService;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private MessageArchiveService messageArchiveService;
+
+    @InjectMocks
+    private MessagesServiceImpl messagesService;
+
+    @Test
+    void testThreadPageContinuesIntoArchive() {
+        // Given
+        PageRequest pageable = PageRequest.of(0, 3);
+        when(messagesDao.findByThreadIdOrderBySentAtDesc(THREAD_ID, pageable))
+            .thenReturn(new SliceImpl<>(Arrays.asList(message(20L), message(19L)), pageable, false));
+        when(messageArchiveService.findByThread(THREAD_ID, 0, 2)).thenReturn(Arrays.asList(message(4L), message(3L)));
+
+        // When
+        Slice<Messages> page = messagesService.findByThread(THREAD_ID, pageable);
+
+        // Then
+        assertEquals(Arrays.asList(20L, 19L, 4L), ids(page.getContent()));
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    void testThreadPagePastHotRowsReadsArchiveAtOffset() {
+        // Given
+        PageRequest pageable = PageRequest.of(2, 3);
+        when(messagesDao.findByThreadIdOrderBySentAtDesc(THREAD_ID, pageable))
+            .thenReturn(new SliceImpl<>(Collections.<Messages>emptyList(), pageable, false));
+        when(messagesDao.countByThreadId(THREAD_ID)).thenReturn(4L);
+        when(messageArchiveService.findByThread(THREAD_ID, 2, 4)).thenReturn(Collections.singletonList(message(1L)));
+
+        // When
+        Slice<Messages> page = messagesService.findByThread(THREAD_ID, pageable);
+
+        // Then
+        assertEquals(Collections.singletonList(1L), ids(page.getContent()));
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testFullHotPageSkipsArchive() {
+        // Given
+        PageRequest pageable = PageRequest.of(0, 1);
+        when(messagesDao.findByThreadIdOrderBySentAtDesc(THREAD_ID, pageable))
+            .thenReturn(new SliceImpl<>(Collections.singletonList(message(20L)), pageable, true));
+
+        // When
+        messagesService.findByThread(THREAD_ID, pageable);
+
+        // Then
+        verifyNoInteractions(messageArchiveService);
+    }
+
+    @Test
+    void testDeletingArchivedMessageUpdatesThread() {
+        // Given
+        Messages archived = message(4L);
+        when(messagesDao.findById(4L)).thenReturn(Optional.empty());
+        when(messageArchiveService.findById(4L)).thenReturn(Optional.of(archived));
+        when(messageArchiveService.delete(4L)).thenReturn(true);
+
+        // When
+        messagesService.deleteMessage(4L);
+
+        // Then
+        verify(messageThreadService).onMessageRemoved(archived);
+        verify(messagesDao, never()).deleteById(4L);
+    }
+
+    private static Messages message(Long id) {
+        Messages message = new Messages(id, "alice", "bob", null, null, "Hello", null, "text " + id, null);
+        message.setThreadId(THREAD_ID);
+        return message;
+    }
+
+    private static List<Long> ids(List<Messages> messages) {
+        return messages.stream().map(Messages::getId).collect(Collectors.toList());
+    }
+}
@@ -104,6 +104,21 @@ class StudentServiceTest {
         verify(studentDao, times(1)).save(any(Student.class));
     }
 
+    @Test
+    void testCreateStudentIgnoresClientId() {
+        // Given
+        Student newStudent = new Student();
+        newStudent.setId(1L);
+        newStudent.setUsername("newstudent");
+        when(studentDao.save(any(Student.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        Student result = studentService.createStudent(newStudent);
+
+        // Then
+        assertNull(result.getId());
+    }
+
     @Test
     void testDeleteStudent() {
         // Given
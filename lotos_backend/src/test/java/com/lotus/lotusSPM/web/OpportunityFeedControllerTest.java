@@ -0,0 +1,127 @@
+package com.lotus.lotusSPM.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lotus.lotusSPM.cluster.ClusterEventBus;
+import com.lotus.lotusSPM.dao.OpportunitiesDao;
+import com.lotus.lotusSPM.dto.OpportunitySummary;
+import com.lotus.lotusSPM.opportunity.OpportunityFeedCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class OpportunityFeedControllerTest {
+
+    @Mock
+    private OpportunitiesDao opportunitiesDao;
+
+    @Mock
+    private ClusterEventBus clusterEventBus;
+
+    private OpportunityFeedCache feedCache;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(opportunitiesDao.findActiveSummaries()).thenReturn(Arrays.asList(
+            new OpportunitySummary(2L, "Backend intern", "Acme", "Izmir", null, "2026-12-01", null, "Apply online",
+                "career", "Internship", null, null),
+            new OpportunitySummary(1L, "Data intern", "Acme", "Ankara", null, "2026-11-01", null, "Apply online",
+                "career", "Internship", null, null)));
+
+        feedCache = new OpportunityFeedCache();
+        ReflectionTestUtils.setField(feedCache, "opportunitiesDao", opportunitiesDao);
+        ReflectionTestUtils.setField(feedCache, "clusterEventBus", clusterEventBus);
+        ReflectionTestUtils.setField(feedCache, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(feedCache, "maxSnapshotAgeSeconds", 300L);
+
+        OpportunityFeedController controller = new OpportunityFeedController();
+        ReflectionTestUtils.setField(controller, "feedCache", feedCache);
+        ReflectionTestUtils.setField(controller, "maxAgeSeconds", 30L);
+        ReflectionTestUtils.setField(controller, "staleWhileRevalidateSeconds", 60L);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feedCache.shutdown();
+    }
+
+    @Test
+    void testFeedCarriesValidatorsAndCacheControl() throws Exception {
+        // When
+        ResultActions response = mockMvc.perform(get("/api/opportunities"));
+
+        // Then
+        MvcResult result = response
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, feedCache.current().getEtag()))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=30, public, stale-while-revalidate=60"))
+            .andReturn();
+        assertArrayEquals(feedCache.current().getBody(), result.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void testMatchingEtagGets304WithoutBody() throws Exception {
+        // Given
+        String etag = feedCache.current().getEtag();
+
+        // When
+        ResultActions response = mockMvc.perform(get("/api/opportunities").header(HttpHeaders.IF_NONE_MATCH, etag));
+
+        // Then
+        MvcResult result = response
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andReturn();
+        assertEquals(0, result.getResponse().getContentLength());
+    }
+
+    @Test
+    void testStaleEtagGetsTheFeed() throws Exception {
+        mockMvc.perform(get("/api/opportunities").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testNotModifiedSinceGets304() throws Exception {
+        // Given
+        long lastModified = feedCache.current().getLastModified();
+
+        // When / Then
+        mockMvc.perform(get("/api/opportunities").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void testItemIsValidatedByItsOwnEtag() throws Exception {
+        // Given
+        OpportunityFeedCache.Snapshot snapshot = feedCache.current();
+        String itemEtag = snapshot.get(1L).getEtag();
+
+        // When / Then
+        mockMvc.perform(get("/api/opportunities/1").header(HttpHeaders.IF_NONE_MATCH, itemEtag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/opportunities/1").header(HttpHeaders.IF_NONE_MATCH, snapshot.getEtag()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, itemEtag))
+            .andExpect(jsonPath("$.id").value("1"));
+    }
+}
@@ -30,7 +30,6 @@ export const createMessage = async (message) => {
     'http://localhost:8085/message',
 
     {
-      id: 123,
       from: message.from,
       to: message.to,
       date: new Date().getDate() + '/' + new Date().getMonth() + '/' + new Date().getFullYear(),
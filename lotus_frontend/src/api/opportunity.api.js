@@ -1,10 +1,8 @@
 import axios from 'axios'
-const generateId = () => Number((Math.random() * 1000000).toFixed(0))
 
 export const putOpportunity = async (opportunity) => {
   const response = await axios.post(`http://localhost:8085/opportunitie`, {
     location: opportunity.location,
-    id: generateId(),
     url: opportunity.url,
     deadline: opportunity.deadline,
     companyName: opportunity.companyName,